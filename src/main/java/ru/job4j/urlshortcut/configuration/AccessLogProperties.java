@@ -0,0 +1,66 @@
+package ru.job4j.urlshortcut.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ru.job4j.urlshortcut.access-log")
+@Data
+public class AccessLogProperties {
+
+    /** Redirection log write mode. */
+    private Mode mode = Mode.SYNC;
+
+    /** Maximum number of the access records waiting to be written in asynchronous mode. */
+    private int queueCapacity = 65_536;
+
+    /** Maximum number of the access records written in one batch. */
+    private int flushSize = 500;
+
+    /** Time between two consecutive flushes of the queue (in milliseconds). */
+    private long flushInterval = 1000;
+
+    /** Behavior when the queue is full. */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    /** Time range of one access log partition (PostgreSQL only). */
+    private PartitionInterval partitionInterval = PartitionInterval.MONTH;
+
+    /** Number of the partitions created in advance for the upcoming periods. */
+    private int partitionsAhead = 3;
+
+    /** Number of days the access records are kept, {@code 0} to keep them forever. */
+    private int retentionDays = 0;
+
+    /** Time between two consecutive partition maintenance runs (in milliseconds). */
+    private long maintenanceInterval = 3_600_000;
+
+    /** Redirection log write mode. */
+    public enum Mode {
+
+        /** Each access record is written in the redirection request transaction. */
+        SYNC,
+
+        /** Access records are queued in memory and written in batches by background task. */
+        ASYNC
+    }
+
+    /** Behavior when the queue of the access records is full. */
+    public enum OverflowPolicy {
+
+        /** Access record is dropped and counted. */
+        DROP,
+
+        /** Caller waits until there is space in the queue. */
+        BLOCK
+    }
+
+    /** Time range of one access log partition. */
+    public enum PartitionInterval {
+
+        /** One partition per calendar day. */
+        DAY,
+
+        /** One partition per calendar month. */
+        MONTH
+    }
+}
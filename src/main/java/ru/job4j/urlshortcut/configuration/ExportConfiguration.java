@@ -0,0 +1,43 @@
+package ru.job4j.urlshortcut.configuration;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+
+/** Configuration of the bulk export endpoints. */
+@Configuration
+@EnableConfigurationProperties(ExportProperties.class)
+@RequiredArgsConstructor
+public class ExportConfiguration implements WebMvcConfigurer {
+
+    /** Request attribute marking the export requests, only they get the long export timeout. */
+    public static final String EXPORT_ATTRIBUTE = ExportConfiguration.class.getName() + ".EXPORT";
+
+    private final ExportProperties properties;
+
+    /**
+     * Applies the export timeout to the asynchronous processing of the marked requests,
+     * other asynchronous requests keep the default timeout.
+     * @param configurer asynchronous processing configurer
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                if (request instanceof AsyncWebRequest async && request.getAttribute(
+                        EXPORT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+                    async.setTimeout(properties.getTimeout());
+                }
+            }
+        });
+    }
+}
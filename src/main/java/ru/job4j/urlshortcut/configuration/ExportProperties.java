@@ -0,0 +1,24 @@
+package ru.job4j.urlshortcut.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ru.job4j.urlshortcut.export")
+@Data
+public class ExportProperties {
+
+    /** Number of the rows fetched from the database cursor by one round trip. */
+    private int fetchSize = 1_000;
+
+    /** Maximum number of the exports running at once, further exports are rejected. */
+    private int maxConcurrent = 4;
+
+    /** Maximum duration of one export, its request and transaction timeout (in milliseconds). */
+    private long timeout = 3_600_000;
+
+    /**
+     * Maximum time the export transaction may wait for a slow client between two reads
+     * before the database aborts it (in milliseconds, PostgreSQL only).
+     */
+    private long idleTimeout = 60_000;
+}
@@ -0,0 +1,21 @@
+package ru.job4j.urlshortcut.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ru.job4j.urlshortcut.hot-urls")
+@Data
+public class HotUrlProperties {
+
+    /** Hottest links tracking switch. */
+    private boolean enabled = true;
+
+    /**
+     * Number of the links counted in each window slice of a server,
+     * that is the maximum size of the requested ranking.
+     */
+    private int capacity = 50;
+
+    /** Time between two consecutive evictions of the idle servers (in milliseconds). */
+    private long evictionInterval = 600_000;
+}
@@ -0,0 +1,37 @@
+package ru.job4j.urlshortcut.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ru.job4j.urlshortcut.negative-lookup-filter")
+@Data
+public class NegativeLookupFilterProperties {
+
+    /** Whether unknown redirection keys are rejected by the filter before the database lookup. */
+    private boolean enabled = true;
+
+    /** Minimal number of keys the filter is sized for, actual size follows the table growth. */
+    private long expectedKeys = 1_000_000;
+
+    /** Desired false positive probability. */
+    private double fpp = 0.01;
+
+    /** Memory budget of the filter bit array (in bytes), caps the size at the cost of the FPP. */
+    private long maxMemory = 16L * 1024 * 1024;
+
+    /** Time between two consecutive full rebuilds dropping the deleted keys (in milliseconds). */
+    private long rebuildInterval = 3_600_000;
+
+    /** Time between two consecutive loads of the keys created by other nodes (in milliseconds). */
+    private long syncInterval = 5000;
+
+    /** Overlap of the consecutive loads of the created keys (in milliseconds). */
+    private long syncLag = 60_000;
+
+    /**
+     * Whether this node is the only one registering URLs. Otherwise, the unknown short codes
+     * below the allocator high-water mark and the IDs newer than the last load are looked up
+     * in the database, as they might be registered by another node.
+     */
+    private boolean singleNode = false;
+}
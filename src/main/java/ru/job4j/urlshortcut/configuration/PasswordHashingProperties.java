@@ -0,0 +1,18 @@
+package ru.job4j.urlshortcut.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ru.job4j.urlshortcut.password-hashing")
+@Data
+public class PasswordHashingProperties {
+
+    /** BCrypt work factor (log2 of the rounds), from 4 to 31. */
+    private int strength = 10;
+
+    /** Number of the threads hashing and verifying the passwords. */
+    private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /** Maximum number of the hashing tasks waiting for a thread before rejecting new ones. */
+    private int queueCapacity = 32;
+}
@@ -0,0 +1,15 @@
+package ru.job4j.urlshortcut.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ru.job4j.urlshortcut.redirect-cache")
+@Data
+public class RedirectCacheProperties {
+
+    /** Maximum number of the redirect targets to keep in the cache. */
+    private long maximumSize = 10_000;
+
+    /** Maximum time to keep a redirect target in the cache (in seconds). */
+    private long ttl = 600;
+}
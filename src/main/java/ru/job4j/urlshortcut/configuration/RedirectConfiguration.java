@@ -0,0 +1,95 @@
+package ru.job4j.urlshortcut.configuration;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.AbstractProtocol;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import ru.job4j.urlshortcut.controller.RedirectFilter;
+import ru.job4j.urlshortcut.controller.RedirectResolver;
+
+import javax.servlet.Filter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/** Configuration of the lightweight redirection path. */
+@Configuration
+@EnableConfigurationProperties(RedirectProperties.class)
+public class RedirectConfiguration {
+
+    /**
+     * Order of the dedicated connector check. It must run first: the API requests
+     * received by the redirection connector are rejected before any other filter.
+     */
+    private static final int CONNECTOR_FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE;
+
+    /** Order of the redirection filter: right after the connector check, before security. */
+    private static final int REDIRECT_FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 1;
+
+    /**
+     * Registers the redirection filter ahead of all the other filters including security ones,
+     * except the dedicated connector check.
+     * @param resolver redirection keys resolver
+     * @return filter registration
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "ru.job4j.urlshortcut.redirect", name = "filter-enabled",
+            matchIfMissing = true)
+    public FilterRegistrationBean<RedirectFilter> redirectFilter(RedirectResolver resolver) {
+        FilterRegistrationBean<RedirectFilter> registration =
+                new FilterRegistrationBean<>(new RedirectFilter(resolver));
+        registration.addUrlPatterns(RedirectFilter.PREFIX + "*");
+        registration.setOrder(REDIRECT_FILTER_ORDER);
+        return registration;
+    }
+
+    /**
+     * Adds the connector with its own thread pool dedicated to redirections,
+     * so the redirection load doesn't starve the API requests and vice versa.
+     * @param properties redirection properties
+     * @return web server customizer
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "ru.job4j.urlshortcut.redirect", name = "port")
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> redirectConnector(
+            RedirectProperties properties) {
+        return factory -> {
+            if (properties.getPort() <= 0) {
+                return;
+            }
+            Connector connector = new Connector(TomcatServletWebServerFactory.DEFAULT_PROTOCOL);
+            connector.setPort(properties.getPort());
+            if (connector.getProtocolHandler() instanceof AbstractProtocol<?> protocol) {
+                protocol.setMaxThreads(properties.getMaxThreads());
+            }
+            factory.addAdditionalTomcatConnectors(connector);
+        };
+    }
+
+    /**
+     * Restricts the dedicated connector to the redirection requests only.
+     * @param properties redirection properties
+     * @return filter registration
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "ru.job4j.urlshortcut.redirect", name = "port")
+    public FilterRegistrationBean<Filter> redirectConnectorFilter(RedirectProperties properties) {
+        Filter filter = (request, response, chain) -> {
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            if (request.getLocalPort() == properties.getPort() && !httpRequest.getRequestURI()
+                    .startsWith(httpRequest.getContextPath() + RedirectFilter.PREFIX)) {
+                ((HttpServletResponse) response).sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            chain.doFilter(request, response);
+        };
+        FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(CONNECTOR_FILTER_ORDER);
+        return registration;
+    }
+}
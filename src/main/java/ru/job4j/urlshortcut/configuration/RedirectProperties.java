@@ -0,0 +1,21 @@
+package ru.job4j.urlshortcut.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ru.job4j.urlshortcut.redirect")
+@Data
+public class RedirectProperties {
+
+    /** Maximal cache lifetime of the cacheable redirection responses (in seconds). */
+    private long maxAge = 86_400;
+
+    /** Whether redirections are served by the lightweight filter bypassing security and MVC. */
+    private boolean filterEnabled = true;
+
+    /** Port of the additional connector dedicated to redirections or 0 if not used. */
+    private int port;
+
+    /** Maximal number of the request processing threads of the additional connector. */
+    private int maxThreads = 200;
+}
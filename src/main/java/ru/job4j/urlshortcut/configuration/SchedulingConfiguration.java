@@ -0,0 +1,9 @@
+package ru.job4j.urlshortcut.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** Application background tasks scheduling configuration class. */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration { }
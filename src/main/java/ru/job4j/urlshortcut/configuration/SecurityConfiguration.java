@@ -1,7 +1,8 @@
 package ru.job4j.urlshortcut.configuration;
 
-import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,7 +10,8 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configurers.oauth2.server.resource.OAuth2ResourceServerConfigurer;
-import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
@@ -21,35 +23,49 @@ import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
 import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import ru.job4j.urlshortcut.service.CachingJwtDecoder;
+import ru.job4j.urlshortcut.util.HmacJwtEncoder;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import java.util.List;
+import java.util.Map;
 
 /** Application web-security configuration class. */
 @RequiredArgsConstructor
 @Configuration
-@EnableConfigurationProperties(SecurityProperties.class)
+@EnableConfigurationProperties({SecurityProperties.class, TokenCacheProperties.class,
+        PasswordHashingProperties.class})
 @EnableWebSecurity
 public class SecurityConfiguration {
 
     /** Security-specific configuration properties. */
     private final SecurityProperties properties;
 
+    /** Verified tokens cache configuration properties. */
+    private final TokenCacheProperties tokenCacheProperties;
+
+    /** Password hashing configuration properties. */
+    private final PasswordHashingProperties passwordHashingProperties;
+
+    /**
+     * BCrypt encoder with the configured work factor. Hashes are prefixed with {@code {bcrypt}}
+     * as before, the hashes of a lower work factor still match and are reported for upgrade.
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+        return new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt",
+                new BCryptPasswordEncoder(passwordHashingProperties.getStrength())));
     }
 
     @Bean
     public JwtEncoder jwtEncoder() {
-        return new NimbusJwtEncoder(new ImmutableSecret<>(properties.getSecret().getBytes()));
+        return new HmacJwtEncoder(properties.getAlgorithm(), properties.getSecret().getBytes());
     }
 
     @Bean
-    public JwtDecoder jwtDecoder() {
+    public JwtDecoder jwtDecoder(ObjectProvider<MeterRegistry> registry) {
         SecretKey secretKey = new SecretKeySpec(properties.getSecret().getBytes(), "RSA");
         NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(secretKey)
                 .macAlgorithm(properties.getAlgorithm())
@@ -61,7 +77,11 @@ public class SecurityConfiguration {
                 new JwtClaimValidator<List<String>>(
                         JwtClaimNames.AUD, aud -> aud.contains(properties.getIssuer())));
         decoder.setJwtValidator(validator);
-        return decoder;
+        if (tokenCacheProperties.getMaximumSize() == 0) {
+            return decoder;
+        }
+        return new CachingJwtDecoder(
+                decoder, tokenCacheProperties.getMaximumSize(), registry.getIfAvailable());
     }
 
     @Bean
@@ -71,7 +91,8 @@ public class SecurityConfiguration {
                 .sessionManagement(AbstractHttpConfigurer::disable)
                 .oauth2ResourceServer(OAuth2ResourceServerConfigurer::jwt)
                 .authorizeHttpRequests(req -> req.antMatchers("/api/servers/register").permitAll())
-                .authorizeHttpRequests(req -> req.antMatchers("/api/token").permitAll())
+                .authorizeHttpRequests(req -> req.antMatchers(
+                        "/api/token", "/api/token/refresh", "/api/token/revoke").permitAll())
                 .authorizeHttpRequests(req -> req.antMatchers("/redirect/*").permitAll())
                 /* Authority 'SCOPE_USER' matches the JWT scope 'USER'.*/
                 .authorizeHttpRequests(req -> req.anyRequest().hasAuthority("SCOPE_USER"))
@@ -19,4 +19,7 @@ public class SecurityProperties {
 
     /** Token expiration time (in seconds). */
     private int expiration = 3600;
+
+    /** Refresh token expiration time (in seconds). */
+    private int refreshExpiration = 30 * 24 * 3600;
 }
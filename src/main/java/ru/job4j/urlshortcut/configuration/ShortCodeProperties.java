@@ -0,0 +1,18 @@
+package ru.job4j.urlshortcut.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ru.job4j.urlshortcut.short-code")
+@Data
+public class ShortCodeProperties {
+
+    /** Number of the short codes allocated by each application node at once. */
+    private int blockSize = 1000;
+
+    /**
+     * Key of the permutation mapping the allocated numbers to the codes. Must be the same
+     * on all the nodes and never changed once codes are allocated, or the codes may collide.
+     */
+    private long key = 0x2545F4914F6CDD1DL;
+}
@@ -0,0 +1,12 @@
+package ru.job4j.urlshortcut.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ru.job4j.urlshortcut.token-cache")
+@Data
+public class TokenCacheProperties {
+
+    /** Maximum number of the verified tokens to keep in the cache, {@code 0} disables it. */
+    private long maximumSize = 10_000;
+}
@@ -0,0 +1,27 @@
+package ru.job4j.urlshortcut.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ru.job4j.urlshortcut.unique-visitors")
+@Data
+public class UniqueVisitorProperties {
+
+    /** Unique visitors counting switch. */
+    private boolean enabled = true;
+
+    /**
+     * HyperLogLog sketch precision from 4 to 18: each sketch takes {@code 2^precision} bytes,
+     * standard error of the estimate is {@code 1.04 / sqrt(2^precision)}.
+     */
+    private int precision = 12;
+
+    /** Time between two consecutive flushes of the in-memory sketches (in milliseconds). */
+    private long flushInterval = 60_000;
+
+    /**
+     * Memory budget of the not flushed sketches (in bytes), when exceeded the sketches
+     * are flushed before the flush interval elapses.
+     */
+    private long maxMemory = 64L * 1024 * 1024;
+}
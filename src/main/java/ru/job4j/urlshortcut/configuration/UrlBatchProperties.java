@@ -0,0 +1,12 @@
+package ru.job4j.urlshortcut.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ru.job4j.urlshortcut.url-batch")
+@Data
+public class UrlBatchProperties {
+
+    /** Maximum number of the URL registrations in one batch request. */
+    private int maxSize = 1_000;
+}
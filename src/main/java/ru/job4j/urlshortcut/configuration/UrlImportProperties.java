@@ -0,0 +1,15 @@
+package ru.job4j.urlshortcut.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ru.job4j.urlshortcut.url-import")
+@Data
+public class UrlImportProperties {
+
+    /** Number of the rows inserted by one transaction. */
+    private int chunkSize = 1_000;
+
+    /** Maximum length of one row (in characters), the longer rows are rejected. */
+    private int maxRowLength = 16_384;
+}
@@ -0,0 +1,12 @@
+package ru.job4j.urlshortcut.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ru.job4j.urlshortcut.visit-counters")
+@Data
+public class VisitCounterProperties {
+
+    /** Time between two consecutive flushes of the in-memory counters (in milliseconds). */
+    private long flushInterval = 5000;
+}
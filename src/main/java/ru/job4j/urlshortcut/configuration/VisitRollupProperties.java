@@ -0,0 +1,21 @@
+package ru.job4j.urlshortcut.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ru.job4j.urlshortcut.visit-rollups")
+@Data
+public class VisitRollupProperties {
+
+    /** Time between two consecutive aggregation runs (in milliseconds). */
+    private long interval = 60_000;
+
+    /** Delay of the aggregation behind the current time to wait for late records (in ms). */
+    private long lag = 60_000;
+
+    /** Number of the days aggregated in parallel when the log is backfilled. */
+    private int backfillParallelism = 4;
+
+    /** Maximum number of the buckets in one requested series. */
+    private int maxBuckets = 2_000;
+}
@@ -1,11 +1,13 @@
 package ru.job4j.urlshortcut.controller;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import ru.job4j.urlshortcut.model.ErrorDetail;
+import ru.job4j.urlshortcut.util.TooManyRequestsException;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.stream.Collectors;
@@ -32,4 +34,21 @@ public class ExceptionHandlerController {
         ErrorDetail detail = new ErrorDetail(httpStatus, request.getRequestURI(), msg);
         return new ResponseEntity<>(detail, httpStatus);
     }
+
+    /**
+     * Global exception handler to process the rejections of the saturated resources.
+     * The client is asked to retry in a second.
+     *
+     * @param exception to handle
+     * @param request original HTTP servlet request
+     * @return HTTP REST response with error information
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorDetail> tooManyRequestsExceptionHandler(
+            TooManyRequestsException exception, HttpServletRequest request) {
+        HttpStatus httpStatus = HttpStatus.TOO_MANY_REQUESTS;
+        ErrorDetail detail = new ErrorDetail(
+                httpStatus, request.getRequestURI(), exception.getMessage());
+        return ResponseEntity.status(httpStatus).header(HttpHeaders.RETRY_AFTER, "1").body(detail);
+    }
 }
@@ -1,47 +1,67 @@
 package ru.job4j.urlshortcut.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.server.ResponseStatusException;
-import org.springframework.web.servlet.view.RedirectView;
-import ru.job4j.urlshortcut.model.Url;
-import ru.job4j.urlshortcut.service.UrlService;
-import ru.job4j.urlshortcut.util.EntityNotFoundException;
+import ru.job4j.urlshortcut.model.RedirectTarget;
 
+import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.Optional;
 
-/** Controller class to handle requests for {@code Url} entities redirection. */
+/**
+ * Controller class to handle requests for {@code Url} entities redirection.
+ * Redirection status and caching headers are written directly according the {@code Url} policy,
+ * missing and expired entities are answered with the pre-built responses without exceptions,
+ * so the error path allocates almost nothing.
+ * The requests are usually served by the {@link RedirectFilter} before reaching the controller.
+ */
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("redirect")
 public class RedirectController {
 
-    private final UrlService service;
+    private static final ResponseEntity<byte[]> NOT_FOUND = ResponseEntity
+            .status(HttpStatus.NOT_FOUND)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(RedirectResolver.NOT_FOUND_BODY);
+
+    private static final ResponseEntity<byte[]> GONE = ResponseEntity
+            .status(HttpStatus.GONE)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(RedirectResolver.GONE_BODY);
+
+    private final RedirectResolver resolver;
 
     /**
      * Handles request to redirect {@code Url} entity.
+     * Both UUID and short code formats of the {@code Url} key are accepted.
      *
-     * @param uuid ID of the {@code Url}
+     * @param key ID or short code of the {@code Url}
+     * @param request redirection request to identify the visitor
      * @return redirect response
      */
-    @GetMapping("{uuid}")
-    public RedirectView redirectByUuid(@PathVariable String uuid) {
-        Url url;
-        try {
-            url = service.getByIdAndLog(UUID.fromString(uuid));
-        } catch (EntityNotFoundException | IllegalArgumentException exception) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
-                    "URL with ID " + uuid + " not found.");
+    @GetMapping("{key}")
+    public ResponseEntity<byte[]> redirectByKey(@PathVariable String key,
+                                                HttpServletRequest request) {
+        Optional<RedirectTarget> found = resolver.find(key, request);
+        if (found.isEmpty()) {
+            return NOT_FOUND;
         }
-        if (url.getExpired().isBefore(LocalDateTime.now())) {
-            throw new ResponseStatusException(HttpStatus.GONE,
-                    "URL with ID " + uuid + " is inactive anymore.");
+        RedirectTarget target = found.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (target.isExpired(now)) {
+            return GONE;
         }
-        return new RedirectView(url.getUrl().toString());
+        return ResponseEntity.status(target.policy().status())
+                .header(HttpHeaders.LOCATION, target.location())
+                .header(HttpHeaders.CACHE_CONTROL, resolver.cacheControl(target, now))
+                .build();
     }
 }
@@ -0,0 +1,89 @@
+package ru.job4j.urlshortcut.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import ru.job4j.urlshortcut.model.RedirectTarget;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Lightweight servlet filter serving the {@code Url} redirections.
+ * The filter is placed before the security filter chain and writes the response itself,
+ * so the redirections skip the security and Spring MVC request processing.
+ * Requests other than {@code GET}/{@code HEAD} of the single key path are passed down the chain.
+ */
+@RequiredArgsConstructor
+public class RedirectFilter implements Filter {
+
+    /** Path prefix of the redirection requests. */
+    public static final String PREFIX = "/redirect/";
+
+    private final RedirectResolver resolver;
+
+    /** {@inheritDoc} */
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        String key = key(httpRequest);
+        if (key == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        Optional<RedirectTarget> found = resolver.find(key, httpRequest);
+        if (found.isEmpty()) {
+            writeError(httpResponse, HttpStatus.NOT_FOUND, RedirectResolver.NOT_FOUND_BODY);
+            return;
+        }
+        RedirectTarget target = found.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (target.isExpired(now)) {
+            writeError(httpResponse, HttpStatus.GONE, RedirectResolver.GONE_BODY);
+            return;
+        }
+        httpResponse.setStatus(target.policy().status().value());
+        httpResponse.setHeader(HttpHeaders.LOCATION, target.location());
+        httpResponse.setHeader(HttpHeaders.CACHE_CONTROL, resolver.cacheControl(target, now));
+        httpResponse.setContentLength(0);
+    }
+
+    /**
+     * Extracts the redirection key from the request path.
+     * @param request HTTP request
+     * @return key or {@code null} if the request is not a redirection one
+     */
+    private static String key(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)) {
+            return null;
+        }
+        String uri = request.getRequestURI();
+        int start = request.getContextPath().length() + PREFIX.length();
+        if (uri.length() <= start || !uri.startsWith(PREFIX, start - PREFIX.length())
+                || uri.indexOf('/', start) >= 0 || uri.indexOf(';', start) >= 0) {
+            return null;
+        }
+        return uri.substring(start);
+    }
+
+    private static void writeError(HttpServletResponse response, HttpStatus status, byte[] body)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
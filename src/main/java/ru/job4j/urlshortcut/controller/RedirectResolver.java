@@ -0,0 +1,85 @@
+package ru.job4j.urlshortcut.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import ru.job4j.urlshortcut.configuration.RedirectProperties;
+import ru.job4j.urlshortcut.model.RedirectTarget;
+import ru.job4j.urlshortcut.service.ShortCodeAllocator;
+import ru.job4j.urlshortcut.service.UniqueVisitorService;
+import ru.job4j.urlshortcut.service.UrlService;
+import ru.job4j.urlshortcut.util.Base62;
+import ru.job4j.urlshortcut.util.UuidParser;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Resolver of the redirection keys shared by the {@link RedirectController}
+ * and the {@link RedirectFilter}, so both redirection paths behave the same way.
+ */
+@RequiredArgsConstructor
+@Component
+@EnableConfigurationProperties(RedirectProperties.class)
+public class RedirectResolver {
+
+    /** Pre-built body of the response to the missing {@code Url} redirection. */
+    static final byte[] NOT_FOUND_BODY = errorBody(HttpStatus.NOT_FOUND, "URL not found.");
+
+    /** Pre-built body of the response to the expired {@code Url} redirection. */
+    static final byte[] GONE_BODY = errorBody(HttpStatus.GONE, "URL is inactive anymore.");
+
+    private static final String NO_STORE = "no-store";
+
+    private final UrlService service;
+    private final RedirectProperties properties;
+    private final UniqueVisitorService visitors;
+
+    /**
+     * Finds the redirection target, logs access and counts the visitor if found.
+     * Malformed keys are rejected without the service call.
+     * @param key ID or short code of the {@code Url}
+     * @param request redirection request to identify the visitor
+     * @return redirection target or empty {@code Optional} if not found
+     */
+    public Optional<RedirectTarget> find(String key, HttpServletRequest request) {
+        Optional<RedirectTarget> found;
+        if (key.length() == UuidParser.LENGTH) {
+            UUID uuid = UuidParser.parse(key);
+            found = uuid == UuidParser.INVALID
+                    ? Optional.empty() : service.findTargetByIdAndLog(uuid);
+        } else if (Base62.isValid(key,
+                ShortCodeAllocator.MIN_LENGTH, ShortCodeAllocator.MAX_LENGTH)) {
+            found = service.findTargetByCodeAndLog(key);
+        } else {
+            found = Optional.empty();
+        }
+        if (found.isPresent()) {
+            visitors.record(found.get().uuid(), request.getRemoteAddr(),
+                    request.getHeader(HttpHeaders.USER_AGENT));
+        }
+        return found;
+    }
+
+    /**
+     * Returns {@code Cache-Control} header value of the redirection response.
+     * @param target redirection target
+     * @param now current date and time
+     * @return header value
+     */
+    public String cacheControl(RedirectTarget target, LocalDateTime now) {
+        long maxAge = target.maxAge(now, properties.getMaxAge());
+        return maxAge > 0 ? "public, max-age=" + maxAge : NO_STORE;
+    }
+
+    private static byte[] errorBody(HttpStatus status, String message) {
+        return String.format("{\"status\":%d,\"error\":\"%s\",\"message\":\"%s\"}",
+                        status.value(), status.getReasonPhrase(), message)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -3,7 +3,6 @@ package ru.job4j.urlshortcut.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -12,6 +11,8 @@ import org.springframework.web.server.ResponseStatusException;
 import ru.job4j.urlshortcut.dto.JwtDtoMapper;
 import ru.job4j.urlshortcut.dto.LoginDto;
 import ru.job4j.urlshortcut.dto.JwtDto;
+import ru.job4j.urlshortcut.dto.RefreshTokenDto;
+import ru.job4j.urlshortcut.model.TokenGrant;
 import ru.job4j.urlshortcut.service.SecurityService;
 import ru.job4j.urlshortcut.util.EntityNotFoundException;
 import ru.job4j.urlshortcut.util.AccessUnauthorizedException;
@@ -35,8 +36,9 @@ public class SecurityController {
     @PostMapping
     public ResponseEntity<JwtDto> generateToken(@Valid @RequestBody LoginDto dto) {
         try {
-            Jwt jwt = securityService.generateToken(UUID.fromString(dto.uuid()), dto.password());
-            return ResponseEntity.ok(JwtDtoMapper.toDto(jwt));
+            TokenGrant grant = securityService
+                    .generateToken(UUID.fromString(dto.uuid()), dto.password());
+            return ResponseEntity.ok(JwtDtoMapper.toDto(grant));
         } catch (EntityNotFoundException | IllegalArgumentException exception) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,
                     "Server with ID " + dto.uuid() + " not found.");
@@ -44,4 +46,32 @@ public class SecurityController {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, exception.getMessage());
         }
     }
+
+    /**
+     * Handles request to exchange the refresh token for the new JWT and refresh token.
+     * The password is not verified again, the refresh token can be used once only.
+     * @param dto data transfer object with the refresh token
+     * @return DTO with token and corresponding information
+     */
+    @PostMapping("refresh")
+    public ResponseEntity<JwtDto> refreshToken(@RequestBody RefreshTokenDto dto) {
+        try {
+            return ResponseEntity.ok(JwtDtoMapper.toDto(
+                    securityService.refreshToken(dto.refreshToken())));
+        } catch (AccessUnauthorizedException exception) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, exception.getMessage());
+        }
+    }
+
+    /**
+     * Handles request to revoke the refresh token.
+     * Unknown and already revoked tokens are accepted as well.
+     * @param dto data transfer object with the refresh token
+     * @return status of the performed operation
+     */
+    @PostMapping("revoke")
+    public ResponseEntity<Void> revokeToken(@RequestBody RefreshTokenDto dto) {
+        securityService.revokeRefreshToken(dto.refreshToken());
+        return ResponseEntity.noContent().build();
+    }
 }
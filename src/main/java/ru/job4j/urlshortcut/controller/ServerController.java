@@ -2,7 +2,10 @@ package ru.job4j.urlshortcut.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,21 +14,39 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.job4j.urlshortcut.configuration.ExportConfiguration;
 import ru.job4j.urlshortcut.dto.PasswordDto;
 import ru.job4j.urlshortcut.dto.ServerRegistrationDto;
 import ru.job4j.urlshortcut.dto.ServerRegistrationDtoMapper;
 import ru.job4j.urlshortcut.dto.ServerStatisticsDto;
+import ru.job4j.urlshortcut.dto.TopUrlsDto;
+import ru.job4j.urlshortcut.dto.UrlPageDto;
+import ru.job4j.urlshortcut.dto.UrlVisitsDto;
+import ru.job4j.urlshortcut.dto.VisitSeriesDto;
+import ru.job4j.urlshortcut.model.DataFormat;
+import ru.job4j.urlshortcut.model.Granularity;
+import ru.job4j.urlshortcut.model.HotUrl;
 import ru.job4j.urlshortcut.model.Server;
-import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.model.Status;
+import ru.job4j.urlshortcut.model.TopWindow;
+import ru.job4j.urlshortcut.model.UrlFilter;
+import ru.job4j.urlshortcut.model.UrlPage;
+import ru.job4j.urlshortcut.model.VisitBucket;
+import ru.job4j.urlshortcut.service.ExportService;
 import ru.job4j.urlshortcut.service.ServerService;
 import ru.job4j.urlshortcut.service.UrlService;
 import ru.job4j.urlshortcut.util.EntityNotFoundException;
 import ru.job4j.urlshortcut.util.AccessUnauthorizedException;
+import ru.job4j.urlshortcut.util.PageCursor;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.security.Principal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -37,6 +58,7 @@ public class ServerController {
 
     private final ServerService serverService;
     private final UrlService urlService;
+    private final ExportService exportService;
 
     /**
      * Handles request for new server registration.
@@ -59,22 +81,128 @@ public class ServerController {
      * Handles request to get {@code Server} entity.
      * @param uuid ID of the {@code Server}
      * @param principal JWT authenticated user
-     * @return persisted server entity with specified ID
+     * @return persisted server entity with specified ID and its URLs with numbers of visits
      */
     @GetMapping("{uuid}")
     public ResponseEntity<ServerStatisticsDto> getServerByUuid(
             @PathVariable String uuid, Principal principal) {
+        Server server = ownedServer(uuid, principal);
+        List<UrlVisitsDto> urls = urlService.getAllWithVisitsByServerId(server.getUuid());
+        return ResponseEntity.ok(new ServerStatisticsDto(server, urls));
+    }
+
+    /**
+     * Handles request to get visits time series of all the server URLs.
+     * @param uuid ID of the {@code Server}
+     * @param from start of the time range, truncated to the bucket start
+     * @param to end of the time range exclusive
+     * @param granularity time bucket size
+     * @param principal JWT authenticated user
+     * @return visits per bucket including empty ones
+     */
+    @GetMapping("{uuid}/stats")
+    public ResponseEntity<VisitSeriesDto> getServerVisitSeries(
+            @PathVariable String uuid,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "HOUR") Granularity granularity,
+            Principal principal) {
+        UUID id = ownedServer(uuid, principal).getUuid();
         try {
-            UUID id = UUID.fromString(uuid);
-            Server server = serverService.getByIdAndHost(id, principal.getName());
-            List<Url> urls = urlService.getAllByServerId(id);
-            return ResponseEntity.ok(new ServerStatisticsDto(server, urls));
-        } catch (EntityNotFoundException | IllegalArgumentException exception) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
-                    "Server with ID " + uuid + " not found.");
+            List<VisitBucket> buckets =
+                    urlService.getServerVisitSeries(id, granularity, from, to);
+            return ResponseEntity.ok(new VisitSeriesDto(
+                    id, granularity, granularity.truncate(from), to, buckets));
+        } catch (IllegalArgumentException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exception.getMessage());
+        }
+    }
+
+    /**
+     * Handles request to get the page of the server URLs ordered by the creation time.
+     * Pages are chained with the opaque cursor returned with the previous page.
+     * @param uuid ID of the {@code Server}
+     * @param cursor position of the page start, the first page if omitted
+     * @param limit maximum number of the URLs
+     * @param status required URL status, any if omitted
+     * @param active {@code true} for not expired URLs, {@code false} for expired ones,
+     *               both if omitted
+     * @param principal JWT authenticated user
+     * @return page of the URLs with the next page cursor
+     */
+    @GetMapping("{uuid}/urls")
+    public ResponseEntity<UrlPageDto> getServerUrls(
+            @PathVariable String uuid,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) Status status,
+            @RequestParam(required = false) Boolean active,
+            Principal principal) {
+        UUID id = ownedServer(uuid, principal).getUuid();
+        try {
+            PageCursor after = cursor == null ? null : PageCursor.decode(cursor);
+            UrlPage page = urlService.getPageByServerId(
+                    id, new UrlFilter(status, active), after, limit);
+            return ResponseEntity.ok(new UrlPageDto(page.urls(),
+                    page.next() == null ? null : page.next().encode()));
+        } catch (IllegalArgumentException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exception.getMessage());
+        }
+    }
+
+    /**
+     * Handles request to get the hottest links of the server over the sliding time window.
+     * Rankings are estimated from the visits served by this application node.
+     * @param uuid ID of the {@code Server}
+     * @param window sliding time window
+     * @param limit maximum number of the links
+     * @param principal JWT authenticated user
+     * @return links ordered by the estimated number of visits descending
+     */
+    @GetMapping("{uuid}/top")
+    public ResponseEntity<TopUrlsDto> getServerTopUrls(
+            @PathVariable String uuid,
+            @RequestParam(defaultValue = "HOUR") TopWindow window,
+            @RequestParam(defaultValue = "10") int limit,
+            Principal principal) {
+        UUID id = ownedServer(uuid, principal).getUuid();
+        try {
+            List<HotUrl> urls = urlService.getServerTopUrls(id, window, limit);
+            return ResponseEntity.ok(new TopUrlsDto(id, window, urls));
+        } catch (IllegalArgumentException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exception.getMessage());
         }
     }
 
+    /**
+     * Handles request to export all the URLs of the server with their numbers of visits.
+     * Rows are streamed from the database cursor as they are read.
+     * Requests over the concurrent exports limit are rejected with {@code 429}.
+     * @param uuid ID of the {@code Server}
+     * @param format format of the rows
+     * @param principal JWT authenticated user
+     * @param request export request, marked to get the export timeout
+     * @return stream of the URLs ordered by the registration time
+     */
+    @GetMapping("{uuid}/export")
+    public ResponseEntity<StreamingResponseBody> exportServerUrls(
+            @PathVariable String uuid,
+            @RequestParam(defaultValue = "NDJSON") DataFormat format,
+            Principal principal, HttpServletRequest request) {
+        UUID id = ownedServer(uuid, principal).getUuid();
+        ExportService.Permit permit = exportService.acquire();
+        request.setAttribute(ExportConfiguration.EXPORT_ATTRIBUTE, Boolean.TRUE);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.mediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"urls-" + id + "." + format.extension() + "\"")
+                .body(output -> {
+                    try (permit) {
+                        exportService.exportServerUrls(id, format, output);
+                    }
+                });
+    }
+
     /**
      * Handles requests to change server password.
      * @param uuid ID of the {@code Server}
@@ -114,4 +242,21 @@ public class ServerController {
                     "Server with ID " + uuid + " not found.");
         }
     }
+
+    /**
+     * Finds the {@code Server} of the authenticated user.
+     * @param uuid ID of the {@code Server}
+     * @param principal JWT authenticated user
+     * @return persisted {@code Server} entity
+     * @throws ResponseStatusException with 404 status when the ID is malformed,
+     *         or the server doesn't exist or isn't the server of the user
+     */
+    private Server ownedServer(String uuid, Principal principal) {
+        try {
+            return serverService.getByIdAndHost(UUID.fromString(uuid), principal.getName());
+        } catch (EntityNotFoundException | IllegalArgumentException exception) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "Server with ID " + uuid + " not found.");
+        }
+    }
 }
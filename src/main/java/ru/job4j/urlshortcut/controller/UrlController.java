@@ -1,8 +1,13 @@
 package ru.job4j.urlshortcut.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,28 +15,65 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.job4j.urlshortcut.configuration.ExportConfiguration;
+import ru.job4j.urlshortcut.configuration.UrlBatchProperties;
+import ru.job4j.urlshortcut.dto.UrlBatchItemDto;
+import ru.job4j.urlshortcut.dto.UrlImportErrorDto;
+import ru.job4j.urlshortcut.dto.UrlLookupDto;
 import ru.job4j.urlshortcut.dto.UrlRegistrationDto;
 import ru.job4j.urlshortcut.dto.UrlRegistrationDtoMapper;
 import ru.job4j.urlshortcut.dto.UrlStatisticsDto;
+import ru.job4j.urlshortcut.dto.VisitSeriesDto;
+import ru.job4j.urlshortcut.model.DataFormat;
+import ru.job4j.urlshortcut.model.Granularity;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
 import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.model.UrlImportProgress;
+import ru.job4j.urlshortcut.model.UrlRegistrationResult;
+import ru.job4j.urlshortcut.model.VisitBucket;
+import ru.job4j.urlshortcut.service.ExportService;
+import ru.job4j.urlshortcut.service.UrlImportService;
+import ru.job4j.urlshortcut.service.UrlRegistrationValidator;
 import ru.job4j.urlshortcut.service.UrlService;
 import ru.job4j.urlshortcut.util.AccessForbiddenException;
 import ru.job4j.urlshortcut.util.EntityNotFoundException;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
-import java.net.MalformedURLException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 /** Controller class to handle requests for {@code Url} entities. */
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("api/urls")
+@EnableConfigurationProperties(UrlBatchProperties.class)
 public class UrlController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+
     private final UrlService service;
+    private final UrlBatchProperties batchProperties;
+    private final UrlRegistrationValidator validator;
+    private final UrlImportService importService;
+    private final ExportService exportService;
+    private final ObjectMapper mapper;
 
     /**
      * Handles request for new URL registration.
@@ -45,7 +87,7 @@ public class UrlController {
         try {
             Url url = service.create(UrlRegistrationDtoMapper.toEntity(dto), principal);
             return ResponseEntity.ok(url);
-        } catch (MalformedURLException exception) {
+        } catch (IllegalArgumentException exception) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "URL is incorrect");
         } catch (AccessForbiddenException exception) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN);
@@ -55,6 +97,113 @@ public class UrlController {
         }
     }
 
+    /**
+     * Handles request for a batch of new URL registrations.
+     * Each registration is validated separately and the malformed ones
+     * are reported without aborting the batch.
+     * @param dtos data transfer objects with registration information
+     * @param principal JWT authenticated user
+     * @return result of each registration in the order of the request
+     */
+    @PostMapping("register/batch")
+    public ResponseEntity<List<UrlBatchItemDto>> urlRegisterBatch(
+            @RequestBody(required = false) List<UrlRegistrationDto> dtos, Principal principal) {
+        if (dtos == null || dtos.isEmpty() || dtos.size() > batchProperties.getMaxSize()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch must contain from 1 to " + batchProperties.getMaxSize() + " URLs");
+        }
+        UrlRegistrationResult[] results = new UrlRegistrationResult[dtos.size()];
+        List<Url> urls = new ArrayList<>(dtos.size());
+        List<Integer> indexes = new ArrayList<>(dtos.size());
+        for (int i = 0; i < results.length; i++) {
+            try {
+                urls.add(validator.toEntity(dtos.get(i)));
+                indexes.add(i);
+            } catch (IllegalArgumentException exception) {
+                results[i] = UrlRegistrationResult.invalid(exception.getMessage());
+            }
+        }
+        if (!urls.isEmpty()) {
+            List<UrlRegistrationResult> created = service.createAll(urls, principal);
+            for (int i = 0; i < indexes.size(); i++) {
+                results[indexes.get(i)] = created.get(i);
+            }
+        }
+        List<UrlBatchItemDto> items = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            items.add(UrlBatchItemDto.of(i, results[i]));
+        }
+        return ResponseEntity.ok(items);
+    }
+
+    /**
+     * Handles request to import URL registrations from the NDJSON or CSV stream.
+     * The response is the NDJSON stream of the rejected rows and the progress
+     * after each saved chunk, flushed as the import goes.
+     * @param request request with the rows in the body
+     * @param response response to stream the import events
+     * @param principal JWT authenticated user
+     * @throws IOException when the request cannot be read or the response cannot be written
+     */
+    @PostMapping(value = "import", consumes = {NDJSON, CSV})
+    public void importUrls(HttpServletRequest request, HttpServletResponse response,
+                           Principal principal) throws IOException {
+        MediaType type = MediaType.parseMediaType(request.getContentType());
+        DataFormat format = type.isCompatibleWith(MediaType.valueOf(CSV))
+                ? DataFormat.CSV : DataFormat.NDJSON;
+        Charset charset = type.getCharset() == null ? StandardCharsets.UTF_8 : type.getCharset();
+        Reader input = new InputStreamReader(request.getInputStream(), charset);
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        Writer output = response.getWriter();
+        try {
+            importService.importUrls(input, format, principal, new UrlImportService.Listener() {
+                @Override
+                public void rejected(long line, UrlRegistrationResult result) {
+                    write(output, new UrlImportErrorDto(line, result.outcome(), result.message()));
+                }
+
+                @Override
+                public void progress(UrlImportProgress progress) {
+                    write(output, progress);
+                    try {
+                        response.flushBuffer();
+                    } catch (IOException exception) {
+                        throw new UncheckedIOException(exception);
+                    }
+                }
+            });
+        } catch (IllegalArgumentException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exception.getMessage());
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    /**
+     * Handles request to find the ID of the registered URL by its address.
+     * Addresses are compared by the digests of their canonical forms.
+     * @param url address to search
+     * @param principal JWT authenticated user
+     * @return requested address with the ID of the registered URL
+     */
+    @GetMapping("lookup")
+    public ResponseEntity<UrlLookupDto> lookupUrl(@RequestParam String url, Principal principal) {
+        ShortcutTarget address;
+        try {
+            address = ShortcutTarget.parse(url);
+        } catch (IllegalArgumentException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exception.getMessage());
+        }
+        if (!address.isHostedBy(principal.getName())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+        return service.findIdByUrl(address)
+                .map(uuid -> ResponseEntity.ok(new UrlLookupDto(address, uuid)))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "URL '" + url + "' not registered."));
+    }
+
     /**
      * Handles request to get {@code Url} entity.
      * @param uuid ID of the {@code Url}
@@ -64,20 +213,67 @@ public class UrlController {
     @GetMapping("{uuid}")
     public ResponseEntity<UrlStatisticsDto> getUrlByUuid(
             @PathVariable String uuid, Principal principal) {
+        Url url = ownedUrl(uuid, principal);
+        Long visited = service.getUrlVisitsCount(url.getUuid());
+        Long uniqueVisitors = service.getUrlUniqueVisitors(url.getUuid());
+        return ResponseEntity.ok(new UrlStatisticsDto(url, visited, uniqueVisitors));
+    }
+
+    /**
+     * Handles request to get {@code Url} visits time series.
+     * @param uuid ID of the {@code Url}
+     * @param from start of the time range, truncated to the bucket start
+     * @param to end of the time range exclusive
+     * @param granularity time bucket size
+     * @param principal JWT authenticated user
+     * @return visits per bucket including empty ones
+     */
+    @GetMapping("{uuid}/stats")
+    public ResponseEntity<VisitSeriesDto> getUrlVisitSeries(
+            @PathVariable String uuid,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "HOUR") Granularity granularity,
+            Principal principal) {
+        UUID id = ownedUrl(uuid, principal).getUuid();
         try {
-            UUID id = UUID.fromString(uuid);
-            Url url = service.getById(id);
-            if (!url.getUrl().getHost().equals(principal.getName())) {
-                throw new ResponseStatusException(HttpStatus.FORBIDDEN);
-            }
-            Long visited = service.getUrlVisitsCount(id);
-            return ResponseEntity.ok(new UrlStatisticsDto(url, visited));
-        } catch (EntityNotFoundException | IllegalArgumentException exception) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
-                    "URL with ID " + uuid + " not found.");
+            List<VisitBucket> buckets = service.getUrlVisitSeries(id, granularity, from, to);
+            return ResponseEntity.ok(new VisitSeriesDto(
+                    id, granularity, granularity.truncate(from), to, buckets));
+        } catch (IllegalArgumentException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exception.getMessage());
         }
     }
 
+    /**
+     * Handles request to export the access log records of the URL.
+     * Rows are streamed from the database cursor as they are read.
+     * Requests over the concurrent exports limit are rejected with {@code 429}.
+     * @param uuid ID of the {@code Url}
+     * @param format format of the rows
+     * @param principal JWT authenticated user
+     * @param request export request, marked to get the export timeout
+     * @return stream of the visits in no particular order
+     */
+    @GetMapping("{uuid}/visits/export")
+    public ResponseEntity<StreamingResponseBody> exportUrlVisits(
+            @PathVariable String uuid,
+            @RequestParam(defaultValue = "NDJSON") DataFormat format,
+            Principal principal, HttpServletRequest request) {
+        UUID id = ownedUrl(uuid, principal).getUuid();
+        ExportService.Permit permit = exportService.acquire();
+        request.setAttribute(ExportConfiguration.EXPORT_ATTRIBUTE, Boolean.TRUE);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.mediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"visits-" + id + "." + format.extension() + "\"")
+                .body(output -> {
+                    try (permit) {
+                        exportService.exportUrlVisits(id, format, output);
+                    }
+                });
+    }
+
     /**
      * Handles requests to delete {@code Url} entity.
      * @param uuid ID of the {@code Url}
@@ -94,4 +290,35 @@ public class UrlController {
                     "URL with ID " + uuid + " not found.");
         }
     }
+
+    /**
+     * Finds the {@code Url} of the authenticated user.
+     * @param uuid ID of the {@code Url}
+     * @param principal JWT authenticated user
+     * @return persisted {@code Url} entity
+     * @throws ResponseStatusException with 404 status when the ID is malformed
+     *         or the URL doesn't exist, with 403 status when the URL isn't hosted by the user
+     */
+    private Url ownedUrl(String uuid, Principal principal) {
+        Url url;
+        try {
+            url = service.getById(UUID.fromString(uuid));
+        } catch (EntityNotFoundException | IllegalArgumentException exception) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "URL with ID " + uuid + " not found.");
+        }
+        if (!url.getUrl().isHostedBy(principal.getName())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+        return url;
+    }
+
+    private void write(Writer output, Object event) {
+        try {
+            output.write(mapper.writeValueAsString(event));
+            output.write('\n');
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
 }
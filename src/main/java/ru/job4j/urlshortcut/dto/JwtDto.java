@@ -10,5 +10,8 @@ import java.time.Instant;
  * @param created JWT creation timestamp
  * @param expired JWT expiration timestamp
  * @param token encoded JWT
+ * @param refreshToken opaque token to get the next JWT without the password
+ * @param refreshExpired refresh token expiration timestamp
  */
-public record JwtDto(@HostName String host, Instant created, Instant expired, String token) { }
+public record JwtDto(@HostName String host, Instant created, Instant expired, String token,
+                     String refreshToken, Instant refreshExpired) { }
@@ -1,20 +1,24 @@
 package ru.job4j.urlshortcut.dto;
 
 import org.springframework.security.oauth2.jwt.Jwt;
+import ru.job4j.urlshortcut.model.TokenGrant;
 
 /** Mapper for {@link JwtDto} Data Transfer Object */
 public class JwtDtoMapper {
 
     /**
-     * Method to map a JWT to a DTO.
-     * @param jwt to map
+     * Method to map the issued tokens to a DTO.
+     * @param grant to map
      * @return DTO
      */
-    public static JwtDto toDto(Jwt jwt) {
+    public static JwtDto toDto(TokenGrant grant) {
+        Jwt jwt = grant.accessToken();
         return new JwtDto(
                 jwt.getSubject(),
                 jwt.getIssuedAt(),
                 jwt.getExpiresAt(),
-                jwt.getTokenValue());
+                jwt.getTokenValue(),
+                grant.refreshToken(),
+                grant.refreshExpired());
     }
 }
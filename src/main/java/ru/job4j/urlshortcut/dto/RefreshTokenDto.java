@@ -0,0 +1,7 @@
+package ru.job4j.urlshortcut.dto;
+
+/**
+ * Data Transfer Object to transfer the refresh token to exchange or revoke.
+ * @param refreshToken opaque refresh token
+ */
+public record RefreshTokenDto(String refreshToken) { }
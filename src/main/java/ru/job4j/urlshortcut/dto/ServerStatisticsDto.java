@@ -2,13 +2,12 @@ package ru.job4j.urlshortcut.dto;
 
 import org.springframework.lang.NonNull;
 import ru.job4j.urlshortcut.model.Server;
-import ru.job4j.urlshortcut.model.Url;
 
 import java.util.List;
 
 /**
  * Data Transfer Object to transfer information with {@code Server} statistics.
  * @param server {@code Server} entity
- * @param urls list of server-related {@code Url} entities
+ * @param urls list of server-related {@code Url} entities with their numbers of visits
  */
-public record ServerStatisticsDto(@NonNull Server server, @NonNull List<Url> urls) { }
+public record ServerStatisticsDto(@NonNull Server server, @NonNull List<UrlVisitsDto> urls) { }
@@ -0,0 +1,18 @@
+package ru.job4j.urlshortcut.dto;
+
+import org.springframework.lang.NonNull;
+import ru.job4j.urlshortcut.model.HotUrl;
+import ru.job4j.urlshortcut.model.TopWindow;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Data Transfer Object to transfer the hottest links of the {@code Server}.
+ * @param uuid ID of the {@code Server}
+ * @param window sliding time window of the ranking
+ * @param urls hottest links ordered by the number of visits descending
+ */
+public record TopUrlsDto(@NonNull UUID uuid,
+                         @NonNull TopWindow window,
+                         @NonNull List<HotUrl> urls) { }
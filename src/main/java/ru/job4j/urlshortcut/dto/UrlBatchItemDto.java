@@ -0,0 +1,30 @@
+package ru.job4j.urlshortcut.dto;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.model.UrlRegistrationResult;
+import ru.job4j.urlshortcut.model.UrlRegistrationResult.Outcome;
+
+/**
+ * Data Transfer Object to transfer the result of one {@code Url} registration of a batch.
+ * @param index position of the registration in the batch
+ * @param outcome registration outcome
+ * @param url persisted entity with actual ID if created
+ * @param message reason of the rejection if not created
+ */
+public record UrlBatchItemDto(int index,
+                              @NonNull Outcome outcome,
+                              @Nullable Url url,
+                              @Nullable String message) {
+
+    /**
+     * Creates the DTO of the registration result.
+     * @param index position of the registration in the batch
+     * @param result registration result
+     * @return DTO
+     */
+    public static UrlBatchItemDto of(int index, UrlRegistrationResult result) {
+        return new UrlBatchItemDto(index, result.outcome(), result.url(), result.message());
+    }
+}
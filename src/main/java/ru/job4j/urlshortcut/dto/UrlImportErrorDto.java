@@ -0,0 +1,12 @@
+package ru.job4j.urlshortcut.dto;
+
+import org.springframework.lang.NonNull;
+import ru.job4j.urlshortcut.model.UrlRegistrationResult.Outcome;
+
+/**
+ * Data Transfer Object to transfer the rejected row of the {@code Url} registrations import.
+ * @param line one-based number of the line of the input
+ * @param outcome reason of the rejection
+ * @param message description of the rejection
+ */
+public record UrlImportErrorDto(long line, @NonNull Outcome outcome, @NonNull String message) { }
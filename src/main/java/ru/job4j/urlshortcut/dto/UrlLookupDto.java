@@ -0,0 +1,14 @@
+package ru.job4j.urlshortcut.dto;
+
+import org.springframework.lang.NonNull;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+
+import java.util.UUID;
+
+/**
+ * Data Transfer Object to transfer the result of the {@code Url} lookup by its address.
+ * @param url requested address
+ * @param uuid ID of the {@code Url} registered with the equivalent address
+ */
+public record UrlLookupDto(@NonNull ShortcutTarget url, @NonNull UUID uuid) {
+}
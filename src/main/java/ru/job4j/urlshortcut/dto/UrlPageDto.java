@@ -0,0 +1,14 @@
+package ru.job4j.urlshortcut.dto;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import ru.job4j.urlshortcut.model.Url;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object to transfer one page of the {@code Server} URLs.
+ * @param urls {@code Url} entities of the page
+ * @param next opaque cursor of the next page or {@code null} if this page is the last one
+ */
+public record UrlPageDto(@NonNull List<Url> urls, @Nullable String next) { }
@@ -1,5 +1,7 @@
 package ru.job4j.urlshortcut.dto;
 
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+
 import javax.validation.constraints.PositiveOrZero;
 import javax.validation.constraints.Size;
 
@@ -8,6 +10,8 @@ import javax.validation.constraints.Size;
  * @param url URL address
  * @param expiration URL validity time in seconds or 0 if no expiration
  * @param description optional URL description
+ * @param redirectPolicy optional redirection and caching policy,
+ *                       not cacheable counted redirection if not specified
  */
 public record UrlRegistrationDto(
         @Size(max = 8192, message = "URL maximum length must be 8192 symbols")
@@ -15,4 +19,5 @@ public record UrlRegistrationDto(
         @PositiveOrZero(message = "Expiration time must be positive or 0 if no expiration")
         long expiration,
         @Size(max = 256, message = "Description maximum length must be 256 symbols")
-        String description) { }
+        String description,
+        RedirectPolicy redirectPolicy) { }
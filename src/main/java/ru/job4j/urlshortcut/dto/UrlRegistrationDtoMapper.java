@@ -1,9 +1,8 @@
 package ru.job4j.urlshortcut.dto;
 
+import ru.job4j.urlshortcut.model.ShortcutTarget;
 import ru.job4j.urlshortcut.model.Url;
 
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
@@ -20,22 +19,27 @@ public class UrlRegistrationDtoMapper {
         return new UrlRegistrationDto(
                 url.getUrl().toString(),
                 Duration.between(url.getCreated(), url.getExpired()).toSeconds(),
-                url.getDescription());
+                url.getDescription(),
+                url.getRedirectPolicy());
     }
 
     /**
      * Method to map a DTO to an entity.
      * @param dto to map
      * @return entity
+     * @throws IllegalArgumentException when the URL address is incorrect
      */
-    public static Url toEntity(UrlRegistrationDto dto) throws MalformedURLException {
+    public static Url toEntity(UrlRegistrationDto dto) {
         Url url = new Url();
         LocalDateTime created = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
         LocalDateTime expired = dto.expiration() > 0 ? created.plusSeconds(dto.expiration()) : null;
-        url.setUrl(new URL(dto.url()));
+        url.setUrl(ShortcutTarget.parse(dto.url()));
         url.setCreated(created);
         url.setExpired(expired);
         url.setDescription(dto.description());
+        if (dto.redirectPolicy() != null) {
+            url.setRedirectPolicy(dto.redirectPolicy());
+        }
         return url;
     }
 }
@@ -7,5 +7,8 @@ import ru.job4j.urlshortcut.model.Url;
  * Data Transfer Object to transfer information with {@code Url} statistics.
  * @param url {@code Url} entity
  * @param visited number of visits
+ * @param uniqueVisitors estimated number of unique visitors
  */
-public record UrlStatisticsDto(@NonNull Url url, @NonNull Long visited) { }
+public record UrlStatisticsDto(@NonNull Url url,
+                               @NonNull Long visited,
+                               @NonNull Long uniqueVisitors) { }
@@ -0,0 +1,46 @@
+package ru.job4j.urlshortcut.dto;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+import ru.job4j.urlshortcut.model.Status;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Data Transfer Object to transfer the {@code Url} with its number of visits.
+ * Projected directly from the query, without the managed {@code Url} entities.
+ * @param uuid ID of the {@code Url}
+ * @param code short code of the {@code Url} or {@code null} if not assigned
+ * @param serverUuid ID of the {@code Server} owning the {@code Url}
+ * @param url actual URL address
+ * @param created date and time when the URL was registered
+ * @param expired date and time when the URL will be expired
+ * @param status URL lifecycle and access status
+ * @param description URL description
+ * @param redirectPolicy HTTP redirection and caching policy
+ * @param visited number of visits
+ */
+public record UrlVisitsDto(@NonNull UUID uuid,
+                           @Nullable String code,
+                           @NonNull UUID serverUuid,
+                           @NonNull ShortcutTarget url,
+                           @NonNull LocalDateTime created,
+                           @NonNull LocalDateTime expired,
+                           @NonNull Status status,
+                           @Nullable String description,
+                           @NonNull RedirectPolicy redirectPolicy,
+                           long visited) {
+
+    /**
+     * Creates the copy with the additional visits.
+     * @param visits number of visits to add
+     * @return copy with the increased number of visits or this object if nothing added
+     */
+    public UrlVisitsDto addVisits(long visits) {
+        return visits == 0L ? this : new UrlVisitsDto(uuid, code, serverUuid, url, created,
+                expired, status, description, redirectPolicy, visited + visits);
+    }
+}
@@ -0,0 +1,23 @@
+package ru.job4j.urlshortcut.dto;
+
+import org.springframework.lang.NonNull;
+import ru.job4j.urlshortcut.model.Granularity;
+import ru.job4j.urlshortcut.model.VisitBucket;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Data Transfer Object to transfer the visit statistics time series.
+ * @param uuid ID of the {@code Url} or {@code Server}
+ * @param granularity time bucket size
+ * @param from start of the first bucket
+ * @param to end of the last bucket
+ * @param buckets visits per bucket including empty ones
+ */
+public record VisitSeriesDto(@NonNull UUID uuid,
+                             @NonNull Granularity granularity,
+                             @NonNull LocalDateTime from,
+                             @NonNull LocalDateTime to,
+                             @NonNull List<VisitBucket> buckets) { }
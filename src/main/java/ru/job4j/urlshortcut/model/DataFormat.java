@@ -0,0 +1,39 @@
+package ru.job4j.urlshortcut.model;
+
+/** Format of the imported and exported rows. */
+public enum DataFormat {
+
+    /** Newline delimited JSON: one object per line. */
+    NDJSON("application/x-ndjson", "ndjson"),
+
+    /**
+     * Comma-separated values with the header line naming the columns.
+     * Imported {@code Url} registrations have the {@code url} (required), {@code expiration},
+     * {@code description} and {@code redirectPolicy} columns in any order.
+     */
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    DataFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    /**
+     * Returns the media type of the format.
+     * @return media type without parameters
+     */
+    public String mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Returns the file name extension of the format.
+     * @return extension without the dot
+     */
+    public String extension() {
+        return extension;
+    }
+}
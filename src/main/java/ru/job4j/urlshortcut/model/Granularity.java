@@ -0,0 +1,48 @@
+package ru.job4j.urlshortcut.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/** Time bucket size of the visit statistics series. */
+public enum Granularity {
+
+    /** One bucket per hour. */
+    HOUR(ChronoUnit.HOURS),
+
+    /** One bucket per calendar day. */
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    Granularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Truncates the date and time to the start of the bucket.
+     * @param time date and time to truncate
+     * @return start of the bucket
+     */
+    public LocalDateTime truncate(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    /**
+     * Returns the start of the next bucket.
+     * @param bucket start of the bucket
+     * @return start of the next bucket
+     */
+    public LocalDateTime next(LocalDateTime bucket) {
+        return bucket.plus(1, unit);
+    }
+
+    /**
+     * Counts the buckets between two dates and times.
+     * @param from start of the range inclusive
+     * @param to end of the range exclusive
+     * @return number of the buckets
+     */
+    public long between(LocalDateTime from, LocalDateTime to) {
+        return unit.between(truncate(from), to.minusNanos(1).truncatedTo(unit)) + 1;
+    }
+}
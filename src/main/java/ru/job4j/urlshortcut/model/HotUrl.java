@@ -0,0 +1,13 @@
+package ru.job4j.urlshortcut.model;
+
+import org.springframework.lang.NonNull;
+
+import java.util.UUID;
+
+/**
+ * Estimated number of visits of one of the hottest links.
+ * @param uuid ID of the {@code Url}
+ * @param visits estimated number of visits, never less than the actual one
+ * @param error maximal overestimation of the number of visits
+ */
+public record HotUrl(@NonNull UUID uuid, long visits, long error) { }
@@ -0,0 +1,44 @@
+package ru.job4j.urlshortcut.model;
+
+import org.springframework.http.HttpStatus;
+
+/** HTTP redirection and caching policy of the {@code Url}. */
+public enum RedirectPolicy {
+
+    /**
+     * Temporary {@code 302 Found} redirection forbidden to be cached,
+     * so each visit reaches the service and is counted.
+     */
+    COUNTED(HttpStatus.FOUND, false),
+
+    /** Temporary {@code 307 Temporary Redirect} redirection cached until the URL expiration. */
+    TEMPORARY(HttpStatus.TEMPORARY_REDIRECT, true),
+
+    /** Permanent {@code 301 Moved Permanently} redirection cached until the URL expiration. */
+    PERMANENT(HttpStatus.MOVED_PERMANENTLY, true);
+
+    private final HttpStatus status;
+    private final boolean cacheable;
+
+    RedirectPolicy(HttpStatus status, boolean cacheable) {
+        this.status = status;
+        this.cacheable = cacheable;
+    }
+
+    /**
+     * Returns HTTP status code of the redirection response.
+     * @return HTTP status
+     */
+    public HttpStatus status() {
+        return status;
+    }
+
+    /**
+     * Checks if the redirection response may be cached by browsers and proxies.
+     * Visits served from the caches are not counted.
+     * @return {@code true} if the response is cacheable
+     */
+    public boolean isCacheable() {
+        return cacheable;
+    }
+}
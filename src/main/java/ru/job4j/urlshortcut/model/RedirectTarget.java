@@ -0,0 +1,64 @@
+package ru.job4j.urlshortcut.model;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Compact immutable representation of a {@code Url} entity required to perform redirection.
+ * @param uuid ID of the {@code Url}
+ * @param serverUuid ID of the {@code Server} owning the {@code Url}
+ * @param code short code of the {@code Url} or {@code null} if not assigned
+ * @param location pre-encoded value of the {@code Location} response header
+ * @param expired date and time when the URL will be expired or {@code null} if never
+ * @param policy redirection and caching policy
+ */
+public record RedirectTarget(@NonNull UUID uuid,
+                             @NonNull UUID serverUuid,
+                             @Nullable String code,
+                             @NonNull String location,
+                             @Nullable LocalDateTime expired,
+                             @NonNull RedirectPolicy policy) {
+
+    /**
+     * Creates redirect target from the {@code Url} entity.
+     * @param url entity to convert
+     * @return redirect target
+     */
+    public static RedirectTarget of(Url url) {
+        RedirectPolicy policy = url.getRedirectPolicy() == null
+                ? RedirectPolicy.COUNTED : url.getRedirectPolicy();
+        return new RedirectTarget(url.getUuid(), url.getServerUuid(), url.getCode(),
+                url.getUrl().location(),
+                url.getExpired(), policy);
+    }
+
+    /**
+     * Checks if the target is expired and no longer available.
+     * @param now current date and time
+     * @return {@code true} if the target is expired
+     */
+    public boolean isExpired(LocalDateTime now) {
+        return expired != null && expired.isBefore(now);
+    }
+
+    /**
+     * Calculates how long the redirection response may be cached: till the target expiration,
+     * but no longer than the specified limit.
+     * @param now current date and time
+     * @param limit maximal cache lifetime in seconds
+     * @return cache lifetime in seconds or {@code 0} if the response must not be cached
+     */
+    public long maxAge(LocalDateTime now, long limit) {
+        if (!policy.isCacheable()) {
+            return 0L;
+        }
+        if (expired == null) {
+            return limit;
+        }
+        return Math.max(0L, Math.min(limit, ChronoUnit.SECONDS.between(now, expired)));
+    }
+}
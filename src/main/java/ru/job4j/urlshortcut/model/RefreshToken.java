@@ -0,0 +1,67 @@
+package ru.job4j.urlshortcut.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import ru.job4j.urlshortcut.util.OpaqueToken;
+import ru.job4j.urlshortcut.util.UuidV7Generator;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Model class to store the refresh tokens of the servers. The token value is never stored,
+ * only its digest, the token is found by the unique index of the digest.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString
+@Entity(name = "RefreshToken")
+@Table(name = "refresh_tokens")
+public class RefreshToken {
+
+    /** Unique time-ordered identification number (version 7 UUID). */
+    @EqualsAndHashCode.Include
+    @Id
+    @GeneratedValue(generator = "uuid-v7")
+    @GenericGenerator(name = "uuid-v7", strategy = UuidV7Generator.STRATEGY)
+    @Column(name = "token_uuid", updatable = false)
+    private UUID uuid;
+
+    /** Digest of the token value. */
+    @ToString.Exclude
+    @Column(name = "token_digest", nullable = false, unique = true, updatable = false,
+            length = OpaqueToken.DIGEST_SIZE)
+    private byte[] digest;
+
+    /** Server the token is issued to. */
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "server_uuid", nullable = false, updatable = false)
+    private Server server;
+
+    /** Date and time when the token was issued. */
+    @Column(nullable = false, updatable = false)
+    @CreationTimestamp
+    private Instant created;
+
+    /** Date and time when the token will be expired. */
+    @Column(nullable = false, updatable = false)
+    private Instant expired;
+}
@@ -8,15 +8,16 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.UpdateTimestamp;
 import ru.job4j.urlshortcut.util.HostName;
+import ru.job4j.urlshortcut.util.UuidV7Generator;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
 import javax.validation.constraints.Size;
@@ -34,10 +35,11 @@ import java.util.UUID;
 @Table(name = "servers")
 public class Server {
 
-    /** Unique identification number generated by persistent storage. */
+    /** Unique time-ordered identification number (version 7 UUID). */
     @EqualsAndHashCode.Include
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "uuid-v7")
+    @GenericGenerator(name = "uuid-v7", strategy = UuidV7Generator.STRATEGY)
     @Column(name = "server_uuid", updatable = false)
     private UUID uuid;
 
@@ -0,0 +1,381 @@
+package ru.job4j.urlshortcut.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import ru.job4j.urlshortcut.util.Syntax;
+
+import java.util.Locale;
+
+/**
+ * Immutable pre-parsed URL address of the {@code Url} in the canonical form.
+ * The address is parsed once: the scheme and the host are lower-cased, the default port
+ * is omitted, the empty path is replaced by {@code /}, the percent-encoded unreserved
+ * characters are decoded, the hexadecimal digits of the other percent-encoded octets
+ * are upper-cased and the characters not allowed in the URI are percent-encoded as UTF-8.
+ * The canonical form is used as the {@code Location} header value as is.
+ * Addresses are equal when their canonical forms are equal, no name resolution is involved.
+ * Only the {@code http}, {@code https} and {@code ftp} addresses are accepted, so the targets
+ * can't run scripts or embed content in the client ({@code javascript:}, {@code data:}).
+ */
+public final class ShortcutTarget {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final String[] SCHEMES = {"http", "https", "ftp"};
+    private static final boolean[] UNRESERVED = new boolean[128];
+    private static final boolean[] USER_INFO = new boolean[128];
+    private static final boolean[] PATH = new boolean[128];
+
+    static {
+        String unreserved = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-._~";
+        String subDelimiters = "!$&'()*+,;=";
+        for (char c : unreserved.toCharArray()) {
+            UNRESERVED[c] = true;
+            USER_INFO[c] = true;
+            PATH[c] = true;
+        }
+        for (char c : (subDelimiters + ":").toCharArray()) {
+            USER_INFO[c] = true;
+            PATH[c] = true;
+        }
+        for (char c : "@/?".toCharArray()) {
+            PATH[c] = true;
+        }
+    }
+
+    private final String value;
+    private final String scheme;
+    private final String host;
+    private final int port;
+
+    private ShortcutTarget(String value, String scheme, String host, int port) {
+        this.value = value;
+        this.scheme = scheme;
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Parses the absolute hierarchical URL address and brings it to the canonical form.
+     * @param address URL address to parse
+     * @return parsed address
+     * @throws IllegalArgumentException when the address is incorrect
+     */
+    @JsonCreator
+    @NonNull
+    public static ShortcutTarget parse(@Nullable String address) {
+        long bounds = hostBounds(address);
+        if (bounds < 0) {
+            throw incorrect();
+        }
+        int hostStart = (int) (bounds >>> 32);
+        int hostEnd = (int) bounds;
+        int length = address.length();
+        int colon = address.indexOf(':');
+        int start = colon + 3;
+        int end = authorityEnd(address, hostEnd);
+        String scheme = address.substring(0, colon).toLowerCase(Locale.ROOT);
+        StringBuilder builder = new StringBuilder(length + 16).append(scheme).append("://");
+        if (hostStart > start) {
+            appendEncoded(builder, address, start, hostStart - 1, USER_INFO);
+            builder.append('@');
+        }
+        String host = address.substring(hostStart, hostEnd).toLowerCase(Locale.ROOT);
+        builder.append(host);
+        int port = hostEnd < end ? parsePort(address, hostEnd + 1, end) : -1;
+        if (port == defaultPort(scheme)) {
+            port = -1;
+        } else if (port != -1) {
+            builder.append(':').append(port);
+        }
+        if (end == length || address.charAt(end) != '/') {
+            builder.append('/');
+        }
+        int hash = address.indexOf('#', end);
+        if (hash < 0) {
+            appendEncoded(builder, address, end, length, PATH);
+        } else {
+            appendEncoded(builder, address, end, hash, PATH);
+            appendEncoded(builder.append('#'), address, hash + 1, length, PATH);
+        }
+        return new ShortcutTarget(builder.toString(), scheme, host, port);
+    }
+
+    /**
+     * Checks if the URL address is accepted by {@link #parse(String)} without parsing it:
+     * the check doesn't allocate and is suitable for the validation of the requests.
+     * @param address URL address to check
+     * @return {@code true} if the address can be parsed
+     */
+    public static boolean isValid(@Nullable CharSequence address) {
+        return hostBounds(address) >= 0;
+    }
+
+    /**
+     * Checks if the string is a host name or an IP address allowed in the URL address.
+     * @param host string to check
+     * @return {@code true} if the host is allowed
+     */
+    public static boolean isHost(@Nullable CharSequence host) {
+        return host != null && isHost(host, 0, host.length());
+    }
+
+    /**
+     * Returns the lower-cased scheme.
+     * @return scheme
+     */
+    @NonNull
+    public String scheme() {
+        return scheme;
+    }
+
+    /**
+     * Returns the lower-cased host name or IP address.
+     * @return host
+     */
+    @NonNull
+    public String host() {
+        return host;
+    }
+
+    /**
+     * Returns the explicit port.
+     * @return port or {@code -1} if the port is default for the scheme
+     */
+    public int port() {
+        return port;
+    }
+
+    /**
+     * Returns the value of the {@code Location} header redirecting to the address.
+     * @return canonical address
+     */
+    @NonNull
+    public String location() {
+        return value;
+    }
+
+    /**
+     * Checks if the address belongs to the host, host names are case-insensitive.
+     * @param host host name of the {@code Server}
+     * @return {@code true} if the address host is the specified one
+     */
+    public boolean isHostedBy(@Nullable String host) {
+        return this.host.equalsIgnoreCase(host);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other
+                || other instanceof ShortcutTarget target && value.equals(target.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
+    /**
+     * Returns the canonical address.
+     * @return canonical address
+     */
+    @JsonValue
+    @Override
+    public String toString() {
+        return value;
+    }
+
+    private static IllegalArgumentException incorrect() {
+        return new IllegalArgumentException("URL is incorrect");
+    }
+
+    private static int defaultPort(String scheme) {
+        return switch (scheme) {
+            case "http" -> 80;
+            case "https" -> 443;
+            case "ftp" -> 21;
+            default -> -1;
+        };
+    }
+
+    /** Checks that the address starts with one of the supported schemes, ignoring case. */
+    private static boolean isScheme(CharSequence address, int end) {
+        for (String scheme : SCHEMES) {
+            if (scheme.length() != end) {
+                continue;
+            }
+            int i = 0;
+            while (i < end && (address.charAt(i) | 0x20) == scheme.charAt(i)) {
+                i++;
+            }
+            if (i == end) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isHost(CharSequence host, int from, int to) {
+        if (from >= to) {
+            return false;
+        }
+        if (host.charAt(from) == '[') {
+            if (to - from < 3 || host.charAt(to - 1) != ']') {
+                return false;
+            }
+            for (int i = from + 1; i < to - 1; i++) {
+                char c = host.charAt(i);
+                if (!(c == ':' || c == '.' || Syntax.hexDigit(c) >= 0)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (int i = from; i < to; i++) {
+            char c = host.charAt(i);
+            boolean allowed = c < 128 ? UNRESERVED[c] && c != '~'
+                    : !Character.isWhitespace(c) && !Character.isISOControl(c);
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the host of the URL address checking the scheme, the host and the port.
+     * The user information, the path, the query and the fragment are percent-encoded
+     * by the parser, so any characters are allowed there.
+     * @return start index of the host in the high half and the end index in the low half,
+     *         or {@code -1} if the address is incorrect
+     */
+    private static long hostBounds(CharSequence address) {
+        if (address == null) {
+            return -1L;
+        }
+        int length = address.length();
+        int colon = indexOf(address, ':', 0, length);
+        if (colon < 1 || !isScheme(address, colon) || colon + 2 >= length
+                || address.charAt(colon + 1) != '/' || address.charAt(colon + 2) != '/') {
+            return -1L;
+        }
+        int start = colon + 3;
+        int end = authorityEnd(address, start);
+        int hostStart = start;
+        for (int i = end - 1; i >= start; i--) {
+            if (address.charAt(i) == '@') {
+                hostStart = i + 1;
+                break;
+            }
+        }
+        int hostEnd = hostStart;
+        if (hostEnd < end && address.charAt(hostEnd) == '[') {
+            hostEnd = indexOf(address, ']', hostStart, end) + 1;
+            if (hostEnd == 0) {
+                return -1L;
+            }
+        } else {
+            hostEnd = indexOf(address, ':', hostStart, end);
+            hostEnd = hostEnd < 0 ? end : hostEnd;
+        }
+        if (!isHost(address, hostStart, hostEnd) || hostEnd < end
+                && (address.charAt(hostEnd) != ':' || !isPort(address, hostEnd + 1, end))) {
+            return -1L;
+        }
+        return (long) hostStart << 32 | hostEnd;
+    }
+
+    private static int indexOf(CharSequence address, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (address.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int authorityEnd(CharSequence address, int from) {
+        int end = from;
+        while (end < address.length() && "/?#".indexOf(address.charAt(end)) < 0) {
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean isPort(CharSequence address, int from, int to) {
+        if (to - from > 5) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            char c = address.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return from == to || parsePort(address, from, to) <= 65_535;
+    }
+
+    private static int parsePort(CharSequence address, int from, int to) {
+        if (from == to) {
+            return -1;
+        }
+        int port = 0;
+        for (int i = from; i < to; i++) {
+            port = port * 10 + (address.charAt(i) - '0');
+        }
+        return port;
+    }
+
+    private static void appendEncoded(StringBuilder builder, String address, int from, int to,
+                                      boolean[] allowed) {
+        for (int i = from; i < to; i++) {
+            char c = address.charAt(i);
+            if (c == '%') {
+                int high = i + 2 < to ? Syntax.hexDigit(address.charAt(i + 1)) : -1;
+                int low = high >= 0 ? Syntax.hexDigit(address.charAt(i + 2)) : -1;
+                if (low < 0) {
+                    appendOctet(builder, '%');
+                } else if ((high << 4 | low) < 128 && UNRESERVED[high << 4 | low]) {
+                    builder.append((char) (high << 4 | low));
+                    i += 2;
+                } else {
+                    builder.append('%').append(HEX[high]).append(HEX[low]);
+                    i += 2;
+                }
+            } else if (c < 128 && allowed[c]) {
+                builder.append(c);
+            } else {
+                int codePoint = Character.codePointAt(address, i);
+                if (Character.isSupplementaryCodePoint(codePoint)) {
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    codePoint = '\uFFFD';
+                }
+                appendUtf8(builder, codePoint);
+            }
+        }
+    }
+
+    private static void appendUtf8(StringBuilder builder, int codePoint) {
+        if (codePoint < 0x80) {
+            appendOctet(builder, codePoint);
+        } else if (codePoint < 0x800) {
+            appendOctet(builder, 0xC0 | codePoint >> 6);
+            appendOctet(builder, 0x80 | codePoint & 0x3F);
+        } else if (codePoint < 0x10000) {
+            appendOctet(builder, 0xE0 | codePoint >> 12);
+            appendOctet(builder, 0x80 | codePoint >> 6 & 0x3F);
+            appendOctet(builder, 0x80 | codePoint & 0x3F);
+        } else {
+            appendOctet(builder, 0xF0 | codePoint >> 18);
+            appendOctet(builder, 0x80 | codePoint >> 12 & 0x3F);
+            appendOctet(builder, 0x80 | codePoint >> 6 & 0x3F);
+            appendOctet(builder, 0x80 | codePoint & 0x3F);
+        }
+    }
+
+    private static void appendOctet(StringBuilder builder, int octet) {
+        builder.append('%').append(HEX[octet >> 4]).append(HEX[octet & 0xF]);
+    }
+}
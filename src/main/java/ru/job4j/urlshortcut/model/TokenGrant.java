@@ -0,0 +1,16 @@
+package ru.job4j.urlshortcut.model;
+
+import org.springframework.lang.NonNull;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+
+/**
+ * Tokens issued to the authenticated {@code Server}.
+ * @param accessToken short-lived JSON Web Token to access the endpoints
+ * @param refreshToken long-lived opaque token to get the next tokens without the password
+ * @param refreshExpired refresh token expiration timestamp
+ */
+public record TokenGrant(@NonNull Jwt accessToken,
+                         @NonNull String refreshToken,
+                         @NonNull Instant refreshExpired) { }
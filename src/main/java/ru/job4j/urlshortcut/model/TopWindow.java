@@ -0,0 +1,44 @@
+package ru.job4j.urlshortcut.model;
+
+import java.time.Duration;
+
+/**
+ * Sliding time window of the hottest links ranking.
+ * The window is divided into slices, so it slides by one slice at a time.
+ */
+public enum TopWindow {
+
+    /** Last 5 minutes in 1 minute slices. */
+    FIVE_MINUTES(Duration.ofMinutes(5), 5),
+
+    /** Last hour in 5 minutes slices. */
+    HOUR(Duration.ofHours(1), 12),
+
+    /** Last 24 hours in 1 hour slices. */
+    DAY(Duration.ofDays(1), 24);
+
+    private final long sliceMillis;
+    private final int slices;
+
+    TopWindow(Duration length, int slices) {
+        this.sliceMillis = length.toMillis() / slices;
+        this.slices = slices;
+    }
+
+    /**
+     * Returns the number of the window slices.
+     * @return number of slices
+     */
+    public int slices() {
+        return slices;
+    }
+
+    /**
+     * Returns the sequential number of the slice containing the moment.
+     * @param millis moment in milliseconds since the epoch
+     * @return slice number
+     */
+    public long slice(long millis) {
+        return millis / sliceMillis;
+    }
+}
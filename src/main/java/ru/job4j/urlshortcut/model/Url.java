@@ -1,5 +1,6 @@
 package ru.job4j.urlshortcut.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -7,17 +8,22 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import ru.job4j.urlshortcut.util.ShortcutTargetConverter;
+import ru.job4j.urlshortcut.util.UrlDigest;
+import ru.job4j.urlshortcut.util.UuidV7Generator;
 
+import javax.persistence.Access;
+import javax.persistence.AccessType;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
 import javax.validation.constraints.Size;
-import java.net.URL;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -32,20 +38,26 @@ import java.util.UUID;
 @Table(name = "urls")
 public class Url {
 
-    /** Unique identification number generated by persistent storage. */
+    /** Unique time-ordered identification number (version 7 UUID). */
     @EqualsAndHashCode.Include
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "uuid-v7")
+    @GenericGenerator(name = "uuid-v7", strategy = UuidV7Generator.STRATEGY)
     @Column(name = "url_uuid", updatable = false)
     private UUID uuid;
 
+    /** Unique short base62 code used as a public key of the URL in redirections. */
+    @Column(unique = true, updatable = false, length = 10)
+    private String code;
+
     /** Unique identification number of the corresponding server (host). */
     @Column(name = "server_uuid", updatable = false)
     private UUID serverUuid;
 
-    /** Actual URL address. */
-    @Column(nullable = false, unique = true, updatable = false)
-    private URL url;
+    /** Actual URL address in the canonical form. */
+    @Convert(converter = ShortcutTargetConverter.class)
+    @Column(nullable = false, updatable = false)
+    private ShortcutTarget url;
 
     /** Date and time when the URL was registered. */
     @Column(nullable = false)
@@ -63,4 +75,26 @@ public class Url {
     /** URL description. */
     @Size(max = 256, message = "Description maximum length must be 256 symbols")
     private String description;
+
+    /** HTTP redirection and caching policy. */
+    @Column(name = "redirect_policy", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private RedirectPolicy redirectPolicy = RedirectPolicy.COUNTED;
+
+    /**
+     * Returns the digest of the canonical URL address, the key of the URL uniqueness.
+     * The digest is derived from the address and isn't kept in the entity state.
+     * @return {@value UrlDigest#SIZE} bytes digest or {@code null} if the address isn't set
+     */
+    @JsonIgnore
+    @Access(AccessType.PROPERTY)
+    @Column(name = "url_digest", nullable = false, unique = true, updatable = false,
+            length = UrlDigest.SIZE)
+    public byte[] getDigest() {
+        return url == null ? null : UrlDigest.of(url);
+    }
+
+    /** Ignores the persisted digest, which is always derived from the address. */
+    @SuppressWarnings("unused")
+    private void setDigest(byte[] digest) { }
 }
@@ -1,22 +1,37 @@
 package ru.job4j.urlshortcut.model;
 
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 /** Model class to transfer and store log information about {@code Url} redirections. */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
 @Entity
 @Table(name = "url_access_log")
 public class UrlAccessRecord {
 
-    /** Unique identification number generated by persistent storage. */
+    /**
+     * Unique identification number generated by persistent storage.
+     * Pooled sequence lets Hibernate assign IDs on the client side and batch inserts.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "url_access_log_seq")
+    @SequenceGenerator(
+            name = "url_access_log_seq", sequenceName = "url_access_log_seq", allocationSize = 50)
     private Long id;
 
     /** Target {@code Url} ID. */
@@ -0,0 +1,15 @@
+package ru.job4j.urlshortcut.model;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Optional conditions of the {@code Url} listing.
+ * @param status required lifecycle status or {@code null} for any
+ * @param active {@code true} for not expired URLs only, {@code false} for expired URLs only,
+ *               {@code null} for both
+ */
+public record UrlFilter(@Nullable Status status, @Nullable Boolean active) {
+
+    /** Filter matching all the URLs. */
+    public static final UrlFilter ANY = new UrlFilter(null, null);
+}
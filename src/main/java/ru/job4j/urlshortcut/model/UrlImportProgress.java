@@ -0,0 +1,12 @@
+package ru.job4j.urlshortcut.model;
+
+/**
+ * Progress of the {@code Url} registrations import.
+ * @param rows number of the processed rows excluding the blank lines and the header
+ * @param created number of the persisted URLs
+ * @param conflicts number of the URLs already registered or repeated
+ * @param invalid number of the malformed rows
+ * @param done {@code true} if the whole input is processed
+ */
+public record UrlImportProgress(long rows, long created, long conflicts, long invalid,
+                                boolean done) { }
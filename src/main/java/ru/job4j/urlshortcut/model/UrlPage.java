@@ -0,0 +1,14 @@
+package ru.job4j.urlshortcut.model;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import ru.job4j.urlshortcut.util.PageCursor;
+
+import java.util.List;
+
+/**
+ * One page of the {@code Url} entities ordered by the creation time and the ID.
+ * @param urls entities of the page
+ * @param next position of the next page or {@code null} if this page is the last one
+ */
+public record UrlPage(@NonNull List<Url> urls, @Nullable PageCursor next) { }
@@ -0,0 +1,55 @@
+package ru.job4j.urlshortcut.model;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * Result of one {@code Url} registration of a batch.
+ * @param outcome registration outcome
+ * @param url persisted entity with actual ID if created, {@code null} otherwise
+ * @param message reason of the rejection, {@code null} if created
+ */
+public record UrlRegistrationResult(@NonNull Outcome outcome,
+                                    @Nullable Url url,
+                                    @Nullable String message) {
+
+    /** Outcome of the {@code Url} registration. */
+    public enum Outcome {
+
+        /** The URL is persisted. */
+        CREATED,
+
+        /** The URL is already registered or repeated in the batch. */
+        CONFLICT,
+
+        /** The URL registration is malformed or doesn't belong to the server. */
+        INVALID
+    }
+
+    /**
+     * Creates the result of the persisted {@code Url}.
+     * @param url persisted entity
+     * @return result
+     */
+    public static UrlRegistrationResult created(@NonNull Url url) {
+        return new UrlRegistrationResult(Outcome.CREATED, url, null);
+    }
+
+    /**
+     * Creates the result of the already registered {@code Url}.
+     * @param message reason of the rejection
+     * @return result
+     */
+    public static UrlRegistrationResult conflict(@NonNull String message) {
+        return new UrlRegistrationResult(Outcome.CONFLICT, null, message);
+    }
+
+    /**
+     * Creates the result of the malformed {@code Url} registration.
+     * @param message reason of the rejection
+     * @return result
+     */
+    public static UrlRegistrationResult invalid(@NonNull String message) {
+        return new UrlRegistrationResult(Outcome.INVALID, null, message);
+    }
+}
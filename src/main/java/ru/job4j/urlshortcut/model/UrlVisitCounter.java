@@ -0,0 +1,36 @@
+package ru.job4j.urlshortcut.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.util.UUID;
+
+/** Model class to store pre-aggregated number of {@code Url} visits. */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString
+@Entity(name = "UrlVisitCounter")
+@Table(name = "url_visit_counters")
+public class UrlVisitCounter {
+
+    /** Target {@code Url} ID. */
+    @EqualsAndHashCode.Include
+    @Id
+    @Column(name = "url_uuid", updatable = false)
+    private UUID urlUuid;
+
+    /** Number of visits. */
+    @Column(nullable = false)
+    private long visits;
+}
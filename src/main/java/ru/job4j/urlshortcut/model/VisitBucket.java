@@ -0,0 +1,12 @@
+package ru.job4j.urlshortcut.model;
+
+import org.springframework.lang.NonNull;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of visits in one time bucket of the visit statistics series.
+ * @param bucket start of the bucket
+ * @param visits number of visits
+ */
+public record VisitBucket(@NonNull LocalDateTime bucket, long visits) { }
@@ -0,0 +1,68 @@
+package ru.job4j.urlshortcut.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.lang.NonNull;
+import org.springframework.transaction.annotation.Transactional;
+import ru.job4j.urlshortcut.model.RefreshToken;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/** {@code RefreshToken}-specific repository interface. */
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+
+    /**
+     * Retrieves the refresh token with its {@code Server} by one lookup of the digest index.
+     * @param digest digest of the token value
+     * @return token or empty {@code Optional} if nothing found
+     */
+    @NonNull
+    @Query("SELECT t FROM RefreshToken t JOIN FETCH t.server WHERE t.digest = :digest")
+    Optional<RefreshToken> findByDigest(@NonNull @Param("digest") byte[] digest);
+
+    /**
+     * Deletes the refresh token.
+     * @param uuid ID of the token
+     * @return number of the deleted rows, {@code 0} if the token is already used or revoked
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.uuid = :uuid")
+    int deleteByUuid(@NonNull @Param("uuid") UUID uuid);
+
+    /**
+     * Deletes the refresh token by the digest of its value.
+     * @param digest digest of the token value
+     * @return number of the deleted rows
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.digest = :digest")
+    int deleteByDigest(@NonNull @Param("digest") byte[] digest);
+
+    /**
+     * Deletes all the refresh tokens of the {@code Server}.
+     * @param serverUuid ID of the server
+     * @return number of the deleted rows
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.server.uuid = :serverUuid")
+    int deleteByServerUuid(@NonNull @Param("serverUuid") UUID serverUuid);
+
+    /**
+     * Deletes the expired refresh tokens of the {@code Server}.
+     * @param serverUuid ID of the server
+     * @param now current time
+     * @return number of the deleted rows
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.server.uuid = :serverUuid AND t.expired < :now")
+    int deleteExpiredByServerUuid(@NonNull @Param("serverUuid") UUID serverUuid,
+                                  @NonNull @Param("now") Instant now);
+}
@@ -50,4 +50,19 @@ public interface ServerRepository extends JpaRepository<Server, UUID> {
     @Query("UPDATE Server s SET s.password = :password WHERE s.uuid = :uuid")
     int updatePasswordByUuid(@NonNull @Param("uuid") UUID uuid,
                              @NonNull @Param("password") String password);
+
+    /**
+     * Replaces the encoded password of a {@code Server} unless it was changed meanwhile.
+     * @param uuid ID of the server to update
+     * @param expected encoded password to replace
+     * @param password encoded password to set
+     * @return numer of the updated rows
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Server s SET s.password = :password "
+            + "WHERE s.uuid = :uuid AND s.password = :expected")
+    int replacePasswordByUuid(@NonNull @Param("uuid") UUID uuid,
+                              @NonNull @Param("expected") String expected,
+                              @NonNull @Param("password") String password);
 }
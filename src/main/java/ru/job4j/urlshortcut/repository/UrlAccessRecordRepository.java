@@ -1,8 +1,14 @@
 package ru.job4j.urlshortcut.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.lang.NonNull;
+import org.springframework.transaction.annotation.Transactional;
 import ru.job4j.urlshortcut.model.UrlAccessRecord;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 /** {@code Url} access log repository interface. */
@@ -14,4 +20,23 @@ public interface UrlAccessRecordRepository extends JpaRepository<UrlAccessRecord
      * @return count result
      */
     long countByUrlUuid(UUID uuid);
+
+    /**
+     * Puts the {@code Url} access information to dedicated table.
+     * @param uuid ID of the URL to log
+     * @return number of the inserted rows
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true,
+            value = "INSERT INTO url_access_log(url_uuid, timestamp) VALUES (:uuid, now())")
+    int logAccess(@NonNull @Param("uuid") UUID uuid);
+
+    /**
+     * Returns the current time of the persistent storage, the clock all the access records
+     * are stamped with, so the records are comparable with the storage time watermarks.
+     * @return current local time of the storage
+     */
+    @Query(nativeQuery = true, value = "SELECT LOCALTIMESTAMP")
+    LocalDateTime currentTimestamp();
 }
@@ -0,0 +1,31 @@
+package ru.job4j.urlshortcut.repository;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.model.UrlFilter;
+import ru.job4j.urlshortcut.util.PageCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/** Keyset (seek) pagination fragment of the {@code Url} repository. */
+public interface UrlPageRepository {
+
+    /**
+     * Finds the page of the {@code Server} URLs ordered by the creation time and the ID.
+     * The page starts right after the cursor position, so the database seeks it
+     * with the {@code (server_uuid, created, url_uuid)} index instead of skipping the rows.
+     * @param serverUuid ID of the server
+     * @param filter optional conditions
+     * @param after position of the page start or {@code null} for the first page
+     * @param now current date and time to check the expiration
+     * @param limit maximum number of the entities
+     * @return list of the found entities
+     */
+    @NonNull
+    List<Url> findPageByServerUuid(@NonNull UUID serverUuid, @NonNull UrlFilter filter,
+                                   @Nullable PageCursor after, @NonNull LocalDateTime now,
+                                   int limit);
+}
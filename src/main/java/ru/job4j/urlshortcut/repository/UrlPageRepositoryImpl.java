@@ -0,0 +1,61 @@
+package ru.job4j.urlshortcut.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.model.UrlFilter;
+import ru.job4j.urlshortcut.util.PageCursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keyset pagination fragment implementation. Only the conditions of the specified filters
+ * are added to the query, so each filter combination gets its own plan.
+ */
+@RequiredArgsConstructor
+public class UrlPageRepositoryImpl implements UrlPageRepository {
+
+    private final EntityManager entityManager;
+
+    /**
+     * {@inheritDoc}
+     * The redundant {@code created >= :created} condition gives the database
+     * the index range start, the second one skips the ties before the cursor.
+     */
+    @NonNull
+    @Override
+    public List<Url> findPageByServerUuid(@NonNull UUID serverUuid, @NonNull UrlFilter filter,
+                                          @Nullable PageCursor after,
+                                          @NonNull LocalDateTime now, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT u FROM Url u WHERE u.serverUuid = :server");
+        if (after != null) {
+            jpql.append(" AND u.created >= :created")
+                    .append(" AND (u.created > :created OR u.uuid > :uuid)");
+        }
+        if (filter.status() != null) {
+            jpql.append(" AND u.status = :status");
+        }
+        if (filter.active() != null) {
+            jpql.append(filter.active() ? " AND u.expired > :now" : " AND u.expired <= :now");
+        }
+        jpql.append(" ORDER BY u.created, u.uuid");
+        TypedQuery<Url> query = entityManager.createQuery(jpql.toString(), Url.class)
+                .setParameter("server", serverUuid)
+                .setMaxResults(limit);
+        if (after != null) {
+            query.setParameter("created", after.created()).setParameter("uuid", after.uuid());
+        }
+        if (filter.status() != null) {
+            query.setParameter("status", filter.status());
+        }
+        if (filter.active() != null) {
+            query.setParameter("now", now);
+        }
+        return query.getResultList();
+    }
+}
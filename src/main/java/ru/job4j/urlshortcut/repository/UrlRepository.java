@@ -3,16 +3,20 @@ package ru.job4j.urlshortcut.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 import org.springframework.transaction.annotation.Transactional;
+import ru.job4j.urlshortcut.dto.UrlVisitsDto;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
 import ru.job4j.urlshortcut.model.Url;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 /** {@code Url}-specific repository interface. */
-public interface UrlRepository extends JpaRepository<Url, UUID> {
+public interface UrlRepository extends JpaRepository<Url, UUID>, UrlPageRepository {
 
     /**
      * Retrieves an entity by its ID and put the log information to dedicated table..
@@ -24,6 +28,14 @@ public interface UrlRepository extends JpaRepository<Url, UUID> {
     @Query(nativeQuery = true, value = "SELECT * FROM get_url(:uuid)")
     Optional<Url> findByIdAndLog(@NonNull UUID uuid);
 
+    /**
+     * Retrieves an entity by its short code.
+     * @param code short code of the URL to retrieve
+     * @return {@code Optional} with search result or empty {@code Optional} if nothing found
+     */
+    @NonNull
+    Optional<Url> findByCode(@NonNull String code);
+
     /**
      * Finds all the {@code Url} entities in the repository with the specified {@code Server} ID.
      * @param uuid ID of the server to search
@@ -32,6 +44,51 @@ public interface UrlRepository extends JpaRepository<Url, UUID> {
     @NonNull
     List<Url> findAllByServerUuid(@NonNull UUID uuid);
 
+    /**
+     * Finds IDs of all the {@code Url} entities with the specified {@code Server} ID.
+     * @param uuid ID of the server to search
+     * @return list of the IDs or empty list if nothing found
+     */
+    @NonNull
+    @Query("SELECT u.uuid FROM Url u WHERE u.serverUuid = :uuid")
+    List<UUID> findUuidsByServerUuid(@NonNull @Param("uuid") UUID uuid);
+
+    /**
+     * Finds all the {@code Url} entities with the specified {@code Server} ID
+     * with their persisted numbers of visits by one query.
+     * @param uuid ID of the server to search
+     * @return list of the projections or empty list if nothing found
+     */
+    @NonNull
+    @Query("""
+            SELECT new ru.job4j.urlshortcut.dto.UrlVisitsDto(u.uuid, u.code, u.serverUuid, u.url,
+                u.created, u.expired, u.status, u.description, u.redirectPolicy,
+                COALESCE(c.visits, 0L))
+            FROM Url u LEFT JOIN UrlVisitCounter c ON c.urlUuid = u.uuid
+            WHERE u.serverUuid = :uuid
+            ORDER BY u.created, u.uuid""")
+    List<UrlVisitsDto> findAllWithVisitsByServerUuid(@NonNull @Param("uuid") UUID uuid);
+
+    /**
+     * Finds which of the addresses with the specified digests are already registered
+     * by one query using the unique index of the digests.
+     * @param digests digests of the canonical addresses to search
+     * @return registered addresses or empty list if nothing found
+     */
+    @NonNull
+    @Query("SELECT u.url FROM Url u WHERE u.digest IN :digests")
+    List<ShortcutTarget> findRegisteredUrls(@NonNull @Param("digests") Collection<byte[]> digests);
+
+    /**
+     * Finds the ID of the {@code Url} entity by the digest of its canonical address
+     * using the unique index of the digests.
+     * @param digest digest of the canonical address to search
+     * @return {@code Optional} with the ID or empty {@code Optional} if nothing found
+     */
+    @NonNull
+    @Query("SELECT u.uuid FROM Url u WHERE u.digest = :digest")
+    Optional<UUID> findUuidByDigest(@NonNull @Param("digest") byte[] digest);
+
     /**
      * Deletes {@code Url} entity from the repository and returns the result of the operation.
      * @param uuid ID of the URL to delete
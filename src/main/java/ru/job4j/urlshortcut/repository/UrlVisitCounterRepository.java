@@ -0,0 +1,35 @@
+package ru.job4j.urlshortcut.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.lang.NonNull;
+import ru.job4j.urlshortcut.model.UrlVisitCounter;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/** {@code Url} visit counters repository interface. */
+public interface UrlVisitCounterRepository extends JpaRepository<UrlVisitCounter, UUID> {
+
+    /**
+     * Additive upsert statement to add visits to the counter.
+     * Counters of the already deleted {@code Url} entities are skipped.
+     * Parameters are: {@code Url} ID, number of visits to add (twice).
+     */
+    String ADD_VISITS_SQL = """
+            MERGE INTO url_visit_counters c
+            USING (SELECT u.url_uuid FROM urls u WHERE u.url_uuid = ?) s
+            ON c.url_uuid = s.url_uuid
+            WHEN MATCHED THEN UPDATE SET visits = c.visits + ?
+            WHEN NOT MATCHED THEN INSERT (url_uuid, visits) VALUES (s.url_uuid, ?)""";
+
+    /**
+     * Retrieves persisted number of {@code Url} visits.
+     * @param uuid ID of the URL
+     * @return {@code Optional} with number of visits or empty {@code Optional} if nothing found
+     */
+    @NonNull
+    @Query("SELECT c.visits FROM UrlVisitCounter c WHERE c.urlUuid = :uuid")
+    Optional<Long> findVisitsByUrlUuid(@NonNull @Param("uuid") UUID uuid);
+}
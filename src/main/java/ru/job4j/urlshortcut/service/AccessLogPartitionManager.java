@@ -0,0 +1,310 @@
+package ru.job4j.urlshortcut.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.job4j.urlshortcut.configuration.AccessLogProperties;
+import ru.job4j.urlshortcut.configuration.AccessLogProperties.PartitionInterval;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintenance of the {@code Url} access log partitions.
+ * With PostgreSQL the log is natively range partitioned by the access time:
+ * partitions for the upcoming periods are created in advance,
+ * and the partitions older than the retention period are dropped as a whole.
+ * Records of a period that landed in the default partition before its partition was created
+ * are moved into the new partition, as PostgreSQL refuses to create a partition otherwise.
+ * With other databases (H2 in tests) the log is a plain table,
+ * and the retention policy falls back to the row deletes.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(AccessLogProperties.class)
+public class AccessLogPartitionManager {
+
+    /** Name of the partitioned access log table. */
+    static final String TABLE = "url_access_log";
+
+    /** Name of the default partition of the access log. */
+    static final String DEFAULT_PARTITION = TABLE + "_default";
+
+    private static final String PROPERTY = "${ru.job4j.urlshortcut.access-log.";
+
+    private static final Pattern BOUND =
+            Pattern.compile("FOR VALUES FROM \\((.+)\\) TO \\((.+)\\)");
+
+    private static final DateTimeFormatter BOUND_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS");
+
+    private static final String PARTITIONS_SQL = """
+            SELECT c.relname, pg_get_expr(c.relpartbound, c.oid)
+            FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'url_access_log'::regclass""";
+
+    private final AccessLogProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Partitioning support flag, resolved on the first maintenance run. */
+    private volatile Boolean partitioned;
+
+    public AccessLogPartitionManager(AccessLogProperties properties,
+                                     JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Creates partitions for the current and upcoming periods and applies the retention policy.
+     * Runs on the application startup and then periodically.
+     */
+    @Scheduled(fixedDelayString = PROPERTY + "maintenance-interval:3600000}")
+    public void maintain() {
+        try {
+            LocalDateTime now = jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP",
+                    LocalDateTime.class);
+            if (isPartitioned()) {
+                createPartitions(now);
+                dropPartitions(now);
+            } else {
+                deleteRecords(now);
+            }
+        } catch (RuntimeException exception) {
+            log.error("Failed to maintain access log partitions", exception);
+        }
+    }
+
+    /**
+     * Checks if the access log table is natively partitioned.
+     * @return {@code true} if partitions are maintained
+     */
+    public boolean isPartitioned() {
+        Boolean result = partitioned;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equalsIgnoreCase(product) && Boolean.TRUE.equals(
+                    jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM pg_partitioned_table"
+                            + " WHERE partrelid = to_regclass('url_access_log'))", Boolean.class));
+            partitioned = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns existing partitions of the access log, the default partition is skipped.
+     * @return partitions sorted by the lower bound
+     */
+    public List<Partition> partitions() {
+        List<Partition> result = new ArrayList<>();
+        jdbcTemplate.query(PARTITIONS_SQL, row -> {
+            Partition partition = parse(row.getString(1), row.getString(2));
+            if (partition != null) {
+                result.add(partition);
+            }
+        });
+        result.sort(Comparator.comparing(Partition::from,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        return result;
+    }
+
+    private void createPartitions(LocalDateTime now) {
+        PartitionInterval interval = properties.getPartitionInterval();
+        List<Partition> existing = partitions();
+        LocalDateTime start = periodStart(now, interval);
+        for (int i = 0; i <= properties.getPartitionsAhead(); i++) {
+            LocalDateTime end = next(start, interval);
+            for (Partition gap : gaps(existing, partitionName(start, interval), start, end)) {
+                createPartition(gap);
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * Creates the partition. If the default partition holds records of its range,
+     * the default partition is detached, the records are moved into the new partition
+     * and the default one is attached back, all in one transaction.
+     */
+    private void createPartition(Partition partition) {
+        String create = "CREATE TABLE " + quote(partition.name()) + " PARTITION OF " + TABLE
+                + " FOR VALUES FROM ('" + BOUND_FORMAT.format(partition.from()) + "') TO ('"
+                + BOUND_FORMAT.format(partition.to()) + "')";
+        String range = " WHERE timestamp >= ? AND timestamp < ?";
+        transactionTemplate.executeWithoutResult(status -> {
+            Boolean misplaced = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + range + ")",
+                    Boolean.class, partition.from(), partition.to());
+            if (!Boolean.TRUE.equals(misplaced)) {
+                jdbcTemplate.execute(create);
+                return;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + DEFAULT_PARTITION);
+            jdbcTemplate.execute(create);
+            int moved = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM "
+                    + DEFAULT_PARTITION + range, partition.from(), partition.to());
+            jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + range,
+                    partition.from(), partition.to());
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION "
+                    + DEFAULT_PARTITION + " DEFAULT");
+            log.warn("Moved {} access records from the default partition to the partition {}",
+                    moved, partition.name());
+        });
+        log.info("Created access log partition {}", partition.name());
+    }
+
+    private void dropPartitions(LocalDateTime now) {
+        if (properties.getRetentionDays() <= 0) {
+            return;
+        }
+        LocalDateTime cutoff = now.minusDays(properties.getRetentionDays());
+        for (Partition partition : partitions()) {
+            if (partition.to() != null && !partition.to().isAfter(cutoff)) {
+                jdbcTemplate.execute("DROP TABLE " + quote(partition.name()));
+                log.info("Dropped expired access log partition {}", partition.name());
+            }
+        }
+    }
+
+    private void deleteRecords(LocalDateTime now) {
+        if (properties.getRetentionDays() <= 0) {
+            return;
+        }
+        int deleted = jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE timestamp < ?",
+                now.minusDays(properties.getRetentionDays()));
+        log.debug("Deleted {} expired access log records", deleted);
+    }
+
+    /**
+     * Truncates the date and time to the start of the partition period.
+     * @param time date and time to truncate
+     * @param interval partition interval
+     * @return start of the period
+     */
+    static LocalDateTime periodStart(LocalDateTime time, PartitionInterval interval) {
+        LocalDateTime day = time.truncatedTo(ChronoUnit.DAYS);
+        return interval == PartitionInterval.DAY ? day : day.withDayOfMonth(1);
+    }
+
+    /**
+     * Returns the start of the next partition period.
+     * @param start start of the period
+     * @param interval partition interval
+     * @return start of the next period
+     */
+    static LocalDateTime next(LocalDateTime start, PartitionInterval interval) {
+        return interval == PartitionInterval.DAY ? start.plusDays(1) : start.plusMonths(1);
+    }
+
+    /**
+     * Builds the partition table name: {@code url_access_log_pYYYYMM} for monthly partitions
+     * and {@code url_access_log_pYYYYMMDD} for daily ones.
+     * @param start start of the period
+     * @param interval partition interval
+     * @return table name
+     */
+    static String partitionName(LocalDateTime start, PartitionInterval interval) {
+        String pattern = interval == PartitionInterval.DAY ? "yyyyMMdd" : "yyyyMM";
+        return TABLE + "_p" + DateTimeFormatter.ofPattern(pattern).format(start);
+    }
+
+    /**
+     * Parses partition bound expression as returned by PostgreSQL {@code pg_get_expr}.
+     * @param name partition table name
+     * @param bound bound expression, e.g. {@code FOR VALUES FROM ('...') TO ('...')}
+     * @return partition or {@code null} for the default partition
+     */
+    @Nullable
+    static Partition parse(@NonNull String name, @NonNull String bound) {
+        Matcher matcher = BOUND.matcher(bound);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new Partition(name, parseValue(matcher.group(1)), parseValue(matcher.group(2)));
+    }
+
+    /**
+     * Finds parts of the period not covered by the existing partitions.
+     * Usually the period is either fully covered or not covered at all,
+     * but the partitions created by the migration may have arbitrary bounds.
+     * @param existing existing partitions sorted by the lower bound
+     * @param name name of the period partition
+     * @param from start of the period
+     * @param to end of the period
+     * @return partitions to create
+     */
+    static List<Partition> gaps(List<Partition> existing, String name,
+                                LocalDateTime from, LocalDateTime to) {
+        List<Partition> result = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (Partition partition : existing) {
+            if (!partition.overlaps(cursor, to)) {
+                continue;
+            }
+            if (partition.from() != null && partition.from().isAfter(cursor)) {
+                result.add(new Partition(gapName(name, from, cursor), cursor, partition.from()));
+            }
+            if (partition.to() == null || !partition.to().isBefore(to)) {
+                return result;
+            }
+            cursor = partition.to();
+        }
+        result.add(new Partition(gapName(name, from, cursor), cursor, to));
+        return result;
+    }
+
+    private static String gapName(String name, LocalDateTime from, LocalDateTime cursor) {
+        return cursor.equals(from)
+                ? name : name + "_" + DateTimeFormatter.ofPattern("ddHHmmss").format(cursor);
+    }
+
+    @Nullable
+    private static LocalDateTime parseValue(String value) {
+        if ("MINVALUE".equals(value) || "MAXVALUE".equals(value)) {
+            return null;
+        }
+        return LocalDateTime.parse(value.replace("'", "").replace(' ', 'T'));
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Range partition of the access log.
+     * @param name partition table name
+     * @param from lower bound inclusive or {@code null} if unbounded
+     * @param to upper bound exclusive or {@code null} if unbounded
+     */
+    public record Partition(@NonNull String name,
+                            @Nullable LocalDateTime from,
+                            @Nullable LocalDateTime to) {
+
+        /**
+         * Checks if the partition range overlaps the specified one.
+         * @param start start of the range inclusive
+         * @param end end of the range exclusive
+         * @return {@code true} if ranges overlap
+         */
+        public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            return (from == null || from.isBefore(end)) && (to == null || to.isAfter(start));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package ru.job4j.urlshortcut.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import ru.job4j.urlshortcut.configuration.AccessLogProperties;
+import ru.job4j.urlshortcut.model.UrlAccessRecord;
+import ru.job4j.urlshortcut.repository.UrlAccessRecordRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writer of the {@code Url} access records.
+ * In synchronous mode each record is inserted immediately in the caller thread.
+ * In asynchronous mode records are put to the bounded lock-free in-memory queue,
+ * and the background task drains the queue with batch inserts. Records are stamped with
+ * the database clock when written, as the synchronous ones, so the aggregation watermark
+ * taken from the same clock never passes the records still waiting in the queue.
+ * The task has its own thread, so the queue isn't left to grow while the shared scheduler
+ * runs long tasks.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(AccessLogProperties.class)
+public class AccessLogWriter {
+
+    /** Time to wait between attempts to put a record to the full queue (in nanoseconds). */
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final AccessLogProperties properties;
+    private final UrlAccessRecordRepository repository;
+
+    private final Queue<UrlAccessRecord> queue = new ConcurrentLinkedQueue<>();
+    /** Number of the queued records, {@link ConcurrentLinkedQueue#size()} is not constant time. */
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final ScheduledExecutorService executor;
+
+    private final Counter dropped;
+    private final Timer flushTimer;
+
+    public AccessLogWriter(AccessLogProperties properties,
+                           UrlAccessRecordRepository repository,
+                           MeterRegistry registry) {
+        this.properties = properties;
+        this.repository = repository;
+        this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "access-log-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("access.log.queue.size", size, AtomicInteger::get)
+                .description("Number of the access records waiting to be written")
+                .register(registry);
+        this.dropped = Counter.builder("access.log.dropped")
+                .description("Number of the access records dropped due to the full queue")
+                .register(registry);
+        this.flushTimer = Timer.builder("access.log.flush")
+                .description("Latency of the access records batch write")
+                .register(registry);
+    }
+
+    /**
+     * Checks if the records are written asynchronously,
+     * so the redirection read operations should not log access by themselves.
+     * @return {@code true} if asynchronous mode is on
+     */
+    public boolean isAsync() {
+        return properties.getMode() == AccessLogProperties.Mode.ASYNC;
+    }
+
+    /**
+     * Records the {@code Url} access.
+     * @param uuid ID of the accessed {@code Url}
+     */
+    public void record(@NonNull UUID uuid) {
+        if (!isAsync()) {
+            repository.logAccess(uuid);
+            return;
+        }
+        UrlAccessRecord record = new UrlAccessRecord(null, uuid, null);
+        while (!offer(record)) {
+            if (properties.getOverflowPolicy() == AccessLogProperties.OverflowPolicy.DROP) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Returns the number of the access records waiting to be written.
+     * @return queue size
+     */
+    public int queueSize() {
+        return size.get();
+    }
+
+    /** Schedules the queue flushes in asynchronous mode. */
+    @PostConstruct
+    public void start() {
+        if (isAsync()) {
+            executor.scheduleWithFixedDelay(this::flush, properties.getFlushInterval(),
+                    properties.getFlushInterval(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Writes all the queued access records in batches of the configured size. */
+    public void flush() {
+        List<UrlAccessRecord> batch = new ArrayList<>(properties.getFlushSize());
+        UrlAccessRecord record;
+        while ((record = queue.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(record);
+            if (batch.size() >= properties.getFlushSize()) {
+                write(batch);
+                batch = new ArrayList<>(properties.getFlushSize());
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    /** Drains the queue on the application graceful shutdown. */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        flush();
+    }
+
+    private boolean offer(UrlAccessRecord record) {
+        int current;
+        do {
+            current = size.get();
+            if (current >= properties.getQueueCapacity()) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        queue.offer(record);
+        return true;
+    }
+
+    private void write(List<UrlAccessRecord> batch) {
+        try {
+            flushTimer.record(() -> {
+                LocalDateTime now = repository.currentTimestamp();
+                batch.forEach(record -> record.setTimestamp(now));
+                repository.saveAll(batch);
+            });
+        } catch (RuntimeException exception) {
+            dropped.increment(batch.size());
+            log.error("Failed to write {} access records", batch.size(), exception);
+        }
+    }
+}
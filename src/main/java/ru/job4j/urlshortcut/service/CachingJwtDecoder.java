@@ -0,0 +1,100 @@
+package ru.job4j.urlshortcut.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import ru.job4j.urlshortcut.util.OpaqueToken;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Decoder of the JWT remembering the tokens verified by the delegate decoder.
+ * The bounded cache is keyed by the SHA-256 digest of the raw token, so the token values
+ * aren't kept, and each entry expires at the token expiration time. A repeated token is
+ * neither parsed nor verified again. Rejected tokens and tokens without expiration time
+ * are not cached and are checked by the delegate every time.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    /** Name of the cache in the metrics registry. */
+    public static final String NAME = "jwt";
+
+    private final JwtDecoder delegate;
+    private final Cache<ByteBuffer, Jwt> cache;
+
+    /**
+     * Creates the decoder.
+     * @param delegate decoder to verify the tokens not found in the cache
+     * @param maximumSize maximum number of the tokens to keep in the cache
+     * @param registry registry to publish the cache metrics to or {@code null}
+     */
+    public CachingJwtDecoder(@NonNull JwtDecoder delegate, long maximumSize,
+                             @Nullable MeterRegistry registry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        if (registry != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, NAME);
+        }
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        if (token == null) {
+            throw new BadJwtException("Token is missing");
+        }
+        ByteBuffer key = ByteBuffer.wrap(OpaqueToken.digest(token));
+        Jwt jwt = cache.getIfPresent(key);
+        if (jwt == null) {
+            jwt = delegate.decode(token);
+            if (jwt.getExpiresAt() != null) {
+                cache.put(key, jwt);
+            }
+        }
+        return jwt;
+    }
+
+    /**
+     * Returns snapshot of the cache hit, miss and eviction counters.
+     * @return cache statistics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /** Expiration policy with the entry time to live ending at the token expiration time. */
+    private static final class TokenExpiry implements Expiry<ByteBuffer, Jwt> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Jwt value, long currentTime) {
+            Duration left = Duration.between(Instant.now(), value.getExpiresAt());
+            return left.isNegative() ? 0L : left.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Jwt value,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Jwt value,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
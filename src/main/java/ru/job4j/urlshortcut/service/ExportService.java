@@ -0,0 +1,292 @@
+package ru.job4j.urlshortcut.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.job4j.urlshortcut.configuration.ExportProperties;
+import ru.job4j.urlshortcut.model.DataFormat;
+import ru.job4j.urlshortcut.util.CsvRecord;
+import ru.job4j.urlshortcut.util.TooManyRequestsException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Service to export the bulk data as the stream of NDJSON or CSV rows.
+ * Rows are read by the forward-only database cursor with the bounded fetch size
+ * inside the read-only transaction and written to the output as they come,
+ * so the memory used doesn't depend on the number of the rows.
+ * Each export holds a pooled connection until the client reads all the rows,
+ * so the number of the concurrent exports is bounded, the transaction has a timeout,
+ * and PostgreSQL aborts the transaction left idle by a client that stopped reading.
+ */
+@Service
+@EnableConfigurationProperties(ExportProperties.class)
+public class ExportService {
+
+    private static final String[] URL_COLUMNS = {"uuid", "code", "url", "created", "expired",
+            "status", "description", "redirectPolicy", "visited"};
+
+    private static final String URLS_SQL = """
+            SELECT u.url_uuid, u.code, u.url, u.created, u.expired, u.status, u.description,
+                u.redirect_policy, COALESCE(c.visits, 0)
+            FROM urls u LEFT JOIN url_visit_counters c ON c.url_uuid = u.url_uuid
+            WHERE u.server_uuid = ?
+            ORDER BY u.created, u.url_uuid""";
+
+    private static final String[] VISIT_COLUMNS = {"timestamp"};
+
+    /** Visits are exported in the storage order to avoid sorting the log. */
+    private static final String VISITS_SQL =
+            "SELECT l.timestamp FROM url_access_log l WHERE l.url_uuid = ?";
+
+    private static final JsonFactory JSON = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final ExportProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Semaphore permits;
+
+    /** PostgreSQL database flag, resolved on the first export. */
+    private volatile Boolean postgres;
+
+    public ExportService(ExportProperties properties, JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setTimeout(
+                (int) Math.max(1, Math.min(Integer.MAX_VALUE, properties.getTimeout() / 1000)));
+        this.permits = new Semaphore(properties.getMaxConcurrent());
+    }
+
+    /**
+     * Reserves one of the concurrent exports. The export should run holding the permit,
+     * which is released when closed.
+     * @return permit of the export
+     * @throws TooManyRequestsException when the maximum number of exports is running
+     */
+    public Permit acquire() {
+        if (!permits.tryAcquire()) {
+            throw new TooManyRequestsException("Too many exports in progress, try again later");
+        }
+        return new Permit(permits);
+    }
+
+    /**
+     * Exports the {@code Url} entities of the {@code Server} with their persisted
+     * numbers of visits ordered by the registration time.
+     * @param serverUuid ID of the {@code Server}
+     * @param format format of the rows
+     * @param output stream to write the rows to, not closed
+     * @return number of the exported rows
+     * @throws IOException when the output cannot be written
+     */
+    public long exportServerUrls(@NonNull UUID serverUuid, @NonNull DataFormat format,
+                                 @NonNull OutputStream output) throws IOException {
+        return export(URLS_SQL, serverUuid, URL_COLUMNS, format, output);
+    }
+
+    /**
+     * Exports the access log records of the {@code Url} in no particular order.
+     * @param urlUuid ID of the {@code Url}
+     * @param format format of the rows
+     * @param output stream to write the rows to, not closed
+     * @return number of the exported rows
+     * @throws IOException when the output cannot be written
+     */
+    public long exportUrlVisits(@NonNull UUID urlUuid, @NonNull DataFormat format,
+                                @NonNull OutputStream output) throws IOException {
+        return export(VISITS_SQL, urlUuid, VISIT_COLUMNS, format, output);
+    }
+
+    private long export(String sql, UUID key, String[] columns, DataFormat format,
+                        OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        RowWriter rows = format == DataFormat.CSV
+                ? new CsvRowWriter(writer, columns) : new JsonRowWriter(writer, columns);
+        Long count;
+        try {
+            count = transactionTemplate.execute(status -> {
+                if (isPostgres()) {
+                    jdbcTemplate.execute("SET LOCAL idle_in_transaction_session_timeout = "
+                            + properties.getIdleTimeout());
+                }
+                return jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(properties.getFetchSize());
+                    statement.setObject(1, key);
+                    return statement;
+                }, (ResultSetExtractor<Long>) resultSet -> write(resultSet, rows));
+            });
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+        rows.flush();
+        return count == null ? 0L : count;
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            result = "PostgreSQL".equalsIgnoreCase(jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection ->
+                            connection.getMetaData().getDatabaseProductName()));
+            postgres = result;
+        }
+        return result;
+    }
+
+    private static long write(ResultSet resultSet, RowWriter rows) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int[] types = new int[metaData.getColumnCount()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = metaData.getColumnType(i + 1);
+        }
+        Object[] values = new Object[types.length];
+        long count = 0L;
+        try {
+            while (resultSet.next()) {
+                for (int i = 0; i < types.length; i++) {
+                    values[i] = read(resultSet, i + 1, types[i]);
+                }
+                rows.write(values);
+                count++;
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return count;
+    }
+
+    /** Reads the column value as the {@code Long} number, the string or {@code null}. */
+    private static Object read(ResultSet resultSet, int column, int type) throws SQLException {
+        switch (type) {
+            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> {
+                Timestamp value = resultSet.getTimestamp(column);
+                return value == null ? null : value.toLocalDateTime().toString();
+            }
+            case Types.BIGINT, Types.INTEGER, Types.SMALLINT -> {
+                long value = resultSet.getLong(column);
+                return resultSet.wasNull() ? null : value;
+            }
+            default -> {
+                Object value = resultSet.getObject(column);
+                return value == null ? null : value.toString();
+            }
+        }
+    }
+
+    /** Permit of one running export, released once closed. */
+    public static final class Permit implements AutoCloseable {
+
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore permits) {
+            this.permits = permits;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    /** Writer of the rows in the specific format. */
+    private interface RowWriter {
+
+        void write(Object[] values) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    /** Writer of the CSV rows with the header line. */
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        private CsvRowWriter(Writer writer, String[] columns) throws IOException {
+            this.writer = writer;
+            write(columns);
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                CsvRecord.write(writer, values[i] == null ? null : values[i].toString());
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+    }
+
+    /** Writer of the NDJSON rows, one object per line. */
+    private static final class JsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+        private final String[] columns;
+
+        private JsonRowWriter(Writer writer, String[] columns) throws IOException {
+            this.generator = JSON.createGenerator(writer);
+            this.generator.setRootValueSeparator(null);
+            this.columns = columns;
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                generator.writeFieldName(columns[i]);
+                if (values[i] == null) {
+                    generator.writeNull();
+                } else if (values[i] instanceof Long number) {
+                    generator.writeNumber(number);
+                } else {
+                    generator.writeString(values[i].toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package ru.job4j.urlshortcut.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.job4j.urlshortcut.configuration.HotUrlProperties;
+import ru.job4j.urlshortcut.model.HotUrl;
+import ru.job4j.urlshortcut.model.TopWindow;
+import ru.job4j.urlshortcut.util.SpaceSaving;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming tracker of the hottest links of each {@code Server} over the sliding time windows.
+ * Each window of the server is a ring of slices, each slice is a Space-Saving summary
+ * with the fixed number of counters, so the memory used by a server is constant
+ * regardless of the number of its links and visits. Rankings are estimated by merging
+ * the summaries of the window slices. Servers without visits during the longest window
+ * are evicted. Rankings are local to the application node.
+ * Visits are buffered in the per-thread stripes and applied to the summaries in batches,
+ * so concurrent redirections of the same server rarely wait for each other.
+ */
+@Component
+@EnableConfigurationProperties(HotUrlProperties.class)
+public class HotUrlTracker {
+
+    private static final TopWindow[] WINDOWS = TopWindow.values();
+
+    private static final long IDLE_MILLIS = Duration.ofDays(1).toMillis();
+
+    /** Number of the visit buffers of a server: power of two not less than the CPU count. */
+    private static final int STRIPES = Math.min(16,
+            Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    /** Number of the visits buffered in a stripe before they are applied. */
+    private static final int BUFFER_SIZE = 16;
+
+    private final HotUrlProperties properties;
+    private final Map<UUID, ServerTop> servers = new ConcurrentHashMap<>();
+
+    public HotUrlTracker(HotUrlProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        Gauge.builder("hot.urls.servers", servers, Map::size)
+                .description("Number of the servers with tracked hottest links")
+                .register(registry);
+    }
+
+    /**
+     * Counts the {@code Url} visit.
+     * @param serverUuid ID of the {@code Server} owning the {@code Url}
+     * @param urlUuid ID of the visited {@code Url}
+     */
+    public void record(@Nullable UUID serverUuid, @NonNull UUID urlUuid) {
+        record(serverUuid, urlUuid, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the hottest links of the {@code Server}.
+     * @param serverUuid ID of the {@code Server}
+     * @param window sliding time window
+     * @param limit maximum number of the links
+     * @return links ordered by the estimated number of visits descending
+     * @throws IllegalArgumentException when the limit is out of the tracked range
+     */
+    public List<HotUrl> top(@NonNull UUID serverUuid, @NonNull TopWindow window, int limit) {
+        return top(serverUuid, window, limit, System.currentTimeMillis());
+    }
+
+    /**
+     * Drops the tracked links of the deleted {@code Server}.
+     * @param serverUuid ID of the {@code Server}
+     */
+    public void remove(@NonNull UUID serverUuid) {
+        servers.remove(serverUuid);
+    }
+
+    /** Evicts the servers without visits during the longest window. */
+    @Scheduled(fixedDelayString = "${ru.job4j.urlshortcut.hot-urls.eviction-interval:600000}")
+    public void evict() {
+        evict(System.currentTimeMillis());
+    }
+
+    void record(@Nullable UUID serverUuid, @NonNull UUID urlUuid, long now) {
+        if (!properties.isEnabled() || serverUuid == null) {
+            return;
+        }
+        ServerTop server = servers.get(serverUuid);
+        if (server == null) {
+            server = servers.computeIfAbsent(serverUuid,
+                    key -> new ServerTop(properties.getCapacity()));
+        }
+        server.record(urlUuid, now);
+    }
+
+    List<HotUrl> top(UUID serverUuid, TopWindow window, int limit, long now) {
+        if (limit <= 0 || limit > properties.getCapacity()) {
+            throw new IllegalArgumentException(
+                    "Limit must be from 1 to " + properties.getCapacity());
+        }
+        ServerTop server = servers.get(serverUuid);
+        return server == null ? List.of() : server.top(window, limit, now);
+    }
+
+    void evict(long now) {
+        servers.values().removeIf(server -> server.isIdle(now));
+    }
+
+    /**
+     * Sliding windows of one server. Visits are buffered in the stripe of the recording thread,
+     * the full buffer and all the buffers before the ranking are applied to the summaries
+     * under the instance lock. Stripe and instance locks are never held together.
+     */
+    private static final class ServerTop {
+
+        private final Slice[][] windows = new Slice[WINDOWS.length][];
+        private final Stripe[] stripes = new Stripe[STRIPES];
+        private long updated;
+
+        private ServerTop(int capacity) {
+            for (TopWindow window : WINDOWS) {
+                Slice[] slices = new Slice[window.slices()];
+                for (int i = 0; i < slices.length; i++) {
+                    slices[i] = new Slice(capacity);
+                }
+                windows[window.ordinal()] = slices;
+            }
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Stripe();
+            }
+        }
+
+        private void record(UUID url, long now) {
+            Stripe stripe = stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)];
+            Stripe.Batch batch = stripe.add(url, now);
+            if (batch != null) {
+                apply(batch);
+            }
+        }
+
+        private void drain() {
+            for (Stripe stripe : stripes) {
+                Stripe.Batch batch = stripe.take();
+                if (batch != null) {
+                    apply(batch);
+                }
+            }
+        }
+
+        /**
+         * Applies the buffered visits. Batches of the different stripes come out of order,
+         * so the visit of the slice already reused by a later time is skipped.
+         */
+        private synchronized void apply(Stripe.Batch batch) {
+            for (int i = 0; i < batch.size(); i++) {
+                long now = batch.times()[i];
+                for (TopWindow window : WINDOWS) {
+                    long number = window.slice(now);
+                    Slice slice = windows[window.ordinal()][(int) (number % window.slices())];
+                    if (slice.number > number) {
+                        continue;
+                    }
+                    if (slice.number != number) {
+                        slice.summary.clear();
+                        slice.number = number;
+                    }
+                    slice.summary.add(batch.urls()[i]);
+                }
+                updated = Math.max(updated, now);
+            }
+        }
+
+        private List<HotUrl> top(TopWindow window, int limit, long now) {
+            drain();
+            return rank(window, limit, now);
+        }
+
+        /**
+         * Merges the summaries of the window slices. The link absent from a full slice
+         * might have been visited up to the slice threshold times there, so the thresholds
+         * are added both to the estimate and to the error.
+         */
+        private synchronized List<HotUrl> rank(TopWindow window, int limit, long now) {
+            long current = window.slice(now);
+            Map<UUID, long[]> merged = new HashMap<>();
+            long thresholds = 0L;
+            for (Slice slice : windows[window.ordinal()]) {
+                if (slice.number <= current - window.slices() || slice.number > current) {
+                    continue;
+                }
+                long threshold = slice.summary.threshold();
+                thresholds += threshold;
+                slice.summary.forEach((url, count, error) -> {
+                    long[] sums = merged.computeIfAbsent(url, key -> new long[3]);
+                    sums[0] += count;
+                    sums[1] += error;
+                    sums[2] += threshold;
+                });
+            }
+            List<HotUrl> result = new ArrayList<>(merged.size());
+            for (Map.Entry<UUID, long[]> entry : merged.entrySet()) {
+                long[] sums = entry.getValue();
+                long absent = thresholds - sums[2];
+                result.add(new HotUrl(entry.getKey(), sums[0] + absent, sums[1] + absent));
+            }
+            result.sort(Comparator.comparingLong(HotUrl::visits).reversed()
+                    .thenComparingLong(HotUrl::error));
+            return result.size() > limit ? List.copyOf(result.subList(0, limit)) : result;
+        }
+
+        private boolean isIdle(long now) {
+            drain();
+            synchronized (this) {
+                return now - updated > IDLE_MILLIS;
+            }
+        }
+    }
+
+    /** Buffer of the visits recorded by the threads mapped to the stripe. */
+    private static final class Stripe {
+
+        private UUID[] urls = new UUID[BUFFER_SIZE];
+        private long[] times = new long[BUFFER_SIZE];
+        private int size;
+
+        /**
+         * Buffers the visit.
+         * @return buffered visits if the buffer is full, otherwise {@code null}
+         */
+        private synchronized Batch add(UUID url, long now) {
+            urls[size] = url;
+            times[size] = now;
+            size++;
+            return size == BUFFER_SIZE ? take() : null;
+        }
+
+        /**
+         * Takes the buffered visits, the buffer is replaced with the empty one.
+         * @return buffered visits or {@code null} if there are none
+         */
+        private synchronized Batch take() {
+            if (size == 0) {
+                return null;
+            }
+            Batch result = new Batch(urls, times, size);
+            urls = new UUID[BUFFER_SIZE];
+            times = new long[BUFFER_SIZE];
+            size = 0;
+            return result;
+        }
+
+        private record Batch(UUID[] urls, long[] times, int size) { }
+    }
+
+    /** Space-Saving summary of one window slice. */
+    private static final class Slice {
+
+        private final SpaceSaving<UUID> summary;
+        private long number = -1L;
+
+        private Slice(int capacity) {
+            this.summary = new SpaceSaving<>(capacity);
+        }
+    }
+}
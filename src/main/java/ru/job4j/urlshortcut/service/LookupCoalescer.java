@@ -0,0 +1,75 @@
+package ru.job4j.urlshortcut.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight registry of the in-flight lookups.
+ * Concurrent lookups of the same key are coalesced into one call of the loader:
+ * the first caller (leader) performs the lookup, and the others wait for its result.
+ */
+@Component
+public class LookupCoalescer {
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> calls =
+            new ConcurrentHashMap<>();
+
+    private final Counter coalesced;
+
+    public LookupCoalescer(MeterRegistry registry) {
+        this.coalesced = Counter.builder("url.lookup.coalesced")
+                .description("Number of the lookups served by the running lookup of the same key")
+                .register(registry);
+    }
+
+    /**
+     * Performs the lookup or waits for the already running lookup of the same key.
+     * Exceptions of the loader are rethrown to all the waiting callers.
+     * @param key lookup key, keys of the different lookups must not be equal
+     * @param loader lookup to perform
+     * @param <V> lookup result type
+     * @return lookup result
+     */
+    @SuppressWarnings("unchecked")
+    public <V> Call<V> execute(@NonNull Object key, @NonNull Supplier<V> loader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> running = calls.putIfAbsent(key, future);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return new Call<>((V) running.join(), false);
+            } catch (CompletionException exception) {
+                if (exception.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw exception;
+            }
+        }
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return new Call<>(value, true);
+        } catch (RuntimeException | Error exception) {
+            future.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            calls.remove(key, future);
+        }
+    }
+
+    /**
+     * Result of the coalesced lookup.
+     * @param value lookup result
+     * @param leader {@code true} if the lookup was performed by the caller itself
+     * @param <V> lookup result type
+     */
+    public record Call<V>(V value, boolean leader) { }
+}
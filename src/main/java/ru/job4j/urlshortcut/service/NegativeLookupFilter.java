@@ -0,0 +1,220 @@
+package ru.job4j.urlshortcut.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.job4j.urlshortcut.configuration.NegativeLookupFilterProperties;
+import ru.job4j.urlshortcut.util.BloomFilter;
+import ru.job4j.urlshortcut.util.UuidV7;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * In-memory Bloom filter of all the existing {@code Url} IDs and short codes,
+ * that lets the redirection path reject unknown keys without the database round trip.
+ * The filter is built on the application startup, updated on the {@code Url} registration,
+ * periodically loads the keys registered by other nodes, and is fully rebuilt on schedule
+ * to drop the deleted keys. Until the filter is built every key is reported as known.
+ * Unless the node is configured as the only one, a key registered by another node since
+ * the last load is never rejected: the IDs generated after the load watermark
+ * (but not later than the clock skew allows) and the short codes below the allocator
+ * high-water mark of the last load are reported as known.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(NegativeLookupFilterProperties.class)
+public class NegativeLookupFilter {
+
+    /** Common prefix of the scheduling properties placeholders. */
+    private static final String PROPERTY = "${ru.job4j.urlshortcut.negative-lookup-filter.";
+
+    private static final String SELECT_KEYS_SQL = "SELECT url_uuid, code FROM urls";
+
+    private final NegativeLookupFilterProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShortCodeAllocator allocator;
+
+    /** Filter in use or {@code null} if not built yet. */
+    private volatile BloomFilter filter;
+    /** Filter being rebuilt or {@code null} if no rebuild is in progress. */
+    private volatile BloomFilter building;
+    /** Time of the last created keys load start (epoch milliseconds). */
+    private volatile long syncedAt;
+    /** Short code numbers reserved by all the nodes as of the last load. */
+    private volatile long highWaterMark;
+
+    private final Counter rejected;
+    private final Timer rebuildTimer;
+
+    public NegativeLookupFilter(NegativeLookupFilterProperties properties,
+                                JdbcTemplate jdbcTemplate,
+                                ShortCodeAllocator allocator,
+                                MeterRegistry registry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.allocator = allocator;
+        Gauge.builder("redirect.filter.memory", this,
+                        f -> f.filter == null ? 0 : f.filter.byteSize())
+                .description("Size of the negative lookup filter bit array")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("redirect.filter.fpp.target", properties,
+                        NegativeLookupFilterProperties::getFpp)
+                .description("Desired false positive probability of the negative lookup filter")
+                .register(registry);
+        Gauge.builder("redirect.filter.fpp.expected", this,
+                        f -> f.filter == null ? 1 : f.filter.expectedFpp())
+                .description("Current false positive probability of the negative lookup filter")
+                .register(registry);
+        this.rejected = Counter.builder("redirect.filter.rejected")
+                .description("Number of the unknown keys rejected without the database lookup")
+                .register(registry);
+        this.rebuildTimer = Timer.builder("redirect.filter.rebuild")
+                .description("Duration of the negative lookup filter full rebuild")
+                .register(registry);
+    }
+
+    /**
+     * Checks if the {@code Url} with the specified ID might exist.
+     * @param uuid ID of the {@code Url}
+     * @return {@code false} if the {@code Url} definitely doesn't exist
+     */
+    public boolean mightContain(@NonNull UUID uuid) {
+        BloomFilter current = filter;
+        return current == null || isRecent(uuid) || count(current.mightContain(uuid));
+    }
+
+    /**
+     * Checks if the {@code Url} with the specified short code might exist.
+     * @param code short code of the {@code Url}
+     * @return {@code false} if the {@code Url} definitely doesn't exist
+     */
+    public boolean mightContain(@NonNull String code) {
+        BloomFilter current = filter;
+        return current == null || count(current.mightContain(code) || isAllocated(code));
+    }
+
+    /**
+     * Adds keys of the registered {@code Url} to the filter.
+     * @param uuid ID of the {@code Url}
+     * @param code short code of the {@code Url} or {@code null} if not assigned
+     */
+    public void add(@NonNull UUID uuid, @Nullable String code) {
+        put(filter, uuid, code);
+        put(building, uuid, code);
+    }
+
+    /** Builds the filter on the application startup. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        rebuild();
+    }
+
+    /** Rebuilds the filter from scratch, so the deleted keys are dropped. */
+    @Scheduled(fixedDelayString = PROPERTY + "rebuild-interval:3600000}",
+            initialDelayString = PROPERTY + "rebuild-interval:3600000}")
+    public synchronized void rebuild() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        try {
+            rebuildTimer.record(() -> {
+                long count = Objects.requireNonNull(
+                        jdbcTemplate.queryForObject("SELECT count(*) FROM urls", Long.class));
+                BloomFilter next = BloomFilter.create(
+                        Math.max(properties.getExpectedKeys(), count * 2),
+                        properties.getFpp(), properties.getMaxMemory());
+                building = next;
+                highWaterMark = allocator.highWaterMark();
+                jdbcTemplate.query(SELECT_KEYS_SQL, loader(next));
+                filter = next;
+                building = null;
+            });
+        } catch (RuntimeException exception) {
+            building = null;
+            log.error("Failed to rebuild the negative lookup filter", exception);
+            return;
+        }
+        syncedAt = started;
+        sync();
+    }
+
+    /** Loads the keys registered recently, including ones registered by other nodes. */
+    @Scheduled(fixedDelayString = PROPERTY + "sync-interval:5000}")
+    public synchronized void sync() {
+        BloomFilter current = filter;
+        if (current == null) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        UUID from = UuidV7.lowerBound(syncedAt - properties.getSyncLag());
+        try {
+            long allocated = allocator.highWaterMark();
+            jdbcTemplate.query(SELECT_KEYS_SQL + " WHERE url_uuid >= ?", loader(current), from);
+            highWaterMark = allocated;
+            syncedAt = started;
+        } catch (RuntimeException exception) {
+            log.error("Failed to load the created keys to the negative lookup filter", exception);
+        }
+    }
+
+    /**
+     * Checks if the ID might be registered by another node after the watermark
+     * of the next load, so the filter doesn't know it yet. IDs from the future
+     * beyond the clock skew the load overlap tolerates can't be generated by any node.
+     */
+    private boolean isRecent(UUID uuid) {
+        long timestamp = UuidV7.timestamp(uuid);
+        return !properties.isSingleNode()
+                && timestamp >= syncedAt - properties.getSyncLag()
+                && timestamp <= System.currentTimeMillis() + properties.getSyncLag();
+    }
+
+    /**
+     * Checks if the short code might be registered by another node after the last load,
+     * so the filter doesn't know it yet. Codes above the high-water mark of the numbers
+     * reserved as of the last load are never allocated, except the ones of the blocks
+     * reserved since then, which are reported as unknown until the next load.
+     */
+    private boolean isAllocated(String code) {
+        if (properties.isSingleNode()) {
+            return false;
+        }
+        long number = allocator.number(code);
+        return number >= 0 && number < highWaterMark;
+    }
+
+    private boolean count(boolean known) {
+        if (!known) {
+            rejected.increment();
+        }
+        return known;
+    }
+
+    private static RowCallbackHandler loader(BloomFilter target) {
+        return rs -> put(target, rs.getObject(1, UUID.class), rs.getString(2));
+    }
+
+    private static void put(@Nullable BloomFilter target, UUID uuid, @Nullable String code) {
+        if (target == null) {
+            return;
+        }
+        target.put(uuid);
+        if (code != null) {
+            target.put(code);
+        }
+    }
+}
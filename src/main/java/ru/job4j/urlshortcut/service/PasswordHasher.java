@@ -0,0 +1,136 @@
+package ru.job4j.urlshortcut.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import ru.job4j.urlshortcut.configuration.PasswordHashingProperties;
+import ru.job4j.urlshortcut.util.TooManyRequestsException;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Password hashing and verification on the dedicated bounded pool of threads.
+ * The deliberately slow {@link PasswordEncoder} never runs on more threads than configured,
+ * so a burst of the logins can't take all the processors from the other requests.
+ * When all the threads are busy and the queue is full, new tasks are rejected at once
+ * with {@link TooManyRequestsException} instead of waiting.
+ */
+@Component
+@EnableConfigurationProperties(PasswordHashingProperties.class)
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer encodeTimer;
+    private final Timer verifyTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          PasswordHashingProperties properties,
+                          MeterRegistry registry) {
+        this.passwordEncoder = passwordEncoder;
+        AtomicInteger threads = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, "password-hashing-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                factory, new ThreadPoolExecutor.AbortPolicy());
+        this.encodeTimer = Timer.builder("password.hashing")
+                .description("Latency of the password hashing")
+                .tag("operation", "encode")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.verifyTimer = Timer.builder("password.hashing")
+                .description("Latency of the password hashing")
+                .tag("operation", "verify")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.rejected = Counter.builder("password.hashing.rejected")
+                .description("Number of the password hashing tasks rejected due to the full queue")
+                .register(registry);
+        Gauge.builder("password.hashing.queue.size", executor, e -> e.getQueue().size())
+                .description("Number of the password hashing tasks waiting for a thread")
+                .register(registry);
+    }
+
+    /**
+     * Hashes the password with the configured work factor.
+     * @param password raw password
+     * @return encoded password
+     * @throws TooManyRequestsException when the hashing pool is saturated
+     */
+    @NonNull
+    public String encode(@NonNull CharSequence password) {
+        return execute(() -> encodeTimer.record(() -> passwordEncoder.encode(password)));
+    }
+
+    /**
+     * Verifies the password against the stored hash.
+     * @param password raw password
+     * @param encoded stored encoded password
+     * @return {@code true} if the password matches
+     * @throws TooManyRequestsException when the hashing pool is saturated
+     */
+    public boolean matches(@Nullable CharSequence password, @Nullable String encoded) {
+        Boolean matches = execute(() -> verifyTimer.record(
+                () -> passwordEncoder.matches(password, encoded)));
+        return Boolean.TRUE.equals(matches);
+    }
+
+    /**
+     * Checks if the stored hash is weaker than the configured one and should be replaced.
+     * The check parses the hash only and runs in the caller thread.
+     * @param encoded stored encoded password
+     * @return {@code true} if the password should be hashed again
+     */
+    public boolean upgradeEncoding(@NonNull String encoded) {
+        return passwordEncoder.upgradeEncoding(encoded);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException exception) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many password checks, try again later",
+                    exception);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Password hashing interrupted", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ru.job4j.urlshortcut.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ru.job4j.urlshortcut.configuration.RedirectCacheProperties;
+import ru.job4j.urlshortcut.model.RedirectTarget;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Bounded in-process cache of the redirect targets keyed by {@code Url} ID and short code.
+ * Uses frequency-aware (Window TinyLFU) eviction, so the hot links stay in the cache.
+ * Time to live of each entry is capped at the {@code Url} expiration time.
+ */
+@Component
+@EnableConfigurationProperties(RedirectCacheProperties.class)
+public class RedirectCache {
+
+    /** Name of the cache in the metrics registry. */
+    public static final String NAME = "redirect";
+
+    private final Cache<Object, RedirectTarget> cache;
+
+    public RedirectCache(RedirectCacheProperties properties, MeterRegistry registry) {
+        long ttl = Duration.ofSeconds(properties.getTtl()).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new TargetExpiry(ttl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, NAME);
+    }
+
+    /**
+     * Retrieves redirect target from the cache.
+     * @param uuid ID of the {@code Url}
+     * @return cached target or {@code null} if nothing found
+     */
+    @Nullable
+    public RedirectTarget get(@NonNull UUID uuid) {
+        return cache.getIfPresent(uuid);
+    }
+
+    /**
+     * Retrieves redirect target from the cache.
+     * @param code short code of the {@code Url}
+     * @return cached target or {@code null} if nothing found
+     */
+    @Nullable
+    public RedirectTarget getByCode(@NonNull String code) {
+        return cache.getIfPresent(code);
+    }
+
+    /**
+     * Puts redirect target to the cache. Already expired targets are not cached.
+     * @param target to put
+     */
+    public void put(@NonNull RedirectTarget target) {
+        if (target.isExpired(LocalDateTime.now())) {
+            return;
+        }
+        cache.put(target.uuid(), target);
+        if (target.code() != null) {
+            cache.put(target.code(), target);
+        }
+    }
+
+    /**
+     * Removes redirect target from the cache.
+     * @param uuid ID of the {@code Url}
+     * @param code short code of the {@code Url} or {@code null} if not assigned
+     */
+    public void evict(@NonNull UUID uuid, @Nullable String code) {
+        cache.invalidate(uuid);
+        if (code != null) {
+            cache.invalidate(code);
+        }
+    }
+
+    /**
+     * Removes redirect targets of all the {@code Url} entities of the {@code Server}.
+     * Scans the whole cache, so it's meant for the rare server deletion only.
+     * @param serverUuid ID of the {@code Server}
+     */
+    public void evictByServer(@NonNull UUID serverUuid) {
+        cache.asMap().values().removeIf(target -> serverUuid.equals(target.serverUuid()));
+    }
+
+    /**
+     * Returns snapshot of the cache hit, miss and eviction counters.
+     * @return cache statistics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /** Expiration policy with the entry time to live capped at the target expiration time. */
+    private record TargetExpiry(long ttl) implements Expiry<Object, RedirectTarget> {
+
+        @Override
+        public long expireAfterCreate(Object key, RedirectTarget value, long currentTime) {
+            if (value.expired() == null) {
+                return ttl;
+            }
+            Duration left = Duration.between(LocalDateTime.now(), value.expired());
+            if (left.isNegative()) {
+                return 0L;
+            }
+            return left.compareTo(Duration.ofNanos(ttl)) > 0 ? ttl : left.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, RedirectTarget value,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, RedirectTarget value,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package ru.job4j.urlshortcut.service;
 
-import org.springframework.security.oauth2.jwt.Jwt;
+import ru.job4j.urlshortcut.model.TokenGrant;
 import ru.job4j.urlshortcut.util.EntityNotFoundException;
 import ru.job4j.urlshortcut.util.AccessUnauthorizedException;
 
@@ -10,12 +10,30 @@ import java.util.UUID;
 public interface SecurityService {
 
     /**
-     * Generates JSON Web Token to secure access in behalf of registered {@code Server}.
+     * Generates JSON Web Token to secure access in behalf of registered {@code Server}
+     * with the refresh token to get the next ones.
      * @param uuid {@code Server} UUID for which access token will be generated
      * @param password {@code Server} password
-     * @return generated JSON Web Token
+     * @return generated JSON Web Token and refresh token
      * @throws EntityNotFoundException when {@code Server} cannot be found by specified UUID
      * @throws AccessUnauthorizedException when provided {@code password} is incorrect
      */
-    Jwt generateToken(UUID uuid, String password);
+    TokenGrant generateToken(UUID uuid, String password);
+
+    /**
+     * Exchanges the refresh token for the new JSON Web Token and the new refresh token.
+     * The refresh token can be used once only.
+     * @param refreshToken refresh token issued before
+     * @return generated JSON Web Token and refresh token
+     * @throws AccessUnauthorizedException when the refresh token is unknown, already used,
+     * revoked or expired
+     */
+    TokenGrant refreshToken(String refreshToken);
+
+    /**
+     * Revokes the refresh token.
+     * @param refreshToken refresh token issued before
+     * @return {@code true} if the token was valid and revoked
+     */
+    boolean revokeRefreshToken(String refreshToken);
 }
@@ -1,17 +1,22 @@
 package ru.job4j.urlshortcut.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
-import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.oauth2.jwt.JwsHeader;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.job4j.urlshortcut.configuration.SecurityProperties;
+import ru.job4j.urlshortcut.model.RefreshToken;
 import ru.job4j.urlshortcut.model.Server;
+import ru.job4j.urlshortcut.model.TokenGrant;
+import ru.job4j.urlshortcut.repository.RefreshTokenRepository;
 import ru.job4j.urlshortcut.util.AccessUnauthorizedException;
+import ru.job4j.urlshortcut.util.OpaqueToken;
+import ru.job4j.urlshortcut.util.TooManyRequestsException;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -19,6 +24,7 @@ import java.util.List;
 import java.util.UUID;
 
 /** Security-specific tasks service implementation. */
+@Slf4j
 @RequiredArgsConstructor
 @Service
 @EnableConfigurationProperties(SecurityProperties.class)
@@ -29,21 +35,55 @@ public class SecurityServiceImpl implements SecurityService {
 
     private final ServerService serverService;
 
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
 
     private final JwtEncoder jwtEncoder;
 
+    private final RefreshTokenRepository refreshTokenRepository;
+
     /** {@inheritDoc} */
     @Override
-    public Jwt generateToken(UUID uuid, String password) {
+    public TokenGrant generateToken(UUID uuid, String password) {
         Server server = serverService.getById(uuid);
-        if (!passwordEncoder.matches(password, server.getPassword())) {
+        if (!passwordHasher.matches(password, server.getPassword())) {
             throw new AccessUnauthorizedException("Password is incorrect.");
         }
+        try {
+            serverService.upgradePassword(server, password);
+        } catch (TooManyRequestsException exception) {
+            log.debug("Password hash of the server {} is not upgraded: {}",
+                    uuid, exception.getMessage());
+        }
         Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
-        JwsHeader header = JwsHeader.with(properties.getAlgorithm())
-                .type("JWT")
-                .build();
+        refreshTokenRepository.deleteExpiredByServerUuid(uuid, now);
+        return grant(server, now);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Transactional(noRollbackFor = AccessUnauthorizedException.class)
+    public TokenGrant refreshToken(String refreshToken) {
+        RefreshToken token = refreshToken == null ? null : refreshTokenRepository
+                .findByDigest(OpaqueToken.digest(refreshToken)).orElse(null);
+        if (token == null || refreshTokenRepository.deleteByUuid(token.getUuid()) == 0) {
+            throw new AccessUnauthorizedException("Refresh token is incorrect.");
+        }
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        if (!token.getExpired().isAfter(now)) {
+            throw new AccessUnauthorizedException("Refresh token is expired.");
+        }
+        return grant(token.getServer(), now);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean revokeRefreshToken(String refreshToken) {
+        return refreshToken != null
+                && refreshTokenRepository.deleteByDigest(OpaqueToken.digest(refreshToken)) > 0;
+    }
+
+    /** Issues the JSON Web Token and the new refresh token to the {@code Server}. */
+    private TokenGrant grant(Server server, Instant now) {
         JwtClaimsSet payload = JwtClaimsSet.builder()
                 .issuer(properties.getIssuer())
                 .audience(List.of(properties.getIssuer()))
@@ -52,6 +92,11 @@ public class SecurityServiceImpl implements SecurityService {
                 .issuedAt(now)
                 .expiresAt(now.plus(properties.getExpiration(), ChronoUnit.SECONDS))
                 .build();
-        return jwtEncoder.encode(JwtEncoderParameters.from(header, payload));
+        Jwt jwt = jwtEncoder.encode(JwtEncoderParameters.from(payload));
+        String refreshToken = OpaqueToken.generate();
+        Instant refreshExpired = now.plus(properties.getRefreshExpiration(), ChronoUnit.SECONDS);
+        refreshTokenRepository.save(new RefreshToken(
+                null, OpaqueToken.digest(refreshToken), server, now, refreshExpired));
+        return new TokenGrant(jwt, refreshToken, refreshExpired);
     }
 }
@@ -51,6 +51,7 @@ public interface ServerService {
 
     /**
      * Handles requests to change entity security password.
+     * All the refresh tokens issued with the previous password are revoked.
      *
      * @param uuid      ID of the target {@code Server} entity
      * @param principal user authentication
@@ -61,8 +62,21 @@ public interface ServerService {
      */
     boolean updatePasswordByIdAndPrincipal(UUID uuid, Principal principal, String password);
 
+    /**
+     * Handles requests to hash the verified password of the entity again
+     * when the stored hash is weaker than the configured one.
+     * The stored hash is replaced only if it wasn't changed meanwhile.
+     *
+     * @param server   entity with the stored encoded password
+     * @param password verified raw password
+     * @return {@code true} if the stored hash was replaced
+     */
+    boolean upgradePassword(Server server, String password);
+
     /**
      * Handles requests to delete {@code Server} entity by ID.
+     * The cached redirect targets and the in-memory statistics of its URLs are dropped,
+     * so the short links of the deleted server stop redirecting at once.
      *
      * @param uuid      ID of the target entity
      * @param principal user authentication
@@ -1,15 +1,18 @@
 package ru.job4j.urlshortcut.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.job4j.urlshortcut.model.Server;
+import ru.job4j.urlshortcut.repository.RefreshTokenRepository;
 import ru.job4j.urlshortcut.repository.ServerRepository;
+import ru.job4j.urlshortcut.repository.UrlRepository;
 import ru.job4j.urlshortcut.util.AccessForbiddenException;
+import ru.job4j.urlshortcut.util.AfterCommit;
 import ru.job4j.urlshortcut.util.EntityNotFoundException;
 
 import java.security.Principal;
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -18,13 +21,19 @@ import java.util.UUID;
 @Service
 public class ServerServiceImpl implements ServerService {
 
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final ServerRepository serverRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UrlRepository urlRepository;
+    private final RedirectCache cache;
+    private final VisitCounterService counters;
+    private final UniqueVisitorService visitors;
+    private final HotUrlTracker hotUrls;
 
     /** {@inheritDoc} */
     @Override
     public Server create(Server server) {
-        server.setPassword(passwordEncoder.encode(server.getPassword()));
+        server.setPassword(passwordHasher.encode(server.getPassword()));
         return serverRepository.save(server);
     }
 
@@ -57,7 +66,19 @@ public class ServerServiceImpl implements ServerService {
         if (!Objects.equals(server.getHost(), principal.getName())) {
             throw new AccessForbiddenException();
         }
-        return serverRepository.updatePasswordByUuid(uuid, passwordEncoder.encode(password)) > 0;
+        refreshTokenRepository.deleteByServerUuid(uuid);
+        return serverRepository.updatePasswordByUuid(uuid, passwordHasher.encode(password)) > 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean upgradePassword(Server server, String password) {
+        if (!passwordHasher.upgradeEncoding(server.getPassword())) {
+            return false;
+        }
+        String encoded = passwordHasher.encode(password);
+        return serverRepository.replacePasswordByUuid(
+                server.getUuid(), server.getPassword(), encoded) > 0;
     }
 
     /** {@inheritDoc} */
@@ -68,6 +89,16 @@ public class ServerServiceImpl implements ServerService {
         if (!Objects.equals(server.getHost(), principal.getName())) {
             throw new AccessForbiddenException();
         }
-        return serverRepository.deleteByUuid(uuid) > 0;
+        List<UUID> urls = urlRepository.findUuidsByServerUuid(uuid);
+        boolean deleted = serverRepository.deleteByUuid(uuid) > 0;
+        AfterCommit.execute(() -> {
+            cache.evictByServer(uuid);
+            urls.forEach(url -> {
+                counters.remove(url);
+                visitors.remove(url);
+            });
+            hotUrls.remove(uuid);
+        });
+        return deleted;
     }
 }
@@ -0,0 +1,173 @@
+package ru.job4j.urlshortcut.service;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.job4j.urlshortcut.configuration.ShortCodeProperties;
+import ru.job4j.urlshortcut.util.Base62;
+import ru.job4j.urlshortcut.util.FeistelPermutation;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocator of the unique short base62 codes of the {@code Url} entities.
+ * Each application node reserves blocks of numbers in the dedicated database table
+ * and hands the codes out from memory with an atomic counter,
+ * so code uniqueness doesn't require any database round trip on registration.
+ * Numbers are mapped to the codes of the shortest length left with the keyed permutation
+ * of all the codes of that length, so consecutive codes don't reveal their neighbours.
+ */
+@Component
+@EnableConfigurationProperties(ShortCodeProperties.class)
+public class ShortCodeAllocator {
+
+    /** Minimal length of the short code. */
+    public static final int MIN_LENGTH = 6;
+
+    /** Maximal length of the short code. */
+    public static final int MAX_LENGTH = 10;
+
+    /** Name of the allocator row in the ranges table. */
+    private static final String RANGE_NAME = "urls";
+
+    /** Base of the short code symbols. */
+    private static final long BASE = 62;
+
+    private final ShortCodeProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Permutations of the codes of each length, starting with the minimal one. */
+    private final FeistelPermutation[] permutations =
+            new FeistelPermutation[MAX_LENGTH - MIN_LENGTH + 1];
+
+    /** Currently used block of numbers. */
+    private volatile Range range = new Range(0L, 0L);
+
+    public ShortCodeAllocator(ShortCodeProperties properties,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(
+                TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        for (int length = MIN_LENGTH; length <= MAX_LENGTH; length++) {
+            permutations[length - MIN_LENGTH] =
+                    new FeistelPermutation(count(length), properties.getKey());
+        }
+    }
+
+    /**
+     * Returns the next unique short code.
+     * @return base62 code
+     */
+    public String next() {
+        while (true) {
+            Range current = range;
+            long value = current.next.getAndIncrement();
+            if (value < current.end) {
+                return code(value);
+            }
+            refill(current);
+        }
+    }
+
+    /**
+     * Returns the high-water mark of the numbers reserved by all the nodes,
+     * the code of a greater or equal number has never been allocated.
+     * @return first number not reserved yet
+     */
+    public long highWaterMark() {
+        return Objects.requireNonNull(jdbcTemplate.queryForObject(
+                "SELECT next_value FROM url_code_ranges WHERE name = ?",
+                Long.class, RANGE_NAME));
+    }
+
+    /**
+     * Returns the short code of the allocated number.
+     * @param number allocated number
+     * @return base62 code
+     * @throws IllegalStateException when the number exceeds the codes of the maximal length
+     */
+    public String code(long number) {
+        long rest = number;
+        for (int length = MIN_LENGTH; length <= MAX_LENGTH; length++) {
+            long count = count(length);
+            if (rest < count) {
+                return Base62.encode(first(length)
+                        + permutations[length - MIN_LENGTH].permute(rest));
+            }
+            rest -= count;
+        }
+        throw new IllegalStateException("Short codes are exhausted");
+    }
+
+    /**
+     * Returns the allocated number of the short code.
+     * @param code base62 code
+     * @return number or -1 if the code can't be allocated by this allocator
+     */
+    public long number(String code) {
+        int length = code.length();
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
+            return -1;
+        }
+        long value = Base62.decode(code);
+        if (value < first(length)) {
+            return -1;
+        }
+        long result = permutations[length - MIN_LENGTH].inverse(value - first(length));
+        for (int shorter = MIN_LENGTH; shorter < length; shorter++) {
+            result += count(shorter);
+        }
+        return result;
+    }
+
+    /**
+     * Reserves a new block of numbers if the exhausted one is still in use.
+     * @param exhausted block of numbers observed as exhausted
+     */
+    private synchronized void refill(Range exhausted) {
+        if (range != exhausted) {
+            return;
+        }
+        int size = properties.getBlockSize();
+        long end = Objects.requireNonNull(transactionTemplate.execute(status -> {
+            jdbcTemplate.update(
+                    "UPDATE url_code_ranges SET next_value = next_value + ? WHERE name = ?",
+                    size, RANGE_NAME);
+            return highWaterMark();
+        }));
+        range = new Range(end - size, end);
+    }
+
+    /** Returns the smallest number encoded with the specified number of symbols. */
+    private static long first(int length) {
+        long result = 1;
+        for (int i = 1; i < length; i++) {
+            result *= BASE;
+        }
+        return result;
+    }
+
+    /** Returns the number of the codes of the specified length without leading zeros. */
+    private static long count(int length) {
+        return first(length) * (BASE - 1);
+    }
+
+    /** Block of reserved numbers from {@code next} value inclusive to {@code end} exclusive. */
+    private static final class Range {
+
+        private final AtomicLong next;
+        private final long end;
+
+        private Range(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
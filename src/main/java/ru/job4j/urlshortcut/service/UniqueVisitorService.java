@@ -0,0 +1,254 @@
+package ru.job4j.urlshortcut.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.job4j.urlshortcut.configuration.UniqueVisitorProperties;
+import ru.job4j.urlshortcut.util.ConcurrentHyperLogLog;
+import ru.job4j.urlshortcut.util.HyperLogLog;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Approximate unique visitors counting of the {@code Url} entities.
+ * Each visit folds the hash of the client identity (IP address and user agent)
+ * into the in-memory per-URL HyperLogLog sketch. Sketches are periodically merged
+ * into the persisted ones, so neither the raw identities nor the visit log are read
+ * to estimate the number of unique visitors.
+ * In-memory sketches start sparse and are updated without locks, when their memory
+ * exceeds the budget they are flushed early by the background thread.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(UniqueVisitorProperties.class)
+public class UniqueVisitorService {
+
+    /**
+     * Upsert statement of the sketch, sketches of the already deleted {@code Url} are skipped.
+     * Parameters are: {@code Url} ID, serialized sketch (twice).
+     */
+    private static final String MERGE_SQL = """
+            MERGE INTO url_visitor_sketches v
+            USING (SELECT u.url_uuid FROM urls u WHERE u.url_uuid = ?) s
+            ON v.url_uuid = s.url_uuid
+            WHEN MATCHED THEN UPDATE SET sketch = ?
+            WHEN NOT MATCHED THEN INSERT (url_uuid, sketch) VALUES (s.url_uuid, ?)""";
+
+    /** Maximum number of the sketches locked and read with one query. */
+    private static final int CHUNK_SIZE = 500;
+
+    private final UniqueVisitorProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Visitors not flushed to the persistent storage yet. */
+    private final Map<UUID, ConcurrentHyperLogLog> pending = new ConcurrentHashMap<>();
+
+    /** Memory of the pending sketches, recalculated on each flush. */
+    private final AtomicLong memory = new AtomicLong();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ExecutorService executor;
+
+    public UniqueVisitorService(UniqueVisitorProperties properties,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry registry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "unique-visitors-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("unique.visitors.memory", memory, AtomicLong::get)
+                .description("Memory used by the not flushed unique visitors sketches")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Counts the {@code Url} visitor.
+     * @param uuid ID of the visited {@code Url}
+     * @param address client IP address
+     * @param userAgent client user agent or {@code null} if unknown
+     */
+    public void record(@NonNull UUID uuid, @NonNull String address, @Nullable String userAgent) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long hash = HyperLogLog.hash(address, userAgent == null ? "" : userAgent);
+        ConcurrentHyperLogLog sketch = pending.get(uuid);
+        long allocated = 0L;
+        while (true) {
+            if (sketch == null) {
+                ConcurrentHyperLogLog created =
+                        ConcurrentHyperLogLog.create(properties.getPrecision());
+                sketch = pending.putIfAbsent(uuid, created);
+                if (sketch == null) {
+                    sketch = created;
+                    allocated += created.byteSize();
+                }
+            }
+            if (sketch.add(hash)) {
+                allocated += HyperLogLog.byteSize(properties.getPrecision());
+            }
+            /* A flushed sketch may miss the hash, adding it again to the new one is a no-op. */
+            ConcurrentHyperLogLog current = pending.get(uuid);
+            if (current == sketch) {
+                break;
+            }
+            sketch = current;
+        }
+        if (allocated > 0L) {
+            reserve(allocated);
+        }
+    }
+
+    /**
+     * Estimates the number of the {@code Url} unique visitors including not flushed ones.
+     * @param uuid ID of the {@code Url}
+     * @return estimated number of unique visitors
+     */
+    public long estimate(@NonNull UUID uuid) {
+        ConcurrentHyperLogLog sketch = pending.get(uuid);
+        HyperLogLog persisted = load(List.of(uuid), false).get(uuid);
+        HyperLogLog result = union(sketch == null ? null : sketch.snapshot(), persisted);
+        return result == null ? 0L : result.estimate();
+    }
+
+    /**
+     * Drops not flushed visitors of the deleted {@code Url}.
+     * @param uuid ID of the {@code Url}
+     */
+    public void remove(@NonNull UUID uuid) {
+        ConcurrentHyperLogLog sketch = pending.remove(uuid);
+        if (sketch != null) {
+            memory.addAndGet(-sketch.byteSize());
+        }
+    }
+
+    /**
+     * Merges all the accumulated sketches into the persisted ones.
+     * Persisted sketches are locked while merged, so concurrent flushes of several nodes
+     * don't overwrite each other.
+     */
+    @Scheduled(fixedDelayString = "${ru.job4j.urlshortcut.unique-visitors.flush-interval:60000}")
+    public synchronized void flush() {
+        flushRequested.set(false);
+        Map<UUID, HyperLogLog> batch = new HashMap<>();
+        for (UUID uuid : pending.keySet()) {
+            ConcurrentHyperLogLog sketch = pending.remove(uuid);
+            if (sketch != null) {
+                batch.put(uuid, sketch.snapshot());
+            }
+        }
+        recalculateMemory();
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<UUID, HyperLogLog> persisted = load(batch.keySet(), true);
+                List<Object[]> rows = new ArrayList<>(batch.size());
+                batch.forEach((uuid, sketch) -> {
+                    byte[] bytes = union(sketch, persisted.get(uuid)).toBytes();
+                    rows.add(new Object[] {uuid, bytes, bytes});
+                });
+                jdbcTemplate.batchUpdate(MERGE_SQL, rows);
+            });
+        } catch (RuntimeException exception) {
+            log.error("Failed to flush {} unique visitors sketches, will retry",
+                    batch.size(), exception);
+            batch.forEach((uuid, sketch) -> pending.computeIfAbsent(uuid,
+                    key -> ConcurrentHyperLogLog.create(sketch.precision())).merge(sketch));
+            recalculateMemory();
+        }
+    }
+
+    /** Flushes the sketches on the application graceful shutdown. */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        flush();
+    }
+
+    /**
+     * Accounts the memory taken by the sketches, the early flush is requested over the budget.
+     * Called after the hash is added, so the flush doesn't miss it.
+     */
+    private void reserve(long bytes) {
+        if (memory.addAndGet(bytes) > properties.getMaxMemory()
+                && flushRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::flush);
+            } catch (RejectedExecutionException exception) {
+                log.debug("Early flush of unique visitors sketches skipped on shutdown");
+            }
+        }
+    }
+
+    private void recalculateMemory() {
+        long total = 0;
+        for (ConcurrentHyperLogLog sketch : pending.values()) {
+            total += sketch.byteSize();
+        }
+        memory.set(total);
+    }
+
+    private Map<UUID, HyperLogLog> load(Iterable<UUID> uuids, boolean lock) {
+        List<UUID> ids = new ArrayList<>();
+        uuids.forEach(ids::add);
+        Map<UUID, HyperLogLog> result = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<UUID> chunk = ids.subList(from, Math.min(ids.size(), from + CHUNK_SIZE));
+            String sql = "SELECT url_uuid, sketch FROM url_visitor_sketches WHERE url_uuid IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")"
+                    + (lock ? " FOR UPDATE" : "");
+            jdbcTemplate.query(sql, row -> {
+                try {
+                    result.put(row.getObject(1, UUID.class),
+                            HyperLogLog.fromBytes(row.getBytes(2)));
+                } catch (IllegalArgumentException exception) {
+                    log.warn("Dropped corrupted unique visitors sketch", exception);
+                }
+            }, chunk.toArray());
+        }
+        return result;
+    }
+
+    /**
+     * Merges two sketches into the new one of the lower precision of the two.
+     * @return union of the sketches or {@code null} if both are {@code null}
+     */
+    @Nullable
+    private static HyperLogLog union(@Nullable HyperLogLog first, @Nullable HyperLogLog second) {
+        if (first == null || second == null) {
+            return first == null ? second : first;
+        }
+        HyperLogLog result = first.reduce(Math.min(first.precision(), second.precision()));
+        result.merge(second.reduce(result.precision()));
+        return result;
+    }
+}
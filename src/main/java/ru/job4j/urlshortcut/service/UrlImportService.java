@@ -0,0 +1,206 @@
+package ru.job4j.urlshortcut.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+import ru.job4j.urlshortcut.configuration.UrlImportProperties;
+import ru.job4j.urlshortcut.dto.UrlRegistrationDto;
+import ru.job4j.urlshortcut.model.DataFormat;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.model.UrlImportProgress;
+import ru.job4j.urlshortcut.model.UrlRegistrationResult;
+import ru.job4j.urlshortcut.util.BoundedLineReader;
+import ru.job4j.urlshortcut.util.CsvRecord;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Service to import {@code Url} registrations from the stream of rows.
+ * Rows are parsed one by one and saved by the chunks of the fixed size,
+ * so the memory used doesn't depend on the input size, and the input is read
+ * no faster than the rows are saved.
+ */
+@RequiredArgsConstructor
+@Service
+@EnableConfigurationProperties(UrlImportProperties.class)
+public class UrlImportService {
+
+    private static final String[] CSV_COLUMNS = {"url", "expiration", "description",
+            "redirectpolicy"};
+
+    private final UrlService urlService;
+    private final UrlRegistrationValidator validator;
+    private final ObjectMapper mapper;
+    private final UrlImportProperties properties;
+
+    /**
+     * Imports the {@code Url} registrations.
+     * @param input source of the rows
+     * @param format format of the rows
+     * @param principal user authentication
+     * @param listener receiver of the rejected rows and the progress after each chunk
+     * @return import totals
+     * @throws IOException when the input cannot be read
+     * @throws IllegalArgumentException when the CSV header is incorrect
+     */
+    public UrlImportProgress importUrls(Reader input, DataFormat format, Principal principal,
+                                        Listener listener) throws IOException {
+        BoundedLineReader reader = new BoundedLineReader(input, properties.getMaxRowLength());
+        RowParser parser = format == DataFormat.CSV ? csvParser(reader) : this::parseJson;
+        Totals totals = new Totals();
+        List<Url> chunk = new ArrayList<>(properties.getChunkSize());
+        long[] lines = new long[properties.getChunkSize()];
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            totals.rows++;
+            try {
+                if (reader.isTruncated()) {
+                    throw new IllegalArgumentException(
+                            "Row is longer than " + properties.getMaxRowLength() + " symbols");
+                }
+                Url url = validator.toEntity(parser.parse(line));
+                lines[chunk.size()] = reader.lineNumber();
+                chunk.add(url);
+            } catch (IllegalArgumentException exception) {
+                totals.reject(reader.lineNumber(),
+                        UrlRegistrationResult.invalid(exception.getMessage()), listener);
+            }
+            if (chunk.size() == lines.length) {
+                save(chunk, lines, principal, totals, listener);
+                listener.progress(totals.toProgress(false));
+            }
+        }
+        if (!chunk.isEmpty()) {
+            save(chunk, lines, principal, totals, listener);
+        }
+        UrlImportProgress result = totals.toProgress(true);
+        listener.progress(result);
+        return result;
+    }
+
+    private void save(List<Url> chunk, long[] lines, Principal principal, Totals totals,
+                      Listener listener) {
+        List<UrlRegistrationResult> results = urlService.createAll(chunk, principal);
+        for (int i = 0; i < results.size(); i++) {
+            UrlRegistrationResult result = results.get(i);
+            if (result.outcome() == UrlRegistrationResult.Outcome.CREATED) {
+                totals.created++;
+            } else {
+                totals.reject(lines[i], result, listener);
+            }
+        }
+        chunk.clear();
+    }
+
+    private UrlRegistrationDto parseJson(String line) {
+        try {
+            return mapper.readValue(line, UrlRegistrationDto.class);
+        } catch (JsonProcessingException exception) {
+            throw new IllegalArgumentException("Row is not a correct registration JSON object");
+        }
+    }
+
+    private RowParser csvParser(BoundedLineReader reader) throws IOException {
+        String header;
+        do {
+            header = reader.readLine();
+        } while (header != null && header.isBlank());
+        if (header == null) {
+            return line -> null;
+        }
+        Map<String, Integer> names = new HashMap<>();
+        List<String> fields = CsvRecord.parse(header);
+        for (int i = 0; i < fields.size(); i++) {
+            names.put(fields.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        int[] columns = new int[CSV_COLUMNS.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = names.getOrDefault(CSV_COLUMNS[i], -1);
+        }
+        if (reader.isTruncated() || columns[0] < 0) {
+            throw new IllegalArgumentException("CSV header must contain the 'url' column");
+        }
+        return line -> parseCsv(CsvRecord.parse(line), columns);
+    }
+
+    private static UrlRegistrationDto parseCsv(List<String> fields, int[] columns) {
+        String url = field(fields, columns[0]);
+        String expiration = field(fields, columns[1]);
+        String policy = field(fields, columns[3]);
+        long seconds;
+        try {
+            seconds = expiration == null ? 0L : Long.parseLong(expiration.trim());
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException("Expiration time must be a number of seconds");
+        }
+        RedirectPolicy redirectPolicy;
+        try {
+            redirectPolicy = policy == null ? null : RedirectPolicy.valueOf(policy.trim());
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("Redirect policy '" + policy + "' is unknown");
+        }
+        return new UrlRegistrationDto(url, seconds, field(fields, columns[2]), redirectPolicy);
+    }
+
+    private static String field(List<String> fields, int column) {
+        if (column < 0 || column >= fields.size() || fields.get(column).isEmpty()) {
+            return null;
+        }
+        return fields.get(column);
+    }
+
+    /** Receiver of the import events. */
+    public interface Listener {
+
+        /**
+         * Receives the rejected row.
+         * @param line one-based number of the line of the input
+         * @param result reason of the rejection
+         */
+        void rejected(long line, UrlRegistrationResult result);
+
+        /**
+         * Receives the progress after each saved chunk and the totals at the end.
+         * @param progress current totals
+         */
+        void progress(UrlImportProgress progress);
+    }
+
+    @FunctionalInterface
+    private interface RowParser {
+        UrlRegistrationDto parse(String line);
+    }
+
+    private static final class Totals {
+        private long rows;
+        private long created;
+        private long conflicts;
+        private long invalid;
+
+        private void reject(long line, UrlRegistrationResult result, Listener listener) {
+            if (result.outcome() == UrlRegistrationResult.Outcome.CONFLICT) {
+                conflicts++;
+            } else {
+                invalid++;
+            }
+            listener.rejected(line, result);
+        }
+
+        private UrlImportProgress toProgress(boolean done) {
+            return new UrlImportProgress(rows, created, conflicts, invalid, done);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.job4j.urlshortcut.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ru.job4j.urlshortcut.dto.UrlRegistrationDto;
+import ru.job4j.urlshortcut.dto.UrlRegistrationDtoMapper;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+import ru.job4j.urlshortcut.model.Url;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/** Validator of the {@code Url} registrations received in bulk. */
+@RequiredArgsConstructor
+@Component
+public class UrlRegistrationValidator {
+
+    private final Validator validator;
+
+    /**
+     * Validates the registration with the {@link UrlRegistrationDto} constraints
+     * and maps it to the entity. The URL address syntax is checked first, so the incorrect
+     * registrations are rejected before the Bean Validation and the parsing.
+     * @param dto registration to validate
+     * @return entity to save
+     * @throws IllegalArgumentException with the validation message when the registration
+     * is incorrect
+     */
+    public Url toEntity(@Nullable UrlRegistrationDto dto) {
+        if (dto == null || !ShortcutTarget.isValid(dto.url())) {
+            throw new IllegalArgumentException("URL is incorrect");
+        }
+        Set<ConstraintViolation<UrlRegistrationDto>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage).sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        return UrlRegistrationDtoMapper.toEntity(dto);
+    }
+}
@@ -1,12 +1,25 @@
 package ru.job4j.urlshortcut.service;
 
 import org.springframework.dao.DataIntegrityViolationException;
+import ru.job4j.urlshortcut.dto.UrlVisitsDto;
+import ru.job4j.urlshortcut.model.Granularity;
+import ru.job4j.urlshortcut.model.HotUrl;
+import ru.job4j.urlshortcut.model.RedirectTarget;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+import ru.job4j.urlshortcut.model.TopWindow;
 import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.model.UrlFilter;
+import ru.job4j.urlshortcut.model.UrlPage;
+import ru.job4j.urlshortcut.model.UrlRegistrationResult;
+import ru.job4j.urlshortcut.model.VisitBucket;
 import ru.job4j.urlshortcut.util.AccessForbiddenException;
 import ru.job4j.urlshortcut.util.EntityNotFoundException;
+import ru.job4j.urlshortcut.util.PageCursor;
 
 import java.security.Principal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /** {@code Url}-specific service interface. */
@@ -24,6 +37,24 @@ public interface UrlService {
      */
     Url create(Url url, Principal principal);
 
+    /**
+     * Handles requests to save a batch of new {@code Url} entities.
+     * The owning server is resolved once and the entities are inserted by batched statements.
+     * One rejected entity doesn't abort the batch.
+     *
+     * @param urls entities to save
+     * @param principal user authentication
+     * @return result of each entity registration in the order of the entities
+     */
+    List<UrlRegistrationResult> createAll(List<Url> urls, Principal principal);
+
+    /**
+     * Finds the ID of the {@code Url} entity registered with the equivalent address.
+     * @param url address to search
+     * @return {@code Optional} with the ID or empty {@code Optional} if nothing found
+     */
+    Optional<UUID> findIdByUrl(ShortcutTarget url);
+
     /**
      * Handles requests to get entity by ID.
      *
@@ -42,6 +73,26 @@ public interface UrlService {
      */
     Url getByIdAndLog(UUID uuid);
 
+    /**
+     * Handles requests to get redirect target by {@code Url} ID and log access information.
+     * Targets are served from the in-process cache when possible.
+     * Missing entity is reported without exceptions to keep the not found path cheap.
+     *
+     * @param uuid ID of the target entity
+     * @return redirect target or empty {@code Optional} if entity cannot be found
+     */
+    Optional<RedirectTarget> findTargetByIdAndLog(UUID uuid);
+
+    /**
+     * Handles requests to get redirect target by {@code Url} short code and log access information.
+     * Targets are served from the in-process cache when possible.
+     * Missing entity is reported without exceptions to keep the not found path cheap.
+     *
+     * @param code short code of the target entity
+     * @return redirect target or empty {@code Optional} if entity cannot be found
+     */
+    Optional<RedirectTarget> findTargetByCodeAndLog(String code);
+
     /**
      * Handles requests to get all the entities with the specified server ID.
      *
@@ -50,6 +101,28 @@ public interface UrlService {
      */
     List<Url> getAllByServerId(UUID uuid);
 
+    /**
+     * Handles requests to get all the entities with the specified server ID
+     * with their numbers of visits.
+     *
+     * @param uuid server ID
+     * @return list with search results or empty list if nothing found
+     */
+    List<UrlVisitsDto> getAllWithVisitsByServerId(UUID uuid);
+
+    /**
+     * Handles requests to get the page of the entities with the specified server ID
+     * ordered by the creation time and the ID.
+     *
+     * @param serverUuid server ID
+     * @param filter optional conditions
+     * @param after position of the page start or {@code null} for the first page
+     * @param limit maximum number of the entities
+     * @return page with search results and the next page position
+     * @throws IllegalArgumentException when the limit is out of the allowed range
+     */
+    UrlPage getPageByServerId(UUID serverUuid, UrlFilter filter, PageCursor after, int limit);
+
     /**
      * Handles requests to delete {@code Url} entity by ID.
      *
@@ -68,4 +141,49 @@ public interface UrlService {
      * @return count result
      */
     long getUrlVisitsCount(UUID uuid);
+
+    /**
+     * Handles requests to estimate the number of {@code Url} unique visitors.
+     *
+     * @param uuid ID of the target entity
+     * @return estimated number of unique visitors
+     */
+    long getUrlUniqueVisitors(UUID uuid);
+
+    /**
+     * Handles requests to get {@code Url} visits time series.
+     *
+     * @param uuid ID of the target entity
+     * @param granularity time bucket size
+     * @param from start of the range, truncated to the bucket start
+     * @param to end of the range exclusive
+     * @return visits per bucket including empty ones
+     * @throws IllegalArgumentException when the range is empty or contains too many buckets
+     */
+    List<VisitBucket> getUrlVisitSeries(UUID uuid, Granularity granularity,
+                                        LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Handles requests to get visits time series of all the URLs of the server.
+     *
+     * @param serverUuid server ID
+     * @param granularity time bucket size
+     * @param from start of the range, truncated to the bucket start
+     * @param to end of the range exclusive
+     * @return visits per bucket including empty ones
+     * @throws IllegalArgumentException when the range is empty or contains too many buckets
+     */
+    List<VisitBucket> getServerVisitSeries(UUID serverUuid, Granularity granularity,
+                                           LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Handles requests to get the hottest links of the server over the sliding time window.
+     *
+     * @param serverUuid server ID
+     * @param window sliding time window
+     * @param limit maximum number of the links
+     * @return links ordered by the estimated number of visits descending
+     * @throws IllegalArgumentException when the limit is out of the tracked range
+     */
+    List<HotUrl> getServerTopUrls(UUID serverUuid, TopWindow window, int limit);
 }
@@ -1,17 +1,34 @@
 package ru.job4j.urlshortcut.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.job4j.urlshortcut.dto.UrlVisitsDto;
+import ru.job4j.urlshortcut.model.Granularity;
+import ru.job4j.urlshortcut.model.HotUrl;
+import ru.job4j.urlshortcut.model.RedirectTarget;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+import ru.job4j.urlshortcut.model.TopWindow;
 import ru.job4j.urlshortcut.model.Url;
-import ru.job4j.urlshortcut.repository.UrlAccessRecordRepository;
+import ru.job4j.urlshortcut.model.UrlFilter;
+import ru.job4j.urlshortcut.model.UrlPage;
+import ru.job4j.urlshortcut.model.UrlRegistrationResult;
+import ru.job4j.urlshortcut.model.VisitBucket;
 import ru.job4j.urlshortcut.repository.UrlRepository;
 import ru.job4j.urlshortcut.util.AccessForbiddenException;
+import ru.job4j.urlshortcut.util.AfterCommit;
 import ru.job4j.urlshortcut.util.EntityNotFoundException;
+import ru.job4j.urlshortcut.util.PageCursor;
+import ru.job4j.urlshortcut.util.UrlDigest;
 
 import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 /** {@code Url}-specific service to manage entries. */
@@ -19,19 +36,113 @@ import java.util.UUID;
 @Service
 public class UrlServiceImpl implements UrlService {
 
+    /** Maximum number of the entities in one page. */
+    public static final int MAX_PAGE_SIZE = 1_000;
+
     private final ServerService serverService;
     private final UrlRepository repository;
-    private final UrlAccessRecordRepository recordRepository;
+    private final RedirectCache cache;
+    private final AccessLogWriter accessLog;
+    private final VisitCounterService counters;
+    private final ShortCodeAllocator codeAllocator;
+    private final NegativeLookupFilter filter;
+    private final LookupCoalescer coalescer;
+    private final VisitRollupService rollups;
+    private final UniqueVisitorService visitors;
+    private final HotUrlTracker hotUrls;
 
     /** {@inheritDoc} */
     @Override
     public Url create(Url url, Principal principal) {
-        String host = url.getUrl().getHost();
-        if (!Objects.equals(host, principal.getName())) {
+        if (!url.getUrl().isHostedBy(principal.getName())) {
             throw new AccessForbiddenException();
         }
-        url.setServerUuid(serverService.getByHost(host).getUuid());
-        return repository.save(url);
+        url.setServerUuid(serverService.getByHost(principal.getName()).getUuid());
+        url.setCode(codeAllocator.next());
+        Url saved = repository.save(url);
+        filter.add(saved.getUuid(), saved.getCode());
+        cache.put(RedirectTarget.of(saved));
+        return saved;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Addresses repeated in the batch or already registered are rejected before the insertion
+     * by one query of the digests of their canonical forms. If a concurrent registration still
+     * violates a constraint, the batch falls back to the insertion of the entities one by one
+     * to reject only the conflicting ones.
+     */
+    @Override
+    public List<UrlRegistrationResult> createAll(List<Url> urls, Principal principal) {
+        UrlRegistrationResult[] results = new UrlRegistrationResult[urls.size()];
+        Map<ShortcutTarget, Integer> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < results.length; i++) {
+            ShortcutTarget address = urls.get(i).getUrl();
+            if (!address.isHostedBy(principal.getName())) {
+                results[i] = UrlRegistrationResult.invalid("URL host doesn't match the server");
+            } else if (candidates.putIfAbsent(address, i) != null) {
+                results[i] = UrlRegistrationResult.conflict(
+                        "URL '" + address + "' repeated in the batch");
+            }
+        }
+        if (!candidates.isEmpty()) {
+            List<byte[]> digests = candidates.keySet().stream().map(UrlDigest::of).toList();
+            for (ShortcutTarget registered : repository.findRegisteredUrls(digests)) {
+                Integer index = candidates.remove(registered);
+                if (index != null) {
+                    results[index] = UrlRegistrationResult.conflict(
+                            "URL '" + registered + "' already registered");
+                }
+            }
+        }
+        if (!candidates.isEmpty()) {
+            UUID serverUuid = serverService.getByHost(principal.getName()).getUuid();
+            List<Url> batch = new ArrayList<>(candidates.size());
+            for (int index : candidates.values()) {
+                Url url = urls.get(index);
+                url.setServerUuid(serverUuid);
+                url.setCode(codeAllocator.next());
+                batch.add(url);
+            }
+            List<UrlRegistrationResult> saved = saveAll(batch);
+            int i = 0;
+            for (int index : candidates.values()) {
+                results[index] = saved.get(i++);
+            }
+        }
+        return List.of(results);
+    }
+
+    private List<UrlRegistrationResult> saveAll(List<Url> batch) {
+        List<UrlRegistrationResult> results = new ArrayList<>(batch.size());
+        try {
+            for (Url saved : repository.saveAll(batch)) {
+                results.add(register(saved));
+            }
+        } catch (DataIntegrityViolationException exception) {
+            for (Url url : batch) {
+                url.setUuid(null);
+                try {
+                    results.add(register(repository.save(url)));
+                } catch (DataIntegrityViolationException conflict) {
+                    results.add(UrlRegistrationResult.conflict(
+                            "URL '" + url.getUrl() + "' already registered"));
+                }
+            }
+        }
+        return results;
+    }
+
+    private UrlRegistrationResult register(Url saved) {
+        filter.add(saved.getUuid(), saved.getCode());
+        cache.put(RedirectTarget.of(saved));
+        return UrlRegistrationResult.created(saved);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Optional<UUID> findIdByUrl(ShortcutTarget url) {
+        return repository.findUuidByDigest(UrlDigest.of(url));
     }
 
     /** {@inheritDoc} */
@@ -43,7 +154,47 @@ public class UrlServiceImpl implements UrlService {
     /** {@inheritDoc} */
     @Override
     public Url getByIdAndLog(UUID uuid) {
-        return repository.findByIdAndLog(uuid).orElseThrow(EntityNotFoundException::new);
+        return findByIdAndLog(uuid).orElseThrow(EntityNotFoundException::new);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Optional<RedirectTarget> findTargetByIdAndLog(UUID uuid) {
+        RedirectTarget target = cache.get(uuid);
+        if (target != null) {
+            recordVisit(target);
+            return Optional.of(target);
+        }
+        if (!filter.mightContain(uuid)) {
+            return Optional.empty();
+        }
+        Optional<Url> url = findByIdAndLog(uuid);
+        if (url.isEmpty()) {
+            return Optional.empty();
+        }
+        target = RedirectTarget.of(url.get());
+        cache.put(target);
+        return Optional.of(target);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Optional<RedirectTarget> findTargetByCodeAndLog(String code) {
+        RedirectTarget target = cache.getByCode(code);
+        if (target == null) {
+            if (!filter.mightContain(code)) {
+                return Optional.empty();
+            }
+            Optional<Url> url =
+                    coalescer.execute(code, () -> repository.findByCode(code)).value();
+            if (url.isEmpty()) {
+                return Optional.empty();
+            }
+            target = RedirectTarget.of(url.get());
+            cache.put(target);
+        }
+        recordVisit(target);
+        return Optional.of(target);
     }
 
     /** {@inheritDoc} */
@@ -52,20 +203,118 @@ public class UrlServiceImpl implements UrlService {
         return repository.findAllByServerUuid(uuid);
     }
 
+    /**
+     * {@inheritDoc}
+     * Persisted numbers of visits are read with the same query as the entities,
+     * and not flushed visits are added from memory.
+     */
+    @Override
+    public List<UrlVisitsDto> getAllWithVisitsByServerId(UUID uuid) {
+        List<UrlVisitsDto> urls = repository.findAllWithVisitsByServerUuid(uuid);
+        List<UrlVisitsDto> result = new ArrayList<>(urls.size());
+        for (UrlVisitsDto url : urls) {
+            result.add(url.addVisits(counters.pending(url.uuid())));
+        }
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public UrlPage getPageByServerId(UUID serverUuid, UrlFilter filter, PageCursor after,
+                                     int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be from 1 to " + MAX_PAGE_SIZE);
+        }
+        List<Url> urls = repository.findPageByServerUuid(
+                serverUuid, filter, after, LocalDateTime.now(), limit + 1);
+        if (urls.size() <= limit) {
+            return new UrlPage(urls, null);
+        }
+        Url last = urls.get(limit - 1);
+        return new UrlPage(urls.subList(0, limit),
+                new PageCursor(last.getCreated(), last.getUuid()));
+    }
+
     /** {@inheritDoc} */
     @Override
     @Transactional
     public boolean deleteByIdAndPrincipal(UUID uuid, Principal principal) {
         Url url = getById(uuid);
-        if (!Objects.equals(url.getUrl().getHost(), principal.getName())) {
+        if (!url.getUrl().isHostedBy(principal.getName())) {
             throw new AccessForbiddenException();
         }
-        return repository.deleteByUuid(uuid) > 0;
+        boolean deleted = repository.deleteByUuid(uuid) > 0;
+        AfterCommit.execute(() -> {
+            cache.evict(uuid, url.getCode());
+            counters.remove(uuid);
+            visitors.remove(uuid);
+        });
+        return deleted;
     }
 
     /** {@inheritDoc} */
     @Override
     public long getUrlVisitsCount(UUID uuid) {
-        return recordRepository.countByUrlUuid(uuid);
+        return counters.get(uuid);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getUrlUniqueVisitors(UUID uuid) {
+        return visitors.estimate(uuid);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<VisitBucket> getUrlVisitSeries(UUID uuid, Granularity granularity,
+                                               LocalDateTime from, LocalDateTime to) {
+        return rollups.urlSeries(uuid, granularity, from, to);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<VisitBucket> getServerVisitSeries(UUID serverUuid, Granularity granularity,
+                                                  LocalDateTime from, LocalDateTime to) {
+        return rollups.serverSeries(serverUuid, granularity, from, to);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<HotUrl> getServerTopUrls(UUID serverUuid, TopWindow window, int limit) {
+        return hotUrls.top(serverUuid, window, limit);
+    }
+
+    /**
+     * Finds the {@code Url} entity and logs access if found.
+     * Concurrent lookups of the same entity are coalesced into one database query,
+     * while each visit is still logged and counted individually.
+     * @param uuid ID of the {@code Url}
+     * @return found entity or empty {@code Optional}
+     */
+    private Optional<Url> findByIdAndLog(UUID uuid) {
+        boolean async = accessLog.isAsync();
+        LookupCoalescer.Call<Optional<Url>> call = coalescer.execute(uuid,
+                () -> async ? repository.findById(uuid) : repository.findByIdAndLog(uuid));
+        Optional<Url> url = call.value();
+        if (url.isEmpty()) {
+            return url;
+        }
+        if (async || !call.leader()) {
+            accessLog.record(uuid);
+        }
+        counters.increment(uuid);
+        hotUrls.record(url.get().getServerUuid(), uuid);
+        return url;
+    }
+
+    /**
+     * Records the {@code Url} visit to the access log, the visit counters
+     * and the hottest links of its server.
+     * @param target visited {@code Url}
+     */
+    private void recordVisit(RedirectTarget target) {
+        accessLog.record(target.uuid());
+        counters.increment(target.uuid());
+        hotUrls.record(target.serverUuid(), target.uuid());
     }
 }
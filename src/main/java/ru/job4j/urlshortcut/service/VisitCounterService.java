@@ -0,0 +1,164 @@
+package ru.job4j.urlshortcut.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.job4j.urlshortcut.configuration.AccessLogProperties;
+import ru.job4j.urlshortcut.configuration.VisitCounterProperties;
+import ru.job4j.urlshortcut.repository.UrlAccessRecordRepository;
+import ru.job4j.urlshortcut.repository.UrlVisitCounterRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pre-aggregated {@code Url} visit counters.
+ * Visits are accumulated in the in-memory striped counters
+ * and periodically flushed to the persistent storage with additive upserts,
+ * so the number of visits is read with a single primary key lookup.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+@EnableConfigurationProperties({VisitCounterProperties.class, AccessLogProperties.class})
+public class VisitCounterService {
+
+    private final AccessLogProperties accessLogProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final UrlVisitCounterRepository counterRepository;
+    private final UrlAccessRecordRepository recordRepository;
+
+    /** Visits not flushed to the persistent storage yet. */
+    private final Map<UUID, LongAdder> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Counts one more {@code Url} visit.
+     * @param uuid ID of the visited {@code Url}
+     */
+    public void increment(@NonNull UUID uuid) {
+        pending.computeIfAbsent(uuid, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Returns the number of {@code Url} visits including not flushed ones.
+     * @param uuid ID of the {@code Url}
+     * @return number of visits
+     */
+    public long get(@NonNull UUID uuid) {
+        return counterRepository.findVisitsByUrlUuid(uuid).orElse(0L) + pending(uuid);
+    }
+
+    /**
+     * Returns the number of {@code Url} visits not flushed to the persistent storage yet.
+     * @param uuid ID of the {@code Url}
+     * @return number of not flushed visits
+     */
+    public long pending(@NonNull UUID uuid) {
+        LongAdder adder = pending.get(uuid);
+        return adder == null ? 0L : adder.sum();
+    }
+
+    /**
+     * Drops not flushed visits of the deleted {@code Url}.
+     * @param uuid ID of the {@code Url}
+     */
+    public void remove(@NonNull UUID uuid) {
+        pending.remove(uuid);
+    }
+
+    /**
+     * Compares the number of visits in the counter with the raw number of the access records.
+     * The log of the {@code Url} created before the retention period may have expired records,
+     * such a log is only checked not to exceed the counter.
+     * @param uuid ID of the {@code Url}
+     * @return comparison result
+     */
+    public Consistency check(@NonNull UUID uuid) {
+        Consistency result = new Consistency(uuid, get(uuid),
+                recordRepository.countByUrlUuid(uuid), isLogComplete(uuid));
+        if (!result.isConsistent()) {
+            log.warn("Visit counter of URL {} is inconsistent: counted {}, logged {}",
+                    uuid, result.counted(), result.logged());
+        }
+        return result;
+    }
+
+    /**
+     * Flushes all the accumulated visits to the persistent storage with one batch.
+     * The flushed visits are subtracted from the counters only after the batch is written,
+     * so the visits counted meanwhile stay in the counters for the next flush.
+     * The counters are never removed here, as a concurrent {@link #increment(UUID)}
+     * may still hold the removed one, the map is bounded by the number of the visited URLs
+     * and the counters of the deleted URLs are dropped by {@link #remove(UUID)}.
+     */
+    @Scheduled(fixedDelayString = "${ru.job4j.urlshortcut.visit-counters.flush-interval:5000}")
+    public synchronized void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        List<LongAdder> adders = new ArrayList<>();
+        for (Map.Entry<UUID, LongAdder> entry : pending.entrySet()) {
+            long visits = entry.getValue().sum();
+            if (visits > 0) {
+                batch.add(new Object[] {entry.getKey(), visits, visits});
+                adders.add(entry.getValue());
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(UrlVisitCounterRepository.ADD_VISITS_SQL, batch);
+        } catch (RuntimeException exception) {
+            log.error("Failed to flush {} visit counters, will retry", batch.size(), exception);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            adders.get(i).add(-(long) batch.get(i)[1]);
+        }
+    }
+
+    /** Flushes the counters on the application graceful shutdown. */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /** Checks if no access records of the {@code Url} could expire yet. */
+    private boolean isLogComplete(UUID uuid) {
+        int retentionDays = accessLogProperties.getRetentionDays();
+        if (retentionDays <= 0) {
+            return true;
+        }
+        List<LocalDateTime> created = jdbcTemplate.queryForList(
+                "SELECT created FROM urls WHERE url_uuid = ?", LocalDateTime.class, uuid);
+        return created.isEmpty()
+                || !created.get(0).isBefore(LocalDateTime.now().minusDays(retentionDays));
+    }
+
+    /**
+     * Result of the visit counter consistency check.
+     * @param uuid ID of the {@code Url}
+     * @param counted number of visits in the counter
+     * @param logged number of the access records in the log
+     * @param complete whether the log keeps all the records, none has expired yet
+     */
+    public record Consistency(UUID uuid, long counted, long logged, boolean complete) {
+
+        /**
+         * Checks if the counter matches the complete log, or is not less than the expiring one.
+         * @return {@code true} if consistent
+         */
+        public boolean isConsistent() {
+            return complete ? counted == logged : counted >= logged;
+        }
+    }
+}
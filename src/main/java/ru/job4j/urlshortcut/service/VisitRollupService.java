@@ -0,0 +1,317 @@
+package ru.job4j.urlshortcut.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.job4j.urlshortcut.configuration.VisitRollupProperties;
+import ru.job4j.urlshortcut.model.Granularity;
+import ru.job4j.urlshortcut.model.VisitBucket;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hourly and daily visit rollups of the {@code Url} and {@code Server} entities.
+ * The aggregation job reads the access log from the persisted watermark up to the current time
+ * minus the configured lag, adds the grouped visits to the rollup tables and moves
+ * the watermark forward in the same transaction, so the raw log is never scanned twice.
+ * Whole days of the existing log are backfilled in parallel, one day per transaction.
+ * Statistics series are served from the rollup tables with primary key range scans.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(VisitRollupProperties.class)
+public class VisitRollupService {
+
+    /** Name of the access log watermark. */
+    static final String WATERMARK = "url_access_log";
+
+    private static final String PROPERTY = "${ru.job4j.urlshortcut.visit-rollups.";
+
+    private static final String AGGREGATE_SQL = """
+            SELECT l.url_uuid, u.server_uuid, DATE_TRUNC('hour', l.timestamp), COUNT(*)
+            FROM url_access_log l JOIN urls u ON u.url_uuid = l.url_uuid
+            WHERE l.timestamp >= ? AND l.timestamp < ?
+            GROUP BY l.url_uuid, u.server_uuid, DATE_TRUNC('hour', l.timestamp)""";
+
+    /**
+     * Upsert statement template of the rollup, rollups of the already deleted entities are skipped.
+     * Arguments are: table, ID column, parent table, new visits expression.
+     * Parameters are: ID, granularity, bucket, visits, granularity, bucket, visits.
+     */
+    private static final String MERGE_SQL = """
+            MERGE INTO %1$s r
+            USING (SELECT p.%2$s FROM %3$s p WHERE p.%2$s = ?) s
+            ON r.%2$s = s.%2$s AND r.granularity = ? AND r.bucket = ?
+            WHEN MATCHED THEN UPDATE SET visits = %4$s
+            WHEN NOT MATCHED THEN INSERT (%2$s, granularity, bucket, visits)
+            VALUES (s.%2$s, ?, ?, ?)""";
+
+    private static final String ADD = "r.visits + ?";
+    private static final String REPLACE = "?";
+
+    private final VisitRollupProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+
+    /** Aggregation or backfill in progress flag. */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /** Last known watermark position. */
+    private volatile LocalDateTime processed;
+
+    public VisitRollupService(VisitRollupProperties properties,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry registry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(
+                TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(properties.getBackfillParallelism(), task -> {
+            Thread thread = new Thread(task, "visit-rollup-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("visit.rollups.lag", this, VisitRollupService::lagSeconds)
+                .description("Time between now and the last aggregated access record (in seconds)")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /** Runs the aggregation periodically. */
+    @Scheduled(fixedDelayString = PROPERTY + "interval:60000}")
+    public void run() {
+        try {
+            aggregate();
+        } catch (RuntimeException exception) {
+            log.error("Failed to aggregate visit rollups", exception);
+        }
+    }
+
+    /**
+     * Aggregates the access records not processed yet.
+     * Whole days behind the watermark are backfilled asynchronously in parallel,
+     * the rest is aggregated incrementally in the caller thread.
+     * Does nothing if the previous aggregation is still in progress.
+     * @return completion of the aggregation
+     */
+    public CompletableFuture<Void> aggregate() {
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> result;
+        try {
+            LocalDateTime upper = jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP",
+                    LocalDateTime.class).minus(Duration.ofMillis(properties.getLag()));
+            LocalDateTime expected = watermark();
+            LocalDateTime from = expected != null ? expected : firstDay(upper);
+            LocalDateTime today = Granularity.DAY.truncate(upper);
+            if (from.equals(Granularity.DAY.truncate(from)) && from.isBefore(today)) {
+                result = backfill(expected, from, today);
+            } else {
+                LocalDateTime nextDay = Granularity.DAY.next(Granularity.DAY.truncate(from));
+                increment(expected, from, upper.isBefore(nextDay) ? upper : nextDay);
+                result = CompletableFuture.completedFuture(null);
+            }
+        } catch (RuntimeException exception) {
+            running.set(false);
+            throw exception;
+        }
+        return result.whenComplete((ignored, exception) -> {
+            running.set(false);
+            if (exception != null) {
+                log.error("Failed to backfill visit rollups", exception);
+            }
+        });
+    }
+
+    /**
+     * Retrieves the {@code Url} visits series.
+     * @param uuid ID of the {@code Url}
+     * @param granularity time bucket size
+     * @param from start of the range, truncated to the bucket start
+     * @param to end of the range exclusive
+     * @return visits per bucket including empty ones
+     * @throws IllegalArgumentException when the range is empty or contains too many buckets
+     */
+    public List<VisitBucket> urlSeries(@NonNull UUID uuid, @NonNull Granularity granularity,
+                                       @NonNull LocalDateTime from, @NonNull LocalDateTime to) {
+        return series("url_visit_rollups", "url_uuid", uuid, granularity, from, to);
+    }
+
+    /**
+     * Retrieves the {@code Server} visits series: visits of all the server URLs.
+     * @param uuid ID of the {@code Server}
+     * @param granularity time bucket size
+     * @param from start of the range, truncated to the bucket start
+     * @param to end of the range exclusive
+     * @return visits per bucket including empty ones
+     * @throws IllegalArgumentException when the range is empty or contains too many buckets
+     */
+    public List<VisitBucket> serverSeries(@NonNull UUID uuid, @NonNull Granularity granularity,
+                                          @NonNull LocalDateTime from,
+                                          @NonNull LocalDateTime to) {
+        return series("server_visit_rollups", "server_uuid", uuid, granularity, from, to);
+    }
+
+    /** Stops the backfill threads on the application shutdown. */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private List<VisitBucket> series(String table, String column, UUID uuid,
+                                     Granularity granularity,
+                                     LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = granularity.truncate(from);
+        if (!start.isBefore(to)) {
+            throw new IllegalArgumentException("Time range is empty");
+        }
+        if (granularity.between(start, to) > properties.getMaxBuckets()) {
+            throw new IllegalArgumentException(
+                    "Time range exceeds " + properties.getMaxBuckets() + " buckets");
+        }
+        Map<LocalDateTime, Long> visits = new HashMap<>();
+        jdbcTemplate.query("SELECT bucket, visits FROM " + table + " WHERE " + column
+                        + " = ? AND granularity = ? AND bucket >= ? AND bucket < ?",
+                row -> {
+                    visits.put(row.getObject(1, LocalDateTime.class), row.getLong(2));
+                }, uuid, granularity.name(), start, to);
+        List<VisitBucket> result = new ArrayList<>();
+        for (LocalDateTime bucket = start; bucket.isBefore(to); bucket = granularity.next(bucket)) {
+            result.add(new VisitBucket(bucket, visits.getOrDefault(bucket, 0L)));
+        }
+        return result;
+    }
+
+    /**
+     * Aggregates the records of the range and moves the watermark in one transaction.
+     * Nothing is written if another node has already moved the watermark.
+     */
+    private void increment(@Nullable LocalDateTime expected,
+                           LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (advance(expected, to)) {
+                write(collect(from, to), ADD);
+            }
+        });
+    }
+
+    /**
+     * Aggregates whole days in parallel and moves the watermark after all of them.
+     * Each day is written with replacement instead of addition, so the days already written
+     * by the failed or concurrent backfill are overwritten with the same values.
+     */
+    private CompletableFuture<Void> backfill(@Nullable LocalDateTime expected,
+                                             LocalDateTime from, LocalDateTime to) {
+        log.info("Backfilling visit rollups from {} to {}", from, to);
+        List<CompletableFuture<Void>> days = new ArrayList<>();
+        for (LocalDateTime day = from; day.isBefore(to); day = Granularity.DAY.next(day)) {
+            LocalDateTime start = day;
+            days.add(CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(
+                    status -> write(collect(start, Granularity.DAY.next(start)), REPLACE)),
+                    executor));
+        }
+        return CompletableFuture.allOf(days.toArray(CompletableFuture[]::new))
+                .thenRun(() -> advance(expected, to));
+    }
+
+    private boolean advance(@Nullable LocalDateTime expected, LocalDateTime to) {
+        int updated = expected == null
+                ? jdbcTemplate.update("UPDATE visit_rollup_watermarks SET processed_until = ?"
+                        + " WHERE name = ? AND processed_until IS NULL", to, WATERMARK)
+                : jdbcTemplate.update("UPDATE visit_rollup_watermarks SET processed_until = ?"
+                        + " WHERE name = ? AND processed_until = ?", to, WATERMARK, expected);
+        if (updated == 1) {
+            processed = to;
+        }
+        return updated == 1;
+    }
+
+    @Nullable
+    private LocalDateTime watermark() {
+        LocalDateTime result = jdbcTemplate.queryForObject(
+                "SELECT processed_until FROM visit_rollup_watermarks WHERE name = ?",
+                LocalDateTime.class, WATERMARK);
+        processed = result;
+        return result;
+    }
+
+    /** Returns the start of the day of the first access record or the upper bound if none. */
+    private LocalDateTime firstDay(LocalDateTime upper) {
+        LocalDateTime first = jdbcTemplate.queryForObject(
+                "SELECT MIN(timestamp) FROM url_access_log", LocalDateTime.class);
+        return first == null || !first.isBefore(upper) ? upper : Granularity.DAY.truncate(first);
+    }
+
+    private Rollups collect(LocalDateTime from, LocalDateTime to) {
+        Rollups rollups = new Rollups(new HashMap<>(), new HashMap<>());
+        jdbcTemplate.query(AGGREGATE_SQL, row -> {
+            UUID url = row.getObject(1, UUID.class);
+            UUID server = row.getObject(2, UUID.class);
+            LocalDateTime hour = row.getObject(3, LocalDateTime.class);
+            long visits = row.getLong(4);
+            for (Granularity granularity : Granularity.values()) {
+                LocalDateTime bucket = granularity.truncate(hour);
+                rollups.urls().merge(new Key(url, granularity, bucket), visits, Long::sum);
+                rollups.servers().merge(new Key(server, granularity, bucket), visits, Long::sum);
+            }
+        }, from, to);
+        return rollups;
+    }
+
+    private void write(Rollups rollups, String visits) {
+        jdbcTemplate.batchUpdate(MERGE_SQL.formatted("url_visit_rollups", "url_uuid", "urls",
+                visits), parameters(rollups.urls()));
+        jdbcTemplate.batchUpdate(MERGE_SQL.formatted("server_visit_rollups", "server_uuid",
+                "servers", visits), parameters(rollups.servers()));
+    }
+
+    private static List<Object[]> parameters(Map<Key, Long> rollups) {
+        List<Object[]> result = new ArrayList<>(rollups.size());
+        rollups.forEach((key, visits) -> {
+            String granularity = key.granularity().name();
+            result.add(new Object[] {key.uuid(), granularity, key.bucket(), visits,
+                    granularity, key.bucket(), visits});
+        });
+        return result;
+    }
+
+    private double lagSeconds() {
+        LocalDateTime current = processed;
+        return current == null
+                ? Double.NaN : Duration.between(current, LocalDateTime.now()).toSeconds();
+    }
+
+    /** Rollup row key. */
+    private record Key(UUID uuid, Granularity granularity, LocalDateTime bucket) { }
+
+    /** Aggregated visits of the {@code Url} and {@code Server} entities. */
+    private record Rollups(Map<Key, Long> urls, Map<Key, Long> servers) { }
+}
@@ -0,0 +1,32 @@
+package ru.job4j.urlshortcut.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Deferral of the in-memory state changes until the current transaction commits,
+ * so concurrent readers can't reload the state still visible in the database,
+ * and a rolled back transaction leaves the state intact.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() { }
+
+    /**
+     * Runs the action after the current transaction commits,
+     * or at once if there is no transaction.
+     * @param action action to run
+     */
+    public static void execute(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,92 @@
+package ru.job4j.urlshortcut.util;
+
+/** Utility class to encode non-negative numbers to base62 strings and back. */
+public final class Base62 {
+
+    /** Base62 alphabet: digits, uppercase and lowercase latin letters. */
+    private static final char[] ALPHABET =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    /** Maximum length of the encoded {@code long} value. */
+    private static final int MAX_LENGTH = 11;
+
+    private Base62() { }
+
+    /**
+     * Encodes a non-negative number.
+     * @param value number to encode
+     * @return base62 string
+     * @throws IllegalArgumentException when {@code value} is negative
+     */
+    public static String encode(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must be non-negative");
+        }
+        char[] buffer = new char[MAX_LENGTH];
+        int position = MAX_LENGTH;
+        do {
+            buffer[--position] = ALPHABET[(int) (value % ALPHABET.length)];
+            value /= ALPHABET.length;
+        } while (value > 0);
+        return new String(buffer, position, MAX_LENGTH - position);
+    }
+
+    /**
+     * Decodes a base62 string.
+     * @param value string to decode
+     * @return non-negative number or -1 if the string is empty, has symbols
+     * out of the base62 alphabet or its number exceeds {@code long} range
+     */
+    public static long decode(String value) {
+        if (value.isEmpty()) {
+            return -1;
+        }
+        long result = 0;
+        for (int i = 0; i < value.length(); i++) {
+            int digit = digit(value.charAt(i));
+            if (digit < 0 || result > (Long.MAX_VALUE - digit) / ALPHABET.length) {
+                return -1;
+            }
+            result = result * ALPHABET.length + digit;
+        }
+        return result;
+    }
+
+    /**
+     * Checks if a string consists of the base62 alphabet symbols only
+     * and its length is within the specified bounds.
+     * @param value string to check
+     * @param minLength minimal length
+     * @param maxLength maximal length
+     * @return {@code true} if the string is valid
+     */
+    public static boolean isValid(String value, int minLength, int maxLength) {
+        if (value == null || value.length() < minLength || value.length() > maxLength) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (digit(value.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the numeric value of the base62 symbol.
+     * @param symbol to convert
+     * @return value or -1 if the symbol is not from the base62 alphabet
+     */
+    public static int digit(char symbol) {
+        if (symbol >= '0' && symbol <= '9') {
+            return symbol - '0';
+        }
+        if (symbol >= 'A' && symbol <= 'Z') {
+            return symbol - 'A' + 10;
+        }
+        if (symbol >= 'a' && symbol <= 'z') {
+            return symbol - 'a' + 36;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,151 @@
+package ru.job4j.urlshortcut.util;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe fixed size Bloom filter of the UUID and string keys.
+ * Keys are reduced to 64-bit hashes and mapped to the bit positions
+ * with the Kirsch-Mitzenmacher double hashing, so lookups allocate nothing.
+ * The filter never reports false negatives, false positive rate depends on the fill.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(long bitCount, int hashCount) {
+        this.bits = new AtomicLongArray((int) ((bitCount + 63) >>> 6));
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Creates the filter of the optimal size for the expected number of keys,
+     * capped by the memory budget.
+     * @param expectedKeys expected number of keys
+     * @param fpp desired false positive probability
+     * @param maxBytes memory budget of the bit array
+     * @return empty filter
+     */
+    public static BloomFilter create(long expectedKeys, double fpp, long maxBytes) {
+        if (expectedKeys <= 0 || fpp <= 0 || fpp >= 1 || maxBytes < Long.BYTES) {
+            throw new IllegalArgumentException("Invalid Bloom filter parameters");
+        }
+        double ln2 = Math.log(2);
+        long optimal = (long) Math.ceil(-expectedKeys * Math.log(fpp) / (ln2 * ln2));
+        long maxBits = Math.min(maxBytes, (long) Integer.MAX_VALUE * Long.BYTES) * Byte.SIZE;
+        long bitCount = Math.max(Long.SIZE, Math.min(optimal, maxBits));
+        int hashCount = (int) Math.max(1, Math.round((double) bitCount / expectedKeys * ln2));
+        return new BloomFilter(bitCount, hashCount);
+    }
+
+    /**
+     * Adds the key to the filter.
+     * @param key to add
+     */
+    public void put(UUID key) {
+        put(hash(key));
+    }
+
+    /**
+     * Adds the key to the filter.
+     * @param key to add
+     */
+    public void put(String key) {
+        put(hash(key));
+    }
+
+    /**
+     * Checks if the key might be in the filter.
+     * @param key to check
+     * @return {@code false} if the key is definitely absent
+     */
+    public boolean mightContain(UUID key) {
+        return mightContain(hash(key));
+    }
+
+    /**
+     * Checks if the key might be in the filter.
+     * @param key to check
+     * @return {@code false} if the key is definitely absent
+     */
+    public boolean mightContain(String key) {
+        return mightContain(hash(key));
+    }
+
+    /**
+     * Returns the size of the bit array.
+     * @return size in bytes
+     */
+    public long byteSize() {
+        return (long) bits.length() * Long.BYTES;
+    }
+
+    /**
+     * Estimates the current false positive probability from the fraction of the set bits.
+     * @return false positive probability
+     */
+    public double expectedFpp() {
+        long set = 0;
+        for (int i = 0; i < bits.length(); i++) {
+            set += Long.bitCount(bits.get(i));
+        }
+        return Math.pow((double) set / bitCount, hashCount);
+    }
+
+    private void put(long hash) {
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(first + (long) i * second);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    private boolean mightContain(long hash) {
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(first + (long) i * second);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(long combined) {
+        return (combined & Long.MAX_VALUE) % bitCount;
+    }
+
+    private static long hash(UUID key) {
+        return mix(key.getMostSignificantBits() * 0x9E3779B97F4A7C15L
+                ^ mix(key.getLeastSignificantBits()));
+    }
+
+    private static long hash(String key) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    /** Final mixing step of the MurmurHash3 64-bit hash. */
+    private static long mix(long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB93FE1A85B53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,107 @@
+package ru.job4j.urlshortcut.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader of the text lines of the bounded length. Unlike {@link java.io.BufferedReader},
+ * the memory used doesn't depend on the input: characters beyond the maximum length
+ * are skipped up to the end of the line, and the line is marked as truncated.
+ * Lines are terminated by {@code \n} or {@code \r\n}. Instances are not thread-safe.
+ */
+public final class BoundedLineReader {
+
+    private final Reader reader;
+    private final int maxLength;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder line;
+    private int position;
+    private int limit;
+    private long number;
+    private boolean truncated;
+
+    /**
+     * Creates the line reader.
+     * @param reader source of the characters
+     * @param maxLength maximum number of the characters kept of each line
+     * @throws IllegalArgumentException when the maximum length isn't positive
+     */
+    public BoundedLineReader(Reader reader, int maxLength) {
+        if (maxLength <= 0) {
+            throw new IllegalArgumentException("Maximum line length must be positive");
+        }
+        this.reader = reader;
+        this.maxLength = maxLength;
+        this.line = new StringBuilder(Math.min(maxLength, 256));
+    }
+
+    /**
+     * Reads the next line.
+     * @return line without the terminator or {@code null} at the end of the input
+     * @throws IOException when the input cannot be read
+     */
+    public String readLine() throws IOException {
+        line.setLength(0);
+        truncated = false;
+        boolean read = false;
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return read ? complete() : null;
+                }
+            }
+            read = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            append(start, position);
+            if (position < limit) {
+                position++;
+                return complete();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of the last read line.
+     * @return one-based line number or {@code 0} if nothing read
+     */
+    public long lineNumber() {
+        return number;
+    }
+
+    /**
+     * Checks if the last read line exceeded the maximum length.
+     * @return {@code true} if the line was cut
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    private void append(int start, int end) {
+        int length = Math.min(end - start, maxLength + 1 - line.length());
+        if (length > 0) {
+            line.append(buffer, start, length);
+        }
+        if (length < end - start) {
+            truncated = true;
+        }
+    }
+
+    private String complete() {
+        number++;
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(--length);
+        }
+        if (length > maxLength) {
+            line.setLength(maxLength);
+            truncated = true;
+        }
+        return line.toString();
+    }
+}
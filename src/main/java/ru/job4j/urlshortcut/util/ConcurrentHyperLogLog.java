@@ -0,0 +1,154 @@
+package ru.job4j.urlshortcut.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Thread-safe HyperLogLog sketch accumulating the hashes of the concurrent writers.
+ * The sketch starts sparse: a small open addressing set of the (register index, rank) pairs,
+ * promoted to the dense registers once full, so rarely visited keys take a fraction
+ * of the dense size. Neither representation is locked on add: pairs are inserted with CAS,
+ * and a dense register is raised with CAS while it holds a lower rank,
+ * so concurrent adds never lose each other.
+ */
+public final class ConcurrentHyperLogLog {
+
+    private static final VarHandle REGISTERS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    /** Maximal number of the sparse pairs, 512 bytes. */
+    private static final int MAX_SPARSE_CAPACITY = 128;
+
+    private final int precision;
+    private final AtomicIntegerArray sparse;
+    private volatile byte[] dense;
+
+    private ConcurrentHyperLogLog(int precision) {
+        this.precision = precision;
+        this.sparse = new AtomicIntegerArray(
+                Math.min(MAX_SPARSE_CAPACITY, HyperLogLog.byteSize(precision) >>> 4));
+    }
+
+    /**
+     * Creates an empty sparse sketch.
+     * @param precision number of the index bits
+     * @return empty sketch
+     */
+    public static ConcurrentHyperLogLog create(int precision) {
+        return new ConcurrentHyperLogLog(precision);
+    }
+
+    /**
+     * Adds the hash to the sketch.
+     * @param hash uniformly distributed 64-bit hash of the element
+     * @return {@code true} if the sketch was promoted to the dense registers by this call
+     */
+    public boolean add(long hash) {
+        int index = HyperLogLog.index(hash, precision);
+        int rank = HyperLogLog.rank(hash, precision);
+        byte[] registers = dense;
+        boolean promoted = false;
+        if (registers == null) {
+            if (addSparse(index << Byte.SIZE | rank)) {
+                return false;
+            }
+            promoted = promote();
+            registers = dense;
+        }
+        raise(registers, index, rank);
+        return promoted;
+    }
+
+    /**
+     * Merges the sketch into this one, the sketch is promoted to the dense registers.
+     * @param other sketch of the same precision
+     * @throws IllegalArgumentException when precisions differ
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision() != precision) {
+            throw new IllegalArgumentException("HyperLogLog precisions differ");
+        }
+        promote();
+        byte[] registers = dense;
+        byte[] bytes = other.toBytes();
+        for (int i = 0; i < registers.length; i++) {
+            raise(registers, i, bytes[i + 1]);
+        }
+    }
+
+    /**
+     * Copies the sketch. Adds concurrent with the copying may be missed.
+     * @return not thread-safe copy of the sketch
+     */
+    public HyperLogLog snapshot() {
+        byte[] registers = dense;
+        byte[] result = new byte[HyperLogLog.byteSize(precision)];
+        if (registers == null) {
+            for (int i = 0; i < sparse.length(); i++) {
+                int pair = sparse.get(i);
+                int index = pair >>> Byte.SIZE;
+                result[index] = (byte) Math.max(result[index], pair & 0xFF);
+            }
+        } else {
+            for (int i = 0; i < registers.length; i++) {
+                result[i] = (byte) REGISTERS.getVolatile(registers, i);
+            }
+        }
+        return HyperLogLog.wrap(precision, result);
+    }
+
+    /**
+     * Returns memory used by the sketch.
+     * @return size of the sparse pairs and the dense registers if promoted, in bytes
+     */
+    public int byteSize() {
+        byte[] registers = dense;
+        return sparse.length() * Integer.BYTES + (registers == null ? 0 : registers.length);
+    }
+
+    /**
+     * Inserts the pair into the sparse set. Pairs are never removed,
+     * so once the set is full no more pairs can be inserted and the promotion loses none.
+     * @return {@code false} if the set is full
+     */
+    private boolean addSparse(int pair) {
+        int mask = sparse.length() - 1;
+        int slot = (pair >>> Byte.SIZE) & mask;
+        for (int i = 0; i <= mask; i++) {
+            int value = sparse.get(slot);
+            if (value == 0) {
+                if (sparse.compareAndSet(slot, 0, pair)) {
+                    return true;
+                }
+                value = sparse.get(slot);
+            }
+            if (value == pair) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private synchronized boolean promote() {
+        if (dense != null) {
+            return false;
+        }
+        byte[] registers = new byte[HyperLogLog.byteSize(precision)];
+        for (int i = 0; i < sparse.length(); i++) {
+            int pair = sparse.get(i);
+            int index = pair >>> Byte.SIZE;
+            registers[index] = (byte) Math.max(registers[index], pair & 0xFF);
+        }
+        dense = registers;
+        return true;
+    }
+
+    private static void raise(byte[] registers, int index, int rank) {
+        byte current = (byte) REGISTERS.getVolatile(registers, index);
+        while (current < rank
+                && !REGISTERS.compareAndSet(registers, index, current, (byte) rank)) {
+            current = (byte) REGISTERS.getVolatile(registers, index);
+        }
+    }
+}
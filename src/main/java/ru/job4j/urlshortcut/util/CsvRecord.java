@@ -0,0 +1,94 @@
+package ru.job4j.urlshortcut.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser and writer of one line of the comma-separated values (RFC 4180). Fields may be
+ * enclosed in double quotes to contain commas, a double quote inside the quoted field is doubled.
+ * Quoted fields spanning several lines are not supported by the parser.
+ */
+public final class CsvRecord {
+
+    private CsvRecord() { }
+
+    /**
+     * Splits the line into the fields.
+     * @param line to parse
+     * @return unquoted fields, one empty field for the empty line
+     * @throws IllegalArgumentException when the quotes are not balanced
+     */
+    public static List<String> parse(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        int length = line.length();
+        while (true) {
+            field.setLength(0);
+            if (i < length && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        throw new IllegalArgumentException("Quoted field is not closed");
+                    }
+                    char current = line.charAt(i++);
+                    if (current != '"') {
+                        field.append(current);
+                    } else if (i < length && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < length && line.charAt(i) != ',') {
+                    throw new IllegalArgumentException("Unexpected symbol after quoted field");
+                }
+            } else {
+                while (i < length && line.charAt(i) != ',') {
+                    char current = line.charAt(i++);
+                    if (current == '"') {
+                        throw new IllegalArgumentException("Unexpected quote in unquoted field");
+                    }
+                    field.append(current);
+                }
+            }
+            fields.add(field.toString());
+            if (i >= length) {
+                return fields;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Appends the field to the line, quoting it when necessary.
+     * @param output line to append to
+     * @param field value to append, {@code null} is appended as the empty field
+     * @throws IOException when the output cannot be written
+     */
+    public static void write(Appendable output, String field) throws IOException {
+        if (field == null) {
+            return;
+        }
+        boolean quoted = false;
+        for (int i = 0; i < field.length() && !quoted; i++) {
+            char current = field.charAt(i);
+            quoted = current == ',' || current == '"' || current == '\n' || current == '\r';
+        }
+        if (!quoted) {
+            output.append(field);
+            return;
+        }
+        output.append('"');
+        for (int i = 0; i < field.length(); i++) {
+            char current = field.charAt(i);
+            if (current == '"') {
+                output.append('"');
+            }
+            output.append(current);
+        }
+        output.append('"');
+    }
+}
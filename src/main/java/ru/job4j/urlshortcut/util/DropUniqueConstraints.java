@@ -0,0 +1,87 @@
+package ru.job4j.urlshortcut.util;
+
+import liquibase.change.custom.CustomSqlChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import liquibase.statement.SqlStatement;
+import liquibase.statement.core.RawSqlStatement;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Liquibase change dropping the single column unique constraints declared without names.
+ * Generated constraint names differ between the databases, so they are looked up
+ * in the standard information schema.
+ */
+public class DropUniqueConstraints implements CustomSqlChange {
+
+    private static final String SELECT_SQL = """
+            SELECT tc.constraint_name
+            FROM information_schema.table_constraints tc
+            JOIN information_schema.key_column_usage k
+                ON k.constraint_name = tc.constraint_name AND k.table_schema = tc.table_schema
+                AND k.table_name = tc.table_name
+            WHERE tc.constraint_type = 'UNIQUE' AND tc.table_schema = CURRENT_SCHEMA
+                AND UPPER(tc.table_name) = ? AND UPPER(k.column_name) = ?
+                AND (SELECT COUNT(*) FROM information_schema.key_column_usage c
+                     WHERE c.constraint_name = tc.constraint_name
+                        AND c.table_schema = tc.table_schema
+                        AND c.table_name = tc.table_name) = 1""";
+
+    /** Name of the table. */
+    @Getter
+    @Setter
+    private String tableName;
+
+    /** Name of the constrained column. */
+    @Getter
+    @Setter
+    private String columnName;
+
+    @Override
+    public SqlStatement[] generateStatements(Database database) throws CustomChangeException {
+        Connection connection =
+                ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        List<SqlStatement> statements = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(SELECT_SQL)) {
+            select.setString(1, tableName.toUpperCase(Locale.ROOT));
+            select.setString(2, columnName.toUpperCase(Locale.ROOT));
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    statements.add(new RawSqlStatement("ALTER TABLE " + tableName
+                            + " DROP CONSTRAINT \"" + rows.getString(1) + "\""));
+                }
+            }
+        } catch (SQLException exception) {
+            throw new CustomChangeException("Unique constraints lookup failed", exception);
+        }
+        return statements.toArray(SqlStatement[]::new);
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Unique constraints of " + tableName + "." + columnName + " dropped";
+    }
+
+    @Override
+    public void setUp() { }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) { }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
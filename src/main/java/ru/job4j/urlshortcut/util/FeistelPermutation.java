@@ -0,0 +1,104 @@
+package ru.job4j.urlshortcut.util;
+
+/**
+ * Keyed pseudo-random permutation of the numbers from zero to the domain size exclusive.
+ * A balanced Feistel network permutes the smallest even power of two covering the domain,
+ * and the results out of the domain are permuted again (cycle walking) until they fit,
+ * so the permutation is a bijection of the domain itself. It hides the order of
+ * the sequential numbers, but is not a cryptographic cipher.
+ */
+public final class FeistelPermutation {
+
+    /** Number of the Feistel rounds. */
+    private static final int ROUNDS = 4;
+
+    private final long size;
+    private final int halfBits;
+    private final long mask;
+    private final long key;
+
+    /**
+     * Creates the permutation.
+     * @param size number of the permuted values, at least 2
+     * @param key secret key, the same key gives the same permutation
+     * @throws IllegalArgumentException when {@code size} is less than 2
+     */
+    public FeistelPermutation(long size, long key) {
+        if (size < 2) {
+            throw new IllegalArgumentException("Domain size must be at least 2");
+        }
+        int bits = Long.SIZE - Long.numberOfLeadingZeros(size - 1);
+        this.size = size;
+        this.halfBits = (bits + 1) / 2;
+        this.mask = (1L << halfBits) - 1;
+        this.key = key;
+    }
+
+    /**
+     * Permutes the value.
+     * @param value number from zero to the domain size exclusive
+     * @return permuted number of the same domain
+     * @throws IllegalArgumentException when {@code value} is out of the domain
+     */
+    public long permute(long value) {
+        long result = check(value);
+        do {
+            result = encrypt(result);
+        } while (result >= size);
+        return result;
+    }
+
+    /**
+     * Restores the value from the permuted one.
+     * @param value permuted number from zero to the domain size exclusive
+     * @return number permuted to the value
+     * @throws IllegalArgumentException when {@code value} is out of the domain
+     */
+    public long inverse(long value) {
+        long result = check(value);
+        do {
+            result = decrypt(result);
+        } while (result >= size);
+        return result;
+    }
+
+    private long check(long value) {
+        if (value < 0 || value >= size) {
+            throw new IllegalArgumentException("Value is out of the permutation domain");
+        }
+        return value;
+    }
+
+    private long encrypt(long value) {
+        long left = value >>> halfBits;
+        long right = value & mask;
+        for (int round = 0; round < ROUNDS; round++) {
+            long next = left ^ function(right, round);
+            left = right;
+            right = next;
+        }
+        return left << halfBits | right;
+    }
+
+    private long decrypt(long value) {
+        long left = value >>> halfBits;
+        long right = value & mask;
+        for (int round = ROUNDS - 1; round >= 0; round--) {
+            long previous = right ^ function(left, round);
+            right = left;
+            left = previous;
+        }
+        return left << halfBits | right;
+    }
+
+    /** Round function: keyed MurmurHash3 64-bit finalizer truncated to the half width. */
+    private long function(long half, int round) {
+        long hash = half ^ key ^ (round + 1) * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB93FE1A85B53L;
+        hash ^= hash >>> 33;
+        return hash & mask;
+    }
+}
@@ -0,0 +1,134 @@
+package ru.job4j.urlshortcut.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.lang.NonNull;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtEncodingException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Encoder of the HMAC-signed JWT with the fixed {@code {"alg":..,"typ":"JWT"}} header.
+ * The header is serialized and Base64URL-encoded once, the key is prepared once and each thread
+ * reuses its own initialized {@link Mac}, so encoding a token costs the serialization
+ * of the claims and one HMAC computation only.
+ */
+public final class HmacJwtEncoder implements JwtEncoder {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+    private final JwsHeader header;
+    private final byte[] encodedHeader;
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * Creates the encoder.
+     * @param algorithm HMAC algorithm
+     * @param secret secret key, not shorter than the algorithm hash size
+     * @throws IllegalArgumentException when the key is too short
+     */
+    public HmacJwtEncoder(@NonNull MacAlgorithm algorithm, @NonNull byte[] secret) {
+        String name = "HmacSHA" + algorithm.getName().substring(2);
+        int minimalLength = Integer.parseInt(algorithm.getName().substring(2)) / 8;
+        if (secret.length < minimalLength) {
+            throw new IllegalArgumentException("Secret key should be " + minimalLength
+                    + " bytes at least for " + algorithm.getName());
+        }
+        SecretKeySpec key = new SecretKeySpec(secret, name);
+        this.header = JwsHeader.with(algorithm).type("JWT").build();
+        this.encodedHeader = (BASE64.encodeToString(("{\"alg\":\"" + algorithm.getName()
+                + "\",\"typ\":\"JWT\"}").getBytes(StandardCharsets.UTF_8)) + ".")
+                .getBytes(StandardCharsets.US_ASCII);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(name);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException exception) {
+                throw new IllegalStateException(name + " is not supported", exception);
+            }
+        });
+        macs.get();
+    }
+
+    /**
+     * Encodes and signs the claims. The header of the parameters, if any, should be
+     * the one of the encoder.
+     * @param parameters claims to encode
+     * @return signed token
+     * @throws JwtEncodingException when the header differs or the claims cannot be serialized
+     */
+    @Override
+    public Jwt encode(JwtEncoderParameters parameters) throws JwtEncodingException {
+        JwsHeader requested = parameters.getJwsHeader();
+        if (requested != null && !header.getHeaders().equals(requested.getHeaders())) {
+            throw new JwtEncodingException("Unsupported JWS header " + requested.getHeaders());
+        }
+        JwtClaimsSet claims = parameters.getClaims();
+        byte[] payload = BASE64.encode(serialize(claims.getClaims()));
+        Mac mac = macs.get();
+        mac.update(encodedHeader);
+        mac.update(payload);
+        byte[] signature = BASE64.encode(mac.doFinal());
+        byte[] token = Arrays.copyOf(encodedHeader,
+                encodedHeader.length + payload.length + 1 + signature.length);
+        System.arraycopy(payload, 0, token, encodedHeader.length, payload.length);
+        token[encodedHeader.length + payload.length] = '.';
+        System.arraycopy(signature, 0, token, token.length - signature.length, signature.length);
+        return new Jwt(new String(token, StandardCharsets.US_ASCII), claims.getIssuedAt(),
+                claims.getExpiresAt(), header.getHeaders(), claims.getClaims());
+    }
+
+    private static byte[] serialize(Map<String, Object> claims) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = JSON.createGenerator(output)) {
+            generator.writeStartObject();
+            for (Map.Entry<String, Object> claim : claims.entrySet()) {
+                generator.writeFieldName(claim.getKey());
+                write(generator, claim.getValue());
+            }
+            generator.writeEndObject();
+        } catch (IOException exception) {
+            throw new JwtEncodingException("Claims cannot be serialized", exception);
+        }
+        return output.toByteArray();
+    }
+
+    /** Writes the claim value, time instants are written as the seconds since the epoch. */
+    private static void write(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Instant instant) {
+            generator.writeNumber(instant.getEpochSecond());
+        } else if (value instanceof Integer || value instanceof Long) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Boolean bool) {
+            generator.writeBoolean(bool);
+        } else if (value instanceof Collection<?> values) {
+            generator.writeStartArray();
+            for (Object item : values) {
+                write(generator, item);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+}
@@ -2,10 +2,11 @@ package ru.job4j.urlshortcut.util;
 
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
-import java.net.MalformedURLException;
-import java.net.URL;
 
-/** Validator for {@link HostName} custom Bean Validation annotation. */
+/**
+ * Validator for {@link HostName} custom Bean Validation annotation: RFC 1123 host name,
+ * checked by {@link Syntax#isHostName(CharSequence)} without parsing a URL.
+ */
 public class HostNameValidator implements ConstraintValidator<HostName, String> {
 
     @Override
@@ -13,13 +14,6 @@ public class HostNameValidator implements ConstraintValidator<HostName, String>
 
     @Override
     public boolean isValid(String host, ConstraintValidatorContext context) {
-        if (host == null || host.isBlank()) {
-            return false;
-        }
-        try {
-            return new URL("https://" + host).getHost().equals(host);
-        } catch (MalformedURLException exception) {
-            return false;
-        }
+        return Syntax.isHostName(host);
     }
 }
@@ -0,0 +1,240 @@
+package ru.job4j.urlshortcut.util;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch estimating the number of distinct 64-bit hashes.
+ * The sketch of precision {@code p} holds {@code 2^p} one-byte registers,
+ * standard error of the estimate is {@code 1.04 / sqrt(2^p)}.
+ * Sketches are merged without loss of accuracy, so partial sketches of several nodes
+ * and periods are combined into one. Instances are not thread-safe.
+ */
+public final class HyperLogLog {
+
+    /** Minimal supported precision: 16 registers. */
+    public static final int MIN_PRECISION = 4;
+
+    /** Maximal supported precision: 262144 registers. */
+    public static final int MAX_PRECISION = 18;
+
+    private final int precision;
+    private final byte[] registers;
+
+    private HyperLogLog(int precision, byte[] registers) {
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    /**
+     * Creates an empty sketch.
+     * @param precision number of the index bits
+     * @return empty sketch
+     */
+    public static HyperLogLog create(int precision) {
+        checkPrecision(precision);
+        return new HyperLogLog(precision, new byte[1 << precision]);
+    }
+
+    /**
+     * Restores the sketch from its serialized form.
+     * @param bytes serialized sketch: precision byte followed by the registers
+     * @return restored sketch
+     * @throws IllegalArgumentException when the bytes are not a serialized sketch
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes.length == 0) {
+            throw new IllegalArgumentException("Empty HyperLogLog sketch");
+        }
+        int precision = bytes[0];
+        checkPrecision(precision);
+        if (bytes.length != (1 << precision) + 1) {
+            throw new IllegalArgumentException("Invalid HyperLogLog sketch length");
+        }
+        return new HyperLogLog(precision, Arrays.copyOfRange(bytes, 1, bytes.length));
+    }
+
+    /**
+     * Adds the hash to the sketch.
+     * @param hash uniformly distributed 64-bit hash of the element
+     */
+    public void add(long hash) {
+        int index = index(hash, precision);
+        int rank = rank(hash, precision);
+        if (registers[index] < rank) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Merges another sketch into this one, so this sketch estimates the union.
+     * @param other sketch of the same precision
+     * @throws IllegalArgumentException when precisions differ
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("HyperLogLog precisions differ");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] < other.registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Folds the sketch to the lower precision, the result is the same as if
+     * all the elements were added to the sketch of the lower precision.
+     * @param target precision not greater than the current one
+     * @return new sketch of the target precision
+     */
+    public HyperLogLog reduce(int target) {
+        checkPrecision(target);
+        if (target > precision) {
+            throw new IllegalArgumentException("HyperLogLog precision can't be increased");
+        }
+        if (target == precision) {
+            return copy();
+        }
+        int shift = precision - target;
+        HyperLogLog result = create(target);
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] == 0) {
+                continue;
+            }
+            int dropped = i & ((1 << shift) - 1);
+            int rank = dropped == 0
+                    ? shift + registers[i]
+                    : Integer.numberOfLeadingZeros(dropped) - (Integer.SIZE - shift) + 1;
+            int index = i >>> shift;
+            if (result.registers[index] < rank) {
+                result.registers[index] = (byte) rank;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Estimates the number of distinct hashes added to the sketch.
+     * Small cardinalities are estimated with the linear counting of the empty registers.
+     * @return cardinality estimate
+     */
+    public long estimate() {
+        int count = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Double.longBitsToDouble((1023L - register) << 52);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(count) * count * count / sum;
+        if (estimate <= 2.5 * count && zeros > 0) {
+            estimate = count * Math.log((double) count / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Returns the precision of the sketch.
+     * @return number of the index bits
+     */
+    public int precision() {
+        return precision;
+    }
+
+    /**
+     * Serializes the sketch.
+     * @return precision byte followed by the registers
+     */
+    public byte[] toBytes() {
+        byte[] result = new byte[registers.length + 1];
+        result[0] = (byte) precision;
+        System.arraycopy(registers, 0, result, 1, registers.length);
+        return result;
+    }
+
+    /**
+     * Creates an independent copy of the sketch.
+     * @return copy
+     */
+    public HyperLogLog copy() {
+        return new HyperLogLog(precision, registers.clone());
+    }
+
+    /**
+     * Returns memory used by the registers of the sketch of the precision.
+     * @param precision number of the index bits
+     * @return size in bytes
+     */
+    public static int byteSize(int precision) {
+        checkPrecision(precision);
+        return 1 << precision;
+    }
+
+    /**
+     * Hashes the pair of strings without allocations.
+     * @param first first string
+     * @param second second string
+     * @return 64-bit hash
+     */
+    public static long hash(CharSequence first, CharSequence second) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < first.length(); i++) {
+            hash = (hash ^ first.charAt(i)) * 0x100000001B3L;
+        }
+        hash = (hash ^ 0xFFFF) * 0x100000001B3L;
+        for (int i = 0; i < second.length(); i++) {
+            hash = (hash ^ second.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Wraps the registers without copying.
+     * @param precision number of the index bits
+     * @param registers {@code 2^precision} registers
+     * @return sketch backed by the registers
+     */
+    static HyperLogLog wrap(int precision, byte[] registers) {
+        checkPrecision(precision);
+        return new HyperLogLog(precision, registers);
+    }
+
+    /** Returns the register index of the hash: its {@code precision} highest bits. */
+    static int index(long hash, int precision) {
+        return (int) (hash >>> (Long.SIZE - precision));
+    }
+
+    /** Returns the register value of the hash: position of the first set bit after the index. */
+    static int rank(long hash, int precision) {
+        return Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+    }
+
+    private static double alpha(int count) {
+        return switch (count) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / count);
+        };
+    }
+
+    private static void checkPrecision(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("HyperLogLog precision must be from "
+                    + MIN_PRECISION + " to " + MAX_PRECISION);
+        }
+    }
+
+    /** Final mixing step of the MurmurHash3 64-bit hash. */
+    private static long mix(long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB93FE1A85B53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
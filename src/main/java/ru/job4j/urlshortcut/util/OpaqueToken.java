@@ -0,0 +1,55 @@
+package ru.job4j.urlshortcut.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Random opaque tokens and their digests. A token carries no data, it is only a key
+ * of the stored record, and only the digest of the token is stored, so the stored digests
+ * can't be used as the tokens. The tokens have 256 random bits, a fast hash is enough
+ * to protect them, unlike the passwords.
+ */
+public final class OpaqueToken {
+
+    /** Number of the random bytes of a token. */
+    public static final int SIZE = 32;
+
+    /** Digest size in bytes (SHA-256). */
+    public static final int DIGEST_SIZE = 32;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not supported", exception);
+        }
+    });
+
+    private OpaqueToken() { }
+
+    /**
+     * Generates a new token.
+     * @return {@value #SIZE} random bytes encoded as the URL-safe Base64 string
+     */
+    public static String generate() {
+        byte[] bytes = new byte[SIZE];
+        RANDOM.nextBytes(bytes);
+        return BASE64.encodeToString(bytes);
+    }
+
+    /**
+     * Computes the digest of the token.
+     * @param token to digest
+     * @return {@value #DIGEST_SIZE} bytes digest
+     */
+    public static byte[] digest(String token) {
+        return SHA256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+    }
+}
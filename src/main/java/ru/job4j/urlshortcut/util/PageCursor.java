@@ -0,0 +1,62 @@
+package ru.job4j.urlshortcut.util;
+
+import org.springframework.lang.NonNull;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the keyset (seek) pagination over the entities ordered by the creation time
+ * and the ID: the next page starts right after the entity with these keys.
+ * Clients get the cursor as an opaque URL-safe string.
+ * @param created creation date and time of the last entity of the previous page
+ * @param uuid ID of the last entity of the previous page
+ */
+public record PageCursor(@NonNull LocalDateTime created, @NonNull UUID uuid) {
+
+    /** Serialized cursor size: epoch seconds, nanoseconds and two UUID halves. */
+    private static final int SIZE = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+    /**
+     * Serializes the cursor.
+     * @return URL-safe Base64 string without padding
+     */
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE)
+                .putLong(created.toEpochSecond(ZoneOffset.UTC))
+                .putInt(created.getNano())
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Restores the cursor from its serialized form.
+     * @param value string returned by {@link #encode()}
+     * @return restored cursor
+     * @throws IllegalArgumentException when the string is not a serialized cursor
+     */
+    public static PageCursor decode(@NonNull String value) {
+        byte[] bytes = Base64.getUrlDecoder().decode(value);
+        if (bytes.length != SIZE) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long seconds = buffer.getLong();
+        int nanos = buffer.getInt();
+        if (nanos < 0 || nanos > 999_999_999) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+        LocalDateTime created;
+        try {
+            created = LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+        } catch (DateTimeException exception) {
+            throw new IllegalArgumentException("Invalid page cursor", exception);
+        }
+        return new PageCursor(created, new UUID(buffer.getLong(), buffer.getLong()));
+    }
+}
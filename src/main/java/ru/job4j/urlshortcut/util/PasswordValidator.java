@@ -3,19 +3,17 @@ package ru.job4j.urlshortcut.util;
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
 
-import static java.util.regex.Pattern.compile;
-
-/** Validator for {@link Password} custom Bean Validation annotation */
+/**
+ * Validator for {@link Password} custom Bean Validation annotation: 8 to 256 latin letters
+ * and digits, checked by {@link Syntax#isPassword(CharSequence)} without regular expressions.
+ */
 public class PasswordValidator implements ConstraintValidator<Password, String> {
 
-    /** Regular expression to validate a password. */
-    private final String re = "[a-zA-Z0-9]{8,256}";
-
     @Override
     public void initialize(Password password) { }
 
     @Override
     public boolean isValid(String password, ConstraintValidatorContext context) {
-        return password != null && compile(re).matcher(password).matches();
+        return Syntax.isPassword(password);
     }
 }
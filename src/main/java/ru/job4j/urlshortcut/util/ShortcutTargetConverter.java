@@ -0,0 +1,21 @@
+package ru.job4j.urlshortcut.util;
+
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/** JPA converter storing the {@link ShortcutTarget} as its canonical address. */
+@Converter
+public class ShortcutTargetConverter implements AttributeConverter<ShortcutTarget, String> {
+
+    @Override
+    public String convertToDatabaseColumn(ShortcutTarget target) {
+        return target == null ? null : target.toString();
+    }
+
+    @Override
+    public ShortcutTarget convertToEntityAttribute(String address) {
+        return address == null ? null : ShortcutTarget.parse(address);
+    }
+}
@@ -0,0 +1,177 @@
+package ru.job4j.urlshortcut.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving summary of the most frequent items of a stream with the fixed number of counters.
+ * When all the counters are taken, the new item replaces the least counted one and inherits
+ * its count as the overestimation error, so any item counted more than {@code N / capacity}
+ * times is guaranteed to stay in the summary. Counters are kept in the indexed binary min-heap,
+ * an update costs {@code O(log capacity)} and allocates nothing once the summary is full.
+ * Instances are not thread-safe.
+ * @param <T> type of the items
+ */
+public final class SpaceSaving<T> {
+
+    private final Counter<T>[] heap;
+    private final Map<T, Counter<T>> index;
+    private int size;
+
+    /**
+     * Creates an empty summary.
+     * @param capacity maximum number of the counted items
+     * @throws IllegalArgumentException when the capacity isn't positive
+     */
+    @SuppressWarnings("unchecked")
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Space-Saving capacity must be positive");
+        }
+        this.heap = new Counter[capacity];
+        this.index = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Counts one more occurrence of the item.
+     * @param item to count
+     */
+    public void add(T item) {
+        Counter<T> counter = index.get(item);
+        if (counter == null && size < heap.length) {
+            counter = heap[size] == null ? new Counter<>() : heap[size];
+            counter.item = item;
+            counter.count = 1L;
+            counter.error = 0L;
+            index.put(item, counter);
+            heap[size] = counter;
+            siftUp(size++);
+            return;
+        }
+        if (counter == null) {
+            counter = heap[0];
+            index.remove(counter.item);
+            counter.item = item;
+            counter.error = counter.count;
+            index.put(item, counter);
+        }
+        counter.count++;
+        siftDown(counter.position);
+    }
+
+    /**
+     * Returns the count of the item.
+     * @param item to look for
+     * @return estimated count or {@code 0} if the item isn't counted
+     */
+    public long count(T item) {
+        Counter<T> counter = index.get(item);
+        return counter == null ? 0L : counter.count;
+    }
+
+    /**
+     * Returns the upper bound of the count of any item absent from the summary.
+     * @return least count when all the counters are taken, {@code 0} otherwise
+     */
+    public long threshold() {
+        return size < heap.length ? 0L : heap[0].count;
+    }
+
+    /**
+     * Returns the number of the counted items.
+     * @return number of taken counters
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of the counted items.
+     * @return number of counters
+     */
+    public int capacity() {
+        return heap.length;
+    }
+
+    /** Drops all the counters keeping the allocated ones for reuse. */
+    public void clear() {
+        index.clear();
+        for (int i = 0; i < size; i++) {
+            heap[i].item = null;
+            heap[i].count = 0L;
+            heap[i].error = 0L;
+        }
+        size = 0;
+    }
+
+    /**
+     * Passes each counted item to the consumer in no particular order.
+     * @param consumer receiver of the item, its estimated count and overestimation error
+     */
+    public void forEach(CounterConsumer<T> consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(heap[i].item, heap[i].count, heap[i].error);
+        }
+    }
+
+    private void siftUp(int position) {
+        Counter<T> counter = heap[position];
+        int current = position;
+        while (current > 0) {
+            int parent = (current - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            heap[current] = heap[parent];
+            heap[current].position = current;
+            current = parent;
+        }
+        heap[current] = counter;
+        counter.position = current;
+    }
+
+    private void siftDown(int position) {
+        Counter<T> counter = heap[position];
+        int current = position;
+        while (true) {
+            int child = 2 * current + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (heap[child].count >= counter.count) {
+                break;
+            }
+            heap[current] = heap[child];
+            heap[current].position = current;
+            current = child;
+        }
+        heap[current] = counter;
+        counter.position = current;
+    }
+
+    /**
+     * Receiver of the summary counters.
+     * @param <T> type of the items
+     */
+    @FunctionalInterface
+    public interface CounterConsumer<T> {
+
+        /**
+         * Receives the counter.
+         * @param item counted item
+         * @param count estimated count, never less than the actual one
+         * @param error maximal overestimation of the count
+         */
+        void accept(T item, long count, long error);
+    }
+
+    private static final class Counter<T> {
+        private T item;
+        private long count;
+        private long error;
+        private int position;
+    }
+}
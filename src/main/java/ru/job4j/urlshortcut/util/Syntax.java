@@ -0,0 +1,123 @@
+package ru.job4j.urlshortcut.util;
+
+/**
+ * Allocation-free checks of the request values shared by the Bean Validation validators
+ * and the parsers. Each check scans the characters once by the lookup tables of the ASCII
+ * character classes, without regular expressions and intermediate strings.
+ */
+public final class Syntax {
+
+    /** Minimal password length. */
+    public static final int PASSWORD_MIN_LENGTH = 8;
+
+    /** Maximal password length. */
+    public static final int PASSWORD_MAX_LENGTH = 256;
+
+    /** Maximal host name length (RFC 1123). */
+    public static final int HOST_MAX_LENGTH = 253;
+
+    /** Maximal host name label length (RFC 1123). */
+    public static final int LABEL_MAX_LENGTH = 63;
+
+    private static final boolean[] LETTER_OR_DIGIT = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            LETTER_OR_DIGIT[c] = true;
+            LETTER_OR_DIGIT[Character.toUpperCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            LETTER_OR_DIGIT[c] = true;
+        }
+    }
+
+    private Syntax() { }
+
+    /**
+     * Checks if the character is a latin letter or a digit.
+     * @param c character to check
+     * @return {@code true} if the character is {@code [a-zA-Z0-9]}
+     */
+    public static boolean isLetterOrDigit(char c) {
+        return c < 128 && LETTER_OR_DIGIT[c];
+    }
+
+    /**
+     * Returns the value of the hexadecimal digit.
+     * @param c character to convert
+     * @return value from 0 to 15 or {@code -1} if the character is not a hexadecimal digit
+     */
+    public static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F' || c >= 'a' && c <= 'f') {
+            return (c | 0x20) - 'a' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if the value is a password of {@value #PASSWORD_MIN_LENGTH}
+     * to {@value #PASSWORD_MAX_LENGTH} latin letters and digits.
+     * @param value value to check
+     * @return {@code true} if the value is a correct password
+     */
+    public static boolean isPassword(CharSequence value) {
+        if (value == null || value.length() < PASSWORD_MIN_LENGTH
+                || value.length() > PASSWORD_MAX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!isLetterOrDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the value is a host name by the RFC 1123 rules: dot-separated labels
+     * of {@value #LABEL_MAX_LENGTH} latin letters, digits and hyphens at most,
+     * neither starting nor ending with a hyphen, {@value #HOST_MAX_LENGTH} symbols in total
+     * at most. Dotted IPv4 addresses match the same rules.
+     * @param value value to check
+     * @return {@code true} if the value is a correct host name
+     */
+    public static boolean isHostName(CharSequence value) {
+        return value != null && isHostName(value, 0, value.length());
+    }
+
+    /**
+     * Checks if the part of the value is a host name by the RFC 1123 rules.
+     * @param value value to check
+     * @param from start index inclusive
+     * @param to end index exclusive
+     * @return {@code true} if the part is a correct host name
+     * @see #isHostName(CharSequence)
+     */
+    public static boolean isHostName(CharSequence value, int from, int to) {
+        if (from >= to || to - from > HOST_MAX_LENGTH) {
+            return false;
+        }
+        int label = 0;
+        char previous = '.';
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                if (label == 0 || previous == '-') {
+                    return false;
+                }
+                label = 0;
+            } else if (isLetterOrDigit(c) || c == '-' && label > 0) {
+                if (++label > LABEL_MAX_LENGTH) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+            previous = c;
+        }
+        return label > 0 && previous != '-';
+    }
+}
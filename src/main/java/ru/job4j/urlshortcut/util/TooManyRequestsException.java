@@ -0,0 +1,10 @@
+package ru.job4j.urlshortcut.util;
+
+import lombok.experimental.StandardException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** Unchecked exception thrown when a request is rejected to protect a saturated resource. */
+@StandardException
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class TooManyRequestsException extends RuntimeException { }
@@ -0,0 +1,62 @@
+package ru.job4j.urlshortcut.util;
+
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+/**
+ * Fixed-width digest of the canonical form of the URL, the key of the URL uniqueness.
+ * The canonical form is the one of the {@link ShortcutTarget}.
+ */
+public final class UrlDigest {
+
+    /** Digest size in bytes (SHA-256). */
+    public static final int SIZE = 32;
+
+    private UrlDigest() { }
+
+    /**
+     * Computes the digest of the canonical form of the URL.
+     * @param url to digest
+     * @return {@value #SIZE} bytes digest
+     */
+    public static byte[] of(ShortcutTarget url) {
+        return sha256(url.toString());
+    }
+
+    /**
+     * Computes the digest of the stored URL, the malformed one is digested as is.
+     * @param url to digest
+     * @return {@value #SIZE} bytes digest
+     */
+    public static byte[] of(String url) {
+        try {
+            return of(ShortcutTarget.parse(url));
+        } catch (IllegalArgumentException exception) {
+            return sha256(url);
+        }
+    }
+
+    /**
+     * Computes the digest marking the URL as a duplicate of another one with the same
+     * canonical form. The marker is unique to the URL and never equals a URL digest,
+     * so the duplicate keeps its row without taking the uniqueness key of the kept URL.
+     * @param uuid ID of the duplicate URL
+     * @return {@value #SIZE} bytes digest
+     */
+    public static byte[] duplicate(UUID uuid) {
+        return sha256("duplicate:" + uuid);
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not supported", exception);
+        }
+    }
+}
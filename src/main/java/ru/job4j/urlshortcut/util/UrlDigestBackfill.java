@@ -0,0 +1,235 @@
+package ru.job4j.urlshortcut.util;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Liquibase change filling the digests of the already registered URLs.
+ * Rows are read in the primary key order and updated by batches, each batch is committed
+ * separately when the change runs outside the transaction, so the table stays available
+ * for reads and writes during the migration.
+ * In the refresh mode all the rows are read, and the ones whose address or digest differ
+ * from the current canonical form are rewritten. Before a rewrite takes the digest held by
+ * another URL, the newer of the two is marked as a duplicate by
+ * {@link UrlDigestDeduplication}, so the unique constraint is never violated, no URL
+ * is deleted, and the interrupted migration is resumed by running it again:
+ * the already rewritten rows are skipped. Duplicates keep the marker digest,
+ * and the stored addresses rejected by the parser are digested as stored and logged.
+ */
+@Slf4j
+public class UrlDigestBackfill implements CustomTaskChange {
+
+    private static final String SELECT_SQL = """
+            SELECT url_uuid, url, url_digest FROM urls
+            WHERE url_digest IS NULL AND url_uuid > ?
+            ORDER BY url_uuid
+            LIMIT ?""";
+
+    private static final String SELECT_ALL_SQL = """
+            SELECT url_uuid, url, url_digest, created FROM urls
+            WHERE url_uuid > ?
+            ORDER BY url_uuid
+            LIMIT ?""";
+
+    private static final String UPDATE_SQL =
+            "UPDATE urls SET url_digest = ? WHERE url_uuid = ? AND url_digest IS NULL";
+
+    private static final String HOLDER_SQL =
+            "SELECT url_uuid, created FROM urls WHERE url_digest = ? AND url_uuid <> ?";
+
+    private static final String REWRITE_SQL =
+            "UPDATE urls SET url = ?, url_digest = ? WHERE url_uuid = ?";
+
+    /** Number of the rows updated by one batch. */
+    @Getter
+    @Setter
+    private int batchSize = 1_000;
+
+    /** Whether to rewrite the existing digests and addresses in the canonical form. */
+    @Getter
+    @Setter
+    private boolean refresh;
+
+    private long updated;
+
+    private long marked;
+
+    private long rejected;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        Connection connection =
+                ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        try (PreparedStatement select =
+                     connection.prepareStatement(refresh ? SELECT_ALL_SQL : SELECT_SQL);
+             PreparedStatement update =
+                     connection.prepareStatement(refresh ? REWRITE_SQL : UPDATE_SQL)) {
+            UUID last = new UUID(0L, 0L);
+            int read;
+            do {
+                select.setObject(1, last);
+                select.setInt(2, batchSize);
+                read = 0;
+                int changed = 0;
+                List<Rewrite> rewrites = new ArrayList<>();
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        last = rows.getObject(1, UUID.class);
+                        read++;
+                        if (refresh) {
+                            Rewrite rewrite = rewrite(rows, last);
+                            if (rewrite != null) {
+                                rewrites.add(rewrite);
+                            }
+                        } else {
+                            fill(rows, update, last);
+                            update.addBatch();
+                            changed++;
+                        }
+                    }
+                }
+                if (refresh) {
+                    changed = resolve(connection, update, rewrites);
+                }
+                if (changed > 0) {
+                    update.executeBatch();
+                    updated += changed;
+                }
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+            } while (read == batchSize);
+        } catch (SQLException exception) {
+            throw new CustomChangeException("URL digests backfill failed", exception);
+        }
+    }
+
+    private static void fill(ResultSet rows, PreparedStatement update, UUID uuid)
+            throws SQLException {
+        update.setBytes(1, UrlDigest.of(rows.getString(2)));
+        update.setObject(2, uuid);
+    }
+
+    private Rewrite rewrite(ResultSet rows, UUID uuid) throws SQLException {
+        String stored = rows.getString(2);
+        String url = stored;
+        try {
+            url = ShortcutTarget.parse(stored).toString();
+        } catch (IllegalArgumentException exception) {
+            rejected++;
+            log.warn("URL {} address is invalid, its digest is computed from the stored text",
+                    uuid);
+        }
+        byte[] marker = UrlDigest.duplicate(uuid);
+        boolean duplicate = Arrays.equals(marker, rows.getBytes(3));
+        byte[] digest = duplicate ? marker : UrlDigest.of(url);
+        if (url.equals(stored) && Arrays.equals(digest, rows.getBytes(3))) {
+            return null;
+        }
+        return new Rewrite(uuid, url, digest, rows.getTimestamp(4));
+    }
+
+    /**
+     * Marks the newer URL of each pair whose digests would collide after the rewrite
+     * as a duplicate and adds the rewrites to the batch, the duplicates get the marker digest.
+     */
+    private int resolve(Connection connection, PreparedStatement update, List<Rewrite> rewrites)
+            throws SQLException {
+        Map<ByteBuffer, Rewrite> kept = new LinkedHashMap<>();
+        List<Rewrite> duplicates = new ArrayList<>();
+        for (Rewrite rewrite : rewrites) {
+            if (Arrays.equals(rewrite.digest(), UrlDigest.duplicate(rewrite.uuid()))) {
+                duplicates.add(rewrite);
+                continue;
+            }
+            ByteBuffer key = ByteBuffer.wrap(rewrite.digest());
+            boolean batched = kept.containsKey(key);
+            Rewrite other = batched ? kept.get(key) : holder(connection, rewrite);
+            if (other != null) {
+                marked++;
+                if (other.isOlderThan(rewrite)) {
+                    UrlDigestDeduplication.markDuplicate(connection, rewrite.uuid(), other.uuid());
+                    duplicates.add(rewrite.asDuplicate());
+                    continue;
+                }
+                UrlDigestDeduplication.markDuplicate(connection, other.uuid(), rewrite.uuid());
+                if (batched) {
+                    duplicates.add(other.asDuplicate());
+                }
+            }
+            kept.put(key, rewrite);
+        }
+        List<Rewrite> batch = new ArrayList<>(duplicates);
+        batch.addAll(kept.values());
+        for (Rewrite rewrite : batch) {
+            update.setString(1, rewrite.url());
+            update.setBytes(2, rewrite.digest());
+            update.setObject(3, rewrite.uuid());
+            update.addBatch();
+        }
+        return batch.size();
+    }
+
+    /** Finds another URL already holding the digest of the rewrite. */
+    private static Rewrite holder(Connection connection, Rewrite rewrite) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(HOLDER_SQL)) {
+            select.setBytes(1, rewrite.digest());
+            select.setObject(2, rewrite.uuid());
+            try (ResultSet rows = select.executeQuery()) {
+                return rows.next() ? new Rewrite(rows.getObject(1, UUID.class), null,
+                        rewrite.digest(), rows.getTimestamp(2)) : null;
+            }
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Digests of " + updated + " URLs filled, " + marked + " duplicate URLs marked, "
+                + rejected + " invalid URLs digested as stored";
+    }
+
+    @Override
+    public void setUp() { }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) { }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+
+    /** Canonical address and digest to write to the row. */
+    private record Rewrite(UUID uuid, String url, byte[] digest, Timestamp created) {
+
+        Rewrite asDuplicate() {
+            return new Rewrite(uuid, url, UrlDigest.duplicate(uuid), created);
+        }
+
+        boolean isOlderThan(Rewrite other) {
+            int compared = created.compareTo(other.created);
+            return compared != 0 ? compared < 0 : uuid.compareTo(other.uuid) < 0;
+        }
+    }
+}
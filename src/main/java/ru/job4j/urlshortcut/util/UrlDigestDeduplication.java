@@ -0,0 +1,130 @@
+package ru.job4j.urlshortcut.util;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Liquibase change resolving the URLs with the same digest before the digest becomes unique.
+ * The URLs unique by the exact text may be equal in the canonical form, of each such group
+ * the oldest URL keeps the digest and the others are marked as duplicates: their digest
+ * is replaced by the {@link UrlDigest#duplicate(UUID) marker} unique to the row,
+ * and the duplicate is recorded in the {@code urls_duplicates} table with the ID of the kept URL.
+ * No row is deleted, so the short links already shared keep redirecting and keep
+ * their visit history. Each duplicate is logged, the change is a no-op when there are none.
+ */
+@Slf4j
+public class UrlDigestDeduplication implements CustomTaskChange {
+
+    private static final String DUPLICATES_SQL = """
+            SELECT url_digest FROM urls
+            WHERE url_digest IS NOT NULL
+            GROUP BY url_digest
+            HAVING COUNT(*) > 1""";
+
+    private static final String GROUP_SQL = """
+            SELECT url_uuid FROM urls
+            WHERE url_digest = ?
+            ORDER BY created, url_uuid""";
+
+    private static final String MARK_SQL = "UPDATE urls SET url_digest = ? WHERE url_uuid = ?";
+
+    private static final String RECORD_SQL = """
+            INSERT INTO urls_duplicates (url_uuid, kept_url_uuid, detected)
+            SELECT ?, ?, CURRENT_TIMESTAMP
+            WHERE NOT EXISTS (SELECT 1 FROM urls_duplicates WHERE url_uuid = ?)""";
+
+    private static final String REPOINT_SQL = """
+            UPDATE urls_duplicates SET kept_url_uuid = ?
+            WHERE kept_url_uuid = ? OR url_uuid = ?""";
+
+    private long marked;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        Connection connection =
+                ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        try {
+            List<byte[]> digests = new ArrayList<>();
+            try (PreparedStatement select = connection.prepareStatement(DUPLICATES_SQL);
+                 ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    digests.add(rows.getBytes(1));
+                }
+            }
+            for (byte[] digest : digests) {
+                List<UUID> group = new ArrayList<>();
+                try (PreparedStatement select = connection.prepareStatement(GROUP_SQL)) {
+                    select.setBytes(1, digest);
+                    try (ResultSet rows = select.executeQuery()) {
+                        while (rows.next()) {
+                            group.add(rows.getObject(1, UUID.class));
+                        }
+                    }
+                }
+                for (UUID uuid : group.subList(1, group.size())) {
+                    markDuplicate(connection, uuid, group.get(0));
+                    marked++;
+                }
+            }
+        } catch (SQLException exception) {
+            throw new CustomChangeException("URL duplicates resolution failed", exception);
+        }
+    }
+
+    /**
+     * Releases the digest held by the URL and records it as a duplicate of the kept one,
+     * the URLs recorded before as duplicates of this one are pointed to the kept URL.
+     * The URL row, its code and its visits are left intact.
+     * @param connection connection to the database
+     * @param uuid ID of the duplicate URL
+     * @param kept ID of the kept URL with the same canonical form
+     * @throws SQLException if the URL can't be marked
+     */
+    static void markDuplicate(Connection connection, UUID uuid, UUID kept) throws SQLException {
+        try (PreparedStatement mark = connection.prepareStatement(MARK_SQL);
+             PreparedStatement record = connection.prepareStatement(RECORD_SQL);
+             PreparedStatement repoint = connection.prepareStatement(REPOINT_SQL)) {
+            mark.setBytes(1, UrlDigest.duplicate(uuid));
+            mark.setObject(2, uuid);
+            mark.executeUpdate();
+            record.setObject(1, uuid);
+            record.setObject(2, kept);
+            record.setObject(3, uuid);
+            record.executeUpdate();
+            repoint.setObject(1, kept);
+            repoint.setObject(2, uuid);
+            repoint.setObject(3, uuid);
+            repoint.executeUpdate();
+        }
+        log.warn("URL {} marked as a duplicate of URL {}", uuid, kept);
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return marked + " duplicate URLs marked";
+    }
+
+    @Override
+    public void setUp() { }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) { }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
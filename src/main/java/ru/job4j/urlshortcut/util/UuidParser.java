@@ -0,0 +1,69 @@
+package ru.job4j.urlshortcut.util;
+
+import java.util.UUID;
+
+/**
+ * Fast parser of the canonical UUID string representation.
+ * Unlike {@link UUID#fromString(String)} it never throws exceptions on malformed input,
+ * and returns the {@link #INVALID} sentinel value instead.
+ */
+public final class UuidParser {
+
+    /** Sentinel value returned for malformed input, nil UUID is never used as an entity ID. */
+    public static final UUID INVALID = new UUID(0L, 0L);
+
+    /** Length of the canonical UUID string representation. */
+    public static final int LENGTH = 36;
+
+    private UuidParser() { }
+
+    /**
+     * Parses the canonical {@code 8-4-4-4-12} hexadecimal UUID string representation.
+     * @param value string to parse
+     * @return parsed UUID or {@link #INVALID} if the string is malformed
+     */
+    public static UUID parse(String value) {
+        if (value == null || value.length() != LENGTH
+                || value.charAt(8) != '-' || value.charAt(13) != '-'
+                || value.charAt(18) != '-' || value.charAt(23) != '-') {
+            return INVALID;
+        }
+        long msb = 0L;
+        long lsb = 0L;
+        int digits = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            char symbol = value.charAt(i);
+            if (symbol == '-' && (i == 8 || i == 13 || i == 18 || i == 23)) {
+                continue;
+            }
+            int digit = hexDigit(symbol);
+            if (digit < 0) {
+                return INVALID;
+            }
+            if (digits++ < 16) {
+                msb = (msb << 4) | digit;
+            } else {
+                lsb = (lsb << 4) | digit;
+            }
+        }
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Converts ASCII hexadecimal digit to its value.
+     * @param symbol character to convert
+     * @return digit value or {@code -1} if the character is not a hexadecimal digit
+     */
+    private static int hexDigit(char symbol) {
+        if (symbol >= '0' && symbol <= '9') {
+            return symbol - '0';
+        }
+        if (symbol >= 'a' && symbol <= 'f') {
+            return symbol - 'a' + 10;
+        }
+        if (symbol >= 'A' && symbol <= 'F') {
+            return symbol - 'A' + 10;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,58 @@
+package ru.job4j.urlshortcut.util;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generator of the time-ordered version 7 UUIDs (RFC 9562).
+ * The 48-bit Unix timestamp in milliseconds is followed by the 12-bit counter,
+ * so the generated values are strictly monotonic inside one millisecond and across threads.
+ * The remaining 62 bits are random.
+ */
+public final class UuidV7 {
+
+    /** Number of the counter bits following the timestamp. */
+    private static final int COUNTER_BITS = 12;
+
+    /** Last generated timestamp and counter combination. */
+    private static final AtomicLong STATE = new AtomicLong();
+
+    private static final ThreadLocal<Random> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+    private UuidV7() { }
+
+    /**
+     * Generates a new UUID.
+     * @return version 7 UUID
+     */
+    public static UUID next() {
+        long now = System.currentTimeMillis() << COUNTER_BITS;
+        long state = STATE.updateAndGet(previous -> Math.max(now, previous + 1));
+        long timestamp = state >>> COUNTER_BITS;
+        long counter = state & ((1L << COUNTER_BITS) - 1);
+        long msb = (timestamp << 16) | (0x7L << COUNTER_BITS) | counter;
+        long lsb = (RANDOM.get().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Returns the smallest version 7 UUID that can be generated at the specified time or later,
+     * so the time-ordered keys can be range-scanned by their creation time.
+     * @param epochMillis Unix timestamp in milliseconds
+     * @return lower bound UUID
+     */
+    public static UUID lowerBound(long epochMillis) {
+        return new UUID(epochMillis << 16, 0L);
+    }
+
+    /**
+     * Returns the generation time of the version 7 UUID.
+     * @param uuid version 7 UUID
+     * @return Unix timestamp in milliseconds or {@code -1} if the UUID is of another version
+     */
+    public static long timestamp(UUID uuid) {
+        return uuid.version() == 7 ? uuid.getMostSignificantBits() >>> 16 : -1L;
+    }
+}
@@ -0,0 +1,18 @@
+package ru.job4j.urlshortcut.util;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.io.Serializable;
+
+/** Hibernate identifier generator of the time-ordered version 7 UUIDs. */
+public class UuidV7Generator implements IdentifierGenerator {
+
+    /** Fully qualified class name to use as a generator strategy. */
+    public static final String STRATEGY = "ru.job4j.urlshortcut.util.UuidV7Generator";
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        return UuidV7.next();
+    }
+}
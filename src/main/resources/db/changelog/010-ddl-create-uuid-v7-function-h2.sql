@@ -0,0 +1,2 @@
+-- H2-specific function to generate time-ordered version 7 UUID (for test database only)
+CREATE ALIAS uuid_generate_v7 FOR 'ru.job4j.urlshortcut.util.UuidV7.next';
@@ -0,0 +1,44 @@
+-- PostgreSQL-specific native range partitioning of the access log by the access time.
+-- The existing table is attached as a historical partition without copying the rows,
+-- next partitions are maintained by the application (AccessLogPartitionManager).
+-- Foreign key to the URLs is dropped, so URL deletion doesn't scan the log.
+-- The history primary key uses the index built concurrently by the previous changeset,
+-- so the log is locked only for the catalog changes, not for the index build.
+ALTER TABLE url_access_log DROP CONSTRAINT IF EXISTS fk_url_uuid;
+ALTER TABLE url_access_log RENAME TO url_access_log_history;
+ALTER INDEX IF EXISTS idx_url_access_log_url_uuid RENAME TO idx_url_access_log_history_url_uuid;
+CREATE TABLE url_access_log (
+    id BIGINT NOT NULL DEFAULT nextval('url_access_log_seq'),
+    url_uuid UUID NOT NULL,
+    timestamp TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL DEFAULT now(),
+    CONSTRAINT pk_url_access_log PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+CREATE INDEX idx_url_access_log_url_uuid ON url_access_log (url_uuid);
+CREATE INDEX idx_url_access_log_timestamp ON url_access_log USING brin (timestamp);
+DO $$
+DECLARE
+    pk TEXT;
+    month TIMESTAMP := date_trunc('month', LOCALTIMESTAMP);
+    cutoff TIMESTAMP;
+BEGIN
+    SELECT GREATEST(date_trunc('second', LOCALTIMESTAMP) + INTERVAL '1 second',
+                    MAX(timestamp) + INTERVAL '1 microsecond')
+        INTO cutoff FROM url_access_log_history;
+    SELECT conname INTO pk FROM pg_constraint
+        WHERE conrelid = 'url_access_log_history'::regclass AND contype = 'p';
+    IF pk IS NOT NULL THEN
+        EXECUTE format('ALTER TABLE url_access_log_history DROP CONSTRAINT %I', pk);
+    END IF;
+    ALTER TABLE url_access_log_history ADD CONSTRAINT pk_url_access_log_history
+        PRIMARY KEY USING INDEX pk_url_access_log_history;
+    EXECUTE format('ALTER TABLE url_access_log ATTACH PARTITION url_access_log_history '
+                   'FOR VALUES FROM (MINVALUE) TO (%L)', cutoff);
+    EXECUTE format('CREATE TABLE url_access_log_p%s PARTITION OF url_access_log '
+                   'FOR VALUES FROM (%L) TO (%L)',
+                   to_char(month, 'YYYYMM'), cutoff, month + INTERVAL '1 month');
+    EXECUTE format('CREATE TABLE url_access_log_p%s PARTITION OF url_access_log '
+                   'FOR VALUES FROM (%L) TO (%L)',
+                   to_char(month + INTERVAL '1 month', 'YYYYMM'),
+                   month + INTERVAL '1 month', month + INTERVAL '2 months');
+END $$;
+CREATE TABLE url_access_log_default PARTITION OF url_access_log DEFAULT;
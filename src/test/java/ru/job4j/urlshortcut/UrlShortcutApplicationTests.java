@@ -16,6 +16,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import ru.job4j.urlshortcut.dto.JwtDto;
 import ru.job4j.urlshortcut.dto.LoginDto;
+import ru.job4j.urlshortcut.dto.RefreshTokenDto;
 import ru.job4j.urlshortcut.dto.ServerRegistrationDto;
 import ru.job4j.urlshortcut.dto.ServerStatisticsDto;
 import ru.job4j.urlshortcut.dto.UrlRegistrationDto;
@@ -25,6 +26,11 @@ import ru.job4j.urlshortcut.model.Server;
 import ru.job4j.urlshortcut.model.Url;
 import ru.job4j.urlshortcut.repository.ServerRepository;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -99,7 +105,20 @@ class UrlShortcutApplicationTests {
                 .postForEntity(domainUrl + tokenUrl, requestToken, JwtDto.class);
         assertThat(responseJwt.hasBody()).isTrue();
 
-        String token = responseJwt.getBody().token();
+        /* Exchange the refresh token, the used one is rejected */
+        String refreshJson = mapper.writeValueAsString(
+                new RefreshTokenDto(responseJwt.getBody().refreshToken()));
+        HttpEntity<String> requestRefresh = new HttpEntity<>(refreshJson, headers);
+        ResponseEntity<JwtDto> responseRefresh = restTemplate
+                .postForEntity(domainUrl + tokenUrl + "/refresh", requestRefresh, JwtDto.class);
+        assertThat(responseRefresh.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(responseRefresh.getBody().refreshToken())
+                .isNotEqualTo(responseJwt.getBody().refreshToken());
+        assertThat(restTemplate.postForEntity(
+                domainUrl + tokenUrl + "/refresh", requestRefresh, ErrorDetail.class)
+                .getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+
+        String token = responseRefresh.getBody().token();
         HttpHeaders headerBearer = new HttpHeaders();
         headerBearer.setBearerAuth(token);
         HttpEntity<String> requestBearer = new HttpEntity<>(headerBearer);
@@ -158,10 +177,12 @@ class UrlShortcutApplicationTests {
 
     /**
      * Test scenario of the default workflow with {@code Url} entity.
-     * @throws JsonProcessingException checked exception passing from the JSON mapper
+     * @throws IOException checked exception passing from the JSON mapper and HTTP client
+     * @throws InterruptedException checked exception passing from the HTTP client
      */
     @Test
-    void whenCreateGetAndDeleteUrlEntityScenario() throws JsonProcessingException {
+    void whenCreateGetAndDeleteUrlEntityScenario()
+            throws IOException, InterruptedException {
 
         /* Create a new server entity */
         String json = mapper.writeValueAsString(new ServerRegistrationDto(host, password, desc));
@@ -189,7 +210,8 @@ class UrlShortcutApplicationTests {
         HttpEntity<String> requestBearer = new HttpEntity<>(headerBearer);
 
         /* Create a new URL entity */
-        UrlRegistrationDto dto = new UrlRegistrationDto("https://" + host + "/path", 3600, null);
+        UrlRegistrationDto dto =
+                new UrlRegistrationDto("https://" + host + "/path", 3600, null, null);
         String jsonUrl = mapper.writeValueAsString(dto);
         HttpHeaders headerUrl = new HttpHeaders();
         headerUrl.setContentType(APPLICATION_JSON);
@@ -215,6 +237,16 @@ class UrlShortcutApplicationTests {
                 .isEqualTo(responseUrlGet.getBody().url().getUrl());
         assertThat(responseUrlGet.getBody().visited()).isZero();
 
+        /* Redirect by the short code of the created URL entity */
+        URI redirectUri = URI.create(
+                domainUrl + "/redirect/" + responseUrlCreate.getBody().getCode());
+        HttpResponse<Void> redirect = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(redirectUri).build(),
+                HttpResponse.BodyHandlers.discarding());
+        assertThat(redirect.statusCode()).isEqualTo(HttpStatus.FOUND.value());
+        assertThat(redirect.headers().firstValue(HttpHeaders.LOCATION))
+                .contains("https://" + host + "/path");
+
         /* Create the same new URL entity twice and get error */
         ResponseEntity<ErrorDetail> error = restTemplate
                 .postForEntity(domainUrl + urlRegUrl, requestUrl, ErrorDetail.class);
@@ -248,4 +280,49 @@ class UrlShortcutApplicationTests {
                 HttpMethod.DELETE, requestBearer, Void.class);
         assertThat(responseDelete.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
+
+    /**
+     * Checks that the short links of the deleted {@code Server} stop redirecting at once,
+     * though the redirect targets were cached.
+     * @throws IOException checked exception passing from the JSON mapper and HTTP client
+     * @throws InterruptedException checked exception passing from the HTTP client
+     */
+    @Test
+    void whenServerDeletedThenItsShortLinksNotFound() throws IOException, InterruptedException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(APPLICATION_JSON);
+        ResponseEntity<Server> responseServer = restTemplate.postForEntity(
+                domainUrl + serverRegUrl, new HttpEntity<>(mapper.writeValueAsString(
+                        new ServerRegistrationDto(host, password, desc)), headers), Server.class);
+        UUID serverUuid = responseServer.getBody().getUuid();
+        String token = restTemplate.postForEntity(domainUrl + tokenUrl,
+                new HttpEntity<>(mapper.writeValueAsString(
+                        new LoginDto(serverUuid.toString(), password)), headers),
+                JwtDto.class).getBody().token();
+
+        HttpHeaders headerUrl = new HttpHeaders();
+        headerUrl.setContentType(APPLICATION_JSON);
+        headerUrl.setBearerAuth(token);
+        String jsonUrl = mapper.writeValueAsString(
+                new UrlRegistrationDto("https://" + host + "/path", 3600, null, null));
+        Url url = restTemplate.postForEntity(domainUrl + urlRegUrl,
+                new HttpEntity<>(jsonUrl, headerUrl), Url.class).getBody();
+
+        /* Redirect to cache the target */
+        HttpRequest redirect = HttpRequest.newBuilder(
+                URI.create(domainUrl + "/redirect/" + url.getCode())).build();
+        HttpClient client = HttpClient.newHttpClient();
+        assertThat(client.send(redirect, HttpResponse.BodyHandlers.discarding()).statusCode())
+                .isEqualTo(HttpStatus.FOUND.value());
+
+        /* Delete the server and redirect again */
+        HttpHeaders headerBearer = new HttpHeaders();
+        headerBearer.setBearerAuth(token);
+        ResponseEntity<Void> responseDelete = restTemplate.exchange(
+                domainUrl + serverIdUrl + serverUuid,
+                HttpMethod.DELETE, new HttpEntity<>(headerBearer), Void.class);
+        assertThat(responseDelete.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(client.send(redirect, HttpResponse.BodyHandlers.discarding()).statusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND.value());
+    }
 }
@@ -0,0 +1,103 @@
+package ru.job4j.urlshortcut.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.job4j.urlshortcut.configuration.HotUrlProperties;
+import ru.job4j.urlshortcut.model.HotUrl;
+import ru.job4j.urlshortcut.model.TopWindow;
+import ru.job4j.urlshortcut.service.HotUrlTracker;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost added to each redirection by the hottest links tracking
+ * (all the windows of the server are updated) with 4 and 8 threads visiting links
+ * of the same server or of different servers, and the cost of the ranking request.
+ * Visited links follow the skewed distribution: a quarter of the visits go to 10 hot links.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class HotUrlTrackerBenchmark {
+
+    private static final int LINKS = 10_000;
+
+    private static final int HOT_LINKS = 10;
+
+    @Param({"1", "100"})
+    private int servers;
+
+    private HotUrlTracker tracker;
+    private UUID[] serverIds;
+    private UUID[] linkIds;
+
+    @Setup
+    public void setup() {
+        tracker = new HotUrlTracker(new HotUrlProperties(), new SimpleMeterRegistry());
+        serverIds = new UUID[servers];
+        for (int i = 0; i < servers; i++) {
+            serverIds[i] = UUID.randomUUID();
+        }
+        linkIds = new UUID[LINKS];
+        for (int i = 0; i < LINKS; i++) {
+            linkIds[i] = UUID.randomUUID();
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 1_000_000; i++) {
+            tracker.record(serverIds[random.nextInt(servers)], nextLink(random.nextInt()));
+        }
+    }
+
+    @Benchmark
+    public void record() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        tracker.record(serverIds[random.nextInt(servers)], nextLink(random.nextInt()));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void recordEightThreads() {
+        record();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<HotUrl> top() {
+        return tracker.top(serverIds[0], TopWindow.HOUR, 10);
+    }
+
+    private UUID nextLink(int random) {
+        int value = random & Integer.MAX_VALUE;
+        return value % 4 == 0 ? linkIds[value % HOT_LINKS] : linkIds[value % LINKS];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HotUrlTrackerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,196 @@
+package ru.job4j.urlshortcut.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.server.ResponseStatusException;
+import ru.job4j.urlshortcut.configuration.RedirectProperties;
+import ru.job4j.urlshortcut.controller.RedirectController;
+import ru.job4j.urlshortcut.controller.RedirectResolver;
+import ru.job4j.urlshortcut.dto.UrlVisitsDto;
+import ru.job4j.urlshortcut.model.Granularity;
+import ru.job4j.urlshortcut.model.HotUrl;
+import ru.job4j.urlshortcut.model.RedirectTarget;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+import ru.job4j.urlshortcut.model.TopWindow;
+import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.model.UrlFilter;
+import ru.job4j.urlshortcut.model.UrlPage;
+import ru.job4j.urlshortcut.model.UrlRegistrationResult;
+import ru.job4j.urlshortcut.model.VisitBucket;
+import ru.job4j.urlshortcut.service.UrlService;
+import ru.job4j.urlshortcut.util.EntityNotFoundException;
+import ru.job4j.urlshortcut.util.PageCursor;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time and allocation of the redirection not found path:
+ * the former one based on {@link UUID#fromString(String)} and {@link ResponseStatusException},
+ * and the current one based on the fast key parser and the pre-built responses.
+ * The lookup itself is stubbed, so only the key parsing and error reporting costs are measured.
+ * Allocation per operation is reported by the GC profiler as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedirectMissBenchmark {
+
+    private static final int UUID_LENGTH = 36;
+
+    @Param({"malformed-uuid", "missing-uuid", "missing-code"})
+    private String kind;
+
+    private String key;
+    private UrlService service;
+    private RedirectController controller;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setup() {
+        key = switch (kind) {
+            case "malformed-uuid" -> "z" + UUID.randomUUID().toString().substring(1);
+            case "missing-uuid" -> UUID.randomUUID().toString();
+            default -> "4c92Ab";
+        };
+        service = new MissingUrlService();
+        // Visitors are counted for the found targets only, so the counter is never called
+        controller = new RedirectController(
+                new RedirectResolver(service, new RedirectProperties(), null));
+        request = new MockHttpServletRequest("GET", "/redirect/" + key);
+    }
+
+    @Benchmark
+    public Object exceptionBased() {
+        try {
+            if (key.length() != UUID_LENGTH) {
+                throw new EntityNotFoundException();
+            }
+            return service.getByIdAndLog(UUID.fromString(key));
+        } catch (EntityNotFoundException | IllegalArgumentException exception) {
+            return new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "URL with ID " + key + " not found.");
+        }
+    }
+
+    @Benchmark
+    public Object sentinelBased() {
+        return controller.redirectByKey(key, request);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RedirectMissBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    /** Stub of the service without any entities, allocation-free unlike mocks. */
+    private static final class MissingUrlService implements UrlService {
+
+        @Override
+        public Url create(Url url, Principal principal) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<UrlRegistrationResult> createAll(List<Url> urls, Principal principal) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Optional<UUID> findIdByUrl(ShortcutTarget url) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Url getById(UUID uuid) {
+            throw new EntityNotFoundException();
+        }
+
+        @Override
+        public Url getByIdAndLog(UUID uuid) {
+            throw new EntityNotFoundException();
+        }
+
+        @Override
+        public Optional<RedirectTarget> findTargetByIdAndLog(UUID uuid) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<RedirectTarget> findTargetByCodeAndLog(String code) {
+            return Optional.empty();
+        }
+
+        @Override
+        public List<Url> getAllByServerId(UUID uuid) {
+            return List.of();
+        }
+
+        @Override
+        public List<UrlVisitsDto> getAllWithVisitsByServerId(UUID uuid) {
+            return List.of();
+        }
+
+        @Override
+        public boolean deleteByIdAndPrincipal(UUID uuid, Principal principal) {
+            throw new EntityNotFoundException();
+        }
+
+        @Override
+        public long getUrlVisitsCount(UUID uuid) {
+            throw new EntityNotFoundException();
+        }
+
+        @Override
+        public long getUrlUniqueVisitors(UUID uuid) {
+            throw new EntityNotFoundException();
+        }
+
+        @Override
+        public List<VisitBucket> getUrlVisitSeries(UUID uuid, Granularity granularity,
+                                                   LocalDateTime from, LocalDateTime to) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<VisitBucket> getServerVisitSeries(UUID serverUuid, Granularity granularity,
+                                                      LocalDateTime from, LocalDateTime to) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public UrlPage getPageByServerId(UUID serverUuid, UrlFilter filter, PageCursor after,
+                                         int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<HotUrl> getServerTopUrls(UUID serverUuid, TopWindow window, int limit) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ru.job4j.urlshortcut.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.job4j.urlshortcut.UrlShortcutApplication;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+import ru.job4j.urlshortcut.model.Server;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+import ru.job4j.urlshortcut.model.Status;
+import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.repository.ServerRepository;
+import ru.job4j.urlshortcut.repository.UrlRepository;
+import ru.job4j.urlshortcut.service.ShortCodeAllocator;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the redirection latency (p50/p99 of the sample time mode) and throughput
+ * of the lightweight redirection filter and the controller behind the security filter chain
+ * and the Spring MVC dispatcher. The application is started with the {@code test} profile
+ * and the asynchronous access log, so the database writes don't dominate the results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.SampleTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class RedirectPathBenchmark {
+
+    @Param({"true", "false"})
+    private boolean filterEnabled;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setup() throws IOException {
+        context = new SpringApplicationBuilder(UrlShortcutApplication.class)
+                .properties("spring.profiles.active=test",
+                        "server.port=0",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=warn",
+                        "logging.level.ru.job4j=warn",
+                        "ru.job4j.urlshortcut.access-log.mode=async",
+                        "ru.job4j.urlshortcut.redirect.filter-enabled=" + filterEnabled)
+                .run();
+        LocalDateTime now = LocalDateTime.now();
+        Server server = context.getBean(ServerRepository.class).save(
+                new Server(null, "example.com", "password", now, now, Status.REGISTERED, null));
+        Url url = context.getBean(UrlRepository.class).save(new Url(null,
+                context.getBean(ShortCodeAllocator.class).next(), server.getUuid(),
+                ShortcutTarget.parse("https://example.com/path"), now, now.plusDays(1),
+                Status.REGISTERED, null, RedirectPolicy.COUNTED));
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newHttpClient();
+        request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/redirect/" + url.getCode())).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int redirect() throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RedirectPathBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
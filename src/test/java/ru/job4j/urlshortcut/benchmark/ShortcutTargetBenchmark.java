@@ -0,0 +1,108 @@
+package ru.job4j.urlshortcut.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the costs of the URL address handled by the former {@link URL}
+ * and the current {@link ShortcutTarget}: parsing of the registration, comparison
+ * and hashing of the loaded addresses, and the {@code Location} header value.
+ * {@link URL#equals(Object)} and {@link URL#hashCode()} resolve the host name,
+ * the results depend on the resolver cache and the network.
+ * Allocation per operation is reported by the GC profiler as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortcutTargetBenchmark {
+
+    @Param({"https://example.com/path?query=value",
+            "HTTPS://Example.COM:443/%7euser/a%20path?q=%3d#top"})
+    private String address;
+
+    private URL url;
+    private URL otherUrl;
+    private ShortcutTarget target;
+    private ShortcutTarget otherTarget;
+
+    @Setup
+    public void setup() throws MalformedURLException {
+        url = new URL(address);
+        otherUrl = new URL(address);
+        target = ShortcutTarget.parse(address);
+        otherTarget = ShortcutTarget.parse(address);
+    }
+
+    @Benchmark
+    public Object parseUrl() throws MalformedURLException {
+        return new URL(address);
+    }
+
+    @Benchmark
+    public Object parseTarget() {
+        return ShortcutTarget.parse(address);
+    }
+
+    @Benchmark
+    public boolean compareUrl() {
+        return url.equals(otherUrl);
+    }
+
+    @Benchmark
+    public boolean compareTarget() {
+        return target.equals(otherTarget);
+    }
+
+    @Benchmark
+    public int hashUrl() {
+        return url.hashCode();
+    }
+
+    @Benchmark
+    public int hashTarget() {
+        return target.hashCode();
+    }
+
+    @Benchmark
+    public String locationOfUrl() {
+        try {
+            return url.toURI().toASCIIString();
+        } catch (URISyntaxException exception) {
+            return url.toString();
+        }
+    }
+
+    @Benchmark
+    public String locationOfTarget() {
+        return target.location();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ShortcutTargetBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,130 @@
+package ru.job4j.urlshortcut.benchmark;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import ru.job4j.urlshortcut.service.CachingJwtDecoder;
+import ru.job4j.urlshortcut.util.HmacJwtEncoder;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the token codec before and after: encoding by {@link NimbusJwtEncoder} with
+ * the header built per token and by {@link HmacJwtEncoder}, decoding by the verifying
+ * {@link NimbusJwtDecoder} and by {@link CachingJwtDecoder} of the token decoded before.
+ * Throughput is the inverse of the reported average time per operation.
+ * Allocation per operation is reported by the GC profiler as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenCodecBenchmark {
+
+    private static final String ISSUER = "localhost";
+
+    @Param({"HS256", "HS512"})
+    private String algorithmName;
+
+    private final byte[] secret = "01234567".repeat(8).getBytes(StandardCharsets.US_ASCII);
+    private MacAlgorithm algorithm;
+    private JwtEncoder nimbusEncoder;
+    private JwtEncoder hmacEncoder;
+    private JwtDecoder nimbusDecoder;
+    private JwtDecoder cachingDecoder;
+    private String token;
+
+    @Setup
+    public void setup() {
+        algorithm = MacAlgorithm.from(algorithmName);
+        nimbusEncoder = new NimbusJwtEncoder(new ImmutableSecret<>(secret));
+        hmacEncoder = new HmacJwtEncoder(algorithm, secret);
+        NimbusJwtDecoder decoder = NimbusJwtDecoder
+                .withSecretKey(new SecretKeySpec(secret, "HMAC"))
+                .macAlgorithm(algorithm)
+                .build();
+        decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(
+                new JwtIssuerValidator(ISSUER),
+                new JwtTimestampValidator(),
+                new JwtClaimValidator<List<String>>(
+                        JwtClaimNames.AUD, aud -> aud.contains(ISSUER))));
+        nimbusDecoder = decoder;
+        cachingDecoder = new CachingJwtDecoder(decoder, 10_000, null);
+        token = hmacEncoder.encode(JwtEncoderParameters.from(claims())).getTokenValue();
+        cachingDecoder.decode(token);
+    }
+
+    private JwtClaimsSet claims() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        return JwtClaimsSet.builder()
+                .issuer(ISSUER)
+                .audience(List.of(ISSUER))
+                .subject("example.com")
+                .claim("scope", "USER")
+                .issuedAt(now)
+                .expiresAt(now.plus(1, ChronoUnit.HOURS))
+                .build();
+    }
+
+    @Benchmark
+    public Jwt encodeByNimbus() {
+        JwsHeader header = JwsHeader.with(algorithm).type("JWT").build();
+        return nimbusEncoder.encode(JwtEncoderParameters.from(header, claims()));
+    }
+
+    @Benchmark
+    public Jwt encodeByHmac() {
+        return hmacEncoder.encode(JwtEncoderParameters.from(claims()));
+    }
+
+    @Benchmark
+    public Jwt decodeByNimbus() {
+        return nimbusDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt decodeByCache() {
+        return cachingDecoder.decode(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,115 @@
+package ru.job4j.urlshortcut.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.job4j.urlshortcut.util.UuidV7;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares random version 4 and time-ordered version 7 UUID primary keys:
+ * generation cost, insert throughput and resulting primary key index size.
+ * In-memory H2 database is used by default, PostgreSQL database can be set
+ * with the {@code jdbcUrl}, {@code user} and {@code password} parameters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UuidInsertBenchmark {
+
+    /** Number of rows inserted in one benchmark operation. */
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"v4", "v7"})
+    private String version;
+
+    @Param("jdbc:h2:mem:uuid_benchmark;DB_CLOSE_DELAY=-1")
+    private String jdbcUrl;
+
+    @Param("sa")
+    private String user;
+
+    @Param("")
+    private String password;
+
+    private Connection connection;
+    private PreparedStatement insert;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(jdbcUrl, user, password);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS uuid_benchmark");
+            statement.execute("CREATE TABLE uuid_benchmark("
+                    + "id UUID CONSTRAINT uuid_benchmark_pkey PRIMARY KEY, "
+                    + "created TIMESTAMP NOT NULL DEFAULT now())");
+        }
+        insert = connection.prepareStatement("INSERT INTO uuid_benchmark(id) VALUES (?)");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            String sql = connection.getMetaData().getDatabaseProductName().contains("PostgreSQL")
+                    ? "SELECT count(*), pg_relation_size('uuid_benchmark_pkey') FROM uuid_benchmark"
+                    : "SELECT count(*), DISK_SPACE_USED('uuid_benchmark') FROM uuid_benchmark";
+            try (ResultSet result = statement.executeQuery(sql)) {
+                result.next();
+                System.out.printf("%n%s: %d rows, primary key index size %d bytes%n",
+                        version, result.getLong(1), result.getLong(2));
+            }
+            statement.execute("DROP TABLE uuid_benchmark");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public UUID generate() {
+        return nextUuid();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] insert() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            insert.setObject(1, nextUuid());
+            insert.addBatch();
+        }
+        return insert.executeBatch();
+    }
+
+    private UUID nextUuid() {
+        return "v7".equals(version) ? UuidV7.next() : UUID.randomUUID();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UuidInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+package ru.job4j.urlshortcut.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+import ru.job4j.urlshortcut.util.HostNameValidator;
+import ru.job4j.urlshortcut.util.PasswordValidator;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the former validators of the registration requests, the password regular
+ * expression compiled per call and the host name and URL checks by {@link URL}, with
+ * the current allocation-free ones. Allocation per validation is reported by the GC
+ * profiler as {@code gc.alloc.rate.norm}, the current validators are expected to report 0.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    private final String password = "k8sJx2PqLm0vZr4T";
+    private final String host = "shop.example-store.com";
+    private final String address = "https://shop.example-store.com/catalog/item?id=42#reviews";
+
+    private final PasswordValidator passwordValidator = new PasswordValidator();
+    private final HostNameValidator hostNameValidator = new HostNameValidator();
+
+    @Benchmark
+    public boolean passwordByCompiledRegex() {
+        return Pattern.compile("[a-zA-Z0-9]{8,256}").matcher(password).matches();
+    }
+
+    @Benchmark
+    public boolean passwordBySyntax() {
+        return passwordValidator.isValid(password, null);
+    }
+
+    @Benchmark
+    public boolean hostByUrl() {
+        try {
+            return new URL("https://" + host).getHost().equals(host);
+        } catch (MalformedURLException exception) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean hostBySyntax() {
+        return hostNameValidator.isValid(host, null);
+    }
+
+    @Benchmark
+    public boolean addressByUrl() {
+        try {
+            return new URL(address).getHost() != null;
+        } catch (MalformedURLException exception) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean addressByParse() {
+        try {
+            return ShortcutTarget.parse(address) != null;
+        } catch (IllegalArgumentException exception) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean addressBySyntax() {
+        return ShortcutTarget.isValid(address);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ValidatorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
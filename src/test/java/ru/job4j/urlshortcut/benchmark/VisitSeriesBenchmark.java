@@ -0,0 +1,137 @@
+package ru.job4j.urlshortcut.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.job4j.urlshortcut.UrlShortcutApplication;
+import ru.job4j.urlshortcut.model.Granularity;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+import ru.job4j.urlshortcut.model.Server;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+import ru.job4j.urlshortcut.model.Status;
+import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.model.VisitBucket;
+import ru.job4j.urlshortcut.repository.ServerRepository;
+import ru.job4j.urlshortcut.repository.UrlRepository;
+import ru.job4j.urlshortcut.service.VisitRollupService;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency of the 30 days daily visits series of one URL
+ * served from the rollup table and aggregated from the raw access log at query time
+ * as the raw log grows. The application is started with the {@code test} profile.
+ * Each invocation shifts the range by one day, so the database can't reuse the previous result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VisitSeriesBenchmark {
+
+    private static final int DAYS = 30;
+
+    private static final int SHIFTS = 10;
+
+    private static final String RAW_SQL = """
+            SELECT DATE_TRUNC('day', timestamp), COUNT(*) FROM url_access_log
+            WHERE url_uuid = ? AND timestamp >= ? AND timestamp < ?
+            GROUP BY DATE_TRUNC('day', timestamp)""";
+
+    @Param({"10000", "100000", "1000000"})
+    private int records;
+
+    private ConfigurableApplicationContext context;
+    private VisitRollupService rollups;
+    private JdbcTemplate jdbcTemplate;
+    private Url url;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private int shift;
+
+    @Setup
+    public void setup() throws IOException {
+        context = new SpringApplicationBuilder(UrlShortcutApplication.class)
+                .properties("spring.profiles.active=test",
+                        "server.port=0",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=warn",
+                        "logging.level.ru.job4j=warn",
+                        "ru.job4j.urlshortcut.visit-rollups.interval=3600000")
+                .run();
+        LocalDateTime now = LocalDateTime.now();
+        Server server = context.getBean(ServerRepository.class).save(
+                new Server(null, "example.com", "password", now, now, Status.REGISTERED, null));
+        url = context.getBean(UrlRepository.class).save(new Url(null, null, server.getUuid(),
+                ShortcutTarget.parse("https://example.com/path"), now, now.plusDays(1),
+                Status.REGISTERED, null, RedirectPolicy.COUNTED));
+        rollups = context.getBean(VisitRollupService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        to = now.truncatedTo(ChronoUnit.DAYS);
+        from = to.minusDays(DAYS + SHIFTS);
+        SplittableRandom random = new SplittableRandom(42);
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < records; i++) {
+            batch.add(new Object[] {url.getUuid(),
+                    from.plusSeconds(random.nextLong(ChronoUnit.SECONDS.between(from, to)))});
+            if (batch.size() == 10_000 || i == records - 1) {
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO url_access_log(url_uuid, timestamp) VALUES (?, ?)", batch);
+                batch.clear();
+            }
+        }
+        rollups.aggregate().join();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<VisitBucket> rollupSeries() {
+        LocalDateTime start = from.plusDays(nextShift());
+        return rollups.urlSeries(url.getUuid(), Granularity.DAY, start, start.plusDays(DAYS));
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> rawLogSeries() {
+        LocalDateTime start = from.plusDays(nextShift());
+        return jdbcTemplate.queryForList(RAW_SQL, url.getUuid(), start, start.plusDays(DAYS));
+    }
+
+    private int nextShift() {
+        shift = (shift + 1) % SHIFTS;
+        return shift;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VisitSeriesBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -6,80 +6,151 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.web.server.ResponseStatusException;
 import ru.job4j.urlshortcut.configuration.SecurityConfiguration;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+import ru.job4j.urlshortcut.model.RedirectTarget;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
 import ru.job4j.urlshortcut.model.Status;
 import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.service.UniqueVisitorService;
 import ru.job4j.urlshortcut.service.UrlService;
-import ru.job4j.urlshortcut.util.EntityNotFoundException;
 
-import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
 import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(RedirectController.class)
 @AutoConfigureMockMvc(webClientEnabled = false, webDriverEnabled = false)
-@Import(SecurityConfiguration.class)
+@Import({SecurityConfiguration.class, RedirectResolver.class})
 class RedirectControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
     @MockBean
     private UrlService service;
+    @MockBean
+    private UniqueVisitorService visitors;
 
     private final UUID uuid = UUID.randomUUID();
     private final UUID servUuid = UUID.randomUUID();
     private final String host = "example.com";
-    private final URL path = new URL("https://" + host + "/path");
+    private final ShortcutTarget path = ShortcutTarget.parse("https://" + host + "/path");
     private final LocalDateTime time = LocalDateTime.now();
     private final Status status = Status.REGISTERED;
+    private final RedirectPolicy policy = RedirectPolicy.COUNTED;
+
+    private final String code = "4c92Ab";
 
     private final URI uriId = new URI("/redirect/" + uuid);
+    private final URI uriCode = new URI("/redirect/" + code);
 
-    RedirectControllerTest() throws URISyntaxException, MalformedURLException { }
+    RedirectControllerTest() throws URISyntaxException { }
 
     @Test
     void redirectByUuidWhenCorrectUuidThenGetRedirection() throws Exception {
-        Url url = new Url(uuid, servUuid, path, time, time.plusDays(1), status, null);
-        when(service.getByIdAndLog(uuid)).thenReturn(url);
+        Url url = new Url(uuid, null, servUuid, path, time, time.plusDays(1), status, null, policy);
+        when(service.findTargetByIdAndLog(uuid)).thenReturn(Optional.of(RedirectTarget.of(url)));
         mockMvc.perform(request(GET, uriId))
                 .andExpect(status().is(302))
-                .andExpect(result -> assertThat(result.getResponse()
-                        .getRedirectedUrl()).isEqualTo(path.toString()));
+                .andExpect(header().string(HttpHeaders.LOCATION, path.toString()))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"));
+    }
+
+    @Test
+    void redirectByKeyWhenCorrectCodeThenGetRedirection() throws Exception {
+        Url url = new Url(uuid, code, servUuid, path, time, time.plusDays(1), status, null, policy);
+        when(service.findTargetByCodeAndLog(code)).thenReturn(Optional.of(RedirectTarget.of(url)));
+        mockMvc.perform(request(GET, uriCode).header(HttpHeaders.USER_AGENT, "Mozilla/5.0"))
+                .andExpect(status().is(302))
+                .andExpect(header().string(HttpHeaders.LOCATION, path.toString()))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"));
+        verify(visitors).record(eq(uuid), anyString(), eq("Mozilla/5.0"));
+    }
+
+    @Test
+    void redirectByKeyWhenIncorrectCodeThenNotFound() throws Exception {
+        when(service.findTargetByCodeAndLog(code)).thenReturn(Optional.empty());
+        mockMvc.perform(request(GET, uriCode)).andExpect(status().isNotFound());
+        verifyNoInteractions(visitors);
+    }
+
+    @Test
+    void redirectByKeyWhenInvalidCodeFormatThenNotFound() throws Exception {
+        mockMvc.perform(request(GET, new URI("/redirect/4c-2Ab")))
+                .andExpect(status().isNotFound());
     }
 
     @Test
     void redirectByUuidWhenCorrectUuidAndExpiredThenGetGone() throws Exception {
-        Url url = new Url(uuid, servUuid, path, time.minusDays(2), time.minusDays(1), status, null);
-        when(service.getByIdAndLog(uuid)).thenReturn(url);
-        mockMvc.perform(request(GET, uriId)).andExpect(status().isGone());
+        Url url = new Url(uuid, null, servUuid, path,
+                time.minusDays(2), time.minusDays(1), status, null, policy);
+        when(service.findTargetByIdAndLog(uuid)).thenReturn(Optional.of(RedirectTarget.of(url)));
+        mockMvc.perform(request(GET, uriId))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.error").value("Gone"));
     }
 
     @Test
     void redirectByUuidWhenIncorrectUuidThenNotFound() throws Exception {
-        when(service.getByIdAndLog(uuid)).thenThrow(EntityNotFoundException.class);
+        when(service.findTargetByIdAndLog(uuid)).thenReturn(Optional.empty());
         mockMvc.perform(request(GET, uriId))
                 .andExpect(status().isNotFound())
-                .andExpect(result -> assertThat(result.getResolvedException())
-                        .isInstanceOf(ResponseStatusException.class));
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.status").value(404));
     }
 
     @Test
     void redirectByUuidWhenIncorrectUuidFormatThenNotFound() throws Exception {
-        when(service.getByIdAndLog(uuid)).thenThrow(EntityNotFoundException.class);
         mockMvc.perform(request(GET, new URI("/redirect/" + uuid.toString().substring(0, 22))))
-                .andExpect(status().isNotFound())
-                .andExpect(result -> assertThat(result.getResolvedException())
-                        .isInstanceOf(ResponseStatusException.class));
+                .andExpect(status().isNotFound());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void redirectByUuidWhenMalformedUuidOfValidLengthThenNotFound() throws Exception {
+        String malformed = "z" + uuid.toString().substring(1);
+        mockMvc.perform(request(GET, new URI("/redirect/" + malformed)))
+                .andExpect(status().isNotFound());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void redirectByKeyWhenPermanentPolicyThenGetCacheableRedirection() throws Exception {
+        Url url = new Url(uuid, code, servUuid, path, time, time.plusHours(1), status, null,
+                RedirectPolicy.PERMANENT);
+        when(service.findTargetByCodeAndLog(code)).thenReturn(Optional.of(RedirectTarget.of(url)));
+        mockMvc.perform(request(GET, uriCode))
+                .andExpect(status().isMovedPermanently())
+                .andExpect(header().string(HttpHeaders.LOCATION, path.toString()))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL,
+                        matchesPattern("public, max-age=3[56]\\d\\d")));
+    }
+
+    @Test
+    void redirectByKeyWhenTemporaryPolicyWithoutExpirationThenMaxAgeLimited() throws Exception {
+        Url url = new Url(uuid, code, servUuid, path, time, null, status, null,
+                RedirectPolicy.TEMPORARY);
+        when(service.findTargetByCodeAndLog(code)).thenReturn(Optional.of(RedirectTarget.of(url)));
+        mockMvc.perform(request(GET, uriCode))
+                .andExpect(status().isTemporaryRedirect())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=86400"));
     }
 }
@@ -0,0 +1,129 @@
+package ru.job4j.urlshortcut.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.job4j.urlshortcut.configuration.RedirectProperties;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+import ru.job4j.urlshortcut.model.RedirectTarget;
+import ru.job4j.urlshortcut.service.UniqueVisitorService;
+import ru.job4j.urlshortcut.service.UrlService;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class RedirectFilterTest {
+
+    @MockBean
+    private UrlService service;
+    @MockBean
+    private UniqueVisitorService visitors;
+    private RedirectFilter filter;
+
+    private final UUID uuid = UUID.randomUUID();
+    private final UUID serverUuid = UUID.randomUUID();
+    private final String code = "4c92Ab";
+    private final String location = "https://example.com/path";
+    private final LocalDateTime time = LocalDateTime.now();
+
+    @BeforeEach
+    void beforeEach() {
+        filter = new RedirectFilter(
+                new RedirectResolver(service, new RedirectProperties(), visitors));
+    }
+
+    @Test
+    void whenCorrectCodeThenRedirectedWithoutChain() throws Exception {
+        when(service.findTargetByCodeAndLog(code)).thenReturn(Optional.of(new RedirectTarget(
+                uuid, serverUuid, code, location, time.plusDays(1), RedirectPolicy.COUNTED)));
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/redirect/" + code), response, chain);
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getStatus()).isEqualTo(302);
+        assertThat(response.getHeader(HttpHeaders.LOCATION)).isEqualTo(location);
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-store");
+    }
+
+    @Test
+    void whenRedirectedThenVisitorCounted() throws Exception {
+        when(service.findTargetByCodeAndLog(code)).thenReturn(Optional.of(new RedirectTarget(
+                uuid, serverUuid, code, location, time.plusDays(1), RedirectPolicy.COUNTED)));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/redirect/" + code);
+        request.setRemoteAddr("192.0.2.1");
+        request.addHeader(HttpHeaders.USER_AGENT, "Mozilla/5.0");
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        verify(visitors).record(uuid, "192.0.2.1", "Mozilla/5.0");
+    }
+
+    @Test
+    void whenCorrectUuidAndPermanentPolicyThenCacheableRedirection() throws Exception {
+        when(service.findTargetByIdAndLog(uuid)).thenReturn(Optional.of(new RedirectTarget(
+                uuid, serverUuid, code, location, null, RedirectPolicy.PERMANENT)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/redirect/" + uuid), response,
+                new MockFilterChain());
+        assertThat(response.getStatus()).isEqualTo(301);
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL))
+                .isEqualTo("public, max-age=86400");
+    }
+
+    @Test
+    void whenUnknownKeyThenNotFoundBody() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/redirect/" + code), response,
+                new MockFilterChain());
+        assertThat(response.getStatus()).isEqualTo(404);
+        assertThat(response.getContentAsByteArray()).isEqualTo(RedirectResolver.NOT_FOUND_BODY);
+    }
+
+    @Test
+    void whenExpiredThenGoneBody() throws Exception {
+        when(service.findTargetByCodeAndLog(code)).thenReturn(Optional.of(new RedirectTarget(
+                uuid, serverUuid, code, location, time.minusDays(1), RedirectPolicy.COUNTED)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/redirect/" + code), response,
+                new MockFilterChain());
+        assertThat(response.getStatus()).isEqualTo(410);
+        assertThat(response.getContentAsByteArray()).isEqualTo(RedirectResolver.GONE_BODY);
+    }
+
+    @Test
+    void whenNotRedirectionRequestThenPassedToChain() throws Exception {
+        for (MockHttpServletRequest request : new MockHttpServletRequest[] {
+                new MockHttpServletRequest("POST", "/redirect/" + code),
+                new MockHttpServletRequest("GET", "/redirect/" + code + "/more"),
+                new MockHttpServletRequest("GET", "/redirect/"),
+                new MockHttpServletRequest("GET", "/api/urls/" + uuid)}) {
+            MockFilterChain chain = new MockFilterChain();
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            assertThat(chain.getRequest()).isSameAs(request);
+        }
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void whenContextPathThenKeyExtracted() throws Exception {
+        MockHttpServletRequest request =
+                new MockHttpServletRequest("GET", "/app/redirect/" + code);
+        request.setContextPath("/app");
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getStatus()).isEqualTo(404);
+    }
+}
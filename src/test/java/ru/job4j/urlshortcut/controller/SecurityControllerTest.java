@@ -13,9 +13,12 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.server.ResponseStatusException;
 import ru.job4j.urlshortcut.configuration.SecurityConfiguration;
 import ru.job4j.urlshortcut.dto.LoginDto;
+import ru.job4j.urlshortcut.dto.RefreshTokenDto;
+import ru.job4j.urlshortcut.model.TokenGrant;
 import ru.job4j.urlshortcut.service.SecurityService;
 import ru.job4j.urlshortcut.util.AccessUnauthorizedException;
 import ru.job4j.urlshortcut.util.EntityNotFoundException;
+import ru.job4j.urlshortcut.util.TooManyRequestsException;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -23,10 +26,12 @@ import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpMethod.POST;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -56,6 +61,8 @@ class SecurityControllerTest {
             .issuedAt(Instant.now())
             .expiresAt(Instant.now().plusSeconds(3600))
             .build();
+    private final TokenGrant grant = new TokenGrant(
+            jwt, "refreshTokenPlaceholder", Instant.now().plusSeconds(7200));
 
     SecurityControllerTest() throws URISyntaxException { }
 
@@ -63,7 +70,7 @@ class SecurityControllerTest {
     void tokenWhenCorrectLoginThenGetTokenDetails() throws Exception {
         LoginDto dto = new LoginDto(uuid.toString(), password);
         String json = mapper.writeValueAsString(dto);
-        when(service.generateToken(uuid, password)).thenReturn(jwt);
+        when(service.generateToken(uuid, password)).thenReturn(grant);
         mockMvc.perform(request(POST, uri)
                         .contentType(APPLICATION_JSON)
                         .content(json))
@@ -71,7 +78,9 @@ class SecurityControllerTest {
                 .andExpect(jsonPath("$.host").value(host))
                 .andExpect(jsonPath("$.created").exists())
                 .andExpect(jsonPath("$.expired").exists())
-                .andExpect(jsonPath("$.token").exists());
+                .andExpect(jsonPath("$.token").exists())
+                .andExpect(jsonPath("$.refreshToken").value(grant.refreshToken()))
+                .andExpect(jsonPath("$.refreshExpired").exists());
     }
 
     @Test
@@ -114,4 +123,53 @@ class SecurityControllerTest {
                         .assertThat(result.getResolvedException())
                         .isInstanceOf(ResponseStatusException.class));
     }
+
+    @Test
+    void tokenWhenHashingSaturatedThenGetTooManyRequests() throws Exception {
+        LoginDto dto = new LoginDto(uuid.toString(), password);
+        String json = mapper.writeValueAsString(dto);
+        when(service.generateToken(uuid, password)).thenThrow(TooManyRequestsException.class);
+        mockMvc.perform(request(POST, uri)
+                        .contentType(APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.status").value(429));
+    }
+
+    @Test
+    void refreshWhenCorrectTokenThenGetNewTokenDetails() throws Exception {
+        String json = mapper.writeValueAsString(new RefreshTokenDto("refreshToken"));
+        when(service.refreshToken("refreshToken")).thenReturn(grant);
+        mockMvc.perform(request(POST, new URI("/api/token/refresh"))
+                        .contentType(APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.host").value(host))
+                .andExpect(jsonPath("$.token").exists())
+                .andExpect(jsonPath("$.refreshToken").value(grant.refreshToken()));
+    }
+
+    @Test
+    void refreshWhenIncorrectTokenThenGetUnauthorized() throws Exception {
+        String json = mapper.writeValueAsString(new RefreshTokenDto("refreshToken"));
+        when(service.refreshToken("refreshToken")).thenThrow(AccessUnauthorizedException.class);
+        mockMvc.perform(request(POST, new URI("/api/token/refresh"))
+                        .contentType(APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isUnauthorized())
+                .andExpect(result -> AssertionsForClassTypes
+                        .assertThat(result.getResolvedException())
+                        .isInstanceOf(ResponseStatusException.class));
+    }
+
+    @Test
+    void revokeWhenAnyTokenThenGetNoContent() throws Exception {
+        String json = mapper.writeValueAsString(new RefreshTokenDto("refreshToken"));
+        mockMvc.perform(request(POST, new URI("/api/token/revoke"))
+                        .contentType(APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isNoContent());
+        verify(service).revokeRefreshToken("refreshToken");
+    }
 }
@@ -8,22 +8,39 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.server.ResponseStatusException;
 import ru.job4j.urlshortcut.configuration.SecurityConfiguration;
 import ru.job4j.urlshortcut.dto.PasswordDto;
 import ru.job4j.urlshortcut.dto.ServerRegistrationDto;
+import ru.job4j.urlshortcut.dto.UrlVisitsDto;
+import ru.job4j.urlshortcut.model.DataFormat;
+import ru.job4j.urlshortcut.model.Granularity;
+import ru.job4j.urlshortcut.model.HotUrl;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
 import ru.job4j.urlshortcut.model.Server;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
 import ru.job4j.urlshortcut.model.Status;
+import ru.job4j.urlshortcut.model.TopWindow;
+import ru.job4j.urlshortcut.model.UrlFilter;
+import ru.job4j.urlshortcut.model.UrlPage;
+import ru.job4j.urlshortcut.model.VisitBucket;
+import ru.job4j.urlshortcut.service.ExportService;
 import ru.job4j.urlshortcut.service.ServerService;
 import ru.job4j.urlshortcut.service.UrlService;
 import ru.job4j.urlshortcut.util.EntityNotFoundException;
+import ru.job4j.urlshortcut.util.TooManyRequestsException;
 import ru.job4j.urlshortcut.util.AccessUnauthorizedException;
+import ru.job4j.urlshortcut.util.PageCursor;
 
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
@@ -31,14 +48,19 @@ import java.util.UUID;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpMethod.DELETE;
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.PATCH;
 import static org.springframework.http.HttpMethod.POST;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ServerController.class)
@@ -52,6 +74,8 @@ class ServerControllerTest {
     private ServerService service;
     @MockBean
     private UrlService urlService;
+    @MockBean
+    private ExportService exportService;
 
     private final UUID uuid = UUID.randomUUID();
     private final String host = "example.com";
@@ -161,7 +185,7 @@ class ServerControllerTest {
     @WithMockUser(username = host, authorities = authority)
     void getServerByIdWhenCorrectIdAndCorrectPrincipalThenGetServerStatistics() throws Exception {
         when(service.getByIdAndHost(eq(uuid), any())).thenReturn(serverWithId);
-        when((urlService.getAllByServerId(uuid))).thenReturn(List.of());
+        when((urlService.getAllWithVisitsByServerId(uuid))).thenReturn(List.of());
         mockMvc.perform(request(GET, uriId)
                         .contentType(APPLICATION_JSON))
                 .andExpect(status().isOk())
@@ -172,6 +196,23 @@ class ServerControllerTest {
                 .andExpect(jsonPath("$.urls").isEmpty());
     }
 
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void getServerByIdWhenUrlsVisitedThenGetVisitsOfEachUrl() throws Exception {
+        UUID urlUuid = UUID.randomUUID();
+        ShortcutTarget url = ShortcutTarget.parse("https://" + host + "/path");
+        when(service.getByIdAndHost(eq(uuid), any())).thenReturn(serverWithId);
+        when((urlService.getAllWithVisitsByServerId(uuid))).thenReturn(List.of(
+                new UrlVisitsDto(urlUuid, "4c92Ab", uuid, url, time, time, status, null,
+                        RedirectPolicy.COUNTED, 42L)));
+        mockMvc.perform(request(GET, uriId)
+                        .contentType(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.urls[0].uuid").value(urlUuid.toString()))
+                .andExpect(jsonPath("$.urls[0].url").value(url.toString()))
+                .andExpect(jsonPath("$.urls[0].visited").value(42));
+    }
+
     @Test
     @WithMockUser(username = "subdomain." + host, authorities = authority)
     void getServerByIdWhenCorrectIdAndIncorrectPrincipalThenNotFound() throws Exception {
@@ -186,7 +227,7 @@ class ServerControllerTest {
     @WithMockUser(username = host, authorities = authority)
     void getServerByIdCheckThatServerStatisticsDoesNotContainPassword() throws Exception {
         when(service.getByIdAndHost(eq(uuid), any())).thenReturn(serverWithId);
-        when((urlService.getAllByServerId(uuid))).thenReturn(List.of());
+        when((urlService.getAllWithVisitsByServerId(uuid))).thenReturn(List.of());
         mockMvc.perform(request(GET, uriId)
                         .contentType(APPLICATION_JSON))
                 .andExpect(status().isOk())
@@ -294,4 +335,138 @@ class ServerControllerTest {
                 .andExpect(result -> assertThat(result.getResolvedException())
                         .isInstanceOf(ResponseStatusException.class));
     }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void getServerVisitSeriesWhenCorrectRangeThenGetBuckets() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2026, 10, 17, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        when(service.getByIdAndHost(eq(uuid), any())).thenReturn(serverWithId);
+        when(urlService.getServerVisitSeries(uuid, Granularity.DAY, from, to))
+                .thenReturn(List.of(new VisitBucket(from, 7L)));
+        mockMvc.perform(request(GET,
+                        uriId + "/stats?granularity=DAY&from=" + from + "&to=" + to))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.uuid").value(uuid.toString()))
+                .andExpect(jsonPath("$.granularity").value("DAY"))
+                .andExpect(jsonPath("$.buckets[0].visits").value(7));
+    }
+
+    @Test
+    @WithMockUser(username = "subdomain." + host, authorities = authority)
+    void getServerVisitSeriesWhenIncorrectPrincipalThenNotFound() throws Exception {
+        when(service.getByIdAndHost(eq(uuid), any())).thenThrow(EntityNotFoundException.class);
+        mockMvc.perform(request(GET, uriId + "/stats?from=" + time + "&to=" + time))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void getServerTopUrlsWhenCorrectWindowThenGetRanking() throws Exception {
+        UUID urlUuid = UUID.randomUUID();
+        when(service.getByIdAndHost(eq(uuid), any())).thenReturn(serverWithId);
+        when(urlService.getServerTopUrls(uuid, TopWindow.FIVE_MINUTES, 5))
+                .thenReturn(List.of(new HotUrl(urlUuid, 42L, 1L)));
+        mockMvc.perform(request(GET, uriId + "/top?window=FIVE_MINUTES&limit=5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.uuid").value(uuid.toString()))
+                .andExpect(jsonPath("$.window").value("FIVE_MINUTES"))
+                .andExpect(jsonPath("$.urls[0].uuid").value(urlUuid.toString()))
+                .andExpect(jsonPath("$.urls[0].visits").value(42))
+                .andExpect(jsonPath("$.urls[0].error").value(1));
+    }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void getServerTopUrlsWhenLimitOutOfRangeThenBadRequest() throws Exception {
+        when(service.getByIdAndHost(eq(uuid), any())).thenReturn(serverWithId);
+        when(urlService.getServerTopUrls(uuid, TopWindow.HOUR, 1_000))
+                .thenThrow(IllegalArgumentException.class);
+        mockMvc.perform(request(GET, uriId + "/top?limit=1000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "subdomain." + host, authorities = authority)
+    void getServerTopUrlsWhenIncorrectPrincipalThenNotFound() throws Exception {
+        when(service.getByIdAndHost(eq(uuid), any())).thenThrow(EntityNotFoundException.class);
+        mockMvc.perform(request(GET, uriId + "/top"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void getServerUrlsWhenCursorThenGetNextPage() throws Exception {
+        PageCursor after = new PageCursor(time, UUID.randomUUID());
+        PageCursor next = new PageCursor(time.plusSeconds(1), UUID.randomUUID());
+        UrlFilter filter = new UrlFilter(Status.REGISTERED, true);
+        when(service.getByIdAndHost(eq(uuid), any())).thenReturn(serverWithId);
+        when(urlService.getPageByServerId(uuid, filter, after, 20))
+                .thenReturn(new UrlPage(List.of(), next));
+        mockMvc.perform(request(GET, uriId + "/urls?cursor=" + after.encode()
+                        + "&limit=20&status=REGISTERED&active=true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.urls").isEmpty())
+                .andExpect(jsonPath("$.next").value(next.encode()));
+    }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void getServerUrlsWhenLastPageThenNoNextCursor() throws Exception {
+        when(service.getByIdAndHost(eq(uuid), any())).thenReturn(serverWithId);
+        when(urlService.getPageByServerId(uuid, UrlFilter.ANY, null, 100))
+                .thenReturn(new UrlPage(List.of(), null));
+        mockMvc.perform(request(GET, uriId + "/urls"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void getServerUrlsWhenMalformedCursorThenBadRequest() throws Exception {
+        when(service.getByIdAndHost(eq(uuid), any())).thenReturn(serverWithId);
+        mockMvc.perform(request(GET, uriId + "/urls?cursor=malformed"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void exportServerUrlsWhenCsvThenGetStreamedAttachment() throws Exception {
+        when(service.getByIdAndHost(eq(uuid), any())).thenReturn(serverWithId);
+        when(exportService.exportServerUrls(eq(uuid), eq(DataFormat.CSV), any()))
+                .thenAnswer(invocation -> {
+                    OutputStream output = invocation.getArgument(2);
+                    output.write("uuid\n".getBytes(StandardCharsets.UTF_8));
+                    return 0L;
+                });
+        MvcResult result = mockMvc.perform(request(GET, uriId + "/export?format=CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(3_600_000L);
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"urls-" + uuid + ".csv\""))
+                .andExpect(content().string("uuid\n"));
+    }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void exportServerUrlsWhenTooManyExportsThenTooManyRequests() throws Exception {
+        when(service.getByIdAndHost(eq(uuid), any())).thenReturn(serverWithId);
+        when(exportService.acquire()).thenThrow(new TooManyRequestsException("Too many"));
+        mockMvc.perform(request(GET, uriId + "/export"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(request().asyncNotStarted());
+    }
+
+    @Test
+    @WithMockUser(username = "subdomain." + host, authorities = authority)
+    void exportServerUrlsWhenIncorrectPrincipalThenNotFound() throws Exception {
+        when(service.getByIdAndHost(eq(uuid), any())).thenThrow(EntityNotFoundException.class);
+        mockMvc.perform(request(GET, uriId + "/export"))
+                .andExpect(status().isNotFound());
+        verifyNoInteractions(exportService);
+    }
 }
@@ -10,67 +10,95 @@ import org.springframework.context.annotation.Import;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.server.ResponseStatusException;
 import ru.job4j.urlshortcut.configuration.SecurityConfiguration;
 import ru.job4j.urlshortcut.dto.UrlRegistrationDto;
+import ru.job4j.urlshortcut.model.DataFormat;
+import ru.job4j.urlshortcut.model.Granularity;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
 import ru.job4j.urlshortcut.model.Status;
 import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.model.UrlImportProgress;
+import ru.job4j.urlshortcut.model.UrlRegistrationResult;
+import ru.job4j.urlshortcut.model.VisitBucket;
+import ru.job4j.urlshortcut.service.ExportService;
+import ru.job4j.urlshortcut.service.UrlImportService;
+import ru.job4j.urlshortcut.service.UrlRegistrationValidator;
 import ru.job4j.urlshortcut.service.UrlService;
 import ru.job4j.urlshortcut.util.AccessForbiddenException;
 import ru.job4j.urlshortcut.util.EntityNotFoundException;
 
-import java.net.MalformedURLException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpMethod.DELETE;
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.POST;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(UrlController.class)
 @AutoConfigureMockMvc(webClientEnabled = false, webDriverEnabled = false)
-@Import(SecurityConfiguration.class)
+@Import({SecurityConfiguration.class, UrlRegistrationValidator.class})
 class UrlControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
     @MockBean
     private UrlService service;
+    @MockBean
+    private UrlImportService importService;
+    @MockBean
+    private ExportService exportService;
 
     private final UUID uuid = UUID.randomUUID();
     private final UUID serverUuid = UUID.randomUUID();
     private final String host = "example.com";
-    private final URL path = new URL("https://" + host + "/path");
+    private final ShortcutTarget path = ShortcutTarget.parse("https://" + host + "/path");
     private final LocalDateTime time = LocalDateTime.now();
     private final Status status = Status.REGISTERED;
+    private final RedirectPolicy policy = RedirectPolicy.COUNTED;
     private final String desc = "Some description";
     private final String authority = "SCOPE_USER";
 
     private final URI uriReg = new URI("/api/urls/register");
+    private final URI uriBatch = new URI("/api/urls/register/batch");
+    private final URI uriImport = new URI("/api/urls/import");
     private final URI uriId = new URI("/api/urls/" + uuid);
     private final URI uriWrongUuid = new URI("/api/urls/" + uuid.toString().substring(0, 22));
-    private final Url url = new Url(null, null, path, time, time, status, desc);
-    private final Url urlWithId = new Url(uuid, serverUuid, path, time, time, status, desc);
+    private final Url url = new Url(null, null, null, path, time, time, status, desc, policy);
+    private final Url urlWithId =
+            new Url(uuid, null, serverUuid, path, time, time, status, desc, policy);
 
     private final JsonMapper mapper = JsonMapper.builder().build();
 
-    UrlControllerTest() throws MalformedURLException, URISyntaxException { }
+    UrlControllerTest() throws URISyntaxException { }
 
     @Test
     @WithMockUser(username = host, authorities = authority)
     void urlRegisterWhenCorrectRegistrationThenGetPersisted() throws Exception {
-        UrlRegistrationDto dto = new UrlRegistrationDto(path.toString(), 3600, desc);
+        UrlRegistrationDto dto = new UrlRegistrationDto(path.toString(), 3600, desc, null);
         String json = mapper.writeValueAsString(dto);
         when(service.create(eq(url), any())).thenReturn(urlWithId);
         mockMvc.perform(request(POST, uriReg)
@@ -89,7 +117,7 @@ class UrlControllerTest {
     @Test
     @WithMockUser(username = host, authorities = authority)
     void urlRegisterWhenNullUrlRequestThenGetBadRequest() throws Exception {
-        UrlRegistrationDto dto = new UrlRegistrationDto(null, 3600, desc);
+        UrlRegistrationDto dto = new UrlRegistrationDto(null, 3600, desc, null);
         String json = mapper.writeValueAsString(dto);
         when(service.create(eq(url), any())).thenReturn(urlWithId);
         mockMvc.perform(request(POST, uriReg)
@@ -103,7 +131,7 @@ class UrlControllerTest {
     @Test
     @WithMockUser(username = host, authorities = authority)
     void urlRegisterWhenBadUrlRequestThenGetBadRequest() throws Exception {
-        UrlRegistrationDto dto = new UrlRegistrationDto("[]", 3600, desc);
+        UrlRegistrationDto dto = new UrlRegistrationDto("[]", 3600, desc, null);
         String json = mapper.writeValueAsString(dto);
         when(service.create(eq(url), any())).thenReturn(urlWithId);
         mockMvc.perform(request(POST, uriReg)
@@ -117,9 +145,9 @@ class UrlControllerTest {
     @Test
     @WithMockUser(username = host, authorities = authority)
     void urlRegisterWhenZeroExpirationRequestThenGetPersisted() throws Exception {
-        UrlRegistrationDto dto = new UrlRegistrationDto(path.toString(), 0, desc);
+        UrlRegistrationDto dto = new UrlRegistrationDto(path.toString(), 0, desc, null);
         String json = mapper.writeValueAsString(dto);
-        Url persisted = new Url(uuid, serverUuid, path, time, null, status, desc);
+        Url persisted = new Url(uuid, null, serverUuid, path, time, null, status, desc, policy);
         when(service.create(eq(url), any())).thenReturn(persisted);
         mockMvc.perform(request(POST, uriReg)
                         .contentType(APPLICATION_JSON)
@@ -132,9 +160,9 @@ class UrlControllerTest {
     @Test
     @WithMockUser(username = host, authorities = authority)
     void urlRegisterWhenEmptyDescriptionRequestThenGetPersisted() throws Exception {
-        UrlRegistrationDto dto = new UrlRegistrationDto(path.toString(), 3600, null);
+        UrlRegistrationDto dto = new UrlRegistrationDto(path.toString(), 3600, null, null);
         String json = mapper.writeValueAsString(dto);
-        Url persisted = new Url(uuid, serverUuid, path, time, time, status, null);
+        Url persisted = new Url(uuid, null, serverUuid, path, time, time, status, null, policy);
         when(service.create(eq(url), any())).thenReturn(persisted);
         mockMvc.perform(request(POST, uriReg)
                         .contentType(APPLICATION_JSON)
@@ -147,7 +175,7 @@ class UrlControllerTest {
     @Test
     @WithMockUser(username = host, authorities = authority)
     void urlRegisterWhenAlreadyRegisteredThenGetConflict() throws Exception {
-        UrlRegistrationDto dto = new UrlRegistrationDto(path.toString(), 3600, null);
+        UrlRegistrationDto dto = new UrlRegistrationDto(path.toString(), 3600, null, null);
         String json = mapper.writeValueAsString(dto);
         when(service.create(eq(url), any())).thenThrow(DataIntegrityViolationException.class);
         mockMvc.perform(request(POST, uriReg)
@@ -161,7 +189,7 @@ class UrlControllerTest {
     @Test
     @WithMockUser(username = "subdomain." + host, authorities = authority)
     void urlRegisterWhenIncorrectPrincipalThenGetException() throws Exception {
-        UrlRegistrationDto dto = new UrlRegistrationDto(path.toString(), 3600, desc);
+        UrlRegistrationDto dto = new UrlRegistrationDto(path.toString(), 3600, desc, null);
         String json = mapper.writeValueAsString(dto);
         when(service.create(eq(url), any())).thenThrow(AccessForbiddenException.class);
         mockMvc.perform(request(POST, uriReg)
@@ -172,12 +200,134 @@ class UrlControllerTest {
                         .isInstanceOf(ResponseStatusException.class));
     }
 
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void urlRegisterBatchWhenMixedThenGetResultPerItem() throws Exception {
+        List<UrlRegistrationDto> dtos = List.of(
+                new UrlRegistrationDto(path.toString(), 3600, desc, null),
+                new UrlRegistrationDto("[]", 3600, desc, null),
+                new UrlRegistrationDto(path + "/other", -1, desc, null),
+                new UrlRegistrationDto(path + "/next", 3600, desc, null));
+        when(service.createAll(any(), any())).thenReturn(List.of(
+                UrlRegistrationResult.created(urlWithId),
+                UrlRegistrationResult.conflict("URL already registered")));
+        mockMvc.perform(request(POST, uriBatch)
+                        .contentType(APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(dtos)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4))
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].outcome").value("CREATED"))
+                .andExpect(jsonPath("$[0].url.uuid").value(uuid.toString()))
+                .andExpect(jsonPath("$[1].outcome").value("INVALID"))
+                .andExpect(jsonPath("$[1].message").value("URL is incorrect"))
+                .andExpect(jsonPath("$[2].outcome").value("INVALID"))
+                .andExpect(jsonPath("$[2].message").exists())
+                .andExpect(jsonPath("$[3].index").value(3))
+                .andExpect(jsonPath("$[3].outcome").value("CONFLICT"));
+        verify(service).createAll(argThat(urls -> urls.size() == 2), any());
+    }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void urlRegisterBatchWhenAllInvalidThenServiceNotCalled() throws Exception {
+        List<UrlRegistrationDto> dtos = List.of(new UrlRegistrationDto(null, 3600, desc, null));
+        mockMvc.perform(request(POST, uriBatch)
+                        .contentType(APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(dtos)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].outcome").value("INVALID"));
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void urlRegisterBatchWhenEmptyOrTooLargeThenGetBadRequest() throws Exception {
+        mockMvc.perform(request(POST, uriBatch)
+                        .contentType(APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+        List<UrlRegistrationDto> dtos = Collections.nCopies(1_001,
+                new UrlRegistrationDto(path.toString(), 3600, desc, null));
+        mockMvc.perform(request(POST, uriBatch)
+                        .contentType(APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(dtos)))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void importUrlsWhenCsvThenGetEventStream() throws Exception {
+        when(importService.importUrls(any(), eq(DataFormat.CSV), any(), any()))
+                .thenAnswer(invocation -> {
+                    UrlImportService.Listener listener = invocation.getArgument(3);
+                    listener.rejected(3, UrlRegistrationResult.invalid("URL is incorrect"));
+                    UrlImportProgress progress = new UrlImportProgress(2, 1, 0, 1, true);
+                    listener.progress(progress);
+                    return progress;
+                });
+        mockMvc.perform(request(POST, uriImport)
+                        .contentType("text/csv")
+                        .content("url\n" + path + "\n[]\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string("""
+                        {"line":3,"outcome":"INVALID","message":"URL is incorrect"}
+                        {"rows":2,"created":1,"conflicts":0,"invalid":1,"done":true}
+                        """));
+    }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void importUrlsWhenIncorrectHeaderThenGetBadRequest() throws Exception {
+        when(importService.importUrls(any(), eq(DataFormat.NDJSON), any(), any()))
+                .thenThrow(new IllegalArgumentException("Incorrect header"));
+        mockMvc.perform(request(POST, uriImport)
+                        .contentType("application/x-ndjson")
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(request(POST, uriImport)
+                        .contentType(APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void lookupUrlWhenRegisteredThenGetId() throws Exception {
+        when(service.findIdByUrl(path)).thenReturn(Optional.of(uuid));
+        mockMvc.perform(request(GET, "/api/urls/lookup").param("url", path.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.url").value(path.toString()))
+                .andExpect(jsonPath("$.uuid").value(uuid.toString()));
+    }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void lookupUrlWhenNotRegisteredThenNotFound() throws Exception {
+        when(service.findIdByUrl(path)).thenReturn(Optional.empty());
+        mockMvc.perform(request(GET, "/api/urls/lookup").param("url", path.toString()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void lookupUrlWhenIncorrectUrlOrPrincipalThenRejected() throws Exception {
+        mockMvc.perform(request(GET, "/api/urls/lookup").param("url", "[]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(request(GET, "/api/urls/lookup").param("url", "https://other.com/path"))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(service);
+    }
+
     @Test
     @WithMockUser(username = host, authorities = authority)
     void getUrlByUuidWhenCorrectIdAndCorrectPrincipalThenGetUrlStatistics() throws Exception {
         long count = 5L;
         when(service.getById(uuid)).thenReturn(urlWithId);
         when(service.getUrlVisitsCount(uuid)).thenReturn(count);
+        when(service.getUrlUniqueVisitors(uuid)).thenReturn(3L);
         mockMvc.perform(request(GET, uriId))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.url.uuid").value(uuid.toString()))
@@ -187,7 +337,8 @@ class UrlControllerTest {
                 .andExpect(jsonPath("$.url.expired").exists())
                 .andExpect(jsonPath("$.url.status").value(status.toString()))
                 .andExpect(jsonPath("$.url.description").value(desc))
-                .andExpect(jsonPath("$.visited").value(count));
+                .andExpect(jsonPath("$.visited").value(count))
+                .andExpect(jsonPath("$.uniqueVisitors").value(3));
     }
 
     @Test
@@ -238,4 +389,71 @@ class UrlControllerTest {
                 .andExpect(result -> assertThat(result.getResolvedException())
                         .isInstanceOf(ResponseStatusException.class));
     }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void exportUrlVisitsWhenCorrectIdThenGetStreamedNdjson() throws Exception {
+        when(service.getById(uuid)).thenReturn(urlWithId);
+        when(exportService.exportUrlVisits(eq(uuid), eq(DataFormat.NDJSON), any()))
+                .thenAnswer(invocation -> {
+                    OutputStream output = invocation.getArgument(2);
+                    output.write("{}\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+        MvcResult result = mockMvc.perform(request(GET, uriId + "/visits/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string("{}\n"));
+    }
+
+    @Test
+    @WithMockUser(username = "subdomain." + host, authorities = authority)
+    void exportUrlVisitsWhenIncorrectPrincipalThenForbidden() throws Exception {
+        when(service.getById(uuid)).thenReturn(urlWithId);
+        mockMvc.perform(request(GET, uriId + "/visits/export"))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(exportService);
+    }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void getUrlVisitSeriesWhenCorrectRangeThenGetBuckets() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2026, 10, 17, 10, 30);
+        LocalDateTime to = LocalDateTime.of(2026, 10, 17, 12, 0);
+        LocalDateTime hour = LocalDateTime.of(2026, 10, 17, 10, 0);
+        when(service.getById(uuid)).thenReturn(urlWithId);
+        when(service.getUrlVisitSeries(uuid, Granularity.HOUR, from, to)).thenReturn(List.of(
+                new VisitBucket(hour, 3L), new VisitBucket(hour.plusHours(1), 0L)));
+        mockMvc.perform(request(GET, uriId + "/stats?from=" + from + "&to=" + to))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.uuid").value(uuid.toString()))
+                .andExpect(jsonPath("$.granularity").value("HOUR"))
+                .andExpect(jsonPath("$.from").value("2026-10-17T10:00:00"))
+                .andExpect(jsonPath("$.buckets.length()").value(2))
+                .andExpect(jsonPath("$.buckets[0].bucket").value("2026-10-17T10:00:00"))
+                .andExpect(jsonPath("$.buckets[0].visits").value(3));
+    }
+
+    @Test
+    @WithMockUser(username = host, authorities = authority)
+    void getUrlVisitSeriesWhenIncorrectRangeThenBadRequest() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2026, 10, 17, 0, 0);
+        when(service.getById(uuid)).thenReturn(urlWithId);
+        when(service.getUrlVisitSeries(uuid, Granularity.DAY, from, from))
+                .thenThrow(IllegalArgumentException.class);
+        mockMvc.perform(request(GET,
+                        uriId + "/stats?granularity=DAY&from=" + from + "&to=" + from))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "subdomain." + host, authorities = authority)
+    void getUrlVisitSeriesWhenIncorrectPrincipalThenForbidden() throws Exception {
+        when(service.getById(uuid)).thenReturn(urlWithId);
+        mockMvc.perform(request(GET, uriId + "/stats?from=" + time + "&to=" + time))
+                .andExpect(status().isForbidden());
+    }
 }
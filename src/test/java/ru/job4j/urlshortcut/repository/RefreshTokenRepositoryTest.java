@@ -0,0 +1,107 @@
+package ru.job4j.urlshortcut.repository;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.job4j.urlshortcut.configuration.SecurityConfiguration;
+import ru.job4j.urlshortcut.model.RefreshToken;
+import ru.job4j.urlshortcut.model.Server;
+import ru.job4j.urlshortcut.model.Status;
+import ru.job4j.urlshortcut.util.OpaqueToken;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(SecurityConfiguration.class)
+class RefreshTokenRepositoryTest {
+
+    @Autowired
+    private RefreshTokenRepository repository;
+    @Autowired
+    private ServerRepository serverRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final LocalDateTime time = LocalDateTime.now();
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    private final Server server = new Server(
+            null, "example.com", "password", time, time, Status.REGISTERED, null);
+
+    @BeforeEach
+    void beforeEach() {
+        server.setUuid(null);
+        serverRepository.save(server);
+    }
+
+    private RefreshToken save(String value, Instant expired) {
+        return repository.save(new RefreshToken(
+                null, OpaqueToken.digest(value), server, now, expired));
+    }
+
+    @Test
+    void whenFindByDigestExistingTokenThenServerFetched() {
+        String value = OpaqueToken.generate();
+        save(value, now.plusSeconds(60));
+        entityManager.flush();
+        entityManager.clear();
+        RefreshToken token = repository.findByDigest(OpaqueToken.digest(value)).orElseThrow();
+        assertThat(Hibernate.isInitialized(token.getServer())).isTrue();
+        assertThat(token.getServer().getHost()).isEqualTo(server.getHost());
+    }
+
+    @Test
+    void whenFindByDigestNotExistingTokenThenEmptyOptional() {
+        save(OpaqueToken.generate(), now.plusSeconds(60));
+        assertThat(repository.findByDigest(OpaqueToken.digest(OpaqueToken.generate()))).isEmpty();
+    }
+
+    @Test
+    void whenDeleteByUuidTwiceThenSecondDeletesNothing() {
+        RefreshToken token = save(OpaqueToken.generate(), now.plusSeconds(60));
+        assertThat(repository.deleteByUuid(token.getUuid())).isOne();
+        assertThat(repository.deleteByUuid(token.getUuid())).isZero();
+    }
+
+    @Test
+    void whenDeleteByDigestThenTokenDeleted() {
+        String value = OpaqueToken.generate();
+        save(value, now.plusSeconds(60));
+        assertThat(repository.deleteByDigest(OpaqueToken.digest(value))).isOne();
+        assertThat(repository.findByDigest(OpaqueToken.digest(value))).isEmpty();
+    }
+
+    @Test
+    void whenDeleteExpiredByServerUuidThenOnlyExpiredDeleted() {
+        String actual = OpaqueToken.generate();
+        save(OpaqueToken.generate(), now.minusSeconds(60));
+        save(actual, now.plusSeconds(60));
+        assertThat(repository.deleteExpiredByServerUuid(server.getUuid(), now)).isOne();
+        assertThat(repository.findByDigest(OpaqueToken.digest(actual))).isNotEmpty();
+    }
+
+    @Test
+    void whenDeleteByServerUuidThenAllServerTokensDeleted() {
+        save(OpaqueToken.generate(), now.minusSeconds(60));
+        save(OpaqueToken.generate(), now.plusSeconds(60));
+        assertThat(repository.deleteByServerUuid(server.getUuid())).isEqualTo(2);
+        assertThat(repository.count()).isZero();
+    }
+
+    @Test
+    void whenServerDeletedThenTokensDeleted() {
+        save(OpaqueToken.generate(), now.plusSeconds(60));
+        entityManager.flush();
+        entityManager.clear();
+        assertThat(serverRepository.deleteByUuid(server.getUuid())).isOne();
+        entityManager.flush();
+        assertThat(repository.count()).isZero();
+    }
+}
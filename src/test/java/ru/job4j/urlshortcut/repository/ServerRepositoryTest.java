@@ -86,4 +86,15 @@ class ServerRepositoryTest {
         String newPassword = encoder.encode(password);
         assertThat(repository.updatePasswordByUuid(uuid, newPassword)).isZero();
     }
+
+    @Test
+    void whenReplacePasswordByUuidChangedMeanwhileThenZeroUpdated() {
+        repository.save(server);
+        String expected = server.getPassword();
+        String newPassword = encoder.encode(password);
+        assertThat(repository.replacePasswordByUuid(server.getUuid(), newPassword, expected))
+                .isZero();
+        assertThat(repository.replacePasswordByUuid(server.getUuid(), expected, newPassword))
+                .isOne();
+    }
 }
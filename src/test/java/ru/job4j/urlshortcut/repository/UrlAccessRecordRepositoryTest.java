@@ -0,0 +1,75 @@
+package ru.job4j.urlshortcut.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+import ru.job4j.urlshortcut.model.Server;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+import ru.job4j.urlshortcut.model.Status;
+import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.model.UrlAccessRecord;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class UrlAccessRecordRepositoryTest {
+
+    private final String host = "example.com";
+    private final String password = "password";
+    private final Status status = Status.REGISTERED;
+    private final RedirectPolicy policy = RedirectPolicy.COUNTED;
+    private final LocalDateTime time = LocalDateTime.now();
+    private Url url;
+
+    @Autowired
+    private ServerRepository serverRepository;
+    @Autowired
+    private UrlRepository urlRepository;
+    @Autowired
+    private UrlAccessRecordRepository recordRepository;
+
+    @BeforeEach
+    void beforeEach() {
+        Server server = serverRepository.save(new Server(null, host, password,
+                time, time, status, null));
+        url = urlRepository.save(new Url(null, null, server.getUuid(),
+                ShortcutTarget.parse("https://" + host + "/path"),
+                time, time, status, null, policy));
+    }
+
+    @Test
+    void whenNoAccessThenCountIsZero() {
+        assertThat(recordRepository.countByUrlUuid(url.getUuid())).isZero();
+    }
+
+    @Test
+    void whenLogAccessThenCounted() {
+        assertThat(recordRepository.logAccess(url.getUuid())).isOne();
+        assertThat(recordRepository.logAccess(url.getUuid())).isOne();
+        assertThat(recordRepository.countByUrlUuid(url.getUuid())).isEqualTo(2);
+    }
+
+    @Test
+    void whenSaveAllThenIdsAssignedFromSequenceAndCounted() {
+        List<UrlAccessRecord> saved = recordRepository.saveAll(List.of(
+                new UrlAccessRecord(null, url.getUuid(), time),
+                new UrlAccessRecord(null, url.getUuid(), time)));
+        recordRepository.logAccess(url.getUuid());
+        assertThat(saved).extracting(UrlAccessRecord::getId).doesNotContainNull();
+        assertThat(recordRepository.countByUrlUuid(url.getUuid())).isEqualTo(3);
+        assertThat(recordRepository.countByUrlUuid(UUID.randomUUID())).isZero();
+    }
+
+    @Test
+    void whenCurrentTimestampThenGetStorageTime() {
+        LocalDateTime before = LocalDateTime.now().minusMinutes(1);
+        assertThat(recordRepository.currentTimestamp())
+                .isAfter(before).isBefore(before.plusMinutes(2));
+    }
+}
@@ -1,28 +1,42 @@
 package ru.job4j.urlshortcut.repository;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.job4j.urlshortcut.dto.UrlVisitsDto;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
 import ru.job4j.urlshortcut.model.Server;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
 import ru.job4j.urlshortcut.model.Status;
 import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.model.UrlFilter;
+import ru.job4j.urlshortcut.model.UrlVisitCounter;
+import ru.job4j.urlshortcut.util.PageCursor;
+import ru.job4j.urlshortcut.util.UrlDigest;
 
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class UrlRepositoryTest {
 
     private final String host = "example.com";
     private final String password = "password";
     private final Status status = Status.REGISTERED;
+    private final RedirectPolicy policy = RedirectPolicy.COUNTED;
     private final LocalDateTime time = LocalDateTime.now();
     private Server server;
 
@@ -30,6 +44,10 @@ class UrlRepositoryTest {
     private ServerRepository serverRepository;
     @Autowired
     private UrlRepository urlRepository;
+    @Autowired
+    private UrlVisitCounterRepository counterRepository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     @BeforeEach
     void beforeEach() {
@@ -38,9 +56,9 @@ class UrlRepositoryTest {
     }
 
     @Test
-    void whenFindByIdAndLogExistingThenGetPersistet() throws MalformedURLException {
-        URL path = new URL("https://" + server.getHost() + "/path1");
-        Url url = new Url(null, server.getUuid(), path, time, time, status, null);
+    void whenFindByIdAndLogExistingThenGetPersistet() {
+        ShortcutTarget path = ShortcutTarget.parse("https://" + server.getHost() + "/path1");
+        Url url = new Url(null, null, server.getUuid(), path, time, time, status, null, policy);
         urlRepository.save(url);
         Optional<Url> actual = urlRepository.findByIdAndLog(url.getUuid());
         assertThat(actual).isNotEmpty();
@@ -52,21 +70,32 @@ class UrlRepositoryTest {
         assertThat(urlRepository.findByIdAndLog(UUID.randomUUID())).isEmpty();
     }
 
+    @Test
+    void whenFindByCodeExistingThenGetPersisted() {
+        ShortcutTarget path = ShortcutTarget.parse("https://" + server.getHost() + "/path1");
+        Url url = new Url(null, "4c92Ab", server.getUuid(), path, time, time, status, null, policy);
+        urlRepository.save(url);
+        Optional<Url> actual = urlRepository.findByCode("4c92Ab");
+        assertThat(actual).isNotEmpty();
+        assertThat(actual.get().getUuid()).isEqualTo(url.getUuid());
+        assertThat(urlRepository.findByCode("4c92AB")).isEmpty();
+    }
+
     @Test
     void findAllByServerUuidWhenNotPersistedThenEmptyList() {
         assertThat(urlRepository.findAllByServerUuid(server.getUuid())).isEmpty();
     }
 
     @Test
-    void findAllByServerUuidWhenPersistedThenFindAll() throws MalformedURLException {
+    void findAllByServerUuidWhenPersistedThenFindAll() {
         Url url1 = new Url(
-                null, server.getUuid(),
-                new URL("https://" + server.getHost() + "/path1"),
-                time, time, status, null);
+                null, null, server.getUuid(),
+                ShortcutTarget.parse("https://" + server.getHost() + "/path1"),
+                time, time, status, null, policy);
         Url url2 = new Url(
-                null, server.getUuid(),
-                new URL("https://" + server.getHost() + "/path2"),
-                time, time, status, null);
+                null, null, server.getUuid(),
+                ShortcutTarget.parse("https://" + server.getHost() + "/path2"),
+                time, time, status, null, policy);
         urlRepository.save(url1);
         urlRepository.save(url2);
         List<Url> actual = urlRepository.findAllByServerUuid(server.getUuid());
@@ -74,21 +103,21 @@ class UrlRepositoryTest {
     }
 
     @Test
-    void findAllByServerUuidWhenPersistedManyThenFindAllRelated() throws MalformedURLException {
+    void findAllByServerUuidWhenPersistedManyThenFindAllRelated() {
         Server server1 = serverRepository.save(new Server(null, "subdomain." + host,
                 password, time, time, status, null));
         Url url1 = new Url(
-                null, server.getUuid(),
-                new URL("https://" + server.getHost() + "/path1"),
-                time, time, status, null);
+                null, null, server.getUuid(),
+                ShortcutTarget.parse("https://" + server.getHost() + "/path1"),
+                time, time, status, null, policy);
         Url url2 = new Url(
-                null, server.getUuid(),
-                new URL("https://" + server.getHost() + "/path2"),
-                time, time, status, null);
+                null, null, server.getUuid(),
+                ShortcutTarget.parse("https://" + server.getHost() + "/path2"),
+                time, time, status, null, policy);
         Url url3 = new Url(
-                null, server1.getUuid(),
-                new URL("https://" + server1.getHost() + "/path3"),
-                time, time, status, null);
+                null, null, server1.getUuid(),
+                ShortcutTarget.parse("https://" + server1.getHost() + "/path3"),
+                time, time, status, null, policy);
         urlRepository.save(url1);
         urlRepository.save(url2);
         urlRepository.save(url3);
@@ -99,11 +128,11 @@ class UrlRepositoryTest {
     }
 
     @Test
-    void whenDeleteByUuidExistingEntityThenSuccess() throws MalformedURLException {
+    void whenDeleteByUuidExistingEntityThenSuccess() {
         Url url = new Url(
-                null, server.getUuid(),
-                new URL("https://" + server.getHost() + "/path1"),
-                time, time, status, null);
+                null, null, server.getUuid(),
+                ShortcutTarget.parse("https://" + server.getHost() + "/path1"),
+                time, time, status, null, policy);
         urlRepository.save(url);
         assertThat(urlRepository.deleteByUuid(url.getUuid())).isOne();
     }
@@ -112,4 +141,134 @@ class UrlRepositoryTest {
     void whenDeleteByUuidNotExistingEntityThenZeroDeleted() {
         assertThat(urlRepository.deleteByUuid(UUID.randomUUID())).isZero();
     }
+
+    @Test
+    void findPageByServerUuidWhenPagedThenAllFoundOnceInOrder() {
+        for (int i = 0; i < 7; i++) {
+            urlRepository.save(new Url(null, null, server.getUuid(),
+                    ShortcutTarget.parse("https://" + server.getHost() + "/path" + i),
+                    time, time, status, null, policy));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        List<UUID> expected = urlRepository.findAllByServerUuid(server.getUuid()).stream()
+                .sorted(Comparator.comparing(Url::getCreated).thenComparing(Url::getUuid))
+                .map(Url::getUuid).toList();
+        List<UUID> actual = new ArrayList<>();
+        PageCursor after = null;
+        for (int page = 0; page < 4; page++) {
+            List<Url> urls = urlRepository.findPageByServerUuid(
+                    server.getUuid(), UrlFilter.ANY, after, time, 2);
+            urls.forEach(url -> actual.add(url.getUuid()));
+            Url last = urls.get(urls.size() - 1);
+            after = new PageCursor(last.getCreated(), last.getUuid());
+        }
+        assertThat(actual).isEqualTo(expected);
+        assertThat(urlRepository.findPageByServerUuid(
+                server.getUuid(), UrlFilter.ANY, after, time, 2)).isEmpty();
+    }
+
+    @Test
+    void findPageByServerUuidWhenFilteredThenOnlyMatchingFound() {
+        Url active = urlRepository.save(new Url(null, null, server.getUuid(),
+                ShortcutTarget.parse("https://" + server.getHost() + "/active"),
+                time, time.plusDays(1), status, null, policy));
+        Url expired = urlRepository.save(new Url(null, null, server.getUuid(),
+                ShortcutTarget.parse("https://" + server.getHost() + "/expired"),
+                time, time.minusDays(1), status, null, policy));
+        Url blocked = urlRepository.save(new Url(null, null, server.getUuid(),
+                ShortcutTarget.parse("https://" + server.getHost() + "/blocked"),
+                time, time.plusDays(1), Status.BLOCKED, null, policy));
+        assertThat(urlRepository.findPageByServerUuid(server.getUuid(),
+                new UrlFilter(null, true), null, time, 10)).containsExactly(active, blocked);
+        assertThat(urlRepository.findPageByServerUuid(server.getUuid(),
+                new UrlFilter(null, false), null, time, 10)).containsExactly(expired);
+        assertThat(urlRepository.findPageByServerUuid(server.getUuid(),
+                new UrlFilter(Status.BLOCKED, true), null, time, 10)).containsExactly(blocked);
+        assertThat(urlRepository.findPageByServerUuid(server.getUuid(),
+                new UrlFilter(Status.VERIFIED, null), null, time, 10)).isEmpty();
+    }
+
+    @Test
+    void findAllWithVisitsByServerUuidThenVisitsOfAllUrlsReadByOneStatement() {
+        List<Url> urls = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            urls.add(urlRepository.save(new Url(null, null, server.getUuid(),
+                    ShortcutTarget.parse("https://" + server.getHost() + "/path" + i),
+                    time, time, status, "Description " + i, policy)));
+        }
+        counterRepository.save(new UrlVisitCounter(urls.get(0).getUuid(), 5L));
+        counterRepository.save(new UrlVisitCounter(urls.get(2).getUuid(), 7L));
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<UrlVisitsDto> actual = urlRepository.findAllWithVisitsByServerUuid(server.getUuid());
+        assertThat(statistics.getPrepareStatementCount()).isOne();
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(actual).extracting(UrlVisitsDto::uuid, UrlVisitsDto::visited)
+                .containsExactlyInAnyOrder(tuple(urls.get(0).getUuid(), 5L),
+                        tuple(urls.get(1).getUuid(), 0L), tuple(urls.get(2).getUuid(), 7L));
+        assertThat(actual).extracting(UrlVisitsDto::url, UrlVisitsDto::description)
+                .contains(tuple(urls.get(1).getUrl(), "Description 1"));
+    }
+
+    @Test
+    void findRegisteredUrlsThenOnlyPersistedFound() {
+        ShortcutTarget registered =
+                ShortcutTarget.parse("https://" + server.getHost() + "/registered");
+        ShortcutTarget unknown = ShortcutTarget.parse("https://" + server.getHost() + "/unknown");
+        urlRepository.save(new Url(null, null, server.getUuid(), registered,
+                time, time, status, null, policy));
+        assertThat(urlRepository.findRegisteredUrls(
+                List.of(UrlDigest.of(registered), UrlDigest.of(unknown))))
+                .extracting(ShortcutTarget::toString).containsExactly(registered.toString());
+    }
+
+    @Test
+    void whenFindUuidByDigestOfEquivalentUrlThenGetId() {
+        ShortcutTarget registered =
+                ShortcutTarget.parse("https://" + server.getHost() + "/registered?a=1");
+        Url url = urlRepository.save(new Url(null, null, server.getUuid(), registered,
+                time, time, status, null, policy));
+        ShortcutTarget equivalent = ShortcutTarget.parse(
+                "HTTPS://" + server.getHost().toUpperCase() + ":443/registered?a=1");
+        assertThat(urlRepository.findUuidByDigest(UrlDigest.of(equivalent)))
+                .contains(url.getUuid());
+        ShortcutTarget other =
+                ShortcutTarget.parse("https://" + server.getHost() + "/registered?a=2");
+        assertThat(urlRepository.findUuidByDigest(UrlDigest.of(other))).isEmpty();
+    }
+
+    @Test
+    void whenSaveEquivalentUrlThenDigestConstraintViolated() {
+        urlRepository.save(new Url(null, null, server.getUuid(),
+                ShortcutTarget.parse("https://" + server.getHost()),
+                time, time, status, null, policy));
+        entityManager.flush();
+        Url duplicate = new Url(null, null, server.getUuid(),
+                ShortcutTarget.parse("https://" + server.getHost() + "/"),
+                time, time, status, null, policy);
+        assertThatThrownBy(() -> urlRepository.saveAndFlush(duplicate))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void saveAllThenInsertedByBatchedStatement() {
+        List<Url> urls = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            urls.add(new Url(null, "c" + i, server.getUuid(),
+                    ShortcutTarget.parse("https://" + server.getHost() + "/batch" + i),
+                    time, time, status, null, policy));
+        }
+        entityManager.flush();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        urlRepository.saveAll(urls);
+        entityManager.flush();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(50L);
+        assertThat(statistics.getPrepareStatementCount()).isOne();
+    }
 }
@@ -0,0 +1,124 @@
+package ru.job4j.urlshortcut.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.job4j.urlshortcut.configuration.AccessLogProperties;
+import ru.job4j.urlshortcut.service.AccessLogPartitionManager.Partition;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.job4j.urlshortcut.configuration.AccessLogProperties.PartitionInterval.DAY;
+import static ru.job4j.urlshortcut.configuration.AccessLogProperties.PartitionInterval.MONTH;
+
+@DataJpaTest
+@Import(AccessLogPartitionManager.class)
+class AccessLogPartitionManagerTest {
+
+    private final LocalDateTime time = LocalDateTime.of(2026, 10, 17, 13, 45, 30);
+    private final LocalDateTime month = LocalDateTime.of(2026, 10, 1, 0, 0);
+    private final LocalDateTime nextMonth = LocalDateTime.of(2026, 11, 1, 0, 0);
+
+    @Autowired
+    private AccessLogPartitionManager manager;
+    @Autowired
+    private AccessLogProperties properties;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void whenPeriodStartThenTruncatedToInterval() {
+        assertThat(AccessLogPartitionManager.periodStart(time, MONTH)).isEqualTo(month);
+        assertThat(AccessLogPartitionManager.periodStart(time, DAY))
+                .isEqualTo(LocalDateTime.of(2026, 10, 17, 0, 0));
+        assertThat(AccessLogPartitionManager.next(month, MONTH)).isEqualTo(nextMonth);
+    }
+
+    @Test
+    void whenPartitionNameThenIncludesPeriod() {
+        assertThat(AccessLogPartitionManager.partitionName(month, MONTH))
+                .isEqualTo("url_access_log_p202610");
+        assertThat(AccessLogPartitionManager.partitionName(time, DAY))
+                .isEqualTo("url_access_log_p20261017");
+    }
+
+    @Test
+    void whenParseBoundThenRangeReturned() {
+        assertThat(AccessLogPartitionManager.parse("url_access_log_p202610",
+                "FOR VALUES FROM ('2026-10-01 00:00:00') TO ('2026-11-01 00:00:00')"))
+                .isEqualTo(new Partition("url_access_log_p202610", month, nextMonth));
+        assertThat(AccessLogPartitionManager.parse("url_access_log_history",
+                "FOR VALUES FROM (MINVALUE) TO ('2026-10-17 13:45:31.000001')"))
+                .isEqualTo(new Partition("url_access_log_history", null,
+                        LocalDateTime.of(2026, 10, 17, 13, 45, 31, 1000)));
+    }
+
+    @Test
+    void whenParseDefaultBoundThenNull() {
+        assertThat(AccessLogPartitionManager.parse("url_access_log_default", "DEFAULT")).isNull();
+    }
+
+    @Test
+    void whenPeriodNotCoveredThenWholePeriodIsGap() {
+        List<Partition> existing = List.of(new Partition("old", null, month));
+        assertThat(AccessLogPartitionManager.gaps(existing, "p202611", nextMonth,
+                nextMonth.plusMonths(1)))
+                .containsExactly(new Partition("p202611", nextMonth, nextMonth.plusMonths(1)));
+    }
+
+    @Test
+    void whenPeriodCoveredThenNoGaps() {
+        List<Partition> existing = List.of(
+                new Partition("history", null, time),
+                new Partition("p202610", time, nextMonth));
+        assertThat(AccessLogPartitionManager.gaps(existing, "p202610", month, nextMonth))
+                .isEmpty();
+    }
+
+    @Test
+    void whenPeriodPartiallyCoveredThenOnlyRestIsGap() {
+        List<Partition> existing = List.of(new Partition("history", null, time));
+        assertThat(AccessLogPartitionManager.gaps(existing, "p202610", month, nextMonth))
+                .containsExactly(new Partition("p202610_17134530", time, nextMonth));
+    }
+
+    @Test
+    void whenH2ThenNotPartitioned() {
+        assertThat(manager.isPartitioned()).isFalse();
+    }
+
+    @Test
+    void whenNotPartitionedAndRetentionSetThenOldRecordsDeleted() {
+        UUID uuid = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        String sql = "INSERT INTO url_access_log(url_uuid, timestamp) VALUES (?, ?)";
+        jdbcTemplate.update(sql, uuid, now.minusDays(40));
+        jdbcTemplate.update(sql, uuid, now.minusDays(1));
+        int retention = properties.getRetentionDays();
+        try {
+            properties.setRetentionDays(30);
+            manager.maintain();
+        } finally {
+            properties.setRetentionDays(retention);
+        }
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM url_access_log WHERE url_uuid = ?", Long.class, uuid))
+                .isEqualTo(1L);
+    }
+
+    @Test
+    void whenRetentionNotSetThenRecordsKept() {
+        UUID uuid = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO url_access_log(url_uuid, timestamp) VALUES (?, ?)",
+                uuid, LocalDateTime.now().minusYears(5));
+        manager.maintain();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM url_access_log WHERE url_uuid = ?", Long.class, uuid))
+                .isEqualTo(1L);
+    }
+}
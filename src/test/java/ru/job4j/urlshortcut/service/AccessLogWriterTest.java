@@ -0,0 +1,101 @@
+package ru.job4j.urlshortcut.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.job4j.urlshortcut.configuration.AccessLogProperties;
+import ru.job4j.urlshortcut.model.UrlAccessRecord;
+import ru.job4j.urlshortcut.repository.UrlAccessRecordRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class AccessLogWriterTest {
+
+    @MockBean
+    private UrlAccessRecordRepository repository;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AccessLogProperties properties = new AccessLogProperties();
+    private AccessLogWriter writer;
+
+    private final UUID uuid = UUID.randomUUID();
+
+    @BeforeEach
+    void beforeEach() {
+        writer = new AccessLogWriter(properties, repository, registry);
+    }
+
+    @Test
+    void whenSyncModeThenRecordWrittenImmediately() {
+        writer.record(uuid);
+        verify(repository).logAccess(uuid);
+        assertThat(writer.queueSize()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenAsyncModeThenRecordsQueuedAndFlushedInBatches() {
+        properties.setMode(AccessLogProperties.Mode.ASYNC);
+        properties.setFlushSize(2);
+        LocalDateTime now = LocalDateTime.now().minusHours(1);
+        when(repository.currentTimestamp()).thenReturn(now);
+        writer.record(uuid);
+        writer.record(uuid);
+        writer.record(uuid);
+        verify(repository, never()).logAccess(any());
+        assertThat(writer.queueSize()).isEqualTo(3);
+        assertThat(registry.get("access.log.queue.size").gauge().value()).isEqualTo(3);
+        writer.flush();
+        ArgumentCaptor<List<UrlAccessRecord>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(2)).saveAll(captor.capture());
+        assertThat(captor.getAllValues()).extracting(List::size).containsExactly(2, 1);
+        assertThat(captor.getValue().get(0).getUrlUuid()).isEqualTo(uuid);
+        assertThat(captor.getValue().get(0).getTimestamp()).isEqualTo(now);
+        assertThat(writer.queueSize()).isZero();
+        assertThat(registry.get("access.log.flush").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void whenAsyncModeAndQueueFullThenRecordDroppedAndCounted() {
+        properties.setMode(AccessLogProperties.Mode.ASYNC);
+        properties.setQueueCapacity(1);
+        writer.record(uuid);
+        writer.record(uuid);
+        assertThat(writer.queueSize()).isOne();
+        assertThat(registry.get("access.log.dropped").counter().count()).isOne();
+    }
+
+    @Test
+    void whenStartedInAsyncModeThenQueueFlushedPeriodically() {
+        properties.setMode(AccessLogProperties.Mode.ASYNC);
+        properties.setFlushInterval(10);
+        writer.start();
+        writer.record(uuid);
+        verify(repository, timeout(5000)).saveAll(any());
+        writer.shutdown();
+        assertThat(writer.queueSize()).isZero();
+    }
+
+    @Test
+    void whenShutdownThenQueueDrained() {
+        properties.setMode(AccessLogProperties.Mode.ASYNC);
+        writer.record(uuid);
+        writer.shutdown();
+        verify(repository).saveAll(any());
+        assertThat(writer.queueSize()).isZero();
+    }
+}
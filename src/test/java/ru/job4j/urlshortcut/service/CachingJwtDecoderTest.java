@@ -0,0 +1,68 @@
+package ru.job4j.urlshortcut.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingJwtDecoderTest {
+
+    private final String token = "header.payload.signature";
+    private final JwtDecoder delegate = mock(JwtDecoder.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 100, registry);
+
+    private Jwt jwt(Instant expiresAt) {
+        return Jwt.withTokenValue(token).header("alg", "HS256").subject("example.com")
+                .issuedAt(Instant.now().minusSeconds(10)).expiresAt(expiresAt).build();
+    }
+
+    @Test
+    void whenSameTokenDecodedTwiceThenVerifiedOnce() {
+        Jwt jwt = jwt(Instant.now().plusSeconds(60));
+        when(delegate.decode(token)).thenReturn(jwt);
+        assertThat(decoder.decode(token)).isSameAs(jwt);
+        assertThat(decoder.decode(token)).isSameAs(jwt);
+        verify(delegate, times(1)).decode(token);
+        assertThat(decoder.stats().hitCount()).isEqualTo(1L);
+        assertThat(registry.find("cache.gets").tag("cache", CachingJwtDecoder.NAME).meters())
+                .isNotEmpty();
+    }
+
+    @Test
+    void whenTokenExpiredThenVerifiedAgain() {
+        Jwt jwt = jwt(Instant.now().minusSeconds(1));
+        when(delegate.decode(token)).thenReturn(jwt);
+        decoder.decode(token);
+        decoder.decode(token);
+        verify(delegate, times(2)).decode(token);
+    }
+
+    @Test
+    void whenTokenWithoutExpirationThenNotCached() {
+        Jwt jwt = jwt(null);
+        when(delegate.decode(token)).thenReturn(jwt);
+        decoder.decode(token);
+        decoder.decode(token);
+        verify(delegate, times(2)).decode(token);
+    }
+
+    @Test
+    void whenTokenRejectedThenNotCached() {
+        when(delegate.decode(token)).thenThrow(new BadJwtException("Signature is incorrect"));
+        assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(BadJwtException.class);
+        assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(BadJwtException.class);
+        verify(delegate, times(2)).decode(token);
+        assertThatThrownBy(() -> decoder.decode(null)).isInstanceOf(BadJwtException.class);
+    }
+}
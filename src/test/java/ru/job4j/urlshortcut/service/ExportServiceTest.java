@@ -0,0 +1,137 @@
+package ru.job4j.urlshortcut.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.job4j.urlshortcut.model.DataFormat;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+import ru.job4j.urlshortcut.model.Server;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+import ru.job4j.urlshortcut.model.Status;
+import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.model.UrlAccessRecord;
+import ru.job4j.urlshortcut.model.UrlVisitCounter;
+import ru.job4j.urlshortcut.repository.ServerRepository;
+import ru.job4j.urlshortcut.repository.UrlAccessRecordRepository;
+import ru.job4j.urlshortcut.repository.UrlRepository;
+import ru.job4j.urlshortcut.repository.UrlVisitCounterRepository;
+import ru.job4j.urlshortcut.util.TooManyRequestsException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import(ExportService.class)
+class ExportServiceTest {
+
+    private final String host = "example.com";
+    private final LocalDateTime time = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    private Server server;
+    private Url first;
+    private Url second;
+
+    @Autowired
+    private ServerRepository serverRepository;
+    @Autowired
+    private UrlRepository urlRepository;
+    @Autowired
+    private UrlVisitCounterRepository counterRepository;
+    @Autowired
+    private UrlAccessRecordRepository logRepository;
+    @Autowired
+    private ExportService exportService;
+
+    @BeforeEach
+    void beforeEach() {
+        server = serverRepository.save(new Server(null, host, "password",
+                time, time, Status.REGISTERED, null));
+        first = urlRepository.save(new Url(null, "c1", server.getUuid(),
+                ShortcutTarget.parse("https://" + host + "/first"), time, time.plusDays(1),
+                Status.REGISTERED, "Say \"hi\", please", RedirectPolicy.COUNTED));
+        second = urlRepository.save(new Url(null, "c2", server.getUuid(),
+                ShortcutTarget.parse("https://" + host + "/second"),
+                time.plusSeconds(1), time.plusDays(1),
+                Status.REGISTERED, null, RedirectPolicy.PERMANENT));
+        counterRepository.save(new UrlVisitCounter(first.getUuid(), 5L));
+        urlRepository.flush();
+    }
+
+    @Test
+    void whenServerUrlsExportedAsNdjsonThenOneObjectPerLine() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long count = exportService.exportServerUrls(server.getUuid(), DataFormat.NDJSON, output);
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(2L);
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("{\"uuid\":\"" + first.getUuid() + "\",\"code\":\"c1\","
+                + "\"url\":\"https://" + host + "/first\",\"created\":\"")
+                .endsWith("\"expired\":\"" + time.plusDays(1) + "\",\"status\":\"REGISTERED\","
+                        + "\"description\":\"Say \\\"hi\\\", please\","
+                        + "\"redirectPolicy\":\"COUNTED\",\"visited\":5}");
+        assertThat(lines[1]).contains("\"uuid\":\"" + second.getUuid() + "\"",
+                "\"description\":null", "\"visited\":0");
+    }
+
+    @Test
+    void whenServerUrlsExportedAsCsvThenHeaderAndQuotedFields() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.exportServerUrls(server.getUuid(), DataFormat.CSV, output);
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).isEqualTo(
+                "uuid,code,url,created,expired,status,description,redirectPolicy,visited");
+        assertThat(lines[1]).startsWith(first.getUuid() + ",c1,https://" + host + "/first,")
+                .endsWith("," + time.plusDays(1)
+                        + ",REGISTERED,\"Say \"\"hi\"\", please\",COUNTED,5");
+        assertThat(lines[2]).startsWith(second.getUuid() + ",c2,https://" + host + "/second,")
+                .endsWith("," + time.plusDays(1) + ",REGISTERED,,PERMANENT,0");
+    }
+
+    @Test
+    void whenUrlVisitsExportedThenOnlyVisitsOfUrl() throws IOException {
+        logRepository.save(new UrlAccessRecord(null, first.getUuid(), time));
+        logRepository.save(new UrlAccessRecord(null, first.getUuid(), time.plusMinutes(1)));
+        logRepository.save(new UrlAccessRecord(null, second.getUuid(), time));
+        logRepository.flush();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long count = exportService.exportUrlVisits(first.getUuid(), DataFormat.CSV, output);
+        assertThat(count).isEqualTo(2L);
+        assertThat(output.toString(StandardCharsets.UTF_8).split("\n"))
+                .containsExactlyInAnyOrder("timestamp", time.toString(),
+                        time.plusMinutes(1).toString());
+    }
+
+    @Test
+    void whenNothingToExportThenEmptyOutput() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long count = exportService.exportUrlVisits(UUID.randomUUID(), DataFormat.NDJSON, output);
+        assertThat(count).isZero();
+        assertThat(output.size()).isZero();
+    }
+
+    @Test
+    void whenExportsOverLimitThenRejectedUntilPermitReleased() {
+        List<ExportService.Permit> running = IntStream.range(0, 4)
+                .mapToObj(i -> exportService.acquire()).toList();
+        assertThatThrownBy(exportService::acquire)
+                .isInstanceOf(TooManyRequestsException.class);
+        running.get(0).close();
+        running.get(0).close();
+        ExportService.Permit next = exportService.acquire();
+        assertThatThrownBy(exportService::acquire)
+                .isInstanceOf(TooManyRequestsException.class);
+        next.close();
+        running.forEach(ExportService.Permit::close);
+    }
+}
@@ -0,0 +1,126 @@
+package ru.job4j.urlshortcut.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.urlshortcut.configuration.HotUrlProperties;
+import ru.job4j.urlshortcut.model.HotUrl;
+import ru.job4j.urlshortcut.model.TopWindow;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HotUrlTrackerTest {
+
+    private final UUID server = UUID.randomUUID();
+    private final UUID first = UUID.randomUUID();
+    private final UUID second = UUID.randomUUID();
+    private final long now = Duration.ofDays(20_000).toMillis();
+    private final long minute = Duration.ofMinutes(1).toMillis();
+    private HotUrlProperties properties;
+    private HotUrlTracker tracker;
+
+    @BeforeEach
+    void beforeEach() {
+        properties = new HotUrlProperties();
+        tracker = new HotUrlTracker(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void whenVisitedThenRankedByVisits() {
+        IntStream.range(0, 3).forEach(i -> tracker.record(server, first, now));
+        IntStream.range(0, 5).forEach(i -> tracker.record(server, second, now));
+        tracker.record(UUID.randomUUID(), first, now);
+        assertThat(tracker.top(server, TopWindow.FIVE_MINUTES, 10, now)).containsExactly(
+                new HotUrl(second, 5L, 0L), new HotUrl(first, 3L, 0L));
+        assertThat(tracker.top(server, TopWindow.FIVE_MINUTES, 1, now))
+                .containsExactly(new HotUrl(second, 5L, 0L));
+    }
+
+    @Test
+    void whenVisitsLeftWindowThenOnlyLongerWindowsCountThem() {
+        tracker.record(server, first, now - 10 * minute);
+        tracker.record(server, second, now);
+        assertThat(tracker.top(server, TopWindow.FIVE_MINUTES, 10, now))
+                .extracting(HotUrl::uuid).containsExactly(second);
+        assertThat(tracker.top(server, TopWindow.HOUR, 10, now))
+                .extracting(HotUrl::uuid).containsExactlyInAnyOrder(first, second);
+        assertThat(tracker.top(server, TopWindow.DAY, 10, now + 25 * 60 * minute)).isEmpty();
+    }
+
+    @Test
+    void whenManyLinksThenHottestFoundWithBoundedError() {
+        properties.setCapacity(10);
+        for (int i = 0; i < 10_000; i++) {
+            tracker.record(server, i % 2 == 0 ? first : UUID.randomUUID(), now + i);
+        }
+        List<HotUrl> top = tracker.top(server, TopWindow.HOUR, 1, now + 10_000);
+        assertThat(top).hasSize(1);
+        assertThat(top.get(0).uuid()).isEqualTo(first);
+        assertThat(top.get(0).visits() - top.get(0).error()).isLessThanOrEqualTo(5_000L);
+        assertThat(top.get(0).visits()).isGreaterThanOrEqualTo(5_000L);
+    }
+
+    @Test
+    void whenVisitedConcurrentlyThenAllVisitsCounted() throws InterruptedException {
+        int threads = 8;
+        int visits = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < visits; j++) {
+                    tracker.record(server, j % 4 == 0 ? first : second, now);
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        executor.shutdown();
+        assertThat(tracker.top(server, TopWindow.FIVE_MINUTES, 10, now)).containsExactly(
+                new HotUrl(second, threads * visits * 3L / 4, 0L),
+                new HotUrl(first, threads * visits / 4L, 0L));
+    }
+
+    @Test
+    void whenBufferedVisitAppliedAfterSliceReusedThenSkipped() throws InterruptedException {
+        Thread old = new Thread(() -> tracker.record(server, first, now - 10 * minute));
+        old.start();
+        old.join();
+        IntStream.range(0, 100).forEach(i -> tracker.record(server, second, now));
+        assertThat(tracker.top(server, TopWindow.FIVE_MINUTES, 10, now))
+                .containsExactly(new HotUrl(second, 100L, 0L));
+        assertThat(tracker.top(server, TopWindow.HOUR, 10, now))
+                .extracting(HotUrl::uuid).containsExactly(second, first);
+    }
+
+    @Test
+    void whenIdleThenServerEvicted() {
+        tracker.record(server, first, now);
+        tracker.evict(now + Duration.ofDays(2).toMillis());
+        assertThat(tracker.top(server, TopWindow.DAY, 10, now)).isEmpty();
+    }
+
+    @Test
+    void whenDisabledThenNothingTracked() {
+        properties.setEnabled(false);
+        tracker.record(server, first, now);
+        assertThat(tracker.top(server, TopWindow.FIVE_MINUTES, 10, now)).isEmpty();
+    }
+
+    @Test
+    void whenLimitOutOfRangeThenException() {
+        assertThatThrownBy(() -> tracker.top(server, TopWindow.HOUR, 0, now))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tracker.top(server, TopWindow.HOUR, 1_000, now))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
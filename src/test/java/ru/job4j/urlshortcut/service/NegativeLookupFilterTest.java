@@ -0,0 +1,149 @@
+package ru.job4j.urlshortcut.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.job4j.urlshortcut.configuration.NegativeLookupFilterProperties;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+import ru.job4j.urlshortcut.model.Server;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+import ru.job4j.urlshortcut.model.Status;
+import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.repository.ServerRepository;
+import ru.job4j.urlshortcut.repository.UrlRepository;
+import ru.job4j.urlshortcut.util.UuidV7;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({NegativeLookupFilter.class, ShortCodeAllocator.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = "ru.job4j.urlshortcut.negative-lookup-filter.single-node=true")
+class NegativeLookupFilterTest {
+
+    private final String host = "example.com";
+    private final String password = "password";
+    private final Status status = Status.REGISTERED;
+    private final RedirectPolicy policy = RedirectPolicy.COUNTED;
+    private final LocalDateTime time = LocalDateTime.now();
+    private Server server;
+    private Url url;
+
+    @Autowired
+    private ServerRepository serverRepository;
+    @Autowired
+    private UrlRepository urlRepository;
+    @Autowired
+    private NegativeLookupFilter filter;
+    @Autowired
+    private MeterRegistry registry;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ShortCodeAllocator allocator;
+
+    @BeforeEach
+    void beforeEach() {
+        server = serverRepository.save(new Server(null, host, password, time, time, status, null));
+        url = urlRepository.saveAndFlush(new Url(null, "4c92Ab", server.getUuid(),
+                ShortcutTarget.parse("https://" + host + "/path"),
+                time, time, status, null, policy));
+    }
+
+    @Test
+    void whenNotBuiltThenEveryKeyMightExist() {
+        NegativeLookupFilter notBuilt = new NegativeLookupFilter(
+                new NegativeLookupFilterProperties(), jdbcTemplate, allocator,
+                new SimpleMeterRegistry());
+        assertThat(notBuilt.mightContain(UUID.randomUUID())).isTrue();
+        assertThat(notBuilt.mightContain("zzzzzz")).isTrue();
+    }
+
+    @Test
+    void whenRebuildThenExistingKeysKnownAndUnknownRejected() {
+        filter.rebuild();
+        double rejected = registry.get("redirect.filter.rejected").counter().count();
+        assertThat(filter.mightContain(url.getUuid())).isTrue();
+        assertThat(filter.mightContain(url.getCode())).isTrue();
+        assertThat(filter.mightContain(UUID.randomUUID())).isFalse();
+        assertThat(filter.mightContain("zzzzzz")).isFalse();
+        assertThat(registry.get("redirect.filter.rejected").counter().count())
+                .isEqualTo(rejected + 2);
+        assertThat(registry.get("redirect.filter.memory").gauge().value()).isPositive();
+        assertThat(registry.get("redirect.filter.fpp.expected").gauge().value())
+                .isLessThan(registry.get("redirect.filter.fpp.target").gauge().value());
+    }
+
+    @Test
+    void whenAddThenKeyKnown() {
+        filter.rebuild();
+        UUID uuid = UUID.randomUUID();
+        filter.add(uuid, "4c92Ac");
+        assertThat(filter.mightContain(uuid)).isTrue();
+        assertThat(filter.mightContain("4c92Ac")).isTrue();
+    }
+
+    @Test
+    void whenSingleNodeThenUrlCreatedElsewhereLoadedBySync() {
+        filter.rebuild();
+        Url created = urlRepository.saveAndFlush(new Url(null, "4c92Ad", server.getUuid(),
+                ShortcutTarget.parse("https://" + host + "/other"),
+                time, time, status, null, policy));
+        assertThat(filter.mightContain(created.getUuid())).isFalse();
+        assertThat(filter.mightContain(created.getCode())).isFalse();
+        filter.sync();
+        assertThat(filter.mightContain(created.getUuid())).isTrue();
+        assertThat(filter.mightContain(created.getCode())).isTrue();
+    }
+
+    @Test
+    void whenSeveralNodesThenUrlCreatedElsewhereKnownBeforeSync() {
+        String code = allocator.next();
+        NegativeLookupFilter shared = new NegativeLookupFilter(new NegativeLookupFilterProperties(),
+                jdbcTemplate, allocator, new SimpleMeterRegistry());
+        shared.rebuild();
+        Url created = urlRepository.saveAndFlush(new Url(null, code, server.getUuid(),
+                ShortcutTarget.parse("https://" + host + "/other"),
+                time, time, status, null, policy));
+        assertThat(shared.mightContain(created.getUuid())).isTrue();
+        assertThat(shared.mightContain(created.getCode())).isTrue();
+    }
+
+    @Test
+    void whenSeveralNodesThenCodesAboveHighWaterMarkRejected() {
+        String allocated = allocator.next();
+        NegativeLookupFilter shared = new NegativeLookupFilter(new NegativeLookupFilterProperties(),
+                jdbcTemplate, allocator, new SimpleMeterRegistry());
+        shared.rebuild();
+        long highWaterMark = allocator.highWaterMark();
+        assertThat(shared.mightContain(allocated)).isTrue();
+        assertThat(shared.mightContain(url.getCode())).isTrue();
+        assertThat(shared.mightContain(allocator.code(highWaterMark))).isFalse();
+        assertThat(shared.mightContain("zzzzzz")).isFalse();
+        assertThat(shared.mightContain("00000000")).isFalse();
+    }
+
+    @Test
+    void whenSeveralNodesThenOnlyIdsOlderThanSyncRejected() {
+        NegativeLookupFilterProperties properties = new NegativeLookupFilterProperties();
+        NegativeLookupFilter shared = new NegativeLookupFilter(
+                properties, jdbcTemplate, allocator, new SimpleMeterRegistry());
+        shared.rebuild();
+        long old = System.currentTimeMillis() - 2 * properties.getSyncLag();
+        assertThat(shared.mightContain(new UUID((old << 16) | 0x7000L, Long.MIN_VALUE)))
+                .isFalse();
+        assertThat(shared.mightContain(UUID.randomUUID())).isFalse();
+        assertThat(shared.mightContain(UuidV7.next())).isTrue();
+        long future = System.currentTimeMillis() + 2 * properties.getSyncLag();
+        assertThat(shared.mightContain(new UUID((future << 16) | 0x7000L, Long.MIN_VALUE)))
+                .isFalse();
+    }
+}
@@ -0,0 +1,90 @@
+package ru.job4j.urlshortcut.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.job4j.urlshortcut.configuration.PasswordHashingProperties;
+import ru.job4j.urlshortcut.util.TooManyRequestsException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    /** Encoder blocking until released, so the hashing threads stay busy. */
+    private final PasswordEncoder encoder = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence password) {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return "{noop}" + password;
+        }
+
+        @Override
+        public boolean matches(CharSequence password, String encoded) {
+            return encoded.equals("{noop}" + password);
+        }
+    };
+
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void afterEach() {
+        release.countDown();
+        hasher.shutdown();
+    }
+
+    private PasswordHasher hasher(int threads, int queueCapacity) {
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setThreads(threads);
+        properties.setQueueCapacity(queueCapacity);
+        return new PasswordHasher(encoder, properties, registry);
+    }
+
+    @Test
+    void whenHashedAndVerifiedThenLatencyRecorded() {
+        hasher = hasher(1, 1);
+        release.countDown();
+        assertThat(hasher.encode("password")).isEqualTo("{noop}password");
+        assertThat(hasher.matches("password", "{noop}password")).isTrue();
+        assertThat(hasher.matches("password1", "{noop}password")).isFalse();
+        assertThat(registry.get("password.hashing").tag("operation", "encode").timer().count())
+                .isOne();
+        assertThat(registry.get("password.hashing").tag("operation", "verify").timer().count())
+                .isEqualTo(2L);
+    }
+
+    @Test
+    void whenPoolSaturatedThenRejectedAtOnce() throws InterruptedException {
+        hasher = hasher(1, 1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(
+                () -> hasher.encode("running"));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(
+                () -> hasher.encode("queued"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (registry.get("password.hashing.queue.size").gauge().value() < 1.0
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThatThrownBy(() -> hasher.encode("rejected"))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(registry.get("password.hashing.rejected").counter().count()).isOne();
+        release.countDown();
+        assertThat(running.join()).isEqualTo("{noop}running");
+        assertThat(queued.join()).isEqualTo("{noop}queued");
+    }
+}
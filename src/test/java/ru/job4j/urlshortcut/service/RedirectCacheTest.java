@@ -0,0 +1,83 @@
+package ru.job4j.urlshortcut.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.urlshortcut.configuration.RedirectCacheProperties;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+import ru.job4j.urlshortcut.model.RedirectTarget;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedirectCacheTest {
+
+    private final UUID uuid = UUID.randomUUID();
+    private final UUID serverUuid = UUID.randomUUID();
+    private final String code = "4c92Ab";
+    private final String location = "https://example.com/path";
+    private final RedirectPolicy policy = RedirectPolicy.COUNTED;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private RedirectCache cache;
+
+    @BeforeEach
+    void beforeEach() {
+        cache = new RedirectCache(new RedirectCacheProperties(), registry);
+    }
+
+    @Test
+    void whenPutActiveTargetThenGetIt() {
+        RedirectTarget target = new RedirectTarget(
+                uuid, serverUuid, code, location, LocalDateTime.now().plusDays(1), policy);
+        cache.put(target);
+        assertThat(cache.get(uuid)).isEqualTo(target);
+        assertThat(cache.getByCode(code)).isEqualTo(target);
+    }
+
+    @Test
+    void whenPutTargetWithoutExpirationThenGetIt() {
+        RedirectTarget target = new RedirectTarget(uuid, serverUuid, code, location, null, policy);
+        cache.put(target);
+        assertThat(cache.get(uuid)).isEqualTo(target);
+    }
+
+    @Test
+    void whenPutExpiredTargetThenNotCached() {
+        cache.put(new RedirectTarget(uuid, serverUuid, code, location,
+                LocalDateTime.now().minusSeconds(1), policy));
+        assertThat(cache.get(uuid)).isNull();
+    }
+
+    @Test
+    void whenEvictThenNotCached() {
+        cache.put(new RedirectTarget(uuid, serverUuid, code, location, null, policy));
+        cache.evict(uuid, code);
+        assertThat(cache.get(uuid)).isNull();
+        assertThat(cache.getByCode(code)).isNull();
+    }
+
+    @Test
+    void whenEvictByServerThenOnlyItsTargetsNotCached() {
+        UUID other = UUID.randomUUID();
+        cache.put(new RedirectTarget(uuid, serverUuid, code, location, null, policy));
+        cache.put(new RedirectTarget(other, UUID.randomUUID(), "5d03Bc", location, null, policy));
+        cache.evictByServer(serverUuid);
+        assertThat(cache.get(uuid)).isNull();
+        assertThat(cache.getByCode(code)).isNull();
+        assertThat(cache.get(other)).isNotNull();
+        assertThat(cache.getByCode("5d03Bc")).isNotNull();
+    }
+
+    @Test
+    void whenGetThenCountersExposedAsMetrics() {
+        cache.put(new RedirectTarget(uuid, serverUuid, code, location, null, policy));
+        cache.get(uuid);
+        cache.get(UUID.randomUUID());
+        assertThat(cache.stats().hitCount()).isOne();
+        assertThat(cache.stats().missCount()).isOne();
+        assertThat(registry.get("cache.gets").tag("cache", RedirectCache.NAME)
+                .tag("result", "hit").functionCounter().count()).isOne();
+    }
+}
@@ -1,9 +1,11 @@
 package ru.job4j.urlshortcut.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -12,19 +14,31 @@ import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.job4j.urlshortcut.configuration.PasswordHashingProperties;
 import ru.job4j.urlshortcut.configuration.SecurityConfiguration;
 import ru.job4j.urlshortcut.configuration.SecurityProperties;
+import ru.job4j.urlshortcut.model.RefreshToken;
 import ru.job4j.urlshortcut.model.Server;
 import ru.job4j.urlshortcut.model.Status;
+import ru.job4j.urlshortcut.model.TokenGrant;
+import ru.job4j.urlshortcut.repository.RefreshTokenRepository;
 import ru.job4j.urlshortcut.util.EntityNotFoundException;
 import ru.job4j.urlshortcut.util.AccessUnauthorizedException;
+import ru.job4j.urlshortcut.util.OpaqueToken;
+import ru.job4j.urlshortcut.util.TooManyRequestsException;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(SpringExtension.class)
@@ -33,6 +47,8 @@ class SecurityServiceImplTest {
 
     @MockBean
     private ServerService serverService;
+    @MockBean
+    private RefreshTokenRepository refreshTokenRepository;
     @Autowired
     private PasswordEncoder passwordEncoder;
     @Autowired
@@ -48,10 +64,16 @@ class SecurityServiceImplTest {
     private final LocalDateTime time = LocalDateTime.now();
     private final Server server = new Server(uuid, host, password, time, time, status, null);
 
+    private static PasswordHasher hasher(PasswordEncoder passwordEncoder) {
+        return new PasswordHasher(
+                passwordEncoder, new PasswordHashingProperties(), new SimpleMeterRegistry());
+    }
+
     @BeforeEach
     void beforeEach() {
         securityService = new SecurityServiceImpl(
-                properties, serverService, passwordEncoder, jwtEncoder);
+                properties, serverService, hasher(passwordEncoder), jwtEncoder,
+                refreshTokenRepository);
         server.setPassword(passwordEncoder.encode(password));
     }
 
@@ -69,6 +91,89 @@ class SecurityServiceImplTest {
                 .isInstanceOf(AccessUnauthorizedException.class);
     }
 
+    @Test
+    void generateTokenWhenCorrectPasswordThenHashUpgradeRequested() {
+        when(serverService.getById(uuid)).thenReturn(server);
+        when(serverService.upgradePassword(server, password))
+                .thenThrow(TooManyRequestsException.class);
+        assertThat(securityService.generateToken(uuid, password).accessToken().getSubject())
+                .isEqualTo(host);
+        verify(serverService).upgradePassword(server, password);
+    }
+
+    @Test
+    void generateTokenWhenCorrectPasswordThenRefreshTokenStoredAsDigest() {
+        when(serverService.getById(uuid)).thenReturn(server);
+        TokenGrant grant = securityService.generateToken(uuid, password);
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).deleteExpiredByServerUuid(eq(uuid), any());
+        verify(refreshTokenRepository).save(captor.capture());
+        assertThat(captor.getValue().getDigest())
+                .isEqualTo(OpaqueToken.digest(grant.refreshToken()));
+        assertThat(captor.getValue().getServer()).isEqualTo(server);
+        assertThat(captor.getValue().getExpired()).isEqualTo(grant.refreshExpired());
+    }
+
+    @Test
+    void refreshTokenWhenCorrectTokenThenGetNewTokens() {
+        String value = OpaqueToken.generate();
+        RefreshToken token = new RefreshToken(UUID.randomUUID(), OpaqueToken.digest(value),
+                server, Instant.now(), Instant.now().plusSeconds(60));
+        when(refreshTokenRepository.findByDigest(token.getDigest()))
+                .thenReturn(Optional.of(token));
+        when(refreshTokenRepository.deleteByUuid(token.getUuid())).thenReturn(1);
+        TokenGrant grant = securityService.refreshToken(value);
+        assertThat(grant.accessToken().getSubject()).isEqualTo(host);
+        assertThat(grant.refreshToken()).isNotEqualTo(value);
+        verify(refreshTokenRepository).save(any(RefreshToken.class));
+    }
+
+    @Test
+    void refreshTokenWhenUnknownTokenThenGetException() {
+        when(refreshTokenRepository.findByDigest(any())).thenReturn(Optional.empty());
+        assertThatThrownBy(() -> securityService.refreshToken(OpaqueToken.generate()))
+                .isInstanceOf(AccessUnauthorizedException.class);
+        assertThatThrownBy(() -> securityService.refreshToken(null))
+                .isInstanceOf(AccessUnauthorizedException.class);
+    }
+
+    @Test
+    void refreshTokenWhenTokenAlreadyUsedThenGetException() {
+        String value = OpaqueToken.generate();
+        RefreshToken token = new RefreshToken(UUID.randomUUID(), OpaqueToken.digest(value),
+                server, Instant.now(), Instant.now().plusSeconds(60));
+        when(refreshTokenRepository.findByDigest(token.getDigest()))
+                .thenReturn(Optional.of(token));
+        when(refreshTokenRepository.deleteByUuid(token.getUuid())).thenReturn(0);
+        assertThatThrownBy(() -> securityService.refreshToken(value))
+                .isInstanceOf(AccessUnauthorizedException.class);
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+    }
+
+    @Test
+    void refreshTokenWhenTokenExpiredThenGetExceptionAndTokenDeleted() {
+        String value = OpaqueToken.generate();
+        RefreshToken token = new RefreshToken(UUID.randomUUID(), OpaqueToken.digest(value),
+                server, Instant.now().minusSeconds(120), Instant.now().minusSeconds(60));
+        when(refreshTokenRepository.findByDigest(token.getDigest()))
+                .thenReturn(Optional.of(token));
+        when(refreshTokenRepository.deleteByUuid(token.getUuid())).thenReturn(1);
+        assertThatThrownBy(() -> securityService.refreshToken(value))
+                .isInstanceOf(AccessUnauthorizedException.class)
+                .hasMessageContaining("expired");
+        verify(refreshTokenRepository).deleteByUuid(token.getUuid());
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+    }
+
+    @Test
+    void revokeRefreshTokenWhenTokenExistsThenTrueElseFalse() {
+        String value = OpaqueToken.generate();
+        when(refreshTokenRepository.deleteByDigest(OpaqueToken.digest(value))).thenReturn(1);
+        assertThat(securityService.revokeRefreshToken(value)).isTrue();
+        assertThat(securityService.revokeRefreshToken(OpaqueToken.generate())).isFalse();
+        assertThat(securityService.revokeRefreshToken(null)).isFalse();
+    }
+
     @Nested
     @ContextConfiguration(classes = SecurityConfiguration.class)
     @TestPropertySource(properties = "ru.job4j.urlshortcut.security.algorithm=hs256")
@@ -86,10 +191,12 @@ class SecurityServiceImplTest {
         @Test
         void generateTokenWhenCorrectLoginThenGetToken() {
             SecurityService securityService = new SecurityServiceImpl(
-                    properties, serverService, passwordEncoder, jwtEncoder);
+                    properties, serverService, hasher(passwordEncoder), jwtEncoder,
+                    refreshTokenRepository);
             server.setPassword(passwordEncoder.encode(password));
             when(serverService.getById(uuid)).thenReturn(server);
-            String jwt = securityService.generateToken(uuid, password).getTokenValue();
+            String jwt = securityService.generateToken(uuid, password)
+                    .accessToken().getTokenValue();
             assertThatCode(() -> jwtDecoder.decode(jwt)).doesNotThrowAnyException();
             assertThat(jwtDecoder.decode(jwt).getClaims().get("sub")).isEqualTo(host);
         }
@@ -112,10 +219,12 @@ class SecurityServiceImplTest {
         @Test
         void generateTokenWhenCorrectLoginThenGetToken() {
             SecurityService securityService = new SecurityServiceImpl(
-                    properties, serverService, passwordEncoder, jwtEncoder);
+                    properties, serverService, hasher(passwordEncoder), jwtEncoder,
+                    refreshTokenRepository);
             server.setPassword(passwordEncoder.encode(password));
             when(serverService.getById(uuid)).thenReturn(server);
-            String jwt = securityService.generateToken(uuid, password).getTokenValue();
+            String jwt = securityService.generateToken(uuid, password)
+                    .accessToken().getTokenValue();
             assertThatCode(() -> jwtDecoder.decode(jwt)).doesNotThrowAnyException();
             assertThat(jwtDecoder.decode(jwt).getClaims().get("sub")).isEqualTo(host);
         }
@@ -138,10 +247,12 @@ class SecurityServiceImplTest {
         @Test
         void generateTokenWhenCorrectLoginThenGetToken() {
             SecurityService securityService = new SecurityServiceImpl(
-                    properties, serverService, passwordEncoder, jwtEncoder);
+                    properties, serverService, hasher(passwordEncoder), jwtEncoder,
+                    refreshTokenRepository);
             server.setPassword(passwordEncoder.encode(password));
             when(serverService.getById(uuid)).thenReturn(server);
-            String jwt = securityService.generateToken(uuid, password).getTokenValue();
+            String jwt = securityService.generateToken(uuid, password)
+                    .accessToken().getTokenValue();
             assertThatCode(() -> jwtDecoder.decode(jwt)).doesNotThrowAnyException();
             assertThat(jwtDecoder.decode(jwt).getClaims().get("sub")).isEqualTo(host);
         }
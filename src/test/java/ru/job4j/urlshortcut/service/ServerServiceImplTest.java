@@ -1,5 +1,6 @@
 package ru.job4j.urlshortcut.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -7,18 +8,23 @@ import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.job4j.urlshortcut.configuration.PasswordHashingProperties;
 import ru.job4j.urlshortcut.configuration.SecurityConfiguration;
 import ru.job4j.urlshortcut.model.Server;
 import ru.job4j.urlshortcut.model.Status;
+import ru.job4j.urlshortcut.repository.RefreshTokenRepository;
 import ru.job4j.urlshortcut.repository.ServerRepository;
+import ru.job4j.urlshortcut.repository.UrlRepository;
 import ru.job4j.urlshortcut.util.AccessForbiddenException;
 import ru.job4j.urlshortcut.util.EntityNotFoundException;
 
 import java.security.Principal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -26,6 +32,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(SpringExtension.class)
@@ -37,6 +45,18 @@ class ServerServiceImplTest {
     @MockBean
     private ServerRepository repository;
     @MockBean
+    private RefreshTokenRepository refreshTokenRepository;
+    @MockBean
+    private UrlRepository urlRepository;
+    @MockBean
+    private RedirectCache cache;
+    @MockBean
+    private VisitCounterService counters;
+    @MockBean
+    private UniqueVisitorService visitors;
+    @MockBean
+    private HotUrlTracker hotUrls;
+    @MockBean
     private Principal principal;
     private ServerService serverService;
 
@@ -51,7 +71,9 @@ class ServerServiceImplTest {
 
     @BeforeEach
     void beforeEach() {
-        serverService = new ServerServiceImpl(encoder, repository);
+        serverService = new ServerServiceImpl(new PasswordHasher(
+                encoder, new PasswordHashingProperties(), new SimpleMeterRegistry()), repository,
+                refreshTokenRepository, urlRepository, cache, counters, visitors, hotUrls);
         server.setPassword(password);
         serverWithId.setPassword(encoder.encode(password));
     }
@@ -110,6 +132,7 @@ class ServerServiceImplTest {
         when(principal.getName()).thenReturn(host);
         assertThat(serverService.updatePasswordByIdAndPrincipal(uuid, principal, newPassword))
                 .isTrue();
+        verify(refreshTokenRepository).deleteByServerUuid(uuid);
     }
 
     @Test
@@ -138,6 +161,20 @@ class ServerServiceImplTest {
         assertThat(serverService.deleteByIdAndPrincipal(uuid, principal)).isTrue();
     }
 
+    @Test
+    void whenDeleteByCorrectIdThenUrlsStateDropped() {
+        UUID url = UUID.randomUUID();
+        when(repository.findById(uuid)).thenReturn(Optional.of(serverWithId));
+        when(repository.deleteByUuid(uuid)).thenReturn(1);
+        when(urlRepository.findUuidsByServerUuid(uuid)).thenReturn(List.of(url));
+        when(principal.getName()).thenReturn(host);
+        serverService.deleteByIdAndPrincipal(uuid, principal);
+        verify(cache).evictByServer(uuid);
+        verify(counters).remove(url);
+        verify(visitors).remove(url);
+        verify(hotUrls).remove(uuid);
+    }
+
     @Test
     void whenDeleteByIncorrectIdThenGetException() {
         when(repository.findById(uuid)).thenThrow(EntityNotFoundException.class);
@@ -152,4 +189,21 @@ class ServerServiceImplTest {
         assertThatThrownBy(() -> serverService.deleteByIdAndPrincipal(uuid, principal))
                 .isInstanceOf(AccessForbiddenException.class);
     }
+
+    @Test
+    void whenUpgradeWeakPasswordHashThenReplaced() {
+        String weak = "{bcrypt}" + new BCryptPasswordEncoder(4).encode(password);
+        serverWithId.setPassword(weak);
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        when(repository.replacePasswordByUuid(eq(uuid), eq(weak), captor.capture())).thenReturn(1);
+        assertThat(serverService.upgradePassword(serverWithId, password)).isTrue();
+        assertThat(encoder.matches(password, captor.getValue())).isTrue();
+        assertThat(encoder.upgradeEncoding(captor.getValue())).isFalse();
+    }
+
+    @Test
+    void whenUpgradeCurrentPasswordHashThenNotReplaced() {
+        assertThat(serverService.upgradePassword(serverWithId, password)).isFalse();
+        verify(repository, never()).replacePasswordByUuid(any(), any(), any());
+    }
 }
@@ -0,0 +1,73 @@
+package ru.job4j.urlshortcut.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import ru.job4j.urlshortcut.util.Base62;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import(ShortCodeAllocator.class)
+@TestPropertySource(properties = "ru.job4j.urlshortcut.short-code.block-size=10")
+class ShortCodeAllocatorTest {
+
+    @Autowired
+    private ShortCodeAllocator allocator;
+
+    @Test
+    void whenNextThenGetValidCodesOfMinimalLength() {
+        List<String> codes = IntStream.range(0, 25).mapToObj(i -> allocator.next()).toList();
+        assertThat(codes).doesNotHaveDuplicates()
+                .allMatch(code -> code.length() == ShortCodeAllocator.MIN_LENGTH)
+                .allMatch(code -> Base62.isValid(code, ShortCodeAllocator.MIN_LENGTH,
+                        ShortCodeAllocator.MAX_LENGTH));
+    }
+
+    @Test
+    void whenNextConcurrentlyThenAllCodesUnique() throws InterruptedException {
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> codes.add(allocator.next()));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(codes).hasSize(1000);
+    }
+
+    @Test
+    void whenNextThenCodesNotSequential() {
+        List<Long> values = IntStream.range(0, 25)
+                .mapToObj(i -> Base62.decode(allocator.next())).toList();
+        assertThat(IntStream.range(1, values.size())
+                .filter(i -> values.get(i) - values.get(i - 1) == 1)).isEmpty();
+    }
+
+    @Test
+    void whenCodeThenNumberRestored() {
+        long lastOfMinimalLength = 61L * 916_132_832L - 1;
+        assertThat(allocator.code(lastOfMinimalLength)).hasSize(ShortCodeAllocator.MIN_LENGTH);
+        assertThat(allocator.code(lastOfMinimalLength + 1))
+                .hasSize(ShortCodeAllocator.MIN_LENGTH + 1);
+        for (long number : new long[] {0, 1, lastOfMinimalLength, lastOfMinimalLength + 1,
+                1_000_000_000_000_000L / 2}) {
+            assertThat(allocator.number(allocator.code(number))).isEqualTo(number);
+        }
+        assertThat(allocator.number("000000")).isEqualTo(-1);
+        assertThat(allocator.number("zzzzz")).isEqualTo(-1);
+        assertThatThrownBy(() -> allocator.code(Long.MAX_VALUE))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,172 @@
+package ru.job4j.urlshortcut.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.job4j.urlshortcut.configuration.UniqueVisitorProperties;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+import ru.job4j.urlshortcut.model.Server;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+import ru.job4j.urlshortcut.model.Status;
+import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.repository.ServerRepository;
+import ru.job4j.urlshortcut.repository.UrlRepository;
+import ru.job4j.urlshortcut.util.HyperLogLog;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DataJpaTest
+@Import({UniqueVisitorService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UniqueVisitorServiceTest {
+
+    private final String host = UUID.randomUUID() + ".example.com";
+    private final String password = "password";
+    private final Status status = Status.REGISTERED;
+    private final RedirectPolicy policy = RedirectPolicy.COUNTED;
+    private final LocalDateTime time = LocalDateTime.now();
+    private final String agent = "Mozilla/5.0";
+    private Server server;
+    private Url url;
+
+    @Autowired
+    private ServerRepository serverRepository;
+    @Autowired
+    private UrlRepository urlRepository;
+    @Autowired
+    private UniqueVisitorService visitors;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void beforeEach() {
+        server = serverRepository.save(new Server(null, host, password, time, time, status, null));
+        url = urlRepository.save(new Url(null, null, server.getUuid(),
+                ShortcutTarget.parse("https://" + host + "/path"),
+                time, time, status, null, policy));
+    }
+
+    @AfterEach
+    void afterEach() {
+        visitors.remove(url.getUuid());
+        urlRepository.deleteById(url.getUuid());
+        serverRepository.deleteById(server.getUuid());
+    }
+
+    @Test
+    void whenSameVisitorRepeatsThenCountedOnce() {
+        IntStream.range(0, 10).forEach(i -> visitors.record(url.getUuid(), "10.0.0.1", agent));
+        visitors.record(url.getUuid(), "10.0.0.1", null);
+        visitors.record(url.getUuid(), "10.0.0.2", agent);
+        assertThat(visitors.estimate(url.getUuid())).isEqualTo(3L);
+    }
+
+    @Test
+    void whenFlushedThenSketchPersisted() {
+        IntStream.range(0, 100).forEach(i -> visitors.record(url.getUuid(), "10.0.0." + i, agent));
+        visitors.flush();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM url_visitor_sketches WHERE url_uuid = ?",
+                Long.class, url.getUuid())).isEqualTo(1L);
+        assertThat(visitors.estimate(url.getUuid())).isCloseTo(100L, within(2L));
+    }
+
+    @Test
+    void whenFlushedSeveralTimesThenPendingMergedWithPersisted() {
+        IntStream.range(0, 50).forEach(i -> visitors.record(url.getUuid(), "10.0.0." + i, agent));
+        visitors.flush();
+        IntStream.range(25, 75).forEach(i -> visitors.record(url.getUuid(), "10.0.0." + i, agent));
+        assertThat(visitors.estimate(url.getUuid())).isCloseTo(75L, within(2L));
+        visitors.flush();
+        assertThat(visitors.estimate(url.getUuid())).isCloseTo(75L, within(2L));
+    }
+
+    @Test
+    void whenUrlDeletedThenSketchNotPersisted() {
+        UUID unknown = UUID.randomUUID();
+        visitors.record(unknown, "10.0.0.1", agent);
+        visitors.flush();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM url_visitor_sketches WHERE url_uuid = ?",
+                Long.class, unknown)).isZero();
+        assertThat(visitors.estimate(unknown)).isZero();
+    }
+
+    @Test
+    void whenRecordDuringFlushThenNoVisitorsLost() throws InterruptedException {
+        int threads = 4;
+        int addresses = 5_000;
+        HyperLogLog expected = HyperLogLog.create(12);
+        IntStream.range(0, addresses)
+                .forEach(i -> expected.add(HyperLogLog.hash(address(i), agent)));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            int offset = i * addresses / threads;
+            executor.execute(() -> {
+                for (int j = 0; j < addresses; j++) {
+                    visitors.record(url.getUuid(), address((offset + j) % addresses), agent);
+                }
+                done.countDown();
+            });
+        }
+        while (done.getCount() > 0) {
+            visitors.flush();
+        }
+        executor.shutdown();
+        visitors.flush();
+        assertThat(visitors.estimate(url.getUuid())).isEqualTo(expected.estimate());
+    }
+
+    @Test
+    void whenMemoryBudgetExceededThenFlushedEarly() throws InterruptedException {
+        UniqueVisitorProperties properties = new UniqueVisitorProperties();
+        properties.setMaxMemory(1);
+        UniqueVisitorService service = new UniqueVisitorService(
+                properties, jdbcTemplate, transactionManager, new SimpleMeterRegistry());
+        try {
+            service.record(url.getUuid(), "10.0.0.1", agent);
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (persisted() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(persisted()).isOne();
+            assertThat(service.estimate(url.getUuid())).isOne();
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void whenNoVisitsThenZero() {
+        assertThat(visitors.estimate(url.getUuid())).isZero();
+    }
+
+    private long persisted() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM url_visitor_sketches WHERE url_uuid = ?",
+                Long.class, url.getUuid());
+    }
+
+    private static String address(int i) {
+        return "10.0." + (i >> 8) + "." + (i & 0xFF);
+    }
+}
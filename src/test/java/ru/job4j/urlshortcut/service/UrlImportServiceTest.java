@@ -0,0 +1,137 @@
+package ru.job4j.urlshortcut.service;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.job4j.urlshortcut.configuration.UrlImportProperties;
+import ru.job4j.urlshortcut.model.DataFormat;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.model.UrlImportProgress;
+import ru.job4j.urlshortcut.model.UrlRegistrationResult;
+
+import javax.validation.Validation;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class UrlImportServiceTest {
+
+    @MockBean
+    private UrlService urlService;
+    @MockBean
+    private Principal principal;
+    private UrlImportService importService;
+    private final Map<Long, UrlRegistrationResult> rejected = new TreeMap<>();
+    private final List<UrlImportProgress> progress = new ArrayList<>();
+    private final List<List<Url>> chunks = new ArrayList<>();
+
+    private final UrlImportService.Listener listener = new UrlImportService.Listener() {
+        @Override
+        public void rejected(long line, UrlRegistrationResult result) {
+            rejected.put(line, result);
+        }
+
+        @Override
+        public void progress(UrlImportProgress current) {
+            progress.add(current);
+        }
+    };
+
+    @BeforeEach
+    void beforeEach() {
+        UrlImportProperties properties = new UrlImportProperties();
+        properties.setChunkSize(2);
+        properties.setMaxRowLength(200);
+        importService = new UrlImportService(urlService,
+                new UrlRegistrationValidator(
+                        Validation.buildDefaultValidatorFactory().getValidator()),
+                JsonMapper.builder().build(), properties);
+        when(urlService.createAll(any(), any())).thenAnswer(invocation -> {
+            List<Url> urls = invocation.getArgument(0);
+            chunks.add(List.copyOf(urls));
+            return urls.stream().map(url -> url.getUrl().toString().endsWith("/taken")
+                    ? UrlRegistrationResult.conflict("URL already registered")
+                    : UrlRegistrationResult.created(url)).toList();
+        });
+    }
+
+    @Test
+    void whenNdjsonImportedThenSavedByChunksAndErrorsReportedByLine() throws IOException {
+        Reader input = new StringReader("""
+                {"url": "https://example.com/a", "expiration": 3600}
+                {"url": "https://example.com/taken"}
+
+                {"url": "https://example.com/b", "expiration": -1}
+                not a json
+                {"url": "https://example.com/c", "redirectPolicy": "PERMANENT"}
+                """);
+        UrlImportProgress actual =
+                importService.importUrls(input, DataFormat.NDJSON, principal, listener);
+        assertThat(actual).isEqualTo(new UrlImportProgress(5, 2, 1, 2, true));
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(1).get(0).getRedirectPolicy()).isEqualTo(RedirectPolicy.PERMANENT);
+        assertThat(rejected.keySet()).containsExactly(2L, 4L, 5L);
+        assertThat(rejected.get(2L).outcome()).isEqualTo(UrlRegistrationResult.Outcome.CONFLICT);
+        assertThat(rejected.get(4L).outcome()).isEqualTo(UrlRegistrationResult.Outcome.INVALID);
+        assertThat(progress).containsExactly(
+                new UrlImportProgress(2, 1, 1, 0, false), actual);
+    }
+
+    @Test
+    void whenCsvImportedThenColumnsMatchedByHeader() throws IOException {
+        Reader input = new StringReader("""
+                description,URL,expiration
+                "Say ""hi""\",https://example.com/a,60
+                ,https://example.com/b,
+                ,https://example.com/c,soon
+                ,"https://example.com/d
+                """);
+        UrlImportProgress actual =
+                importService.importUrls(input, DataFormat.CSV, principal, listener);
+        assertThat(actual).isEqualTo(new UrlImportProgress(4, 2, 0, 2, true));
+        assertThat(chunks).hasSize(1);
+        Url first = chunks.get(0).get(0);
+        assertThat(first.getDescription()).isEqualTo("Say \"hi\"");
+        assertThat(first.getExpired()).isEqualTo(first.getCreated().plusSeconds(60));
+        assertThat(chunks.get(0).get(1).getDescription()).isNull();
+        assertThat(rejected.keySet()).containsExactly(4L, 5L);
+    }
+
+    @Test
+    void whenRowTooLongThenRejected() throws IOException {
+        Reader input = new StringReader("{\"url\": \"https://example.com/" + "x".repeat(300)
+                + "\"}\n{\"url\": \"https://example.com/a\"}\n");
+        UrlImportProgress actual =
+                importService.importUrls(input, DataFormat.NDJSON, principal, listener);
+        assertThat(actual).isEqualTo(new UrlImportProgress(2, 1, 0, 1, true));
+        assertThat(rejected.get(1L).message()).contains("200");
+        verify(urlService, times(1)).createAll(any(), any());
+    }
+
+    @Test
+    void whenCsvHeaderWithoutUrlThenGetException() {
+        Reader input = new StringReader("link,expiration\nhttps://example.com/a,60\n");
+        assertThatThrownBy(() ->
+                importService.importUrls(input, DataFormat.CSV, principal, listener))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(urlService);
+    }
+}
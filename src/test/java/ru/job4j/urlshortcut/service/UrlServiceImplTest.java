@@ -1,29 +1,61 @@
 package ru.job4j.urlshortcut.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.job4j.urlshortcut.configuration.AccessLogProperties;
+import ru.job4j.urlshortcut.configuration.HotUrlProperties;
+import ru.job4j.urlshortcut.configuration.NegativeLookupFilterProperties;
+import ru.job4j.urlshortcut.configuration.RedirectCacheProperties;
+import ru.job4j.urlshortcut.dto.UrlVisitsDto;
+import ru.job4j.urlshortcut.model.HotUrl;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+import ru.job4j.urlshortcut.model.RedirectTarget;
 import ru.job4j.urlshortcut.model.Server;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
 import ru.job4j.urlshortcut.model.Status;
+import ru.job4j.urlshortcut.model.TopWindow;
 import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.model.UrlFilter;
+import ru.job4j.urlshortcut.model.UrlPage;
+import ru.job4j.urlshortcut.model.UrlRegistrationResult;
 import ru.job4j.urlshortcut.repository.UrlAccessRecordRepository;
 import ru.job4j.urlshortcut.repository.UrlRepository;
 import ru.job4j.urlshortcut.util.AccessForbiddenException;
 import ru.job4j.urlshortcut.util.EntityNotFoundException;
+import ru.job4j.urlshortcut.util.PageCursor;
+import ru.job4j.urlshortcut.util.UrlDigest;
 
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.security.Principal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(SpringExtension.class)
@@ -36,26 +68,53 @@ class UrlServiceImplTest {
     @MockBean
     private ServerService serverService;
     @MockBean
+    private VisitCounterService counters;
+    @MockBean
+    private ShortCodeAllocator codeAllocator;
+    @MockBean
+    private VisitRollupService rollups;
+    @MockBean
+    private UniqueVisitorService visitors;
+    @MockBean
+    private JdbcTemplate jdbcTemplate;
+    @MockBean
     private Principal principal;
+    private RedirectCache cache;
+    private NegativeLookupFilter filter;
+    private HotUrlTracker hotUrls;
+    private SimpleMeterRegistry registry;
     private UrlService urlService;
 
     private final UUID uuid = UUID.randomUUID();
     private final UUID serverUuid = UUID.randomUUID();
     private final String host = "example.com";
     private final String password = "password";
-    private final URL path = new URL("https://" + host + "/path");
+    private final ShortcutTarget path = ShortcutTarget.parse("https://" + host + "/path");
     private final LocalDateTime time = LocalDateTime.now();
     private final Status status = Status.REGISTERED;
+    private final RedirectPolicy policy = RedirectPolicy.COUNTED;
     private final Server server = new Server(serverUuid, host, password, time, time, status, null);
-    private final Url url = new Url(null, null, path, time, time, status, null);
-    private final Url urlWithId = new Url(uuid, serverUuid, path, time, time, status, null);
-
-    UrlServiceImplTest() throws MalformedURLException { }
+    private final Url url = new Url(null, null, null, path, time, time, status, null, policy);
+    private final Url urlWithId =
+            new Url(uuid, null, serverUuid, path, time, time, status, null, policy);
+    private final String code = "4c92Ab";
+    private final Url urlActive =
+            new Url(uuid, code, serverUuid, path, time, time.plusDays(1), status, null, policy);
 
     @BeforeEach
     void beforeEach() {
-        urlService = new UrlServiceImpl(serverService, repository, logRepository);
-
+        registry = new SimpleMeterRegistry();
+        cache = new RedirectCache(new RedirectCacheProperties(), registry);
+        AccessLogWriter accessLog =
+                new AccessLogWriter(new AccessLogProperties(), logRepository, registry);
+        NegativeLookupFilterProperties filterProperties = new NegativeLookupFilterProperties();
+        filterProperties.setSingleNode(true);
+        filter = new NegativeLookupFilter(
+                filterProperties, jdbcTemplate, codeAllocator, registry);
+        hotUrls = new HotUrlTracker(new HotUrlProperties(), registry);
+        urlService = new UrlServiceImpl(serverService, repository, cache, accessLog, counters,
+                codeAllocator, filter, new LookupCoalescer(registry), rollups,
+                visitors, hotUrls);
     }
 
     @Test
@@ -78,6 +137,104 @@ class UrlServiceImplTest {
 
     }
 
+    @Test
+    void whenCreateAllThenServerResolvedOnceAndBatchSaved() {
+        List<Url> urls = batch("/a", "/b", "/c");
+        when(serverService.getByHost(host)).thenReturn(server);
+        when(principal.getName()).thenReturn(host);
+        when(codeAllocator.next()).thenReturn("a1", "a2", "a3");
+        when(repository.saveAll(any()))
+                .thenAnswer(invocation -> persist(invocation.getArgument(0)));
+        List<UrlRegistrationResult> actual = urlService.createAll(urls, principal);
+        assertThat(actual).extracting(UrlRegistrationResult::outcome)
+                .containsOnly(UrlRegistrationResult.Outcome.CREATED);
+        assertThat(actual).extracting(result -> result.url().getServerUuid())
+                .containsOnly(serverUuid);
+        assertThat(cache.getByCode("a2")).isNotNull();
+        verify(serverService, times(1)).getByHost(host);
+        verify(repository, times(1)).saveAll(any());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void whenCreateAllWithRejectedThenOthersCreated() {
+        List<Url> urls = batch("/a", "/b", "/a", "/c");
+        urls.add(new Url(null, null, null, ShortcutTarget.parse("https://other.com/path"),
+                time, time, status, null, policy));
+        when(serverService.getByHost(host)).thenReturn(server);
+        when(principal.getName()).thenReturn(host);
+        when(codeAllocator.next()).thenReturn("a1", "a2");
+        when(repository.findRegisteredUrls(any())).thenReturn(List.of(urls.get(1).getUrl()));
+        when(repository.saveAll(any()))
+                .thenAnswer(invocation -> persist(invocation.getArgument(0)));
+        List<UrlRegistrationResult> actual = urlService.createAll(urls, principal);
+        assertThat(actual).extracting(UrlRegistrationResult::outcome).containsExactly(
+                UrlRegistrationResult.Outcome.CREATED,
+                UrlRegistrationResult.Outcome.CONFLICT,
+                UrlRegistrationResult.Outcome.CONFLICT,
+                UrlRegistrationResult.Outcome.CREATED,
+                UrlRegistrationResult.Outcome.INVALID);
+        assertThat(actual.get(3).url().getUrl()).isEqualTo(urls.get(3).getUrl());
+    }
+
+    @Test
+    void whenCreateAllWithEquivalentUrlsThenRepeatedRejected() {
+        List<Url> urls = batch("/a", "/b");
+        urls.add(new Url(null, null, null, ShortcutTarget.parse("HTTPS://" + host + ":443/a"),
+                time, time, status, null, policy));
+        when(serverService.getByHost(host)).thenReturn(server);
+        when(principal.getName()).thenReturn(host);
+        when(codeAllocator.next()).thenReturn("a1", "a2");
+        when(repository.findRegisteredUrls(any()))
+                .thenReturn(List.of(ShortcutTarget.parse("https://" + host.toUpperCase() + "/b")));
+        when(repository.saveAll(any()))
+                .thenAnswer(invocation -> persist(invocation.getArgument(0)));
+        List<UrlRegistrationResult> actual = urlService.createAll(urls, principal);
+        assertThat(actual).extracting(UrlRegistrationResult::outcome).containsExactly(
+                UrlRegistrationResult.Outcome.CREATED,
+                UrlRegistrationResult.Outcome.CONFLICT,
+                UrlRegistrationResult.Outcome.CONFLICT);
+        assertThat(actual.get(1).message()).contains("already registered");
+        assertThat(actual.get(2).message()).contains("repeated in the batch");
+    }
+
+    @Test
+    void whenFindIdByUrlThenLookedUpByDigest() {
+        ShortcutTarget path = ShortcutTarget.parse("https://" + host + "/a");
+        UUID uuid = UUID.randomUUID();
+        when(repository.findUuidByDigest(UrlDigest.of(path))).thenReturn(Optional.of(uuid));
+        assertThat(urlService.findIdByUrl(
+                ShortcutTarget.parse("https://" + host.toUpperCase() + "/a"))).contains(uuid);
+        assertThat(urlService.findIdByUrl(
+                ShortcutTarget.parse("https://" + host + "/b"))).isEmpty();
+    }
+
+    @Test
+    void whenCreateAllConflictsConcurrentlyThenSavedOneByOne() {
+        List<Url> urls = batch("/a", "/b");
+        when(serverService.getByHost(host)).thenReturn(server);
+        when(principal.getName()).thenReturn(host);
+        when(codeAllocator.next()).thenReturn("a1", "a2");
+        when(repository.saveAll(any())).thenThrow(DataIntegrityViolationException.class);
+        when(repository.save(any()))
+                .thenAnswer(invocation -> persist(List.of((Url) invocation.getArgument(0))).get(0))
+                .thenThrow(DataIntegrityViolationException.class);
+        List<UrlRegistrationResult> actual = urlService.createAll(urls, principal);
+        assertThat(actual).extracting(UrlRegistrationResult::outcome).containsExactly(
+                UrlRegistrationResult.Outcome.CREATED,
+                UrlRegistrationResult.Outcome.CONFLICT);
+        verify(repository, times(2)).save(any());
+    }
+
+    @Test
+    void whenCreateAllOfOtherHostThenServerNotResolved() {
+        when(principal.getName()).thenReturn("other.com");
+        List<UrlRegistrationResult> actual = urlService.createAll(batch("/a"), principal);
+        assertThat(actual).extracting(UrlRegistrationResult::outcome)
+                .containsExactly(UrlRegistrationResult.Outcome.INVALID);
+        verifyNoInteractions(serverService, repository);
+    }
+
     @Test
     void whenCreateNewInstanceWithIncorrectPrincipalThenGetException() {
         when(serverService.getByHost(host)).thenReturn(server);
@@ -100,6 +257,187 @@ class UrlServiceImplTest {
                 .isInstanceOf(EntityNotFoundException.class);
     }
 
+    @Test
+    void whenFindTargetByIdAndLogTwiceThenSecondServedFromCacheAndLogged() {
+        when(repository.findByIdAndLog(uuid)).thenReturn(Optional.of(urlActive));
+        RedirectTarget first = urlService.findTargetByIdAndLog(uuid).orElseThrow();
+        RedirectTarget second = urlService.findTargetByIdAndLog(uuid).orElseThrow();
+        assertThat(first.location()).isEqualTo(path.toString());
+        assertThat(second).isEqualTo(first);
+        verify(repository, times(1)).findByIdAndLog(uuid);
+        verify(logRepository, times(1)).logAccess(uuid);
+        verify(counters, times(2)).increment(uuid);
+        assertThat(cache.stats().hitCount()).isOne();
+        assertThat(cache.stats().missCount()).isOne();
+    }
+
+    @Test
+    void whenFindTargetByIdAndLogByIncorrectIdThenGetEmpty() {
+        when(repository.findByIdAndLog(uuid)).thenReturn(Optional.empty());
+        assertThat(urlService.findTargetByIdAndLog(uuid)).isEmpty();
+        assertThat(cache.get(uuid)).isNull();
+        verify(counters, never()).increment(uuid);
+    }
+
+    @Test
+    void whenCreateThenCodeAssignedAndTargetCached() {
+        when(serverService.getByHost(host)).thenReturn(server);
+        when(principal.getName()).thenReturn(host);
+        when(codeAllocator.next()).thenReturn(code);
+        when(repository.save(url)).thenReturn(urlActive);
+        urlService.create(url, principal);
+        assertThat(url.getCode()).isEqualTo(code);
+        assertThat(cache.get(uuid)).isEqualTo(RedirectTarget.of(urlActive));
+        assertThat(cache.getByCode(code)).isEqualTo(RedirectTarget.of(urlActive));
+    }
+
+    @Test
+    void whenFindTargetByCodeAndLogTwiceThenSecondServedFromCacheAndBothLogged() {
+        when(repository.findByCode(code)).thenReturn(Optional.of(urlActive));
+        RedirectTarget first = urlService.findTargetByCodeAndLog(code).orElseThrow();
+        RedirectTarget second = urlService.findTargetByCodeAndLog(code).orElseThrow();
+        assertThat(first.uuid()).isEqualTo(uuid);
+        assertThat(second).isEqualTo(first);
+        verify(repository, times(1)).findByCode(code);
+        verify(logRepository, times(2)).logAccess(uuid);
+        verify(counters, times(2)).increment(uuid);
+    }
+
+    @Test
+    void whenFindTargetAndLogThenServerTopUpdated() {
+        when(repository.findByIdAndLog(uuid)).thenReturn(Optional.of(urlActive));
+        urlService.findTargetByIdAndLog(uuid);
+        urlService.findTargetByIdAndLog(uuid);
+        urlService.findTargetByCodeAndLog(code);
+        assertThat(urlService.getServerTopUrls(serverUuid, TopWindow.FIVE_MINUTES, 10))
+                .containsExactly(new HotUrl(uuid, 3L, 0L));
+    }
+
+    @Test
+    void whenFindTargetByIncorrectCodeThenGetEmpty() {
+        when(repository.findByCode(code)).thenReturn(Optional.empty());
+        assertThat(urlService.findTargetByCodeAndLog(code)).isEmpty();
+        verifyNoInteractions(logRepository, counters);
+    }
+
+    @Test
+    void whenFilterBuiltThenUnknownKeysRejectedWithoutLookup() {
+        when(jdbcTemplate.queryForObject(anyString(), any(Class.class))).thenReturn(0L);
+        filter.rebuild();
+        assertThat(urlService.findTargetByIdAndLog(uuid)).isEmpty();
+        assertThat(urlService.findTargetByCodeAndLog(code)).isEmpty();
+        verifyNoInteractions(repository, logRepository, counters);
+    }
+
+    @Test
+    void whenFilterBuiltAndUrlCreatedThenKeysFound() {
+        when(jdbcTemplate.queryForObject(anyString(), any(Class.class))).thenReturn(0L);
+        filter.rebuild();
+        when(serverService.getByHost(host)).thenReturn(server);
+        when(principal.getName()).thenReturn(host);
+        when(codeAllocator.next()).thenReturn(code);
+        when(repository.save(url)).thenReturn(urlActive);
+        urlService.create(url, principal);
+        cache.evict(uuid, code);
+        when(repository.findByIdAndLog(uuid)).thenReturn(Optional.of(urlActive));
+        when(repository.findByCode(code)).thenReturn(Optional.of(urlActive));
+        assertThat(urlService.findTargetByIdAndLog(uuid)).isPresent();
+        cache.evict(uuid, code);
+        assertThat(urlService.findTargetByCodeAndLog(code)).isPresent();
+    }
+
+    @Test
+    void whenConcurrentMissesOfSameUrlThenOneQueryAndEachVisitLogged() throws Exception {
+        int threads = 16;
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findByIdAndLog(uuid)).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return Optional.of(urlActive);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Url>> results = IntStream.range(0, threads)
+                .mapToObj(i -> executor.submit(() -> urlService.getByIdAndLog(uuid))).toList();
+        Counter coalesced = registry.get("url.lookup.coalesced").counter();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (coalesced.count() < threads - 1 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        for (Future<Url> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(urlActive);
+        }
+        executor.shutdown();
+        assertThat(coalesced.count()).isEqualTo(threads - 1);
+        verify(repository, times(1)).findByIdAndLog(uuid);
+        verify(logRepository, times(threads - 1)).logAccess(uuid);
+        verify(counters, times(threads)).increment(uuid);
+    }
+
+    @Test
+    void whenCoalescedLookupFailsThenAllWaitersGetException() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findByIdAndLog(uuid)).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            throw new IllegalStateException();
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Url> leader = executor.submit(() -> urlService.getByIdAndLog(uuid));
+        Future<Url> follower = executor.submit(() -> urlService.getByIdAndLog(uuid));
+        Counter coalesced = registry.get("url.lookup.coalesced").counter();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (coalesced.count() < 1 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        assertThatThrownBy(() -> leader.get(10, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> follower.get(10, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+        executor.shutdown();
+        verify(repository, times(1)).findByIdAndLog(uuid);
+        verifyNoInteractions(logRepository, counters);
+    }
+
+    @Test
+    void whenDeleteThenTargetEvicted() {
+        cache.put(RedirectTarget.of(urlActive));
+        when(principal.getName()).thenReturn(host);
+        when(repository.findById(uuid)).thenReturn(Optional.of(urlActive));
+        when(repository.deleteByUuid(uuid)).thenReturn(1);
+        urlService.deleteByIdAndPrincipal(uuid, principal);
+        assertThat(cache.get(uuid)).isNull();
+        assertThat(cache.getByCode(code)).isNull();
+        verify(counters).remove(uuid);
+    }
+
+    @Test
+    void whenDeleteInTransactionThenTargetEvictedOnlyAfterCommit() {
+        cache.put(RedirectTarget.of(urlActive));
+        when(principal.getName()).thenReturn(host);
+        when(repository.findById(uuid)).thenReturn(Optional.of(urlActive));
+        when(repository.deleteByUuid(uuid)).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            urlService.deleteByIdAndPrincipal(uuid, principal);
+            assertThat(cache.get(uuid)).isNotNull();
+            verify(counters, never()).remove(uuid);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(cache.get(uuid)).isNull();
+        assertThat(cache.getByCode(code)).isNull();
+        verify(counters).remove(uuid);
+    }
+
+    @Test
+    void whenGetUrlVisitsCountThenReadFromCounters() {
+        when(counters.get(uuid)).thenReturn(5L);
+        assertThat(urlService.getUrlVisitsCount(uuid)).isEqualTo(5L);
+        verify(logRepository, times(0)).countByUrlUuid(uuid);
+    }
+
     @Test
     void whenGetAllByServerIdExistingThenGetList() {
         List<Url> expected = List.of(urlWithId);
@@ -107,6 +445,44 @@ class UrlServiceImplTest {
         assertThat(urlService.getAllByServerId(serverUuid)).isEqualTo(expected);
     }
 
+    @Test
+    void whenGetPageAndMoreFoundThenNextCursorPointsToLastOfPage() {
+        Url other = new Url(UUID.randomUUID(), code, serverUuid, path, time.plusSeconds(1),
+                time, status, null, policy);
+        when(repository.findPageByServerUuid(eq(serverUuid), eq(UrlFilter.ANY), eq(null),
+                any(), eq(2))).thenReturn(List.of(urlWithId, other));
+        UrlPage page = urlService.getPageByServerId(serverUuid, UrlFilter.ANY, null, 1);
+        assertThat(page.urls()).containsExactly(urlWithId);
+        assertThat(page.next()).isEqualTo(new PageCursor(time, uuid));
+    }
+
+    @Test
+    void whenGetPageAndNoMoreFoundThenNoNextCursor() {
+        when(repository.findPageByServerUuid(eq(serverUuid), eq(UrlFilter.ANY), eq(null),
+                any(), eq(3))).thenReturn(List.of(urlWithId));
+        UrlPage page = urlService.getPageByServerId(serverUuid, UrlFilter.ANY, null, 2);
+        assertThat(page.urls()).containsExactly(urlWithId);
+        assertThat(page.next()).isNull();
+    }
+
+    @Test
+    void whenGetPageWithLimitOutOfRangeThenGetException() {
+        assertThatThrownBy(() -> urlService.getPageByServerId(serverUuid, UrlFilter.ANY, null,
+                UrlServiceImpl.MAX_PAGE_SIZE + 1)).isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void whenGetAllWithVisitsByServerIdThenNotFlushedVisitsAdded() {
+        UrlVisitsDto persisted = new UrlVisitsDto(uuid, code, serverUuid, path, time, time,
+                status, null, policy, 5L);
+        when(repository.findAllWithVisitsByServerUuid(serverUuid)).thenReturn(List.of(persisted));
+        when(counters.pending(uuid)).thenReturn(2L);
+        assertThat(urlService.getAllWithVisitsByServerId(serverUuid))
+                .extracting(UrlVisitsDto::visited).containsExactly(7L);
+        verify(counters, never()).get(uuid);
+    }
+
     @Test
     void whenGetAllByServerIdNotExistingThenGetEmptyList() {
         when(repository.findAllByServerUuid(serverUuid)).thenReturn(List.of());
@@ -136,4 +512,18 @@ class UrlServiceImplTest {
         assertThatThrownBy(() -> urlService.deleteByIdAndPrincipal(uuid, principal))
                 .isInstanceOf(AccessForbiddenException.class);
     }
+
+    private List<Url> batch(String... paths) {
+        List<Url> urls = new ArrayList<>();
+        for (String item : paths) {
+            urls.add(new Url(null, null, null, ShortcutTarget.parse("https://" + host + item),
+                    time, time.plusDays(1), status, null, policy));
+        }
+        return urls;
+    }
+
+    private static List<Url> persist(List<Url> urls) {
+        urls.forEach(item -> item.setUuid(UUID.randomUUID()));
+        return urls;
+    }
 }
@@ -0,0 +1,146 @@
+package ru.job4j.urlshortcut.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+import ru.job4j.urlshortcut.model.Server;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+import ru.job4j.urlshortcut.model.Status;
+import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.repository.ServerRepository;
+import ru.job4j.urlshortcut.repository.UrlAccessRecordRepository;
+import ru.job4j.urlshortcut.repository.UrlRepository;
+import ru.job4j.urlshortcut.repository.UrlVisitCounterRepository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(VisitCounterService.class)
+@TestPropertySource(properties = "ru.job4j.urlshortcut.access-log.retention-days=30")
+class VisitCounterServiceTest {
+
+    private final String host = "example.com";
+    private final String password = "password";
+    private final Status status = Status.REGISTERED;
+    private final RedirectPolicy policy = RedirectPolicy.COUNTED;
+    private final LocalDateTime time = LocalDateTime.now();
+    private Server server;
+    private Url url;
+
+    @Autowired
+    private ServerRepository serverRepository;
+    @Autowired
+    private UrlRepository urlRepository;
+    @Autowired
+    private UrlAccessRecordRepository recordRepository;
+    @Autowired
+    private UrlVisitCounterRepository counterRepository;
+    @Autowired
+    private VisitCounterService counters;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void beforeEach() {
+        server = serverRepository.save(new Server(null, host, password,
+                time, time, status, null));
+        url = urlRepository.saveAndFlush(new Url(null, null, server.getUuid(),
+                ShortcutTarget.parse("https://" + host + "/path"),
+                time, time, status, null, policy));
+    }
+
+    @Test
+    void whenNoVisitsThenZero() {
+        assertThat(counters.get(url.getUuid())).isZero();
+    }
+
+    @Test
+    void whenIncrementThenCountedBeforeAndAfterFlush() {
+        counters.increment(url.getUuid());
+        counters.increment(url.getUuid());
+        assertThat(counters.get(url.getUuid())).isEqualTo(2);
+        counters.flush();
+        assertThat(counterRepository.findVisitsByUrlUuid(url.getUuid())).contains(2L);
+        assertThat(counters.get(url.getUuid())).isEqualTo(2);
+    }
+
+    @Test
+    void whenFlushTwiceThenVisitsAdded() {
+        counters.increment(url.getUuid());
+        counters.flush();
+        counters.increment(url.getUuid());
+        counters.increment(url.getUuid());
+        counters.flush();
+        counters.flush();
+        assertThat(counterRepository.findVisitsByUrlUuid(url.getUuid())).contains(3L);
+    }
+
+    @Test
+    void whenIncrementDuringFlushThenNoVisitsLost() throws InterruptedException {
+        int threads = 4;
+        int visits = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < visits; j++) {
+                    counters.increment(url.getUuid());
+                }
+                done.countDown();
+            });
+        }
+        while (done.getCount() > 0) {
+            counters.flush();
+        }
+        executor.shutdown();
+        counters.flush();
+        assertThat(counterRepository.findVisitsByUrlUuid(url.getUuid()))
+                .contains((long) threads * visits);
+        assertThat(counters.pending(url.getUuid())).isZero();
+    }
+
+    @Test
+    void whenFlushNotExistingUrlThenSkipped() {
+        UUID unknown = UUID.randomUUID();
+        counters.increment(unknown);
+        counters.flush();
+        assertThat(counterRepository.findVisitsByUrlUuid(unknown)).isEmpty();
+    }
+
+    @Test
+    void whenCounterMatchesLogThenConsistent() {
+        recordRepository.logAccess(url.getUuid());
+        counters.increment(url.getUuid());
+        counters.flush();
+        assertThat(counters.check(url.getUuid()).isConsistent()).isTrue();
+        counters.increment(url.getUuid());
+        assertThat(counters.check(url.getUuid()).isConsistent()).isFalse();
+    }
+
+    @Test
+    void whenUrlOlderThanRetentionThenLogOnlyNotGreaterThanCounter() {
+        Url old = urlRepository.saveAndFlush(new Url(null, null, server.getUuid(),
+                ShortcutTarget.parse("https://" + host + "/old"),
+                time, time, status, null, policy));
+        jdbcTemplate.update("UPDATE urls SET created = ? WHERE url_uuid = ?",
+                time.minusDays(60), old.getUuid());
+        recordRepository.logAccess(old.getUuid());
+        assertThat(counters.check(old.getUuid()).complete()).isFalse();
+        assertThat(counters.check(old.getUuid()).isConsistent()).isFalse();
+        counters.increment(old.getUuid());
+        counters.increment(old.getUuid());
+        assertThat(counters.check(old.getUuid()).isConsistent()).isTrue();
+        assertThat(counters.check(url.getUuid()).complete()).isTrue();
+    }
+}
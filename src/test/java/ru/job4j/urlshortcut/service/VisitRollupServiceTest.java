@@ -0,0 +1,139 @@
+package ru.job4j.urlshortcut.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.job4j.urlshortcut.model.Granularity;
+import ru.job4j.urlshortcut.model.RedirectPolicy;
+import ru.job4j.urlshortcut.model.Server;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+import ru.job4j.urlshortcut.model.Status;
+import ru.job4j.urlshortcut.model.Url;
+import ru.job4j.urlshortcut.model.VisitBucket;
+import ru.job4j.urlshortcut.repository.ServerRepository;
+import ru.job4j.urlshortcut.repository.UrlRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import({VisitRollupService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class VisitRollupServiceTest {
+
+    private final String host = UUID.randomUUID() + ".example.com";
+    private final String password = "password";
+    private final Status status = Status.REGISTERED;
+    private final RedirectPolicy policy = RedirectPolicy.COUNTED;
+    private final LocalDateTime time = LocalDateTime.now();
+    private final LocalDateTime today = time.truncatedTo(ChronoUnit.DAYS);
+    private Server server;
+    private Url url;
+
+    @Autowired
+    private ServerRepository serverRepository;
+    @Autowired
+    private UrlRepository urlRepository;
+    @Autowired
+    private VisitRollupService rollups;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void beforeEach() {
+        server = serverRepository.save(new Server(null, host, password, time, time, status, null));
+        url = urlRepository.save(new Url(null, null, server.getUuid(),
+                ShortcutTarget.parse("https://" + host + "/path"),
+                time, time, status, null, policy));
+    }
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.update("DELETE FROM url_access_log WHERE url_uuid = ?", url.getUuid());
+        urlRepository.deleteById(url.getUuid());
+        serverRepository.deleteById(server.getUuid());
+        jdbcTemplate.update("UPDATE visit_rollup_watermarks SET processed_until = NULL");
+    }
+
+    @Test
+    void whenPastDaysNotAggregatedThenBackfilled() {
+        LocalDateTime day = today.minusDays(3);
+        log(day.plusHours(10).plusMinutes(15));
+        log(day.plusHours(10).plusMinutes(15));
+        log(day.plusHours(10).plusMinutes(45));
+        log(day.plusDays(1).plusHours(23).plusMinutes(59));
+        aggregate();
+        assertThat(rollups.urlSeries(url.getUuid(), Granularity.HOUR,
+                day.plusHours(9), day.plusHours(12))).containsExactly(
+                new VisitBucket(day.plusHours(9), 0L),
+                new VisitBucket(day.plusHours(10), 3L),
+                new VisitBucket(day.plusHours(11), 0L));
+        assertThat(rollups.urlSeries(url.getUuid(), Granularity.DAY, day, day.plusDays(3)))
+                .extracting(VisitBucket::visits).containsExactly(3L, 1L, 0L);
+        assertThat(rollups.serverSeries(server.getUuid(), Granularity.DAY, day, day.plusDays(3)))
+                .extracting(VisitBucket::visits).containsExactly(3L, 1L, 0L);
+    }
+
+    @Test
+    void whenAggregatedAgainThenRecordsNotCountedTwice() {
+        LocalDateTime visit = time.minusMinutes(5);
+        jdbcTemplate.update("UPDATE visit_rollup_watermarks SET processed_until = ?",
+                time.minusMinutes(10));
+        log(visit);
+        aggregate();
+        aggregate();
+        aggregate();
+        assertThat(rollups.urlSeries(url.getUuid(), Granularity.HOUR, visit, visit.plusNanos(1)))
+                .extracting(VisitBucket::visits).containsExactly(1L);
+        assertThat(rollups.serverSeries(server.getUuid(), Granularity.DAY, visit,
+                visit.plusNanos(1))).extracting(VisitBucket::visits).containsExactly(1L);
+    }
+
+    @Test
+    void whenRecordIsNewerThanLagThenNotAggregatedYet() {
+        jdbcTemplate.update("UPDATE visit_rollup_watermarks SET processed_until = ?",
+                time.minusMinutes(10));
+        log(time);
+        aggregate();
+        assertThat(rollups.urlSeries(url.getUuid(), Granularity.DAY, today, today.plusDays(1)))
+                .extracting(VisitBucket::visits).containsExactly(0L);
+    }
+
+    @Test
+    void whenNoVisitsThenEmptyBucketsReturned() {
+        assertThat(rollups.urlSeries(url.getUuid(), Granularity.HOUR, today, today.plusDays(1)))
+                .hasSize(24).allMatch(bucket -> bucket.visits() == 0L);
+    }
+
+    @Test
+    void whenRangeIsEmptyThenException() {
+        assertThatThrownBy(() -> rollups.urlSeries(url.getUuid(), Granularity.DAY,
+                today, today)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void whenRangeHasTooManyBucketsThenException() {
+        assertThatThrownBy(() -> rollups.urlSeries(url.getUuid(), Granularity.HOUR,
+                today.minusYears(1), today)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void log(LocalDateTime timestamp) {
+        jdbcTemplate.update("INSERT INTO url_access_log(url_uuid, timestamp) VALUES (?, ?)",
+                url.getUuid(), timestamp);
+    }
+
+    private void aggregate() {
+        rollups.aggregate().join();
+    }
+}
@@ -0,0 +1,43 @@
+package ru.job4j.urlshortcut.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class Base62Test {
+
+    @Test
+    void whenEncodeThenGetBase62String() {
+        assertThat(Base62.encode(0)).isEqualTo("0");
+        assertThat(Base62.encode(61)).isEqualTo("z");
+        assertThat(Base62.encode(62)).isEqualTo("10");
+        assertThat(Base62.encode(916_132_832L)).isEqualTo("100000");
+        assertThat(Base62.encode(Long.MAX_VALUE)).hasSize(11);
+    }
+
+    @Test
+    void whenEncodeNegativeThenGetException() {
+        assertThatThrownBy(() -> Base62.encode(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void whenDecodeThenGetEncodedNumber() {
+        assertThat(Base62.decode("0")).isZero();
+        assertThat(Base62.decode("z")).isEqualTo(61);
+        assertThat(Base62.decode("100000")).isEqualTo(916_132_832L);
+        assertThat(Base62.decode(Base62.encode(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+        assertThat(Base62.decode("zzzzzzzzzzz")).isEqualTo(-1);
+        assertThat(Base62.decode("aZ-")).isEqualTo(-1);
+        assertThat(Base62.decode("")).isEqualTo(-1);
+    }
+
+    @Test
+    void whenIsValidThenCheckAlphabetAndLength() {
+        assertThat(Base62.isValid("aZ09zA", 6, 10)).isTrue();
+        assertThat(Base62.isValid("aZ09z", 6, 10)).isFalse();
+        assertThat(Base62.isValid("aZ09zA-", 6, 10)).isFalse();
+        assertThat(Base62.isValid("aZ09zAaZ09z", 6, 10)).isFalse();
+        assertThat(Base62.isValid(null, 6, 10)).isFalse();
+    }
+}
@@ -0,0 +1,47 @@
+package ru.job4j.urlshortcut.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+
+    @Test
+    void whenPutThenNoFalseNegatives() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01, 1024 * 1024);
+        List<UUID> keys = IntStream.range(0, 10_000).mapToObj(i -> UUID.randomUUID()).toList();
+        keys.forEach(filter::put);
+        keys.forEach(key -> filter.put(key.toString().substring(0, 8)));
+        assertThat(keys).allMatch(filter::mightContain)
+                .allMatch(key -> filter.mightContain(key.toString().substring(0, 8)));
+    }
+
+    @Test
+    void whenFilledToExpectedKeysThenFalsePositivesNearTarget() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01, 1024 * 1024);
+        IntStream.range(0, 10_000).forEach(i -> filter.put(UUID.randomUUID()));
+        long positives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain(UUID.randomUUID())).count();
+        assertThat(positives).isLessThan(2_000);
+        assertThat(filter.expectedFpp()).isBetween(0.005, 0.02);
+    }
+
+    @Test
+    void whenMemoryBudgetExceededThenSizeCapped() {
+        BloomFilter filter = BloomFilter.create(1_000_000, 0.01, 1024);
+        assertThat(filter.byteSize()).isEqualTo(1024);
+    }
+
+    @Test
+    void whenInvalidParametersThenGetException() {
+        assertThatThrownBy(() -> BloomFilter.create(0, 0.01, 1024))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BloomFilter.create(10, 1, 1024))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,46 @@
+package ru.job4j.urlshortcut.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedLineReaderTest {
+
+    @Test
+    void whenReadThenLinesWithoutTerminators() throws IOException {
+        BoundedLineReader reader =
+                new BoundedLineReader(new StringReader("first\r\n\nsecond\nthird"), 10);
+        assertThat(reader.readLine()).isEqualTo("first");
+        assertThat(reader.readLine()).isEmpty();
+        assertThat(reader.readLine()).isEqualTo("second");
+        assertThat(reader.readLine()).isEqualTo("third");
+        assertThat(reader.lineNumber()).isEqualTo(4L);
+        assertThat(reader.readLine()).isNull();
+    }
+
+    @Test
+    void whenLineTooLongThenTruncatedAndNextLineIntact() throws IOException {
+        String longLine = "x".repeat(20_000);
+        BoundedLineReader reader =
+                new BoundedLineReader(new StringReader("12345\r\n" + longLine + "\nnext\n"), 5);
+        assertThat(reader.readLine()).isEqualTo("12345");
+        assertThat(reader.isTruncated()).isFalse();
+        assertThat(reader.readLine()).isEqualTo("xxxxx");
+        assertThat(reader.isTruncated()).isTrue();
+        assertThat(reader.readLine()).isEqualTo("next");
+        assertThat(reader.isTruncated()).isFalse();
+        assertThat(reader.lineNumber()).isEqualTo(3L);
+        assertThat(reader.readLine()).isNull();
+    }
+
+    @Test
+    void whenEmptyInputThenNoLines() throws IOException {
+        assertThat(new BoundedLineReader(new StringReader(""), 5).readLine()).isNull();
+        assertThatThrownBy(() -> new BoundedLineReader(new StringReader(""), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,120 @@
+package ru.job4j.urlshortcut.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrentHyperLogLogTest {
+
+    @Test
+    void whenFewDistinctThenSparseAndSameAsHyperLogLog() {
+        ConcurrentHyperLogLog sketch = ConcurrentHyperLogLog.create(12);
+        HyperLogLog expected = HyperLogLog.create(12);
+        IntStream.range(0, 50).forEach(i -> {
+            assertThat(sketch.add(hash(i))).isFalse();
+            sketch.add(hash(i));
+            expected.add(hash(i));
+        });
+        assertThat(sketch.byteSize()).isEqualTo(512);
+        assertThat(sketch.snapshot().toBytes()).isEqualTo(expected.toBytes());
+    }
+
+    @Test
+    void whenSparseFullThenPromotedOnceToDense() {
+        ConcurrentHyperLogLog sketch = ConcurrentHyperLogLog.create(12);
+        HyperLogLog expected = HyperLogLog.create(12);
+        AtomicInteger promotions = new AtomicInteger();
+        IntStream.range(0, 10_000).forEach(i -> {
+            if (sketch.add(hash(i))) {
+                promotions.incrementAndGet();
+            }
+            expected.add(hash(i));
+        });
+        assertThat(promotions).hasValue(1);
+        assertThat(sketch.byteSize()).isEqualTo(512 + 4096);
+        assertThat(sketch.snapshot().toBytes()).isEqualTo(expected.toBytes());
+    }
+
+    @Test
+    void whenAddedConcurrentlyThenSameAsSequential() throws InterruptedException {
+        int threads = 8;
+        int hashes = 20_000;
+        ConcurrentHyperLogLog sketch = ConcurrentHyperLogLog.create(10);
+        HyperLogLog expected = HyperLogLog.create(10);
+        IntStream.range(0, hashes).forEach(i -> expected.add(hash(i)));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            int offset = i * hashes / threads;
+            executor.execute(() -> {
+                for (int j = 0; j < hashes; j++) {
+                    sketch.add(hash((offset + j) % hashes));
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        executor.shutdown();
+        assertThat(sketch.snapshot().toBytes()).isEqualTo(expected.toBytes());
+    }
+
+    @Test
+    void whenRanksRaisedConcurrentlyThenMaximalRankSurvives() throws InterruptedException {
+        int threads = 8;
+        int rounds = 2_000;
+        int precision = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int round = 0; round < rounds; round++) {
+            ConcurrentHyperLogLog sketch = ConcurrentHyperLogLog.create(precision);
+            sketch.merge(HyperLogLog.create(precision));
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int i = 0; i < threads; i++) {
+                long hash = 1L << (Long.SIZE - precision - 1 - (i + round) % threads);
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        sketch.add(hash);
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                    done.countDown();
+                });
+            }
+            start.countDown();
+            done.await();
+            assertThat(sketch.snapshot().toBytes()[1]).isEqualTo((byte) threads);
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void whenMergedThenSameAsUnion() {
+        ConcurrentHyperLogLog sketch = ConcurrentHyperLogLog.create(12);
+        HyperLogLog other = HyperLogLog.create(12);
+        HyperLogLog expected = HyperLogLog.create(12);
+        IntStream.range(0, 10).forEach(i -> {
+            sketch.add(hash(i));
+            expected.add(hash(i));
+        });
+        IntStream.range(5, 1_000).forEach(i -> {
+            other.add(hash(i));
+            expected.add(hash(i));
+        });
+        sketch.merge(other);
+        assertThat(sketch.snapshot().toBytes()).isEqualTo(expected.toBytes());
+        assertThatThrownBy(() -> sketch.merge(HyperLogLog.create(10)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long hash(int i) {
+        return HyperLogLog.hash("10.0." + (i >> 8) + "." + (i & 0xFF), "Mozilla/5.0");
+    }
+}
@@ -0,0 +1,47 @@
+package ru.job4j.urlshortcut.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvRecordTest {
+
+    @Test
+    void whenPlainFieldsThenSplitByCommas() {
+        assertThat(CsvRecord.parse("https://example.com,3600,,COUNTED"))
+                .containsExactly("https://example.com", "3600", "", "COUNTED");
+        assertThat(CsvRecord.parse("")).containsExactly("");
+        assertThat(CsvRecord.parse("a,")).containsExactly("a", "");
+    }
+
+    @Test
+    void whenQuotedFieldsThenCommasAndQuotesKept() {
+        assertThat(CsvRecord.parse("\"https://example.com/?a=1,2\",\"Say \"\"hi\"\"\",\"\""))
+                .containsExactly("https://example.com/?a=1,2", "Say \"hi\"", "");
+    }
+
+    @Test
+    void whenQuotesNotBalancedThenGetException() {
+        assertThatThrownBy(() -> CsvRecord.parse("\"open,field"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CsvRecord.parse("\"closed\"tail,field"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CsvRecord.parse("in\"side"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void whenWrittenThenQuotedOnlyWhenNecessaryAndParsedBack() throws IOException {
+        StringBuilder line = new StringBuilder();
+        CsvRecord.write(line, "plain");
+        line.append(',');
+        CsvRecord.write(line, null);
+        line.append(',');
+        CsvRecord.write(line, "a,\"b\"");
+        assertThat(line).hasToString("plain,,\"a,\"\"b\"\"\"");
+        assertThat(CsvRecord.parse(line.toString())).containsExactly("plain", "", "a,\"b\"");
+    }
+}
@@ -0,0 +1,45 @@
+package ru.job4j.urlshortcut.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FeistelPermutationTest {
+
+    @Test
+    void whenPermuteWholeDomainThenBijectionRestoredByInverse() {
+        FeistelPermutation permutation = new FeistelPermutation(1_000, 42L);
+        Set<Long> permuted = new HashSet<>();
+        for (long i = 0; i < 1_000; i++) {
+            long value = permutation.permute(i);
+            assertThat(value).isBetween(0L, 999L);
+            assertThat(permutation.inverse(value)).isEqualTo(i);
+            permuted.add(value);
+        }
+        assertThat(permuted).hasSize(1_000);
+    }
+
+    @Test
+    void whenKeysDifferThenPermutationsDiffer() {
+        FeistelPermutation first = new FeistelPermutation(55_884_102_752L, 1L);
+        FeistelPermutation second = new FeistelPermutation(55_884_102_752L, 2L);
+        assertThat(first.permute(0)).isNotEqualTo(second.permute(0));
+        assertThat(first.permute(1) - first.permute(0)).isNotEqualTo(1);
+        assertThat(first.inverse(first.permute(55_884_102_751L))).isEqualTo(55_884_102_751L);
+    }
+
+    @Test
+    void whenOutOfDomainThenGetException() {
+        FeistelPermutation permutation = new FeistelPermutation(10, 42L);
+        assertThatThrownBy(() -> permutation.permute(10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> permutation.inverse(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FeistelPermutation(1, 42L))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.job4j.urlshortcut.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtEncodingException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HmacJwtEncoderTest {
+
+    private final byte[] secret = "01234567".repeat(8).getBytes(StandardCharsets.US_ASCII);
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    private final JwtClaimsSet claims = JwtClaimsSet.builder()
+            .issuer("localhost")
+            .audience(List.of("localhost"))
+            .subject("example.com")
+            .claim("scope", "USER")
+            .issuedAt(now)
+            .expiresAt(now.plusSeconds(60))
+            .build();
+
+    @Test
+    void whenEncodedThenDecodedByNimbusWithSameClaims() {
+        for (MacAlgorithm algorithm : MacAlgorithm.values()) {
+            Jwt jwt = new HmacJwtEncoder(algorithm, secret)
+                    .encode(JwtEncoderParameters.from(claims));
+            Jwt decoded = NimbusJwtDecoder
+                    .withSecretKey(new SecretKeySpec(secret, "HMAC"))
+                    .macAlgorithm(algorithm).build()
+                    .decode(jwt.getTokenValue());
+            assertThat(decoded.getHeaders()).containsEntry("alg", algorithm.getName())
+                    .containsEntry("typ", "JWT");
+            assertThat(decoded.getSubject()).isEqualTo("example.com");
+            assertThat(decoded.getAudience()).containsExactly("localhost");
+            assertThat(decoded.getClaimAsString("scope")).isEqualTo("USER");
+            assertThat(decoded.getIssuedAt()).isEqualTo(now);
+            assertThat(decoded.getExpiresAt()).isEqualTo(jwt.getExpiresAt());
+        }
+    }
+
+    @Test
+    void whenSameHeaderRequestedThenEncoded() {
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).type("JWT").build();
+        assertThat(new HmacJwtEncoder(MacAlgorithm.HS256, secret)
+                .encode(JwtEncoderParameters.from(header, claims)).getTokenValue())
+                .startsWith("eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.");
+    }
+
+    @Test
+    void whenOtherHeaderRequestedThenGetException() {
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS512).type("JWT").build();
+        assertThatThrownBy(() -> new HmacJwtEncoder(MacAlgorithm.HS256, secret)
+                .encode(JwtEncoderParameters.from(header, claims)))
+                .isInstanceOf(JwtEncodingException.class);
+    }
+
+    @Test
+    void whenSecretTooShortThenGetException() {
+        assertThatThrownBy(() -> new HmacJwtEncoder(MacAlgorithm.HS512, new byte[32]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
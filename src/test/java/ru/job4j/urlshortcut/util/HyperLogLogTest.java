@@ -0,0 +1,94 @@
+package ru.job4j.urlshortcut.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    void whenManyDistinctThenEstimateWithinError() {
+        HyperLogLog sketch = HyperLogLog.create(12);
+        IntStream.range(0, 100_000).forEach(i -> sketch.add(hash(i)));
+        assertThat(sketch.estimate()).isCloseTo(100_000L, within(5_000L));
+    }
+
+    @Test
+    void whenFewDistinctThenEstimateIsNearExact() {
+        HyperLogLog sketch = HyperLogLog.create(12);
+        IntStream.range(0, 100).forEach(i -> sketch.add(hash(i)));
+        assertThat(sketch.estimate()).isCloseTo(100L, within(2L));
+        assertThat(HyperLogLog.create(12).estimate()).isZero();
+    }
+
+    @Test
+    void whenSameAddedAgainThenEstimateUnchanged() {
+        HyperLogLog sketch = HyperLogLog.create(12);
+        IntStream.range(0, 1_000).forEach(i -> sketch.add(hash(i)));
+        long estimate = sketch.estimate();
+        IntStream.range(0, 1_000).forEach(i -> sketch.add(hash(i)));
+        assertThat(sketch.estimate()).isEqualTo(estimate);
+    }
+
+    @Test
+    void whenMergedThenSameAsUnion() {
+        HyperLogLog first = HyperLogLog.create(10);
+        HyperLogLog second = HyperLogLog.create(10);
+        HyperLogLog union = HyperLogLog.create(10);
+        IntStream.range(0, 5_000).forEach(i -> {
+            first.add(hash(i));
+            union.add(hash(i));
+        });
+        IntStream.range(3_000, 8_000).forEach(i -> {
+            second.add(hash(i));
+            union.add(hash(i));
+        });
+        first.merge(second);
+        assertThat(first.toBytes()).isEqualTo(union.toBytes());
+    }
+
+    @Test
+    void whenReducedThenSameAsCreatedWithLowerPrecision() {
+        HyperLogLog high = HyperLogLog.create(14);
+        HyperLogLog low = HyperLogLog.create(10);
+        IntStream.range(0, 20_000).forEach(i -> {
+            high.add(hash(i));
+            low.add(hash(i));
+        });
+        assertThat(high.reduce(10).toBytes()).isEqualTo(low.toBytes());
+        assertThat(high.reduce(14).toBytes()).isEqualTo(high.toBytes());
+    }
+
+    @Test
+    void whenSerializedThenRestored() {
+        HyperLogLog sketch = HyperLogLog.create(8);
+        IntStream.range(0, 1_000).forEach(i -> sketch.add(hash(i)));
+        byte[] bytes = sketch.toBytes();
+        assertThat(bytes).hasSize(HyperLogLog.byteSize(8) + 1);
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+        assertThat(restored.precision()).isEqualTo(8);
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+    }
+
+    @Test
+    void whenInvalidParametersThenGetException() {
+        assertThatThrownBy(() -> HyperLogLog.create(3))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[0]))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[] {4, 0, 0}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.create(10).merge(HyperLogLog.create(12)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.create(10).reduce(12))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long hash(int i) {
+        return HyperLogLog.hash("10.0." + (i >> 8) + "." + (i & 0xFF), "Mozilla/5.0");
+    }
+}
@@ -0,0 +1,35 @@
+package ru.job4j.urlshortcut.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    @Test
+    void whenEncodedThenDecodedToSameCursor() {
+        PageCursor cursor = new PageCursor(
+                LocalDateTime.of(2026, 10, 17, 12, 30, 15, 123_456_000), UUID.randomUUID());
+        String encoded = cursor.encode();
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+        assertThat(PageCursor.decode(encoded)).isEqualTo(cursor);
+    }
+
+    @Test
+    void whenMalformedThenGetException() {
+        assertThatThrownBy(() -> PageCursor.decode("not a cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageCursor.decode("AAAA"))
+                .isInstanceOf(IllegalArgumentException.class);
+        byte[] bytes = new byte[28];
+        bytes[8] = (byte) 0xFF;
+        assertThatThrownBy(() -> PageCursor.decode(
+                Base64.getUrlEncoder().withoutPadding().encodeToString(bytes)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,78 @@
+package ru.job4j.urlshortcut.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpaceSavingTest {
+
+    @Test
+    void whenItemsFitCapacityThenCountsAreExact() {
+        SpaceSaving<String> summary = new SpaceSaving<>(10);
+        IntStream.range(0, 5).forEach(i -> summary.add("a"));
+        IntStream.range(0, 3).forEach(i -> summary.add("b"));
+        summary.add("c");
+        assertThat(summary.count("a")).isEqualTo(5L);
+        assertThat(summary.count("b")).isEqualTo(3L);
+        assertThat(summary.count("c")).isEqualTo(1L);
+        assertThat(summary.count("d")).isZero();
+        assertThat(summary.size()).isEqualTo(3);
+        assertThat(summary.threshold()).isZero();
+    }
+
+    @Test
+    void whenFullThenLeastCountedReplacedWithError() {
+        SpaceSaving<String> summary = new SpaceSaving<>(2);
+        IntStream.range(0, 5).forEach(i -> summary.add("a"));
+        IntStream.range(0, 2).forEach(i -> summary.add("b"));
+        summary.add("c");
+        Map<String, long[]> counters = new HashMap<>();
+        summary.forEach((item, count, error) -> counters.put(item, new long[] {count, error}));
+        assertThat(counters).containsOnlyKeys("a", "c");
+        assertThat(counters.get("a")).containsExactly(5L, 0L);
+        assertThat(counters.get("c")).containsExactly(3L, 2L);
+        assertThat(summary.threshold()).isEqualTo(3L);
+    }
+
+    @Test
+    void whenSkewedStreamThenHeavyHittersKeptWithinBounds() {
+        SpaceSaving<Integer> summary = new SpaceSaving<>(20);
+        Map<Integer, Long> actual = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 100_000; i++) {
+            int item = i % 4 == 0 ? random.nextInt(5) : random.nextInt(10_000);
+            summary.add(item);
+            actual.merge(item, 1L, Long::sum);
+        }
+        IntStream.range(0, 5).forEach(item -> assertThat(summary.count(item))
+                .isGreaterThanOrEqualTo(actual.get(item)));
+        summary.forEach((item, count, error) -> assertThat(actual.get(item))
+                .isBetween(count - error, count));
+    }
+
+    @Test
+    void whenClearedThenEmptyAndReusable() {
+        SpaceSaving<String> summary = new SpaceSaving<>(2);
+        summary.add("a");
+        summary.add("b");
+        summary.add("c");
+        summary.clear();
+        assertThat(summary.size()).isZero();
+        assertThat(summary.count("c")).isZero();
+        summary.add("d");
+        assertThat(summary.count("d")).isEqualTo(1L);
+        assertThat(summary.threshold()).isZero();
+    }
+
+    @Test
+    void whenInvalidCapacityThenGetException() {
+        assertThatThrownBy(() -> new SpaceSaving<String>(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
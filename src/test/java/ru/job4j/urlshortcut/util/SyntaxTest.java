@@ -0,0 +1,98 @@
+package ru.job4j.urlshortcut.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyntaxTest {
+
+    private static final Pattern PASSWORD = Pattern.compile("[a-zA-Z0-9]{8,256}");
+
+    private static final Pattern HOST_NAME = Pattern.compile(
+            "(?=.{1,253}$)[a-zA-Z0-9]([a-zA-Z0-9-]{0,61}[a-zA-Z0-9])?"
+                    + "(\\.[a-zA-Z0-9]([a-zA-Z0-9-]{0,61}[a-zA-Z0-9])?)*");
+
+    private final Random random = new Random(42);
+
+    /** Random string of the alphabet characters, biased to the length bounds. */
+    private String randomString(String alphabet, int maxLength) {
+        int length = random.nextInt(4) == 0 ? maxLength - 2 + random.nextInt(4)
+                : random.nextInt(maxLength);
+        StringBuilder builder = new StringBuilder(Math.max(length, 0));
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    /** Former {@code HostNameValidator} check by the {@link URL} parser. */
+    private static boolean isUrlHost(String host) {
+        try {
+            return !host.isBlank() && new URL("https://" + host).getHost().equals(host);
+        } catch (MalformedURLException exception) {
+            return false;
+        }
+    }
+
+    @Test
+    void whenPasswordCheckedThenSameAsRegularExpression() {
+        String[] alphabets = {"aZ09", "abcXYZ0189", "aZ0_-. !", "aZ0яё\u0000"};
+        for (int i = 0; i < 10_000; i++) {
+            String value = randomString(alphabets[i % alphabets.length], i % 2 == 0 ? 16 : 260);
+            assertThat(Syntax.isPassword(value))
+                    .as(value).isEqualTo(PASSWORD.matcher(value).matches());
+        }
+        assertThat(Syntax.isPassword("password")).isTrue();
+        assertThat(Syntax.isPassword("passwor")).isFalse();
+        assertThat(Syntax.isPassword("a".repeat(256))).isTrue();
+        assertThat(Syntax.isPassword("a".repeat(257))).isFalse();
+        assertThat(Syntax.isPassword(null)).isFalse();
+    }
+
+    @Test
+    void whenHostNameCheckedThenSameAsRfc1123() {
+        String[] alphabets = {"a.", "aZ9-.", "ab-.", "a0-._", "a.-:/@ ", "aé.-"};
+        for (int i = 0; i < 20_000; i++) {
+            String value = randomString(alphabets[i % alphabets.length], i % 4 == 0 ? 260 : 24);
+            assertThat(Syntax.isHostName(value))
+                    .as(value).isEqualTo(HOST_NAME.matcher(value).matches());
+        }
+        assertThat(Syntax.isHostName("example.com")).isTrue();
+        assertThat(Syntax.isHostName("127.0.0.1")).isTrue();
+        assertThat(Syntax.isHostName("a".repeat(63) + ".com")).isTrue();
+        assertThat(Syntax.isHostName("a".repeat(64) + ".com")).isFalse();
+        assertThat(Syntax.isHostName("-example.com")).isFalse();
+        assertThat(Syntax.isHostName("example-.com")).isFalse();
+        assertThat(Syntax.isHostName("example..com")).isFalse();
+        assertThat(Syntax.isHostName(".example.com")).isFalse();
+        assertThat(Syntax.isHostName("")).isFalse();
+        assertThat(Syntax.isHostName(null)).isFalse();
+    }
+
+    @Test
+    void whenHostNameAcceptedThenFormerValidatorAccepted() {
+        String[] alphabets = {"aZ9-.", "a-.:/@#? ", "a0.%[]"};
+        int accepted = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String value = randomString(alphabets[i % alphabets.length], 20);
+            if (Syntax.isHostName(value)) {
+                accepted++;
+                assertThat(isUrlHost(value)).as(value).isTrue();
+            }
+        }
+        assertThat(accepted).isGreaterThan(100);
+    }
+
+    @Test
+    void whenHexDigitThenSameAsCharacterDigit() {
+        for (char c = 0; c < 512; c++) {
+            int expected = c < 128 ? Character.digit(c, 16) : -1;
+            assertThat(Syntax.hexDigit(c)).as("%d", (int) c).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package ru.job4j.urlshortcut.util;
+
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.filter.ContextChangeSetFilter;
+import liquibase.changelog.filter.DbmsChangeSetFilter;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.LiquibaseException;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlDigestMigrationTest {
+
+    private static final String CHANGELOG = "db/changelog/000-changelog-main.yaml";
+
+    private final Contexts contexts = new Contexts("test");
+    private final UUID server = UUID.randomUUID();
+    private final LocalDateTime time = LocalDateTime.now().minusDays(1);
+    private Connection connection;
+    private Liquibase liquibase;
+
+    @BeforeEach
+    void beforeEach() throws SQLException, LiquibaseException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID()
+                + ";MODE=PostgreSQL;CASE_INSENSITIVE_IDENTIFIERS=TRUE", "sa", "");
+        Database database = DatabaseFactory.getInstance()
+                .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+        liquibase = new Liquibase(CHANGELOG, new ClassLoaderResourceAccessor(), database);
+    }
+
+    @AfterEach
+    void afterEach() throws SQLException {
+        connection.close();
+    }
+
+    /** Applies the changesets preceding the first one of the changelog file. */
+    private void updateBefore(String file) throws LiquibaseException {
+        ContextChangeSetFilter contextFilter = new ContextChangeSetFilter(contexts);
+        DbmsChangeSetFilter dbmsFilter = new DbmsChangeSetFilter(liquibase.getDatabase());
+        int count = 0;
+        for (ChangeSet changeSet : liquibase.getDatabaseChangeLog().getChangeSets()) {
+            if (changeSet.getFilePath().contains(file)) {
+                break;
+            }
+            if (contextFilter.accepts(changeSet).isAccepted()
+                    && dbmsFilter.accepts(changeSet).isAccepted()) {
+                count++;
+            }
+        }
+        liquibase.update(count, contexts, new LabelExpression());
+    }
+
+    private void insertServer() throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement("""
+                INSERT INTO servers (server_uuid, host, password, created, updated, status)
+                VALUES (?, 'example.com', 'password', ?, ?, 'REGISTERED')""")) {
+            insert.setObject(1, server);
+            insert.setTimestamp(2, Timestamp.valueOf(time));
+            insert.setTimestamp(3, Timestamp.valueOf(time));
+            insert.executeUpdate();
+        }
+    }
+
+    private UUID insertUrl(String url, String code, int age) throws SQLException {
+        return insertUrl(url, code, age, null);
+    }
+
+    private UUID insertUrl(String url, String code, int age, byte[] digest) throws SQLException {
+        UUID uuid = UUID.randomUUID();
+        try (PreparedStatement insert = connection.prepareStatement(digest == null ? """
+                INSERT INTO urls (url_uuid, code, server_uuid, url, created, expired, status)
+                VALUES (?, ?, ?, ?, ?, ?, 'REGISTERED')""" : """
+                INSERT INTO urls (url_uuid, code, server_uuid, url, created, expired, status,
+                    url_digest)
+                VALUES (?, ?, ?, ?, ?, ?, 'REGISTERED', ?)""")) {
+            insert.setObject(1, uuid);
+            insert.setString(2, code);
+            insert.setObject(3, server);
+            insert.setString(4, url);
+            insert.setTimestamp(5, Timestamp.valueOf(time.minusMinutes(age)));
+            insert.setTimestamp(6, Timestamp.valueOf(time.plusYears(1)));
+            if (digest != null) {
+                insert.setBytes(7, digest);
+            }
+            insert.executeUpdate();
+        }
+        return uuid;
+    }
+
+    private void insertVisits(UUID url, long visits) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO url_visit_counters (url_uuid, visits) VALUES (?, ?)")) {
+            insert.setObject(1, url);
+            insert.setLong(2, visits);
+            insert.executeUpdate();
+        }
+    }
+
+    private byte[] digest(UUID url) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT url_digest FROM urls WHERE url_uuid = ?")) {
+            select.setObject(1, url);
+            try (ResultSet rows = select.executeQuery()) {
+                assertThat(rows.next()).isTrue();
+                return rows.getBytes(1);
+            }
+        }
+    }
+
+    private List<UUID> select(String sql) throws SQLException {
+        List<UUID> result = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(sql);
+             ResultSet rows = select.executeQuery()) {
+            while (rows.next()) {
+                result.add(rows.getObject(1, UUID.class));
+            }
+        }
+        return result;
+    }
+
+    @Test
+    void whenStoredUrlsCanonicallyEqualThenOldestKeptAndOthersMarked() throws Exception {
+        updateBefore("018-");
+        insertServer();
+        UUID newest = insertUrl("http://example.com:80/a", "c", 1);
+        UUID oldest = insertUrl("HTTP://Example.com/a", "a", 3);
+        UUID middle = insertUrl("http://EXAMPLE.com/a", "b", 2);
+        UUID other = insertUrl("http://example.com/b", "d", 1);
+        insertVisits(newest, 5L);
+        connection.commit();
+        liquibase.update(contexts);
+        assertThat(select("SELECT url_uuid FROM urls"))
+                .containsExactlyInAnyOrder(oldest, other, newest, middle);
+        assertThat(select("SELECT url_uuid FROM urls_duplicates"))
+                .containsExactlyInAnyOrder(newest, middle);
+        assertThat(select("SELECT kept_url_uuid FROM urls_duplicates")).containsOnly(oldest);
+        assertThat(digest(oldest)).isEqualTo(UrlDigest.of("http://example.com/a"));
+        assertThat(digest(newest)).isEqualTo(UrlDigest.duplicate(newest));
+        assertThat(select("SELECT url_uuid FROM url_visit_counters")).containsExactly(newest);
+    }
+
+    @Test
+    void whenRewrittenUrlsCanonicallyEqualThenOldestKeptAndOthersMarked() throws Exception {
+        updateBefore("019-");
+        insertServer();
+        String canonical = "https://example.com/~user";
+        UUID stored = insertUrl(canonical, "a", 2, UrlDigest.of(canonical));
+        UUID oldest = insertUrl("https://example.com/%7euser", "b", 3, OpaqueToken.digest("b"));
+        UUID newest = insertUrl("https://example.com/%7Euser", "c", 1, OpaqueToken.digest("c"));
+        UUID other = insertUrl("https://example.com/%7eother", "d", 1, OpaqueToken.digest("d"));
+        UUID invalid = insertUrl("mailto:user@example.com", "e", 1, OpaqueToken.digest("e"));
+        insertVisits(stored, 7L);
+        connection.commit();
+        liquibase.update(contexts);
+        assertThat(select("SELECT url_uuid FROM urls"))
+                .containsExactlyInAnyOrder(oldest, other, stored, newest, invalid);
+        assertThat(select("SELECT url_uuid FROM urls_duplicates"))
+                .containsExactlyInAnyOrder(stored, newest);
+        assertThat(select("SELECT kept_url_uuid FROM urls_duplicates")).containsOnly(oldest);
+        assertThat(digest(stored)).isEqualTo(UrlDigest.duplicate(stored));
+        assertThat(digest(newest)).isEqualTo(UrlDigest.duplicate(newest));
+        assertThat(digest(invalid)).isEqualTo(UrlDigest.of("mailto:user@example.com"));
+        assertThat(select("SELECT url_uuid FROM url_visit_counters")).containsExactly(stored);
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT url, url_digest FROM urls WHERE url_uuid = ?")) {
+            select.setObject(1, oldest);
+            try (ResultSet rows = select.executeQuery()) {
+                assertThat(rows.next()).isTrue();
+                assertThat(rows.getString(1)).isEqualTo(canonical);
+                assertThat(rows.getBytes(2)).isEqualTo(UrlDigest.of(canonical));
+            }
+        }
+        UrlDigestBackfill rerun = new UrlDigestBackfill();
+        rerun.setRefresh(true);
+        rerun.execute(liquibase.getDatabase());
+        assertThat(rerun.getConfirmationMessage()).isEqualTo("Digests of 0 URLs filled, "
+                + "0 duplicate URLs marked, 1 invalid URLs digested as stored");
+    }
+}
@@ -0,0 +1,32 @@
+package ru.job4j.urlshortcut.util;
+
+import org.junit.jupiter.api.Test;
+import ru.job4j.urlshortcut.model.ShortcutTarget;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlDigestTest {
+
+    @Test
+    void whenEquivalentUrlsThenSameDigest() {
+        assertThat(UrlDigest.of(ShortcutTarget.parse("HTTPS://Example.COM:443")))
+                .isEqualTo(UrlDigest.of(ShortcutTarget.parse("https://example.com/")));
+        assertThat(UrlDigest.of("https://EXAMPLE.com/%7euser"))
+                .isEqualTo(UrlDigest.of(ShortcutTarget.parse("https://example.com/~user")));
+    }
+
+    @Test
+    void whenPathOrSchemeDifferThenDigestsDiffer() {
+        assertThat(UrlDigest.of(ShortcutTarget.parse("https://example.com/path")))
+                .isNotEqualTo(UrlDigest.of(ShortcutTarget.parse("https://example.com/Path")));
+        assertThat(UrlDigest.of(ShortcutTarget.parse("https://example.com/path")))
+                .isNotEqualTo(UrlDigest.of(ShortcutTarget.parse("http://example.com/path")));
+    }
+
+    @Test
+    void whenDigestThenFixedWidth() {
+        assertThat(UrlDigest.of(ShortcutTarget.parse("https://example.com/" + "a".repeat(8000))))
+                .hasSize(UrlDigest.SIZE);
+        assertThat(UrlDigest.of("not a URL")).hasSize(UrlDigest.SIZE);
+    }
+}
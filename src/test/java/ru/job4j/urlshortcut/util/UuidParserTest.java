@@ -0,0 +1,35 @@
+package ru.job4j.urlshortcut.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidParserTest {
+
+    @Test
+    void whenParseCanonicalThenGetSameAsJdk() {
+        for (int i = 0; i < 100; i++) {
+            UUID uuid = UUID.randomUUID();
+            assertThat(UuidParser.parse(uuid.toString())).isEqualTo(uuid);
+            assertThat(UuidParser.parse(uuid.toString().toUpperCase())).isEqualTo(uuid);
+        }
+        assertThat(UuidParser.parse("ffffffff-ffff-ffff-ffff-ffffffffffff"))
+                .isEqualTo(new UUID(-1L, -1L));
+    }
+
+    @Test
+    void whenParseMalformedThenGetSentinel() {
+        String valid = UUID.randomUUID().toString();
+        assertThat(UuidParser.parse(null)).isSameAs(UuidParser.INVALID);
+        assertThat(UuidParser.parse("")).isSameAs(UuidParser.INVALID);
+        assertThat(UuidParser.parse(valid.substring(1))).isSameAs(UuidParser.INVALID);
+        assertThat(UuidParser.parse(valid + "0")).isSameAs(UuidParser.INVALID);
+        assertThat(UuidParser.parse("g" + valid.substring(1))).isSameAs(UuidParser.INVALID);
+        assertThat(UuidParser.parse(valid.replace('-', '0'))).isSameAs(UuidParser.INVALID);
+        assertThat(UuidParser.parse("0" + valid.substring(0, 8) + valid.substring(9)))
+                .isSameAs(UuidParser.INVALID);
+        assertThat(UuidParser.parse("０" + valid.substring(1))).isSameAs(UuidParser.INVALID);
+    }
+}
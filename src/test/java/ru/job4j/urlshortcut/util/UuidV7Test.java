@@ -0,0 +1,62 @@
+package ru.job4j.urlshortcut.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7Test {
+
+    @Test
+    void whenNextThenGetVersion7AndRfcVariant() {
+        UUID uuid = UuidV7.next();
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void whenNextThenTimestampIsCurrentTime() {
+        long before = System.currentTimeMillis();
+        long timestamp = UuidV7.next().getMostSignificantBits() >>> 16;
+        assertThat(timestamp).isBetween(before, System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    void whenTimestampThenGetGenerationTimeOrMinusOneForOtherVersions() {
+        long before = System.currentTimeMillis();
+        assertThat(UuidV7.timestamp(UuidV7.next()))
+                .isBetween(before, System.currentTimeMillis() + 1);
+        assertThat(UuidV7.timestamp(UuidV7.lowerBound(before))).isEqualTo(-1L);
+        assertThat(UuidV7.timestamp(UUID.randomUUID())).isEqualTo(-1L);
+    }
+
+    @Test
+    void whenNextManyThenStrictlyMonotonic() {
+        List<UUID> uuids = IntStream.range(0, 10_000).mapToObj(i -> UuidV7.next()).toList();
+        for (int i = 1; i < uuids.size(); i++) {
+            assertThat(Long.compareUnsigned(uuids.get(i - 1).getMostSignificantBits(),
+                    uuids.get(i).getMostSignificantBits())).isNegative();
+        }
+    }
+
+    @Test
+    void whenNextConcurrentlyThenAllUnique() throws InterruptedException {
+        Set<UUID> uuids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.execute(() -> IntStream.range(0, 10_000)
+                    .forEach(j -> uuids.add(UuidV7.next())));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(uuids).hasSize(80_000);
+    }
+}